@@ -0,0 +1,60 @@
+package benchmark;
+
+import java.util.Random;
+
+import exception.ImageProcessorException;
+import factories.Factory;
+import model.enumeration.ImageStorageType;
+import model.pixels.Pixel;
+import model.visual.Image;
+
+/**
+ * Utility class creating the images the benchmarks run on.
+ * Images are filled with seeded random noise plus a smooth gradient, so that
+ * every run works on the same pixels and compression and the codecs see
+ * content closer to a photo than pure noise.
+ */
+final class BenchmarkImages {
+
+  private static final long SEED = 5010;
+
+  private BenchmarkImages() {
+    // Prevent instantiation
+  }
+
+  /**
+   * Creates a square image of the given size stored using the given
+   * storage type.
+   *
+   * @param size        the width and height of the image
+   * @param storageType the way the pixels of the image are stored
+   * @return the image
+   * @throws ImageProcessorException if the image cannot be created
+   */
+  static Image create(int size, ImageStorageType storageType) throws
+          ImageProcessorException {
+    Random random = new Random(SEED);
+    Pixel[][] pixels = new Pixel[size][size];
+    for (int row = 0; row < size; row++) {
+      for (int col = 0; col < size; col++) {
+        int gradient = 255 * (row + col) / (2 * size);
+        pixels[row][col] = Factory.createRGBPixel(
+                mix(gradient, random.nextInt(256)),
+                mix(255 - gradient, random.nextInt(256)),
+                mix(gradient / 2, random.nextInt(256)));
+      }
+    }
+    return Factory.createImage(pixels, storageType);
+  }
+
+  /**
+   * Mixes a gradient value with a quarter of noise.
+   *
+   * @param gradient the gradient value
+   * @param noise    the noise value
+   * @return the mixed value between 0 and 255
+   */
+  private static int mix(int gradient, int noise) {
+    return (3 * gradient + noise) / 4;
+  }
+}
@@ -0,0 +1,40 @@
+package benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks of the image processor with the GC profiler, so the
+ * results report the allocation rate next to throughput and latency.
+ * Any JMH command line option can be passed, for example a regular
+ * expression to run only some benchmarks or -p size=512 to run one size.
+ */
+public class BenchmarkRunner {
+
+  private BenchmarkRunner() {
+    // Prevent instantiation
+  }
+
+  /**
+   * Runs the benchmarks.
+   *
+   * @param args the JMH command line options
+   * @throws CommandLineOptionException if the options are invalid
+   * @throws RunnerException            if a benchmark fails
+   */
+  public static void main(String[] args) throws CommandLineOptionException,
+          RunnerException {
+    CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+    OptionsBuilder options = new OptionsBuilder();
+    options.parent(commandLineOptions);
+    if (commandLineOptions.getIncludes().isEmpty()) {
+      options.include(BenchmarkRunner.class.getPackage().getName() + ".");
+    }
+    options.addProfiler(GCProfiler.class);
+    new Runner(options.build()).run();
+  }
+}
@@ -0,0 +1,95 @@
+package benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import exception.ImageProcessorException;
+import model.enumeration.ImageStorageType;
+import model.enumeration.ImageType;
+import model.visual.Image;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import utility.IOUtils;
+
+/**
+ * Benchmarks reading and writing images with IOUtils in the PPM, PNG and
+ * JPG formats.
+ * The image to read is written once per trial into a temporary directory,
+ * which is deleted when the trial ends.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IOBenchmark {
+
+  @Param({"64", "512", "2048"})
+  public int size;
+
+  @Param({"PPM", "PNG", "JPG"})
+  public ImageType imageType;
+
+  private Path directory;
+  private Image image;
+  private String readPath;
+  private String writePath;
+
+  /**
+   * Creates the image and writes the file to read.
+   *
+   * @throws ImageProcessorException if the image cannot be created or
+   *                                 written
+   * @throws IOException             if the temporary directory cannot be
+   *                                 created
+   */
+  @Setup
+  public void setUp() throws ImageProcessorException, IOException {
+    directory = Files.createTempDirectory("image-io-benchmark");
+    image = BenchmarkImages.create(size, ImageStorageType.PACKED);
+    readPath = directory.resolve("read." + imageType.getExtension())
+            .toString();
+    writePath = directory.resolve("write." + imageType.getExtension())
+            .toString();
+    IOUtils.write(image, readPath, imageType);
+  }
+
+  /**
+   * Deletes the temporary directory and the files in it.
+   */
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    File[] files = directory.toFile().listFiles();
+    if (files != null) {
+      for (File file : files) {
+        file.delete();
+      }
+    }
+    directory.toFile().delete();
+  }
+
+  @Benchmark
+  public Image read() throws ImageProcessorException {
+    return IOUtils.read(readPath, imageType);
+  }
+
+  @Benchmark
+  public void write() throws ImageProcessorException {
+    IOUtils.write(image, writePath, imageType);
+  }
+}
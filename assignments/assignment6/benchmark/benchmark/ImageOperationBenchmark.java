@@ -0,0 +1,182 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import exception.ImageProcessorException;
+import model.enumeration.CompressionType;
+import model.enumeration.FilterOption;
+import model.enumeration.ImageStorageType;
+import model.pixels.ChannelLookupTable;
+import model.visual.Image;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks every public operation of Image.
+ * Every operation is run on square images of several sizes, stored both as
+ * a Pixel array and as packed pixels, and is measured as throughput and as
+ * sampled latency. Images are created once per trial, outside the
+ * measurement.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImageOperationBenchmark {
+
+  @Param({"64", "512", "2048"})
+  public int size;
+
+  @Param({"PIXEL_ARRAY", "PACKED"})
+  public ImageStorageType storageType;
+
+  private Image image;
+  private Image other;
+  private ChannelLookupTable lookupTable;
+
+  /**
+   * Creates the images for the current size and storage type.
+   *
+   * @throws ImageProcessorException if the images cannot be created
+   */
+  @Setup
+  public void setUp() throws ImageProcessorException {
+    image = BenchmarkImages.create(size, storageType);
+    other = image.getSepia();
+    lookupTable = ChannelLookupTable.brightness(20)
+            .andThen(ChannelLookupTable.quadratic(0, 128, 255));
+  }
+
+  @Benchmark
+  public void getPixel(Blackhole blackhole) {
+    for (int row = 0; row < size; row++) {
+      for (int col = 0; col < size; col++) {
+        blackhole.consume(image.getPixel(row, col));
+      }
+    }
+  }
+
+  @Benchmark
+  public Image adjustImageBrightness() throws ImageProcessorException {
+    return image.adjustImageBrightness(20);
+  }
+
+  @Benchmark
+  public Image createRedComponent() throws ImageProcessorException {
+    return image.createRedComponent();
+  }
+
+  @Benchmark
+  public Image createGreenComponent() throws ImageProcessorException {
+    return image.createGreenComponent();
+  }
+
+  @Benchmark
+  public Image createBlueComponent() throws ImageProcessorException {
+    return image.createBlueComponent();
+  }
+
+  @Benchmark
+  public Image getLuma() throws ImageProcessorException {
+    return image.getLuma();
+  }
+
+  @Benchmark
+  public Image getSepia() throws ImageProcessorException {
+    return image.getSepia();
+  }
+
+  @Benchmark
+  public Image getIntensity() throws ImageProcessorException {
+    return image.getIntensity();
+  }
+
+  @Benchmark
+  public Image getValue() throws ImageProcessorException {
+    return image.getValue();
+  }
+
+  @Benchmark
+  public Image horizontalFlip() throws ImageProcessorException {
+    return image.horizontalFlip();
+  }
+
+  @Benchmark
+  public Image verticalFlip() throws ImageProcessorException {
+    return image.verticalFlip();
+  }
+
+  @Benchmark
+  public Image blur() throws ImageProcessorException {
+    return image.applyFilter(FilterOption.GAUSSIAN_BLUR);
+  }
+
+  @Benchmark
+  public Image sharpen() throws ImageProcessorException {
+    return image.applyFilter(FilterOption.SHARPEN);
+  }
+
+  @Benchmark
+  public void getChannels(Blackhole blackhole) {
+    blackhole.consume(image.getRedChannel());
+    blackhole.consume(image.getGreenChannel());
+    blackhole.consume(image.getBlueChannel());
+  }
+
+  @Benchmark
+  public Image colorCorrect() throws ImageProcessorException {
+    return image.colorCorrect();
+  }
+
+  @Benchmark
+  public Image combineImages() throws ImageProcessorException {
+    return image.combineImages(other, 50);
+  }
+
+  @Benchmark
+  public Image compressHaar() throws ImageProcessorException {
+    return image.compress(CompressionType.HAAR, 50);
+  }
+
+  @Benchmark
+  public Image compressHaarRectangular() throws ImageProcessorException {
+    return image.compress(CompressionType.HAAR_RECTANGULAR, 50);
+  }
+
+  @Benchmark
+  public Image histogram() throws ImageProcessorException {
+    return image.histogram();
+  }
+
+  @Benchmark
+  public Object colorHistogram() {
+    return image.colorHistogram();
+  }
+
+  @Benchmark
+  public Image levelsAdjust() throws ImageProcessorException {
+    return image.levelsAdjust(20, 128, 230);
+  }
+
+  @Benchmark
+  public Image applyLookupTable() throws ImageProcessorException {
+    return image.applyLookupTable(lookupTable);
+  }
+
+  @Benchmark
+  public Image downscale() throws ImageProcessorException {
+    return image.downscale(size / 2, size / 3);
+  }
+}
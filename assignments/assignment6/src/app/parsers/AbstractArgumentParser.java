@@ -2,7 +2,6 @@ package app.parsers;
 
 import controller.services.ImageProcessingService;
 import factories.Factory;
-import model.memory.HashMapMemory;
 
 /**
  * AbstractArgumentParser class that implements the ArgumentParser interface.
@@ -19,11 +18,14 @@ public abstract class AbstractArgumentParser implements ArgumentParser {
 
   /**
    * This method is used to create an image processing service.
-   * The memory used by the service is a HashMapMemory.
+   * The memory used by the service is created by Factory.createImageMemory,
+   * a HashMapMemory unless a memory budget is configured.
+   * The time and memory taken by every command are recorded.
    *
    * @return The service that was created.
    */
   protected ImageProcessingService createService() {
-    return Factory.createImageProcessor(new HashMapMemory());
+    return Factory.createInstrumentedImageProcessor(
+            Factory.createImageMemory());
   }
 }
@@ -0,0 +1,66 @@
+package app.parsers;
+
+import java.nio.file.Paths;
+
+import controller.BatchImageProcessorController;
+import controller.ImageProcessorController;
+import exception.ImageProcessingRunTimeException;
+import factories.Factory;
+import model.memory.ConcurrentImageMemory;
+import utility.StringUtils;
+import view.text.ConsoleOutput;
+
+/**
+ * A class that represents a parser for batch arguments.
+ * This class is responsible for creating a batch controller based on the
+ * arguments required for batch mode: the script template, the directory or
+ * glob of the images and optionally the number of workers, which defaults to
+ * the number of available processors.
+ */
+public class BatchArgumentParser extends AbstractArgumentParser {
+
+  @Override
+  public ImageProcessorController createController(String[] args) throws
+          ImageProcessingRunTimeException {
+    if (args.length < 3 || StringUtils.isNullOrEmpty(args[1])
+            || StringUtils.isNullOrEmpty(args[2])) {
+      throw new ImageProcessingRunTimeException("Batch mode needs a script "
+              + "template and an input directory or glob");
+    }
+    // Every image gets its own session so the scripts can use the same names.
+    ConcurrentImageMemory memory = new ConcurrentImageMemory();
+    return new BatchImageProcessorController(
+            Paths.get(args[1]),
+            args[2],
+            getWorkersFromArgs(args),
+            () -> Factory.createInstrumentedImageProcessor(
+                    memory.openSession()),
+            new ConsoleOutput(System.out)
+    );
+  }
+
+  /**
+   * Gets the number of workers from the command line arguments.
+   * The number of workers is the optional fourth argument.
+   *
+   * @param args The command line arguments.
+   * @return The number of workers.
+   * @throws ImageProcessingRunTimeException If the number of workers is not
+   *                                         a positive number.
+   */
+  private int getWorkersFromArgs(String[] args) throws ImageProcessingRunTimeException {
+    if (args.length < 4) {
+      return Runtime.getRuntime().availableProcessors();
+    }
+    try {
+      int workers = Integer.parseInt(args[3]);
+      if (workers > 0) {
+        return workers;
+      }
+    } catch (NumberFormatException e) {
+      // Reported below.
+    }
+    throw new ImageProcessingRunTimeException(String.format("Invalid number "
+            + "of workers: %s", args[3]));
+  }
+}
@@ -6,6 +6,7 @@ import java.io.StringReader;
 import controller.CommandLineImageProcessorController;
 import controller.ImageProcessorController;
 import exception.ImageProcessingRunTimeException;
+import factories.Factory;
 import utility.StringUtils;
 import view.text.ConsoleInput;
 import view.text.ConsoleOutput;
@@ -23,7 +24,8 @@ public class CommandLineArgumentParser extends AbstractArgumentParser {
     return new CommandLineImageProcessorController(
             new ConsoleInput(new StringReader(getFileNameFromArgs(args))),
             new ConsoleOutput(System.out),
-            createService()
+            createService(),
+            Factory.createScriptExecutor()
     );
   }
 
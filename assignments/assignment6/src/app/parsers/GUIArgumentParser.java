@@ -1,5 +1,7 @@
 package app.parsers;
 
+import java.util.concurrent.Executors;
+
 import controller.GUIImageProcessorController;
 import controller.ImageProcessorController;
 import exception.ImageProcessingRunTimeException;
@@ -17,6 +19,8 @@ public class GUIArgumentParser extends AbstractArgumentParser {
   /**
    * Constructs a GUIArgumentParser.
    * No arguments are passed.
+   * The image operations are run one at a time on a background thread, so
+   * the window stays responsive while they run.
    *
    */
   @Override
@@ -26,7 +30,12 @@ public class GUIArgumentParser extends AbstractArgumentParser {
             new SwingInput(),
             new SwingOutput(),
             createService(),
-            new StringMemory()
+            new StringMemory(),
+            Executors.newSingleThreadExecutor(runnable -> {
+              Thread thread = new Thread(runnable, "gui-image-operation");
+              thread.setDaemon(true);
+              return thread;
+            })
     );
   }
 }
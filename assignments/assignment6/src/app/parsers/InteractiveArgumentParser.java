@@ -5,6 +5,7 @@ import java.io.InputStreamReader;
 import controller.ImageProcessorController;
 import controller.InteractiveImageProcessorController;
 import exception.ImageProcessingRunTimeException;
+import factories.Factory;
 import view.text.ConsoleInput;
 import view.text.ConsoleOutput;
 
@@ -29,7 +30,8 @@ public class InteractiveArgumentParser extends AbstractArgumentParser {
             new ConsoleOutput(
                     System.out
             ),
-            createService()
+            createService(),
+            Factory.createScriptExecutor()
     );
   }
 }
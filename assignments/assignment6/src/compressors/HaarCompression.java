@@ -1,12 +1,14 @@
 package compressors;
 
-import java.util.Arrays;
 import java.util.Objects;
 
 import exception.ImageProcessorException;
 import factories.Factory;
 import model.pixels.Pixel;
 import model.visual.Image;
+import model.visual.PackedImage;
+import utility.ParallelUtils;
+import utility.events.CompressionEvent;
 
 /**
  * A class to represent the Haar compression of an image.
@@ -16,9 +18,28 @@ import model.visual.Image;
  * The compression is done by setting the values below a threshold to 0.
  * The compressed image is then reconstructed by applying the inverse Haar
  * transform.
+ *
+ * <p>The transform runs in place on a single flat array per channel.
+ * Instead of moving the averages to the first half and the differences to
+ * the second half after every pass, every pass combines values which are
+ * a stride apart and leaves the results in place, so the averages of the
+ * next level are at every second position of the current level. Columns
+ * are transformed a pair of rows at a time so the memory is read row by
+ * row. The values computed are the same as moving the averages and
+ * differences around, only their position in the array differs.
  */
 public class HaarCompression implements Compression {
 
+  /**
+   * Square root of two which normalises the average and difference.
+   */
+  private static final double SQRT_TWO = Math.sqrt(2);
+
+  /**
+   * Shifts of the red, green and blue channels in a packed pixel.
+   */
+  private static final int[] SHIFTS = {16, 8, 0};
+
   /**
    * Constructs a HaarCompression object.
    * Empty constructor since there are no fields
@@ -29,105 +50,52 @@ public class HaarCompression implements Compression {
   }
 
   /**
-   * Converts the given 2D double array to a 2D integer array.
+   * Applies the Haar transform in place to the given matrix stored in row
+   * major order.
+   * Iteratively applies the Haar transform to rows and columns of the
+   * averages until a single average is left. Once the rows or the columns
+   * are down to a single average, only the other direction is transformed.
    *
-   * @param data the 2D double array to convert
-   * @return the 2D integer array
+   * @param data the matrix to apply the Haar transform to
+   * @param rows the number of rows of the matrix, a power of 2
+   * @param cols the number of columns of the matrix, a power of 2
    */
-  private int[][] fromDoubleArray(double[][] data) {
-    int[][] cleanedData = new int[data.length][data[0].length];
-    for (int i = 0; i < data.length; i++) {
-      for (int j = 0; j < data[0].length; j++) {
-        cleanedData[i][j] = (int) Math.round(data[i][j]);
+  private void haar(double[] data, int rows, int cols) {
+    int rowStride = 1;
+    int colStride = 1;
+    while (rowStride < rows || colStride < cols) {
+      if (colStride < cols) {
+        transformRows(data, rows, cols, rowStride, colStride);
       }
-    }
-    return cleanedData;
-  }
-
-  /**
-   * Applies the Haar transform to the given 2D double array
-   * Pads the data to a square matrix, then iteratively applies the Haar
-   * transform
-   * to rows and columns until the matrix length is reduced to 1.
-   *
-   * @param data the 2D double array to apply the Haar transform to
-   * @return the new 2D double array with the Haar transform applied
-   */
-  private double[][] haar(double[][] data) {
-    // Pad the data to a square matrix
-    double[][] squareMatrix = padToSquareMatrix(data);
-
-    int squareMatrixLength = squareMatrix.length;
-
-    double[][] haarTransformData = Arrays.copyOf(squareMatrix,
-            squareMatrixLength);
-
-    // Apply the Haar transform to the data until the square matrix length is 1
-    while (squareMatrixLength > 1) {
-
-      for (int row = 0; row < squareMatrixLength; row++) {
-
-        // Transform the row part of the data
-        double[] transformedSubset =
-                transform(haarTransformData[row], squareMatrixLength);
-        System.arraycopy(transformedSubset, 0, haarTransformData[row], 0,
-                squareMatrixLength);
+      if (rowStride < rows) {
+        transformColumns(data, rows, cols, rowStride, colStride);
       }
-
-      // Transform the column part of the data
-      for (int column = 0; column < squareMatrixLength; column++) {
-        double[] columnSubset = new double[squareMatrixLength];
-        for (int i = 0; i < squareMatrixLength; i++) {
-          columnSubset[i] = haarTransformData[i][column];
-        }
-        double[] columnSequenceSubset = transform(columnSubset,
-                squareMatrixLength);
-
-        for (int i = 0; i < squareMatrixLength; i++) {
-          haarTransformData[i][column] = columnSequenceSubset[i];
-        }
-      }
-      // Reduce the square matrix length by half
-      squareMatrixLength /= 2;
+      rowStride = Math.min(rowStride * 2, rows);
+      colStride = Math.min(colStride * 2, cols);
     }
-
-    return haarTransformData;
   }
 
   /**
-   * Applies the inverse Haar transform to the given 2D double array.
+   * Applies the inverse Haar transform in place to the given matrix stored
+   * in row major order.
+   * Columns are inverted before rows, starting from the coarsest level.
    *
-   * @param data the 2D double array to apply the inverse Haar transform to
-   * @return the new 2D double array with the inverse Haar transform applied
+   * @param data the matrix to apply the inverse Haar transform to
+   * @param rows the number of rows of the matrix, a power of 2
+   * @param cols the number of columns of the matrix, a power of 2
    */
-  private double[][] invhaar(double[][] data) {
-    int length = 2;
-    double[][] invhaarData = Arrays.copyOf(data, data.length);
-
-    // Apply the inverse Haar transform until the length starting from 2
-    // reaches the length of the data
-    while (length <= invhaarData.length) {
-      // In the inverse Haar transform, we first invert the column part of the
-      // data
-      for (int column = 0; column < length; column++) {
-        double[] columnSubset = new double[length];
-        for (int i = 0; i < length; i++) {
-          columnSubset[i] = invhaarData[i][column];
-        }
-        double[] invertedColumn = invert(columnSubset, length);
-        for (int i = 0; i < length; i++) {
-          invhaarData[i][column] = invertedColumn[i];
-        }
+  private void invhaar(double[] data, int rows, int cols) {
+    int levels = Integer.numberOfTrailingZeros(Math.max(rows, cols));
+    for (int level = levels - 1; level >= 0; level--) {
+      int rowStride = 1 << level;
+      int colStride = 1 << level;
+      if (rowStride < rows) {
+        transformColumns(data, rows, cols, rowStride, Math.min(colStride, cols));
       }
-      // After column inversion, row is inverted
-      for (int row = 0; row < length; row++) {
-        double[] rowSubset = Arrays.copyOfRange(invhaarData[row], 0, length);
-        double[] invertedRow = invert(rowSubset, length);
-        System.arraycopy(invertedRow, 0, invhaarData[row], 0, length);
+      if (colStride < cols) {
+        transformRows(data, rows, cols, Math.min(rowStride, rows), colStride);
       }
-      length *= 2;
     }
-    return invhaarData;
   }
 
   /**
@@ -137,55 +105,104 @@ public class HaarCompression implements Compression {
    * @param percentage the percentage to compress the image by
    * @throws ImageProcessorException if the percentage is invalid
    */
-  private void validatePercentage(int percentage) throws ImageProcessorException {
+  void validatePercentage(int percentage) throws ImageProcessorException {
     if (percentage < 0 || percentage > 100) {
       throw new ImageProcessorException("Invalid compression percentage");
     }
   }
 
   /**
-   * Applies the haar transform by calculating
-   * the normalised average and normalised difference of the data.
-   * reading two values at a time.
+   * Applies a pass of the transform along the rows.
+   * Every row holding averages of the current level is transformed by
+   * combining the values a column stride apart.
+   * The forward and inverse pass are the same since
+   * (a + b) / sqrt(2) and (a - b) / sqrt(2) is its own inverse.
    *
-   * @param data   the data to apply the transform to
-   * @param length the length of the data to apply the transform to
-   * @return the transformed data
+   * @param data      the matrix in row major order
+   * @param rows      the number of rows of the matrix
+   * @param cols      the number of columns of the matrix
+   * @param rowStride the distance between rows holding averages
+   * @param colStride the distance between the two values which are combined
    */
-  private double[] transform(double[] data,
-                             int length) {
-    double[] transformedData = new double[length];
-    int halfLength = length / 2;
-    for (int i = 0; i < halfLength; i++) {
-      double firstValue = data[2 * i];
-      double secondValue = data[2 * i + 1];
-      // Calculating normalised average and normalised difference
-      // Normalised average is added in the first half
-      // Normalised difference is added in the second half
-      transformedData[i] = (firstValue + secondValue) / Math.sqrt(2);
-      transformedData[halfLength + i] =
-              (firstValue - secondValue) / Math.sqrt(2);
-    }
-    return transformedData;
+  private void transformRows(double[] data, int rows, int cols,
+                             int rowStride, int colStride) {
+    int rowCount = rows / rowStride;
+    ParallelUtils.forEachRowBand(rowCount, cols / colStride,
+        (startRow, endRow) -> {
+          for (int row = startRow; row < endRow; row++) {
+            int offset = row * rowStride * cols;
+            for (int col = 0; col < cols; col += 2 * colStride) {
+              butterfly(data, offset + col, offset + col + colStride);
+            }
+          }
+        });
   }
 
   /**
-   * Pads the given 2D double array to a square matrix.
-   * Pads to the nearest power of 2 taking the maximum of the row and column.
+   * Applies a pass of the transform along the columns.
+   * Rows a row stride apart are combined column by column so both rows are
+   * read sequentially.
    *
-   * @param data the 2D double array to pad
-   * @return the new square matrix
+   * @param data      the matrix in row major order
+   * @param rows      the number of rows of the matrix
+   * @param cols      the number of columns of the matrix
+   * @param rowStride the distance between the two rows which are combined
+   * @param colStride the distance between columns holding averages
    */
-  private double[][] padToSquareMatrix(double[][] data) {
-    int row = data.length;
-    int column = data[0].length;
+  private void transformColumns(double[] data, int rows, int cols,
+                                int rowStride, int colStride) {
+    int rowPairs = rows / (2 * rowStride);
+    ParallelUtils.forEachRowBand(rowPairs, 2 * cols / colStride,
+        (startPair, endPair) -> {
+          for (int pair = startPair; pair < endPair; pair++) {
+            int firstOffset = pair * 2 * rowStride * cols;
+            int secondOffset = firstOffset + rowStride * cols;
+            for (int col = 0; col < cols; col += colStride) {
+              butterfly(data, firstOffset + col, secondOffset + col);
+            }
+          }
+        });
+  }
 
-    int newLength = getNearestPowerOfTwo(Math.max(row, column));
-    double[][] squareMatrix = new double[newLength][newLength];
-    for (int i = 0; i < row; i++) {
-      System.arraycopy(data[i], 0, squareMatrix[i], 0, column);
-    }
-    return squareMatrix;
+  /**
+   * Replaces the two values by their normalised average and normalised
+   * difference.
+   *
+   * @param data   the array holding the values
+   * @param first  the index of the first value, which gets the average
+   * @param second the index of the second value, which gets the difference
+   */
+  private static void butterfly(double[] data, int first, int second) {
+    double firstValue = data[first];
+    double secondValue = data[second];
+    data[first] = (firstValue + secondValue) / SQRT_TWO;
+    data[second] = (firstValue - secondValue) / SQRT_TWO;
+  }
+
+  /**
+   * Gets the number of rows the channels are padded to before the
+   * transform. The image is padded to a square matrix whose side is the
+   * nearest power of 2 of the maximum of the height and width.
+   *
+   * @param height the height of the image
+   * @param width  the width of the image
+   * @return the number of rows of the padded channels, a power of 2
+   */
+  protected int getPaddedHeight(int height, int width) {
+    return getNearestPowerOfTwo(Math.max(height, width));
+  }
+
+  /**
+   * Gets the number of columns the channels are padded to before the
+   * transform. The image is padded to a square matrix whose side is the
+   * nearest power of 2 of the maximum of the height and width.
+   *
+   * @param height the height of the image
+   * @param width  the width of the image
+   * @return the number of columns of the padded channels, a power of 2
+   */
+  protected int getPaddedWidth(int height, int width) {
+    return getNearestPowerOfTwo(Math.max(height, width));
   }
 
   /**
@@ -194,7 +211,7 @@ public class HaarCompression implements Compression {
    * @param number the number to get the nearest power of two for
    * @return the nearest power of two
    */
-  private int getNearestPowerOfTwo(int number) {
+  protected int getNearestPowerOfTwo(int number) {
     if (number <= 0) {
       return 1;
     }
@@ -212,173 +229,167 @@ public class HaarCompression implements Compression {
   }
 
   /**
-   * Inverts the given data by calculating the normalised sum and difference.
+   * Sets the coefficients whose absolute value is less than or equal to the
+   * threshold to 0.
    *
-   * @param data   the data to invert
-   * @param length the length of the data to invert
-   * @return the inverted data
+   * @param haarData       the coefficients of a channel
+   * @param thresholdValue the threshold of the channel
    */
-  private double[] invert(double[] data, int length) {
-    double[] inverted = new double[length];
-    int halfLength = length / 2;
-    for (int i = 0; i < halfLength; i++) {
-      // Taking the first average term and difference term
-      // and computing their normalised sum and difference
-      // to get the original values.
-      double firstValue = data[i];
-      double secondValue = data[halfLength + i];
-      inverted[2 * i] = (firstValue + secondValue) / Math.sqrt(2);
-      inverted[2 * i + 1] = (firstValue - secondValue) / Math.sqrt(2);
+  private void applyThreshold(double[] haarData, double thresholdValue) {
+    for (int i = 0; i < haarData.length; i++) {
+      // Data less than or equal to threshold is set to 0
+      if (Math.abs(haarData[i]) <= thresholdValue) {
+        haarData[i] = 0;
+      }
     }
-    return inverted;
   }
 
   /**
-   * Converts a 2D integer array to a 2D double array.
+   * Compresses the given image by the given percentage.
+   * Compression is done by first applying the Haar transform to every
+   * channel, then removing coefficients less than the threshold value of
+   * the channel. The thresholds of all the channels are found in a single
+   * pass. Invhaar is then applied to get the compressed channels.
+   * A packed image results in a packed image.
+   * A CompressionEvent is recorded for the flight recorder.
    *
-   * @param data the 2D integer array to convert
-   * @return the 2D double array
+   * @param image      the image to compress
+   * @param percentage the percentage by which to compress the image
+   * @return the new compressed image
+   * @throws ImageProcessorException if the image cannot be compressed
    */
-  private double[][] toDoubleArray(int[][] data) {
-    double[][] doubleArray = new double[data.length][data[0].length];
-    for (int i = 0; i < data.length; i++) {
-      for (int j = 0; j < data[0].length; j++) {
-        doubleArray[i][j] = data[i][j];
-      }
-    }
-    return doubleArray;
+  @Override
+  public Image compress(Image image, int percentage) throws ImageProcessorException {
+    validatePercentage(percentage);
+    Objects.requireNonNull(image, "Image cannot be null");
+    CompressionEvent event = new CompressionEvent();
+    event.begin();
+
+    int height = image.getHeight();
+    int width = image.getWidth();
+    int paddedHeight = getPaddedHeight(height, width);
+    int paddedWidth = getPaddedWidth(height, width);
+    double[][] channels = forwardTransform(PackedImage.fromImage(image),
+            paddedHeight, paddedWidth);
+
+    // Remove data less than threshold and invert
+    removeCoefficients(channels, percentage);
+    int[] compressedPixels = inverseTransform(channels, height, width,
+            paddedHeight, paddedWidth);
+
+    Image compressedImage = createCompressedImage(image, compressedPixels);
+    event.record(getClass().getSimpleName(), percentage, width, height,
+            paddedWidth, paddedHeight);
+    return compressedImage;
   }
 
   /**
-   * Uses the haarData to compute threshold value and then absolute values less
-   * than threshold are set to 0.
+   * Removes the coefficients of every channel which are less than or equal
+   * to the threshold of the channel for the given percentage.
    *
-   * @param haarData   the data to compute threshold value
-   * @param percentage the percentage to compute threshold value
-   * @return the data with values greater than threshold value
+   * @param channels   the coefficients of the red, green and blue channels
+   * @param percentage the percentage by which to compress the image
    */
-  private double[][] computeDataWithThreshold(double[][] haarData,
-                                              int percentage) {
-    int height = haarData.length;
-    int width = haarData[0].length;
-    // Get the threshold value
-    double thresholdValue = getThresholdValue(haarData, percentage);
-    double[][] dataWithThreshold = Arrays.copyOf(haarData, height);
-    for (int row = 0; row < height; row++) {
-      for (int column = 0; column < width; column++) {
-        // Data less than or equal to threshold is set to 0
-        if (Math.abs(haarData[row][column]) <= thresholdValue) {
-          dataWithThreshold[row][column] = 0;
-        }
-      }
+  void removeCoefficients(double[][] channels, int percentage) {
+    double[] thresholds = ThresholdFinder.findThresholds(channels, percentage);
+    for (int channel = 0; channel < channels.length; channel++) {
+      applyThreshold(channels[channel], thresholds[channel]);
     }
-    return dataWithThreshold;
   }
 
   /**
-   * Gets the threshold value for the given data and percentage.
+   * Creates the compressed image from its packed pixels, stored the same way
+   * as the original image.
    *
-   * @param data       the data to calculate the threshold value
-   * @param percentage the percentage to calculate the threshold value
-   * @return the threshold value
+   * @param image            the original image
+   * @param compressedPixels the packed pixels of the compressed image
+   * @return the compressed image
+   * @throws ImageProcessorException if the image cannot be created
    */
-  private double getThresholdValue(double[] data, int percentage) {
-
-    int length = data.length;
-    double[] sortedData = Arrays.copyOf(data, length);
-    // Get the absolute values of the data
-    for (int i = 0; i < length; i++) {
-      sortedData[i] = Math.abs(sortedData[i]);
+  private static Image createCompressedImage(Image image,
+                                             int[] compressedPixels)
+          throws ImageProcessorException {
+    int height = image.getHeight();
+    int width = image.getWidth();
+    if (image instanceof PackedImage) {
+      return Factory.createImage(width, height, compressedPixels);
     }
-    // Sort the data
-    Arrays.sort(sortedData);
-
-    // Get distinct values and then remove zeroes.
-    // This is done to get a value which is greater than
-    // the given percentage of values.
-    sortedData = Arrays.stream(sortedData)
-            .distinct()
-            .filter(value -> value != 0)
-            .toArray();
-    int thresholdIndex =
-            (int) Math.floor((double) (sortedData.length * percentage) / 100);
-    // Returns the last value if the threshold index is greater than the length.
-    if (thresholdIndex >= sortedData.length) {
-      return sortedData[sortedData.length - 1];
+    Pixel[][] newPixelArray = new Pixel[height][width];
+    for (int row = 0; row < height; row++) {
+      for (int col = 0; col < width; col++) {
+        int rgb = compressedPixels[row * width + col];
+        newPixelArray[row][col] = Factory.createRGBPixel(PackedImage.red(rgb),
+                PackedImage.green(rgb), PackedImage.blue(rgb));
+      }
     }
-    return sortedData[thresholdIndex];
+    return Factory.createImage(newPixelArray);
   }
 
   /**
-   * Gets the threshold value for the given 2d array by
-   * flattening the data.
+   * Pads the red, green and blue channels of the image with zeros to the
+   * given size and applies the Haar transform to each of them.
    *
-   * @param data       the data to calculate the threshold value
-   * @param percentage the percentage to calculate the threshold value
-   * @return the threshold value
+   * @param image        the image to transform
+   * @param paddedHeight the number of rows of the padded channels
+   * @param paddedWidth  the number of columns of the padded channels
+   * @return the coefficients of the red, green and blue channels in row
+   *         major order
    */
-  private double getThresholdValue(double[][] data, int percentage) {
-    int totalLength = data.length * data[0].length;
-    double[] flattenedData = new double[totalLength];
-    int index = 0;
-    // Flattened the data to get an individual array containing row and column.
-    for (int i = 0; i < data.length; i++) {
-      for (int j = 0; j < data[0].length; j++) {
-        flattenedData[index] = data[i][j];
-        index++;
+  double[][] forwardTransform(PackedImage image, int paddedHeight,
+                              int paddedWidth) {
+    int height = image.getHeight();
+    int width = image.getWidth();
+    double[][] channels = new double[SHIFTS.length][paddedHeight * paddedWidth];
+    for (int channel = 0; channel < SHIFTS.length; channel++) {
+      double[] data = channels[channel];
+      int shift = SHIFTS[channel];
+      for (int row = 0; row < height; row++) {
+        for (int col = 0; col < width; col++) {
+          data[row * paddedWidth + col] = (image.getRGB(row, col) >> shift) & 0xff;
+        }
       }
+      haar(data, paddedHeight, paddedWidth);
     }
-    return getThresholdValue(flattenedData, percentage);
+    return channels;
   }
 
   /**
-   * Compresses the given image by the given percentage.
-   * Individual channels are compressed by the given percentage.
+   * Applies the inverse Haar transform to the coefficients of the red,
+   * green and blue channels in place and packs the channels of the original
+   * size into pixels. Channel values are rounded and clamped between 0 and
+   * 255.
    *
-   * @param image      the image to compress
-   * @param percentage the percentage by which to compress the image
-   * @return the new compressed image
-   * @throws ImageProcessorException if the image cannot be compressed
+   * @param channels     the coefficients of the red, green and blue channels
+   * @param height       the height of the image
+   * @param width        the width of the image
+   * @param paddedHeight the number of rows of the padded channels
+   * @param paddedWidth  the number of columns of the padded channels
+   * @return the packed pixels of the image in row major order
    */
-  @Override
-  public Image compress(Image image, int percentage) throws ImageProcessorException {
-    validatePercentage(percentage);
-    Objects.requireNonNull(image, "Image cannot be null");
-
-    // Compress individual channels of the image
-    int[][] compressedRed = compress(image.getRedChannel(), percentage);
-    int[][] compressedGreen = compress(image.getGreenChannel(), percentage);
-    int[][] compressedBlue = compress(image.getBlueChannel(), percentage);
-    int height = image.getHeight();
-    int width = image.getWidth();
-    Pixel[][] newPixelArray = new Pixel[height][width];
-    for (int row = 0; row < height; row++) {
-      for (int col = 0; col < width; col++) {
-        newPixelArray[row][col] =
-                Factory.createRGBPixel(compressedRed[row][col],
-                        compressedGreen[row][col], compressedBlue[row][col]);
+  int[] inverseTransform(double[][] channels, int height, int width,
+                         int paddedHeight, int paddedWidth) {
+    int[] pixels = new int[width * height];
+    for (int channel = 0; channel < SHIFTS.length; channel++) {
+      double[] data = channels[channel];
+      invhaar(data, paddedHeight, paddedWidth);
+      int shift = SHIFTS[channel];
+      for (int row = 0; row < height; row++) {
+        for (int col = 0; col < width; col++) {
+          int value = clamp((int) Math.round(data[row * paddedWidth + col]));
+          pixels[row * width + col] |= value << shift;
+        }
       }
     }
-    return Factory.createImage(newPixelArray);
+    return pixels;
   }
 
   /**
-   * Compresses the given 2D integer array by the given percentage.
-   * Compression is done by first applying the Haar transform to the data,
-   * then removing data less than the threshold value.
-   * Invhaar is then applies on the threshold data to get the compressed data.
+   * Clamps a value between 0 and 255 the same way an RGB pixel does.
    *
-   * @param data       the data to compress
-   * @param percentage the percentage by which to compress the data
-   * @return the new compressed data
+   * @param value the value to clamp
+   * @return the clamped value
    */
-  private int[][] compress(int[][] data, int percentage) {
-    // Apply haar transformation.
-    double[][] haarData = haar(toDoubleArray(data));
-    // Remove data less than threshold
-    double[][] thresholdData = computeDataWithThreshold(haarData, percentage);
-    // Convert back to integer data
-    return fromDoubleArray(invhaar(thresholdData));
+  private static int clamp(int value) {
+    return Math.max(0, Math.min(255, value));
   }
-
 }
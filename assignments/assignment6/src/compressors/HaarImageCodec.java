@@ -0,0 +1,350 @@
+package compressors;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Objects;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import exception.ImageProcessorException;
+import factories.Factory;
+import model.visual.Image;
+import model.visual.PackedImage;
+
+/**
+ * Reads and writes images in the HAAR file format, which stores the Haar
+ * coefficients of an image instead of its pixels.
+ * The channels are padded and transformed the same way as HaarCompression,
+ * and the coefficients below the threshold of the given percentage are
+ * removed the same way, so an image written with a percentage reads back as
+ * the image compressed by that percentage. Only the non-zero coefficients
+ * are stored, each as the number of zero coefficients before it followed by
+ * its value, and the result is deflate coded, so the file gets smaller the
+ * higher the percentage.
+ *
+ * <p>Saving to a HAAR file with a percentage is lossy in the same way as
+ * compressing the image. The coefficients are also quantised to multiples of
+ * a small step, which can move a channel read back by 1 from the compressed
+ * image when its value is close to halfway between two integers. With a
+ * percentage of 0 no coefficient is removed, and the quantisation error is
+ * too small to change any channel, so the image reads back unchanged.
+ *
+ * <p>The file starts with a header made of the magic bytes {@code HAAR},
+ * the version of the format, the width and the height of the image and the
+ * quantisation step. The coefficients of the red, green and blue channels
+ * follow, each channel as the number of non-zero coefficients and the
+ * coefficients themselves, written as variable length integers.
+ * Files of the first version, whose rows and columns were padded separately
+ * the same way as RectangularHaarCompression, are still read.
+ */
+public final class HaarImageCodec {
+
+  /**
+   * Magic bytes at the start of every HAAR file.
+   */
+  private static final byte[] MAGIC = {'H', 'A', 'A', 'R'};
+
+  /**
+   * Version of the format written.
+   */
+  private static final int VERSION = 2;
+
+  /**
+   * Version of the format whose rows and columns are padded separately the
+   * same way as RectangularHaarCompression. Files of this version are still
+   * read.
+   */
+  private static final int RECTANGULAR_VERSION = 1;
+
+  /**
+   * Quantisation step used when writing.
+   * A channel is rebuilt from coefficients whose weights add up to less than
+   * 3, so the error of a channel read back stays below 3 / 16 and rounds
+   * away.
+   */
+  private static final double QUANTISATION_STEP = 1.0 / 8;
+
+  /**
+   * Largest width or height of an image which can be padded to a power of 2.
+   */
+  private static final int MAX_SIDE = 1 << 30;
+
+  /**
+   * Largest number of padded pixels of an image which is read, about a
+   * 8192x8192 image. Reading it needs 28 bytes per padded pixel, so a
+   * corrupt header cannot make the reader allocate more than about 2GB.
+   */
+  private static final int MAX_PADDED_PIXELS = 1 << 26;
+
+  /**
+   * Bytes needed per padded pixel to read an image, for the coefficients of
+   * the three channels and the packed pixels.
+   */
+  private static final int BYTES_PER_PADDED_PIXEL = 3 * Double.BYTES + Integer.BYTES;
+
+  /**
+   * Transform used to pad and transform the channels, the same as the
+   * compression of an image.
+   */
+  private static final HaarCompression TRANSFORM = new HaarCompression();
+
+  /**
+   * Transform used to read files of the rectangular version.
+   */
+  private static final HaarCompression RECTANGULAR_TRANSFORM =
+          new RectangularHaarCompression();
+
+  private HaarImageCodec() {
+    //Empty private constructor to prevent instantiation.
+  }
+
+  /**
+   * Writes the image in the HAAR format to the given stream without
+   * removing any coefficient, so the image reads back unchanged.
+   * The stream is not closed.
+   *
+   * @param image  the image to write
+   * @param output the stream to write to
+   * @throws ImageProcessorException if the image is not valid
+   * @throws IOException             if the stream cannot be written
+   */
+  public static void write(Image image, OutputStream output)
+          throws ImageProcessorException, IOException {
+    write(image, 0, output);
+  }
+
+  /**
+   * Writes the image in the HAAR format to the given stream, removing the
+   * coefficients the same way as compressing the image by the given
+   * percentage. This is lossy unless the percentage is 0, in which case no
+   * coefficient is removed.
+   * The stream is not closed.
+   *
+   * @param image      the image to write
+   * @param percentage the percentage by which to compress the image
+   * @param output     the stream to write to
+   * @throws ImageProcessorException if the image or the percentage is not
+   *                                 valid
+   * @throws IOException             if the stream cannot be written
+   */
+  public static void write(Image image, int percentage, OutputStream output)
+          throws ImageProcessorException, IOException {
+    Objects.requireNonNull(image, "Image cannot be null");
+    Objects.requireNonNull(output, "Output stream cannot be null");
+    TRANSFORM.validatePercentage(percentage);
+    int height = image.getHeight();
+    int width = image.getWidth();
+    int paddedHeight = TRANSFORM.getPaddedHeight(height, width);
+    int paddedWidth = TRANSFORM.getPaddedWidth(height, width);
+    double[][] channels = TRANSFORM.forwardTransform(PackedImage.fromImage(image),
+            paddedHeight, paddedWidth);
+    if (percentage > 0) {
+      TRANSFORM.removeCoefficients(channels, percentage);
+    }
+
+    DataOutputStream header = new DataOutputStream(output);
+    header.write(MAGIC);
+    header.writeByte(VERSION);
+    header.writeInt(width);
+    header.writeInt(height);
+    header.writeDouble(QUANTISATION_STEP);
+    header.flush();
+
+    Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+    try {
+      DeflaterOutputStream deflaterStream = new DeflaterOutputStream(output, deflater);
+      OutputStream body = new BufferedOutputStream(deflaterStream);
+      for (double[] channel : channels) {
+        writeChannel(body, channel);
+      }
+      body.flush();
+      deflaterStream.finish();
+    } finally {
+      deflater.end();
+    }
+    output.flush();
+  }
+
+  /**
+   * Reads an image in the HAAR format from the given stream.
+   * The stream is not closed. The image read is a packed image.
+   * The size in the header is checked before any coefficient is allocated,
+   * so an image too large to read is rejected instead of running out of
+   * memory.
+   *
+   * @param input the stream to read from
+   * @return the image read
+   * @throws ImageProcessorException if the stream is not a valid HAAR file or
+   *                                 the image is too large to read
+   * @throws IOException             if the stream cannot be read
+   */
+  public static Image read(InputStream input)
+          throws ImageProcessorException, IOException {
+    Objects.requireNonNull(input, "Input stream cannot be null");
+    DataInputStream header = new DataInputStream(input);
+    int width;
+    int height;
+    double step;
+    HaarCompression transform;
+    try {
+      byte[] magic = new byte[MAGIC.length];
+      header.readFully(magic);
+      for (int i = 0; i < MAGIC.length; i++) {
+        if (magic[i] != MAGIC[i]) {
+          throw new ImageProcessorException("Invalid HAAR file: file should begin "
+                  + "with HAAR");
+        }
+      }
+      int version = header.readUnsignedByte();
+      if (version == VERSION) {
+        transform = TRANSFORM;
+      } else if (version == RECTANGULAR_VERSION) {
+        transform = RECTANGULAR_TRANSFORM;
+      } else {
+        throw new ImageProcessorException(String.format(
+                "Unsupported HAAR file version: %d", version));
+      }
+      width = header.readInt();
+      height = header.readInt();
+      step = header.readDouble();
+    } catch (EOFException e) {
+      throw new ImageProcessorException("Invalid HAAR file: header is incomplete", e);
+    }
+    if (width <= 0 || height <= 0 || width > MAX_SIDE || height > MAX_SIDE
+            || !(step > 0) || Double.isInfinite(step)) {
+      throw new ImageProcessorException("Invalid HAAR file: invalid header");
+    }
+
+    int paddedHeight = transform.getPaddedHeight(height, width);
+    int paddedWidth = transform.getPaddedWidth(height, width);
+    long paddedPixels = (long) paddedHeight * paddedWidth;
+    if (paddedPixels > MAX_PADDED_PIXELS
+            || paddedPixels * BYTES_PER_PADDED_PIXEL
+            > Runtime.getRuntime().maxMemory()) {
+      throw new ImageProcessorException("Invalid HAAR file: image is too large");
+    }
+    double[][] channels = new double[3][paddedHeight * paddedWidth];
+    Inflater inflater = new Inflater();
+    try {
+      InputStream body = new BufferedInputStream(
+              new InflaterInputStream(input, inflater));
+      for (double[] channel : channels) {
+        readChannel(body, channel, step);
+      }
+    } finally {
+      inflater.end();
+    }
+    int[] pixels = transform.inverseTransform(channels, height, width,
+            paddedHeight, paddedWidth);
+    return Factory.createImage(width, height, pixels);
+  }
+
+  /**
+   * Quantises the coefficients of a channel and writes the non-zero ones.
+   *
+   * @param output       the stream to write to
+   * @param coefficients the coefficients of the channel
+   * @throws IOException if the stream cannot be written
+   */
+  private static void writeChannel(OutputStream output, double[] coefficients)
+          throws IOException {
+    int[] quantised = new int[coefficients.length];
+    int count = 0;
+    for (int i = 0; i < coefficients.length; i++) {
+      quantised[i] = (int) Math.round(coefficients[i] / QUANTISATION_STEP);
+      if (quantised[i] != 0) {
+        count++;
+      }
+    }
+    writeVarInt(output, count);
+    int previous = -1;
+    for (int i = 0; i < quantised.length; i++) {
+      if (quantised[i] != 0) {
+        writeVarInt(output, i - previous - 1);
+        writeVarInt(output, (quantised[i] << 1) ^ (quantised[i] >> 31));
+        previous = i;
+      }
+    }
+  }
+
+  /**
+   * Reads the non-zero coefficients of a channel and restores their value
+   * from the quantisation step. The other coefficients are left at 0.
+   *
+   * @param input        the stream to read from
+   * @param coefficients the coefficients of the channel to fill
+   * @param step         the quantisation step of the file
+   * @throws ImageProcessorException if the coefficients are not valid
+   * @throws IOException             if the stream cannot be read
+   */
+  private static void readChannel(InputStream input, double[] coefficients,
+                                  double step)
+          throws ImageProcessorException, IOException {
+    int count = readVarInt(input);
+    if (count < 0 || count > coefficients.length) {
+      throw new ImageProcessorException("Invalid HAAR file: invalid number of "
+              + "coefficients");
+    }
+    long index = -1;
+    for (int i = 0; i < count; i++) {
+      index += readVarInt(input) + 1L;
+      if (index >= coefficients.length) {
+        throw new ImageProcessorException("Invalid HAAR file: coefficient "
+                + "out of range");
+      }
+      int zigZag = readVarInt(input);
+      int quantised = (zigZag >>> 1) ^ -(zigZag & 1);
+      coefficients[(int) index] = quantised * step;
+    }
+  }
+
+  /**
+   * Writes an unsigned integer using 7 bits per byte, least significant
+   * bits first. The high bit of a byte is set if more bytes follow.
+   *
+   * @param output the stream to write to
+   * @param value  the value to write, treated as unsigned
+   * @throws IOException if the stream cannot be written
+   */
+  private static void writeVarInt(OutputStream output, int value) throws IOException {
+    int remaining = value;
+    while ((remaining & ~0x7f) != 0) {
+      output.write((remaining & 0x7f) | 0x80);
+      remaining >>>= 7;
+    }
+    output.write(remaining);
+  }
+
+  /**
+   * Reads an unsigned integer written by writeVarInt.
+   *
+   * @param input the stream to read from
+   * @return the value read
+   * @throws ImageProcessorException if the stream ends or the integer is too
+   *                                 long
+   * @throws IOException             if the stream cannot be read
+   */
+  private static int readVarInt(InputStream input)
+          throws ImageProcessorException, IOException {
+    int value = 0;
+    for (int shift = 0; shift < 35; shift += 7) {
+      int next = input.read();
+      if (next < 0) {
+        throw new ImageProcessorException("Invalid HAAR file: file is truncated");
+      }
+      value |= (next & 0x7f) << shift;
+      if ((next & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new ImageProcessorException("Invalid HAAR file: invalid integer");
+  }
+}
@@ -0,0 +1,39 @@
+package compressors;
+
+/**
+ * A class to represent the Haar compression of an image without padding it
+ * to a square matrix.
+ * The rows and columns are padded independently to the nearest power of 2
+ * of the width and the height, and are transformed until each of them is
+ * down to a single average. A 4000x1000 image is therefore padded to
+ * 4096x1024 instead of 4096x4096, so the time and memory taken scale with
+ * the area of the image.
+ * The threshold and the reconstruction work the same as HaarCompression.
+ */
+public class RectangularHaarCompression extends HaarCompression {
+
+  /**
+   * Constructs a RectangularHaarCompression object.
+   * Empty constructor since there are no fields
+   * for the RectangularHaarCompression class.
+   */
+  public RectangularHaarCompression() {
+    // Empty constructor since there are no fields
+  }
+
+  /**
+   * Pads the rows to the nearest power of 2 of the height.
+   */
+  @Override
+  protected int getPaddedHeight(int height, int width) {
+    return getNearestPowerOfTwo(height);
+  }
+
+  /**
+   * Pads the columns to the nearest power of 2 of the width.
+   */
+  @Override
+  protected int getPaddedWidth(int height, int width) {
+    return getNearestPowerOfTwo(width);
+  }
+}
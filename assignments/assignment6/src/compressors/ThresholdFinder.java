@@ -0,0 +1,203 @@
+package compressors;
+
+/**
+ * Finds the threshold below which the coefficients of a Haar transform are
+ * removed.
+ * The threshold is the value at the given percentage of the distinct,
+ * non-zero absolute values of the coefficients, in ascending order.
+ *
+ * <p>Instead of sorting every coefficient, the distinct absolute values are
+ * collected in a hash set of primitives and the value at the percentage
+ * is found by quickselect, which takes linear time on average.
+ * Non-negative doubles are ordered the same way as their bit patterns, so
+ * the bit patterns are stored and compared as longs.
+ */
+final class ThresholdFinder {
+
+  /**
+   * Initial capacity of the hash set of every channel.
+   */
+  private static final int INITIAL_CAPACITY = 1 << 10;
+
+  private ThresholdFinder() {
+    //Empty private constructor to prevent instantiation.
+  }
+
+  /**
+   * Finds the threshold of every channel in a single pass over the
+   * coefficients.
+   *
+   * @param channels   the coefficients of every channel, all of the same
+   *                   length
+   * @param percentage the percentage of distinct values to remove
+   * @return the threshold of every channel, 0 if a channel has no non-zero
+   *         coefficient
+   */
+  static double[] findThresholds(double[][] channels, int percentage) {
+    int channelCount = channels.length;
+    DistinctValues[] distinctValues = new DistinctValues[channelCount];
+    for (int channel = 0; channel < channelCount; channel++) {
+      distinctValues[channel] = new DistinctValues();
+    }
+
+    int length = channelCount == 0 ? 0 : channels[0].length;
+    for (int i = 0; i < length; i++) {
+      for (int channel = 0; channel < channelCount; channel++) {
+        double value = Math.abs(channels[channel][i]);
+        if (value != 0) {
+          distinctValues[channel].add(Double.doubleToLongBits(value));
+        }
+      }
+    }
+
+    double[] thresholds = new double[channelCount];
+    for (int channel = 0; channel < channelCount; channel++) {
+      long[] values = distinctValues[channel].toArray();
+      if (values.length == 0) {
+        continue;
+      }
+      int thresholdIndex =
+              (int) Math.floor((double) (values.length * percentage) / 100);
+      // Takes the last value if the threshold index is greater than the length.
+      thresholdIndex = Math.min(thresholdIndex, values.length - 1);
+      thresholds[channel] =
+              Double.longBitsToDouble(select(values, thresholdIndex));
+    }
+    return thresholds;
+  }
+
+  /**
+   * Finds the value which would be at the given index if the values were
+   * sorted. The values are reordered in the process.
+   *
+   * @param values the distinct values to select from
+   * @param index  the index of the value in sorted order
+   * @return the value at the index in sorted order
+   */
+  private static long select(long[] values, int index) {
+    int left = 0;
+    int right = values.length - 1;
+    while (left < right) {
+      int middle = (left + right) >>> 1;
+      long pivot = medianOfThree(values[left], values[middle], values[right]);
+      int i = left;
+      int j = right;
+      while (i <= j) {
+        while (values[i] < pivot) {
+          i++;
+        }
+        while (values[j] > pivot) {
+          j--;
+        }
+        if (i <= j) {
+          long temp = values[i];
+          values[i] = values[j];
+          values[j] = temp;
+          i++;
+          j--;
+        }
+      }
+      if (index <= j) {
+        right = j;
+      } else if (index >= i) {
+        left = i;
+      } else {
+        return values[index];
+      }
+    }
+    return values[left];
+  }
+
+  /**
+   * Gets the median of three values.
+   *
+   * @param first  the first value
+   * @param second the second value
+   * @param third  the third value
+   * @return the median of the values
+   */
+  private static long medianOfThree(long first, long second, long third) {
+    return Math.max(Math.min(first, second),
+            Math.min(Math.max(first, second), third));
+  }
+
+  /**
+   * Hash set of non-zero longs using open addressing.
+   * Zero marks an empty slot, which is why zero cannot be added.
+   */
+  private static final class DistinctValues {
+    private long[] slots = new long[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Adds the value if it is not already present.
+     *
+     * @param value the non-zero value to add
+     */
+    void add(long value) {
+      int mask = slots.length - 1;
+      int slot = hash(value) & mask;
+      while (slots[slot] != 0) {
+        if (slots[slot] == value) {
+          return;
+        }
+        slot = (slot + 1) & mask;
+      }
+      slots[slot] = value;
+      size++;
+      if (2 * size > slots.length) {
+        grow();
+      }
+    }
+
+    /**
+     * Gets the values in the set.
+     *
+     * @return the values in no particular order
+     */
+    long[] toArray() {
+      long[] values = new long[size];
+      int index = 0;
+      for (long slot : slots) {
+        if (slot != 0) {
+          values[index++] = slot;
+        }
+      }
+      return values;
+    }
+
+    /**
+     * Doubles the number of slots and adds the values again.
+     */
+    private void grow() {
+      long[] oldSlots = slots;
+      slots = new long[oldSlots.length * 2];
+      int mask = slots.length - 1;
+      for (long value : oldSlots) {
+        if (value != 0) {
+          int slot = hash(value) & mask;
+          while (slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+          }
+          slots[slot] = value;
+        }
+      }
+    }
+
+    /**
+     * Mixes the bits of the value so that values which only differ in the
+     * high bits land in different slots.
+     *
+     * @param value the value to hash
+     * @return the hash of the value
+     */
+    private static int hash(long value) {
+      long mixed = value ^ (value >>> 33);
+      mixed *= 0xff51afd7ed558ccdL;
+      mixed ^= mixed >>> 33;
+      mixed *= 0xc4ceb9fe1a85ec53L;
+      mixed ^= mixed >>> 33;
+      return (int) mixed;
+    }
+  }
+}
@@ -0,0 +1,344 @@
+package controller;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import controller.script.ScriptExecutor;
+import controller.script.ScriptPlan;
+import controller.script.ServiceCommandRunner;
+import controller.services.ImageProcessingService;
+import exception.ImageProcessingRunTimeException;
+import exception.ImageProcessorException;
+import model.enumeration.ImageType;
+import view.DisplayMessageType;
+import view.text.TextOutput;
+
+/**
+ * The controller class for the headless batch mode, which applies a script
+ * template to every image of a directory or matching a glob.
+ *
+ * <p>For every image, the placeholders {@value #INPUT_PLACEHOLDER},
+ * {@value #NAME_PLACEHOLDER} and {@value #EXTENSION_PLACEHOLDER} of the
+ * template are replaced by the path of the image, its file name without the
+ * extension and its extension, and the resulting script is executed with
+ * its own service, so the same image names can be used for every image.
+ * The script of an image runs on a single worker and its images are
+ * discarded once it is done, so commands whose results are never saved are
+ * skipped. Run and help commands are invalid in a template.
+ *
+ * <p>The images are listed lazily and handed to a fixed pool of workers. A
+ * new image is only taken once a worker is free, so at most one image per
+ * worker is being processed at once however many images there are.
+ * The status of every image is displayed when it is done, followed by the
+ * number of images processed and the throughput once they are all done.
+ */
+public class BatchImageProcessorController implements ImageProcessorController {
+
+  /**
+   * Placeholder replaced by the path of the image.
+   */
+  public static final String INPUT_PLACEHOLDER = "${input}";
+
+  /**
+   * Placeholder replaced by the file name of the image without the extension.
+   */
+  public static final String NAME_PLACEHOLDER = "${name}";
+
+  /**
+   * Placeholder replaced by the extension of the image.
+   */
+  public static final String EXTENSION_PLACEHOLDER = "${extension}";
+
+  /**
+   * Characters which make a path a glob.
+   */
+  private static final String GLOB_CHARACTERS = "*?[{";
+
+  private final Path scriptTemplate;
+  private final String input;
+  private final int workers;
+  private final Supplier<ImageProcessingService> serviceSupplier;
+  private final TextOutput textOutput;
+
+  /**
+   * Constructs a BatchImageProcessorController object.
+   *
+   * @param scriptTemplate  path of the script template
+   * @param input           directory, glob or file of the images to process
+   * @param workers         number of images processed at once
+   * @param serviceSupplier supplier of a new service for every image
+   * @param textOutput      view used to display output to the user
+   * @throws NullPointerException     if an argument is null
+   * @throws IllegalArgumentException if the number of workers is not positive
+   */
+  public BatchImageProcessorController(Path scriptTemplate, String input,
+                                       int workers,
+                                       Supplier<ImageProcessingService> serviceSupplier,
+                                       TextOutput textOutput) {
+    this.scriptTemplate = Objects.requireNonNull(scriptTemplate,
+            "Script template cannot be null");
+    this.input = Objects.requireNonNull(input, "Input cannot be null");
+    this.serviceSupplier = Objects.requireNonNull(serviceSupplier,
+            "Service supplier cannot be null");
+    this.textOutput = Objects.requireNonNull(textOutput, "TextOutput cannot be null");
+    if (workers <= 0) {
+      throw new IllegalArgumentException("Number of workers must be positive");
+    }
+    this.workers = workers;
+  }
+
+  /**
+   * Processes every image with the script template and quits.
+   *
+   * @throws ImageProcessingRunTimeException.QuitException once the images
+   *                                                       are processed
+   */
+  @Override
+  public void processCommands() throws ImageProcessingRunTimeException.QuitException {
+    String template;
+    try {
+      template = new String(Files.readAllBytes(scriptTemplate), StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      String errorMessage = String.format("Error reading script file: %s, %s",
+              scriptTemplate, e.getMessage());
+      displayMessage(errorMessage, DisplayMessageType.ERROR);
+      throw new ImageProcessingRunTimeException.QuitException(errorMessage);
+    }
+
+    AtomicInteger processed = new AtomicInteger();
+    AtomicInteger failed = new AtomicInteger();
+    Semaphore freeWorkers = new Semaphore(workers);
+    AtomicInteger threadNumber = new AtomicInteger();
+    ExecutorService pool = Executors.newFixedThreadPool(workers, runnable -> {
+      Thread thread = new Thread(runnable,
+              "batch-worker-" + threadNumber.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    long start = System.nanoTime();
+    try (Stream<Path> images = listImages(input)) {
+      Iterator<Path> iterator = images.iterator();
+      while (iterator.hasNext()) {
+        Path image = iterator.next();
+        freeWorkers.acquireUninterruptibly();
+        pool.execute(() -> {
+          try {
+            if (!processImage(template, image)) {
+              failed.incrementAndGet();
+            }
+            processed.incrementAndGet();
+          } finally {
+            freeWorkers.release();
+          }
+        });
+      }
+    } catch (ImageProcessorException | IOException | UncheckedIOException e) {
+      displayMessage(String.format("Error listing images: %s", e.getMessage()),
+              DisplayMessageType.ERROR);
+    } finally {
+      pool.shutdown();
+      awaitTermination(pool);
+    }
+
+    double seconds = (System.nanoTime() - start) / 1e9;
+    displayMessage(String.format("Processed %d images, %d failed, in %.2f s "
+                    + "(%.2f images/s).", processed.get(), failed.get(), seconds,
+            seconds > 0 ? processed.get() / seconds : 0), DisplayMessageType.INFO);
+    throw new ImageProcessingRunTimeException.QuitException("Quitting the "
+            + "program");
+  }
+
+  /**
+   * Executes the script template for a single image and displays its status.
+   *
+   * @param template the script template
+   * @param image    the path of the image
+   * @return true if every command succeeded, false otherwise
+   */
+  private boolean processImage(String template, Path image) {
+    long start = System.nanoTime();
+    List<String> errors = new ArrayList<>();
+    ImageProcessingService service = serviceSupplier.get();
+    try {
+      ScriptPlan plan = ScriptPlan.compile(new BufferedReader(
+              new StringReader(createScript(template, image))), false);
+      new ScriptExecutor(ScriptExecutor.SEQUENTIAL).execute(plan,
+          new ServiceCommandRunner(service), (message, type) -> {
+            if (type == DisplayMessageType.ERROR) {
+              errors.add(message);
+            }
+          });
+    } catch (ImageProcessingRunTimeException.QuitException e) {
+      // Quitting only ends the script of this image.
+    } catch (IOException | RuntimeException e) {
+      errors.add(String.valueOf(e.getMessage()));
+    } finally {
+      service.clearMemory();
+    }
+
+    long millis = (System.nanoTime() - start) / 1_000_000;
+    if (errors.isEmpty()) {
+      displayMessage(String.format("OK %s (%d ms)", image, millis),
+              DisplayMessageType.INFO);
+      return true;
+    }
+    displayMessage(String.format("FAILED %s (%d ms): %s", image, millis,
+            errors.get(0)), DisplayMessageType.ERROR);
+    return false;
+  }
+
+  /**
+   * Replaces the placeholders of the template for the given image.
+   *
+   * @param template the script template
+   * @param image    the path of the image
+   * @return the script of the image
+   */
+  static String createScript(String template, Path image) {
+    String path = image.toString();
+    String fileName = image.getFileName().toString();
+    int dot = fileName.lastIndexOf('.');
+    String name = dot > 0 ? fileName.substring(0, dot) : fileName;
+    String extension = dot > 0 ? fileName.substring(dot + 1) : "";
+    return template.replace(INPUT_PLACEHOLDER, path)
+            .replace(NAME_PLACEHOLDER, name)
+            .replace(EXTENSION_PLACEHOLDER, extension);
+  }
+
+  /**
+   * Lists the images to process lazily.
+   * A directory gives the files directly in it with a supported extension, a
+   * glob gives the files matching it and any other path gives the file
+   * itself. A glob is matched against the paths found under its longest
+   * leading part without glob characters, only going into subdirectories as
+   * deep as the glob does unless it contains {@code **}.
+   *
+   * @param input the directory, glob or file
+   * @return the paths of the images, which must be closed
+   * @throws ImageProcessorException if the input does not exist
+   * @throws IOException             if a directory cannot be listed
+   */
+  static Stream<Path> listImages(String input) throws ImageProcessorException, IOException {
+    int firstGlobCharacter = indexOfGlobCharacter(input);
+    if (firstGlobCharacter < 0) {
+      Path path = toPath(input);
+      if (Files.isDirectory(path)) {
+        return Files.list(path).filter(file -> Files.isRegularFile(file)
+                && isSupported(file));
+      }
+      if (Files.isRegularFile(path)) {
+        return Stream.of(path);
+      }
+      throw new ImageProcessorException(String.format("Input %s not found", input));
+    }
+
+    int separator = input.lastIndexOf('/', firstGlobCharacter);
+    Path base = separator < 0 ? Paths.get("") : toPath(input.substring(0, separator + 1));
+    String pattern = input.substring(separator + 1);
+    int depth = pattern.contains("**") ? Integer.MAX_VALUE : pattern.split("/").length;
+    PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+    Path root = separator < 0 ? Paths.get(".") : base;
+    if (!Files.isDirectory(root)) {
+      throw new ImageProcessorException(String.format("Input %s not found", input));
+    }
+    return Files.walk(root, depth)
+            .map(root::relativize)
+            .filter(matcher::matches)
+            .map(base::resolve)
+            .filter(Files::isRegularFile);
+  }
+
+  /**
+   * Checks if the file has the extension of a supported image type.
+   *
+   * @param file the file to check
+   * @return true if the image type is supported, false otherwise
+   */
+  private static boolean isSupported(Path file) {
+    try {
+      ImageType.getImageTypeFromPath(file.getFileName().toString());
+      return true;
+    } catch (ImageProcessorException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Finds the first glob character of the input.
+   *
+   * @param input the input
+   * @return the index of the first glob character, -1 if there is none
+   */
+  private static int indexOfGlobCharacter(String input) {
+    for (int i = 0; i < input.length(); i++) {
+      if (GLOB_CHARACTERS.indexOf(input.charAt(i)) >= 0) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Converts the input to a path.
+   *
+   * @param input the input
+   * @return the path
+   * @throws ImageProcessorException if the input is not a valid path
+   */
+  private static Path toPath(String input) throws ImageProcessorException {
+    try {
+      return Paths.get(input);
+    } catch (InvalidPathException e) {
+      throw new ImageProcessorException(String.format("Invalid input %s", input), e);
+    }
+  }
+
+  /**
+   * Waits for the workers to process the images already handed to them.
+   *
+   * @param pool the pool of workers
+   */
+  private static void awaitTermination(ExecutorService pool) {
+    try {
+      while (!pool.awaitTermination(1, TimeUnit.SECONDS)) {
+        // Keep waiting for the images being processed.
+      }
+    } catch (InterruptedException e) {
+      pool.shutdownNow();
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Displays the message to the user. Workers display the status of their
+   * images at the same time, so messages are displayed one at a time.
+   *
+   * @param message     message to be displayed
+   * @param messageType type of the message
+   */
+  private void displayMessage(String message, DisplayMessageType messageType) {
+    synchronized (textOutput) {
+      textOutput.displayMessage(message, messageType);
+    }
+  }
+}
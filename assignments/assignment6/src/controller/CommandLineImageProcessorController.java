@@ -1,6 +1,7 @@
 package controller;
 
 import java.util.Scanner;
+import java.util.concurrent.Executor;
 
 import exception.ImageProcessingRunTimeException;
 import exception.ImageProcessorException;
@@ -33,16 +34,39 @@ public class CommandLineImageProcessorController extends InteractiveImageProcess
     super(textInput, textOutput,imageProcessingService);
   }
 
+  /**
+   * Constructor to initialize the CommandLineImageProcessorController.
+   * Initializes and displays the commands to the user.
+   * The commands of the script which do not depend on each other are
+   * executed concurrently on the given executor.
+   *
+   * @param textInput              view used to get input from user.
+   * @param textOutput             view used to display output to the user.
+   * @param imageProcessingService ImageProcessingService object.
+   * @param scriptExecutor         executor running the commands of the script.
+   * @throws NullPointerException if text view, imageProcessor or
+   *                              scriptExecutor is null
+   */
+  public CommandLineImageProcessorController(
+          TextInput textInput,
+          TextOutput textOutput,
+          ImageProcessingService imageProcessingService,
+          Executor scriptExecutor) {
+    super(textInput, textOutput, imageProcessingService, scriptExecutor);
+  }
+
   /**
    * Processes the commands from the user.
    * This controller reads from the command line and processes it.
    * If the command is not valid, it displays an error message.
+   * The program quits once the script is done, so the images in memory are
+   * discarded and the commands whose results are never saved are skipped.
    */
   @Override
   public void processCommands() {
     try {
       Scanner scanner = new Scanner(textInput.getUserInput());
-      executeRunCommand(scanner);
+      executeRunCommand(scanner, false);
       displayMessage("Successfully executed the script file.",
               DisplayMessageType.INFO);
     } catch (ImageProcessorException e) {
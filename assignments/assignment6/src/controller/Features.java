@@ -94,4 +94,9 @@ public interface Features {
    * Downscale the image.
    */
   void downscaleImage();
+
+  /**
+   * Cancels the operations which are still running.
+   */
+  void cancelOperation();
 }
\ No newline at end of file
@@ -1,8 +1,15 @@
 package controller;
 
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 
 import exception.ImageProcessingRunTimeException;
 import exception.ImageProcessorException;
@@ -21,6 +28,9 @@ import utility.StringUtils;
  * Represents the controller for the image processor application.
  * This controller is responsible for handling all the user commands
  * coming from GUI view and processing them.
+ * The input from the user is taken on the thread calling the features, the
+ * image operations are run by the background executor and their results are
+ * displayed back on the display thread of the output.
  */
 public class GUIImageProcessorController implements ImageProcessorController,
         Features {
@@ -43,9 +53,29 @@ public class GUIImageProcessorController implements ImageProcessorController,
    */
   private final ImageMemory<String> imageToDisplay;
 
+  /**
+   * Executor running the image operations.
+   */
+  private final Executor backgroundExecutor;
+
+  /**
+   * Operations submitted to the background executor whose result has not
+   * been displayed yet, by the command they were started for.
+   * Only accessed on the display thread.
+   */
+  private final Map<UserCommand, Future<?>> runningOperations;
+
+  /**
+   * Pyramid of the last image previewed, giving the proxies to preview
+   * operations on.
+   * Only accessed by the background operations.
+   */
+  private ProxyPyramid proxyPyramid;
+
   /**
    * Constructs a GUIImageProcessorController object with the given
    * GUIInput, GUIOutput and ImageProcessingService.
+   * The image operations are run on the thread calling the features.
    *
    * @param guiInput               guiInput to interact with user and get input
    * @param guiOutput              guiOutput to interact with user and
@@ -58,15 +88,42 @@ public class GUIImageProcessorController implements ImageProcessorController,
           GUIOutput guiOutput,
           ImageProcessingService imageProcessingService,
           ImageMemory<String> imageToDisplay) {
+    this(guiInput, guiOutput, imageProcessingService, imageToDisplay,
+            Runnable::run);
+  }
+
+  /**
+   * Constructs a GUIImageProcessorController object with the given
+   * GUIInput, GUIOutput and ImageProcessingService, running the image
+   * operations on the given executor.
+   * The executor should run the operations one at a time.
+   *
+   * @param guiInput               guiInput to interact with user and get input
+   * @param guiOutput              guiOutput to interact with user and
+   *                               display output
+   * @param imageProcessingService the image processing service.
+   * @param imageToDisplay         the image currently display.
+   * @param backgroundExecutor     the executor running the image operations.
+   */
+  public GUIImageProcessorController(
+          GUIInput guiInput,
+          GUIOutput guiOutput,
+          ImageProcessingService imageProcessingService,
+          ImageMemory<String> imageToDisplay,
+          Executor backgroundExecutor) {
 
     Objects.requireNonNull(guiInput, "GUI Input cannot be null");
     Objects.requireNonNull(guiOutput, "GUI Output cannot be null");
     Objects.requireNonNull(imageProcessingService, "ImageProcessingService "
             + "cannot be null");
     Objects.requireNonNull(imageToDisplay, "ImageToDisplay cannot be null");
+    Objects.requireNonNull(backgroundExecutor, "Background executor cannot "
+            + "be null");
     this.imageProcessingService = imageProcessingService;
     this.guiInput = guiInput;
     this.guiOutput = guiOutput;
+    this.backgroundExecutor = backgroundExecutor;
+    this.runningOperations = new EnumMap<>(UserCommand.class);
     this.guiOutput.displayCommands(
             List.of(
                     UserCommand.LOAD,
@@ -109,11 +166,16 @@ public class GUIImageProcessorController implements ImageProcessorController,
             return;
           }
           String imageName = IOUtils.getImageNameFromPath(imagePath.get());
-          imageProcessingService.loadImage(ImageProcessingRequest.builder()
+          ImageProcessingRequest request = ImageProcessingRequest.builder()
                       .imagePath(imagePath.get())
                       .imageName(imageName)
-                      .build());
-          updateImageToDisplay(imageName);
+                      .build();
+          executeInBackground(UserCommand.LOAD,
+              () -> {
+                imageProcessingService.loadImage(request);
+                return fetchImage(imageName);
+              },
+              this::updateImageToDisplay);
         }
     );
   }
@@ -160,11 +222,16 @@ public class GUIImageProcessorController implements ImageProcessorController,
           if (destinationImagePath.isEmpty()) {
             return;
           }
-          imageProcessingService.saveImage(ImageProcessingRequest.builder()
+          ImageProcessingRequest request = ImageProcessingRequest.builder()
                       .imagePath(destinationImagePath.get())
                       .imageName(getImageToDisplay())
-                      .build());
-          this.reset();
+                      .build();
+          executeInBackground(UserCommand.SAVE,
+              () -> {
+                imageProcessingService.saveImage(request);
+                return null;
+              },
+              saved -> this.reset());
         }
     );
   }
@@ -176,8 +243,8 @@ public class GUIImageProcessorController implements ImageProcessorController,
   @Override
   public void applySepia() {
     executeImageOperation(
-        () -> showSplitView(percentage -> executeSplitViewCommand(percentage,
-          UserCommand.SEPIA)
+        () -> showSplitView(UserCommand.SEPIA,
+            imageName -> executeSplitViewCommand(imageName, UserCommand.SEPIA)
         )
     );
   }
@@ -185,17 +252,37 @@ public class GUIImageProcessorController implements ImageProcessorController,
   /**
    * Clears the current image and associated data from memory.
    * Resets the display to its initial state.
+   * Operations which are still running are cancelled.
    */
   @Override
   public void reset() {
     executeImageOperation(
         () -> {
-          imageProcessingService.clearMemory();
-          clearImage();
+          cancelRunningOperations();
+          executeInBackground(UserCommand.RESET,
+              () -> {
+                imageProcessingService.clearMemory();
+                return null;
+              },
+              cleared -> clearImage());
         }
     );
   }
 
+  /**
+   * Cancels the operations which are still running.
+   * Their results are not displayed, and operations which have not started
+   * yet are not run.
+   */
+  @Override
+  public void cancelOperation() {
+    if (runningOperations.isEmpty()) {
+      return;
+    }
+    cancelRunningOperations();
+    displayMessage("Operation cancelled", DisplayMessageType.INFO);
+  }
+
   /**
    * Extracts and displays the blue color component of the current image.
    * Shows a split view preview of the effect before applying it.
@@ -214,8 +301,8 @@ public class GUIImageProcessorController implements ImageProcessorController,
   @Override
   public void blurImage() {
     executeImageOperation(
-        () -> showSplitView(percentage -> executeSplitViewCommand(percentage,
-                    UserCommand.BLUR)
+        () -> showSplitView(UserCommand.BLUR,
+            imageName -> executeSplitViewCommand(imageName, UserCommand.BLUR)
         )
     );
   }
@@ -227,7 +314,8 @@ public class GUIImageProcessorController implements ImageProcessorController,
   @Override
   public void sharpenImage() {
     executeImageOperation(
-        () -> showSplitView(percentage -> executeSplitViewCommand(percentage,
+        () -> showSplitView(UserCommand.SHARPEN,
+            imageName -> executeSplitViewCommand(imageName,
                     UserCommand.SHARPEN)
         )
     );
@@ -268,8 +356,12 @@ public class GUIImageProcessorController implements ImageProcessorController,
             .destinationImageName(compressImageName)
             .percentage(percentage)
             .build();
-    imageProcessingService.compressImage(request);
-    updateImageToDisplay(compressImageName);
+    executeInBackground(UserCommand.COMPRESS,
+        () -> {
+          imageProcessingService.compressImage(request);
+          return fetchImage(compressImageName);
+        },
+        this::updateImageToDisplay);
   }
 
   /**
@@ -312,8 +404,12 @@ public class GUIImageProcessorController implements ImageProcessorController,
               .scalingFactors(factors.get().getWidthFactor(),
                       factors.get().getHeightFactor())
               .build();
-      imageProcessingService.downscaleImage(request);
-      updateImageToDisplay(scaledImageName);
+      executeInBackground(UserCommand.DOWNSCALE,
+          () -> {
+            imageProcessingService.downscaleImage(request);
+            return fetchImage(scaledImageName);
+          },
+          this::updateImageToDisplay);
     });
   }
 
@@ -331,8 +427,12 @@ public class GUIImageProcessorController implements ImageProcessorController,
                   .imageName(getImageToDisplay())
                   .destinationImageName(verticalFlipImageName)
                   .build();
-          imageProcessingService.verticalFlip(request);
-          updateImageToDisplay(verticalFlipImageName);
+          executeInBackground(UserCommand.VERTICAL_FLIP,
+              () -> {
+                imageProcessingService.verticalFlip(request);
+                return fetchImage(verticalFlipImageName);
+              },
+              this::updateImageToDisplay);
         }
     );
   }
@@ -351,8 +451,12 @@ public class GUIImageProcessorController implements ImageProcessorController,
                       .imageName(getImageToDisplay())
                       .destinationImageName(horizontalFlipImageName)
                       .build();
-          imageProcessingService.horizontalFlip(request);
-          updateImageToDisplay(horizontalFlipImageName);
+          executeInBackground(UserCommand.HORIZONTAL_FLIP,
+              () -> {
+                imageProcessingService.horizontalFlip(request);
+                return fetchImage(horizontalFlipImageName);
+              },
+              this::updateImageToDisplay);
         }
     );
   }
@@ -363,7 +467,8 @@ public class GUIImageProcessorController implements ImageProcessorController,
   @Override
   public void getLuma() {
     executeImageOperation(
-        () -> showSplitView(percentage -> executeSplitViewCommand(percentage,
+        () -> showSplitView(UserCommand.LUMA_COMPONENT,
+            imageName -> executeSplitViewCommand(imageName,
                     UserCommand.LUMA_COMPONENT)
         )
     );
@@ -376,7 +481,8 @@ public class GUIImageProcessorController implements ImageProcessorController,
   @Override
   public void colorCorrect() {
     executeImageOperation(
-        () -> showSplitView(percentage -> executeSplitViewCommand(percentage,
+        () -> showSplitView(UserCommand.COLOR_CORRECT,
+            imageName -> executeSplitViewCommand(imageName,
                     UserCommand.COLOR_CORRECT)
         )
     );
@@ -400,8 +506,8 @@ public class GUIImageProcessorController implements ImageProcessorController,
           int blackLevel = levels.getBlack();
           int midLevel = levels.getMid();
           int whiteLevel = levels.getWhite();
-          showSplitView(
-              percentage -> handleLevelsAdjustment(percentage,
+          showSplitView(UserCommand.LEVELS_ADJUST,
+              imageName -> handleLevelsAdjustment(imageName,
                       blackLevel, midLevel, whiteLevel)
           );
         }
@@ -411,7 +517,7 @@ public class GUIImageProcessorController implements ImageProcessorController,
   /**
    * Handles the levels adjustment operation.
    *
-   * @param percentage the percentage of the image to be displayed
+   * @param imageName  the name of the image to be adjusted
    * @param blackLevel the black level
    * @param midLevel   the middle level
    * @param whiteLevel the white level
@@ -419,40 +525,37 @@ public class GUIImageProcessorController implements ImageProcessorController,
    * @throws ImageProcessorException if there is an error applying the levels
    *                                 adjustment
    */
-  private String handleLevelsAdjustment(int percentage, int blackLevel,
+  private String handleLevelsAdjustment(String imageName, int blackLevel,
                                         int midLevel, int whiteLevel) throws
           ImageProcessorException {
-    String levelsImageName = createDestinationImageName(getImageToDisplay(),
+    String levelsImageName = createDestinationImageName(imageName,
             UserCommand.LEVELS_ADJUST);
 
     ImageProcessingRequest request = ImageProcessingRequest.builder()
-            .imageName(getImageToDisplay())
+            .imageName(imageName)
             .destinationImageName(levelsImageName)
             .levels(blackLevel, midLevel, whiteLevel)
-            .percentage(percentage)
             .build();
     imageProcessingService.levelsAdjust(request);
     return levelsImageName;
   }
 
   /**
-   * Runs the split view command.
+   * Runs the split view command on the whole image.
    *
-   * @param percentage the percentage of the image to be displayed
-   * @param command    the command to be applied
+   * @param sourceImageName the name of the image to apply the command to
+   * @param command         the command to be applied
    * @return the name of the image after applying the split view command
    * @throws ImageProcessorException if there is an error applying the command
    */
-  private String executeSplitViewCommand(Integer percentage,
+  private String executeSplitViewCommand(String sourceImageName,
                                          UserCommand command) throws
           ImageProcessorException {
-    validateImageLoaded();
-    String imageName = createDestinationImageName(getImageToDisplay(),
+    String imageName = createDestinationImageName(sourceImageName,
             command);
     ImageProcessingRequest request = ImageProcessingRequest.builder()
-            .imageName(getImageToDisplay())
+            .imageName(sourceImageName)
             .destinationImageName(imageName)
-            .percentage(percentage)
             .build();
     switch (command) {
       case LUMA_COMPONENT:
@@ -504,21 +607,26 @@ public class GUIImageProcessorController implements ImageProcessorController,
             .imageName(getImageToDisplay())
             .destinationImageName(componentImageName)
             .build();
-    switch (command) {
-      case RED_COMPONENT:
-        imageProcessingService.createRedComponent(request);
-        break;
-      case BLUE_COMPONENT:
-        imageProcessingService.createBlueComponent(request);
-        break;
-      case GREEN_COMPONENT:
-        imageProcessingService.createGreenComponent(request);
-        break;
-      default:
-        throw new ImageProcessorException(
-                String.format("Invalid command for component: %s", command));
-    }
-    updateImageToDisplay(componentImageName);
+    executeInBackground(command,
+        () -> {
+          switch (command) {
+            case RED_COMPONENT:
+              imageProcessingService.createRedComponent(request);
+              break;
+            case BLUE_COMPONENT:
+              imageProcessingService.createBlueComponent(request);
+              break;
+            case GREEN_COMPONENT:
+              imageProcessingService.createGreenComponent(request);
+              break;
+            default:
+              throw new ImageProcessorException(
+                      String.format("Invalid command for component: %s",
+                              command));
+          }
+          return fetchImage(componentImageName);
+        },
+        this::updateImageToDisplay);
   }
 
   /**
@@ -534,40 +642,30 @@ public class GUIImageProcessorController implements ImageProcessorController,
 
 
   /**
-   * Updates the image view only.
-   * This method is used to update the image view without updating the
-   * histogram or the local image name.
-   * If imageName is null or empty, it does not do anything.
+   * Gets the image with the given name and its histogram from the service.
+   * Used by the background operations so the display thread only shows
+   * them.
    *
-   * @param imageName the name of the image to be displayed
-   * @throws ImageProcessorException if there is an error displaying the image
+   * @param imageName the name of the image
+   * @return the image to be displayed with its histogram
+   * @throws ImageProcessorException if the image is not found
    */
-  private void updateImageViewOnly(String imageName) throws
+  private DisplayedImage fetchImage(String imageName) throws
           ImageProcessorException {
-    if (StringUtils.isNullOrEmpty(imageName)) {
-      return;
-    }
     Image image = imageProcessingService.getImage(imageName);
-    guiOutput.displayImage(image, null);
+    return new DisplayedImage(imageName, image, image.histogram());
   }
 
   /**
    * Updates the image to display.
    * This method is used to update the local memory and the image view
    * with histogram.
-   * If imageName is null or empty, it does not do anything.
    *
-   * @param imageName the name of the image to be displayed
-   * @throws ImageProcessorException if there is an error displaying the image
+   * @param image the image to be displayed with its histogram
    */
-  private void updateImageToDisplay(String imageName) throws
-          ImageProcessorException {
-    if (StringUtils.isNullOrEmpty(imageName)) {
-      return;
-    }
-    imageToDisplay.addImage(imageName, imageName);
-    Image image = imageProcessingService.getImage(imageName);
-    guiOutput.displayImage(image, image.histogram());
+  private void updateImageToDisplay(DisplayedImage image) {
+    imageToDisplay.addImage(image.name, image.name);
+    guiOutput.displayImage(image.image, image.histogram);
   }
 
 
@@ -581,34 +679,98 @@ public class GUIImageProcessorController implements ImageProcessorController,
 
   /**
    * Shows the split view of the image.
-   * The split view is shown with the given percentage of the image.
-   * The user can confirm the split view or cancel it.
+   * The operation is previewed in the background on a proxy of the image
+   * fitting the preview size of the output, then the split between the
+   * result and the proxy is moved by the view as the user changes the
+   * percentage, without applying the operation again.
+   * The user can confirm the split view or cancel it. The operation is
+   * applied to the full resolution image only once it is confirmed.
    *
+   * @param command   the command the split view is shown for
    * @param splitView the split view operation to be applied
-   * @throws ImageProcessorException if there is an error displaying the split
-   *                                 view
+   * @throws ImageProcessorException if no image is loaded
    */
-  private void showSplitView(SplitView splitView) throws
+  private void showSplitView(UserCommand command, SplitView splitView) throws
           ImageProcessorException {
     validateImageLoaded();
-    String splitImageName = splitView.run(100);
-    updateImageViewOnly(splitImageName);
+    String originalImageName = getImageToDisplay();
+    int previewWidth = guiOutput.getPreviewWidth();
+    int previewHeight = guiOutput.getPreviewHeight();
+    executeInBackground(command,
+        () -> {
+          String proxyName = getProxy(originalImageName, previewWidth,
+                  previewHeight);
+          String previewName = splitView.run(proxyName);
+          return new SplitImages(previewName,
+                  imageProcessingService.getImage(previewName),
+                  proxyName, imageProcessingService.getImage(proxyName));
+        },
+        images -> confirmSplitView(command, splitView, originalImageName,
+                images));
+  }
+
+  /**
+   * Displays the split view of the previewed image and asks the user to
+   * confirm it.
+   * If confirmed, the operation is applied to the full resolution image,
+   * unless the preview already is at full resolution.
+   *
+   * @param command           the command the split view is shown for
+   * @param splitView         the split view operation to be applied
+   * @param originalImageName the name of the full resolution image
+   * @param images            the preview and the proxy it was computed on
+   */
+  private void confirmSplitView(UserCommand command, SplitView splitView,
+                                String originalImageName,
+                                SplitImages images) {
+    guiOutput.displaySplitView(images.previewImage, images.proxyImage);
     boolean confirmSplitView = guiInput.confirmSplitView(
-        percentage -> {
-            try {
-              String imageName = splitView.run(percentage);
-              updateImageViewOnly(imageName);
-            } catch (ImageProcessorException e) {
-              displayMessage(e.getMessage(), DisplayMessageType.ERROR);
-            }
-        }
-    );
-    if (confirmSplitView) {
-      String imageName = splitView.run(100);
-      updateImageToDisplay(imageName);
-    } else {
-      updateImageToDisplay(this.getImageToDisplay());
+            this::updateSplitView);
+    boolean fullResolution = images.proxyName.equals(originalImageName);
+    executeInBackground(command,
+        () -> {
+          if (!confirmSplitView) {
+            return fetchImage(originalImageName);
+          }
+          if (fullResolution) {
+            return fetchImage(images.previewName);
+          }
+          return fetchImage(splitView.run(originalImageName));
+        },
+        this::updateImageToDisplay);
+  }
+
+  /**
+   * Gets the name of a proxy of the image fitting within the given size.
+   * The pyramid of the image is kept, so previews of the same image do not
+   * downscale it again.
+   *
+   * @param imageName the name of the image
+   * @param maxWidth  the maximum width of the proxy
+   * @param maxHeight the maximum height of the proxy
+   * @return the name of the proxy
+   * @throws ImageProcessorException if the proxy cannot be built
+   */
+  private String getProxy(String imageName, int maxWidth, int maxHeight) throws
+          ImageProcessorException {
+    if (Objects.isNull(proxyPyramid) || !proxyPyramid.isFor(imageName)) {
+      proxyPyramid = new ProxyPyramid(imageProcessingService, imageName);
+    }
+    return proxyPyramid.getProxy(maxWidth, maxHeight);
+  }
+
+  /**
+   * Moves the boundary of the split view being displayed.
+   *
+   * @param percentage the percentage of the image showing the operation
+   */
+  private void updateSplitView(int percentage) {
+    if (percentage < 0 || percentage > 100) {
+      displayMessage("The percentage must be between 0 and 100",
+              DisplayMessageType.ERROR);
+      return;
     }
+    guiOutput.updateSplitView(percentage);
   }
 
   /**
@@ -663,6 +825,61 @@ public class GUIImageProcessorController implements ImageProcessorController,
     }
   }
 
+  /**
+   * Runs the operation on the background executor and hands its result to
+   * the handler on the display thread.
+   * An operation still running for the same command is cancelled, so only
+   * the result of the latest request is displayed. The cancelled operation
+   * is interrupted and stops at the next band of rows it processes.
+   *
+   * @param command       the command the operation is run for
+   * @param operation     the operation to be run in the background
+   * @param resultHandler the handler displaying the result
+   * @param <T>           the type of the result of the operation
+   */
+  private <T> void executeInBackground(UserCommand command,
+                                       BackgroundOperation<T> operation,
+                                       ResultHandler<T> resultHandler) {
+    Future<?> previousOperation = runningOperations.remove(command);
+    if (Objects.nonNull(previousOperation)) {
+      previousOperation.cancel(true);
+    }
+    BackgroundTask<T> task = new BackgroundTask<>(command, operation,
+            resultHandler);
+    runningOperations.put(command, task);
+    guiOutput.displayProgress(String.format("Running %s",
+            command.getCommand()));
+    try {
+      backgroundExecutor.execute(task);
+    } catch (RejectedExecutionException e) {
+      runningOperations.remove(command, task);
+      updateProgress();
+      displayMessage("Unable to run " + command.getCommand(),
+              DisplayMessageType.ERROR);
+    }
+  }
+
+  /**
+   * Cancels all the operations which are still running. Each of them is
+   * interrupted and stops at the next band of rows it processes.
+   */
+  private void cancelRunningOperations() {
+    for (Future<?> operation : runningOperations.values()) {
+      operation.cancel(true);
+    }
+    runningOperations.clear();
+    updateProgress();
+  }
+
+  /**
+   * Hides the progress once no operation is running.
+   */
+  private void updateProgress() {
+    if (runningOperations.isEmpty()) {
+      guiOutput.hideProgress();
+    }
+  }
+
 
   /**
    * Gets the image to be displayed.
@@ -701,15 +918,168 @@ public class GUIImageProcessorController implements ImageProcessorController,
   @FunctionalInterface
   private interface SplitView {
     /**
-     * Runs the split view operation.
+     * Runs the split view operation on the whole image.
      *
-     * @param percentage the percentage of the image to be displayed
+     * @param imageName the name of the image to apply the operation to
      * @return the name of the image after doing split view operation
      * @throws ImageProcessorException if there is an error while applying
      *                                 the operation
      */
-    String run(Integer percentage) throws
+    String run(String imageName) throws
+            ImageProcessorException;
+  }
+
+  /**
+   * Represents an operation run on the background executor.
+   *
+   * @param <T> the type of the result of the operation
+   */
+  @FunctionalInterface
+  private interface BackgroundOperation<T> {
+    /**
+     * Runs the operation.
+     *
+     * @return the result of the operation
+     * @throws ImageProcessorException if there is an error while applying
+     *                                 the operation
+     */
+    T run() throws
             ImageProcessorException;
   }
 
+  /**
+   * Represents the handler of the result of a background operation, run on
+   * the display thread.
+   *
+   * @param <T> the type of the result of the operation
+   */
+  @FunctionalInterface
+  private interface ResultHandler<T> {
+    /**
+     * Handles the result of the operation.
+     *
+     * @param result the result of the operation
+     * @throws ImageProcessorException if there is an error while handling
+     *                                 the result
+     */
+    void handle(T result) throws
+            ImageProcessorException;
+  }
+
+  /**
+   * An image fetched in the background together with its histogram.
+   */
+  private static final class DisplayedImage {
+    private final String name;
+    private final Image image;
+    private final Image histogram;
+
+    /**
+     * Constructs a DisplayedImage object.
+     *
+     * @param name      the name of the image in the service
+     * @param image     the image
+     * @param histogram the histogram of the image
+     */
+    private DisplayedImage(String name, Image image, Image histogram) {
+      this.name = name;
+      this.image = image;
+      this.histogram = histogram;
+    }
+  }
+
+  /**
+   * The images fetched in the background for a split view.
+   */
+  private static final class SplitImages {
+    private final String previewName;
+    private final Image previewImage;
+    private final String proxyName;
+    private final Image proxyImage;
+
+    /**
+     * Constructs a SplitImages object.
+     *
+     * @param previewName  the name of the image after applying the operation
+     *                     to the proxy
+     * @param previewImage the image after applying the operation to the proxy
+     * @param proxyName    the name of the proxy
+     * @param proxyImage   the proxy the operation was applied to
+     */
+    private SplitImages(String previewName, Image previewImage,
+                        String proxyName, Image proxyImage) {
+      this.previewName = previewName;
+      this.previewImage = previewImage;
+      this.proxyName = proxyName;
+      this.proxyImage = proxyImage;
+    }
+  }
+
+  /**
+   * A background operation which hands its result to the display thread
+   * once it is done, unless it was cancelled or superseded in the meantime.
+   *
+   * @param <T> the type of the result of the operation
+   */
+  private final class BackgroundTask<T> extends FutureTask<T> {
+    private final UserCommand command;
+    private final ResultHandler<T> resultHandler;
+
+    /**
+     * Constructs a BackgroundTask object.
+     *
+     * @param command       the command the operation is run for
+     * @param operation     the operation to be run
+     * @param resultHandler the handler displaying the result
+     */
+    private BackgroundTask(UserCommand command,
+                           BackgroundOperation<T> operation,
+                           ResultHandler<T> resultHandler) {
+      super(operation::run);
+      this.command = command;
+      this.resultHandler = resultHandler;
+    }
+
+    @Override
+    protected void done() {
+      if (!isCancelled()) {
+        guiOutput.invokeOnDisplayThread(this::complete);
+      }
+    }
+
+    /**
+     * Hands the result to the handler if this is still the latest operation
+     * for its command.
+     */
+    private void complete() {
+      if (!runningOperations.remove(command, this)) {
+        return;
+      }
+      updateProgress();
+      executeImageOperation(() -> resultHandler.handle(getResult()));
+    }
+
+    /**
+     * Gets the result of the finished operation.
+     *
+     * @return the result of the operation
+     * @throws ImageProcessorException if the operation failed
+     */
+    private T getResult() throws
+            ImageProcessorException {
+      try {
+        return get();
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof ImageProcessorException) {
+          throw (ImageProcessorException) cause;
+        }
+        throw new ImageProcessorException(cause.getMessage(), cause);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new ImageProcessorException("Operation interrupted", e);
+      }
+    }
+  }
+
 }
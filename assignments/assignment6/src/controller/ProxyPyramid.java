@@ -0,0 +1,194 @@
+package controller;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import controller.services.ImageProcessingService;
+import exception.ImageProcessorException;
+import model.visual.Image;
+
+/**
+ * A mipmap pyramid of an image stored in the image processing service, used
+ * to get a low resolution proxy of the image to preview operations on.
+ * Every level is half the size of the level before it and is downscaled from
+ * it directly, so the levels are kept by the pyramid and never stored in the
+ * memory of the service nor reported as downscale commands. The levels are
+ * built only as deep as a proxy needs, and the proxy is downscaled once more
+ * from the smallest level which still covers the requested size.
+ * The proxy is stored in the service under PROXY_NAME, replacing the proxy
+ * of any other pyramid, so the memory only ever holds one proxy.
+ *
+ * <p>A pyramid is not safe to use from several threads.
+ */
+public class ProxyPyramid {
+
+  /**
+   * Name under which the proxy is stored in the service.
+   */
+  public static final String PROXY_NAME = "preview_proxy";
+
+  private final ImageProcessingService imageProcessingService;
+  private final String imageName;
+  private final Image image;
+
+  /**
+   * Levels built so far, the image itself being the first one.
+   */
+  private final List<Image> levels;
+
+  /**
+   * The last proxy, null if it is the image itself.
+   */
+  private Image proxy;
+  private int proxyMaxWidth;
+  private int proxyMaxHeight;
+
+  /**
+   * Constructs a ProxyPyramid object for the image with the given name.
+   * No level is built until a proxy is requested.
+   *
+   * @param imageProcessingService the service storing the image
+   * @param imageName              the name of the image
+   * @throws ImageProcessorException if the image is not found
+   */
+  public ProxyPyramid(ImageProcessingService imageProcessingService,
+                      String imageName) throws ImageProcessorException {
+    this.imageProcessingService = Objects.requireNonNull(
+            imageProcessingService, "ImageProcessingService cannot be null");
+    this.imageName = Objects.requireNonNull(imageName,
+            "Image name cannot be null");
+    this.image = imageProcessingService.getImage(imageName);
+    this.levels = new ArrayList<>();
+    this.levels.add(image);
+  }
+
+  /**
+   * Checks if this pyramid was built for the image stored under the given
+   * name in the service.
+   * A pyramid is stale once another image is stored under its name.
+   *
+   * @param imageName the name of the image
+   * @return true if the pyramid is for the image currently under that name
+   * @throws ImageProcessorException if the image is not found
+   */
+  public boolean isFor(String imageName) throws ImageProcessorException {
+    return this.imageName.equals(imageName)
+            && imageProcessingService.getImage(imageName) == image;
+  }
+
+  /**
+   * Gets the name of a proxy of the image fitting within the given size,
+   * keeping its aspect ratio.
+   * The name of the image itself is returned if it already fits. Otherwise
+   * the proxy is stored in the service under PROXY_NAME, which is returned.
+   *
+   * @param maxWidth  the maximum width of the proxy
+   * @param maxHeight the maximum height of the proxy
+   * @return the name under which the proxy is stored in the service
+   * @throws ImageProcessorException if the size is not positive or the
+   *                                 proxy cannot be built
+   */
+  public String getProxy(int maxWidth, int maxHeight) throws
+          ImageProcessorException {
+    if (maxWidth <= 0 || maxHeight <= 0) {
+      throw new ImageProcessorException("Proxy size must be positive");
+    }
+    if (maxWidth != proxyMaxWidth || maxHeight != proxyMaxHeight) {
+      proxy = buildProxy(maxWidth, maxHeight);
+      proxyMaxWidth = maxWidth;
+      proxyMaxHeight = maxHeight;
+    }
+    if (proxy == null) {
+      return imageName;
+    }
+    // Stored on every call, as another pyramid may have replaced it.
+    imageProcessingService.addImage(PROXY_NAME, proxy);
+    return PROXY_NAME;
+  }
+
+  /**
+   * Builds a proxy of the image fitting within the given size.
+   *
+   * @param maxWidth  the maximum width of the proxy
+   * @param maxHeight the maximum height of the proxy
+   * @return the proxy, null if the image already fits
+   * @throws ImageProcessorException if the proxy cannot be built
+   */
+  private Image buildProxy(int maxWidth, int maxHeight) throws
+          ImageProcessorException {
+    double scale = Math.min((double) maxWidth / image.getWidth(),
+            (double) maxHeight / image.getHeight());
+    if (scale >= 1) {
+      return null;
+    }
+    int targetWidth = Math.max(1, (int) (image.getWidth() * scale));
+    int targetHeight = Math.max(1, (int) (image.getHeight() * scale));
+    int level = 0;
+    while (getLevel(level).getWidth() / 2 >= targetWidth
+            && getLevel(level).getHeight() / 2 >= targetHeight) {
+      level = buildLevel(level + 1);
+    }
+    return fitLevel(level, targetWidth, targetHeight);
+  }
+
+  /**
+   * Gets the level with the given index, which has already been built.
+   *
+   * @param level the index of the level
+   * @return the image of the level
+   */
+  private Image getLevel(int level) {
+    return levels.get(level);
+  }
+
+  /**
+   * Builds the level with the given index by halving the level before it,
+   * unless it is already built.
+   *
+   * @param level the index of the level
+   * @return the index of the level
+   * @throws ImageProcessorException if the level cannot be downscaled
+   */
+  private int buildLevel(int level) throws ImageProcessorException {
+    if (level < levels.size()) {
+      return level;
+    }
+    levels.add(getLevel(level - 1).downscale(50, 50));
+    return level;
+  }
+
+  /**
+   * Downscales the given level to the target size, unless it already has
+   * that size.
+   *
+   * @param level        the index of the level
+   * @param targetWidth  the width of the proxy
+   * @param targetHeight the height of the proxy
+   * @return the proxy
+   * @throws ImageProcessorException if the level cannot be downscaled
+   */
+  private Image fitLevel(int level, int targetWidth, int targetHeight) throws
+          ImageProcessorException {
+    Image levelImage = getLevel(level);
+    int widthFactor = scalingFactor(targetWidth, levelImage.getWidth());
+    int heightFactor = scalingFactor(targetHeight, levelImage.getHeight());
+    if (widthFactor == 100 && heightFactor == 100) {
+      return levelImage;
+    }
+    return levelImage.downscale(widthFactor, heightFactor);
+  }
+
+  /**
+   * Gets the percentage to scale a side of the given length to the target
+   * length, as a scaling factor accepted by downscale.
+   *
+   * @param target the target length
+   * @param length the length of the side
+   * @return the scaling factor between 1 and 100
+   */
+  private static int scalingFactor(int target, int length) {
+    int factor = (int) Math.ceil(100.0 * target / length);
+    return Math.max(1, Math.min(100, factor));
+  }
+}
@@ -0,0 +1,439 @@
+package controller.script;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Scanner;
+import java.util.regex.Pattern;
+
+import exception.ImageProcessorException;
+import model.enumeration.UserCommand;
+import model.request.ImageProcessingRequest;
+
+/**
+ * Parses the arguments of the user commands into ScriptCommand objects.
+ * The arguments are read from a scanner positioned right after the command,
+ * so the same parser is used for the commands typed by the user and for the
+ * commands of a script.
+ */
+public final class CommandParser {
+
+  /**
+   * Split command to indicate the optional split percentage.
+   */
+  private static final String SPLIT_COMMAND = "split";
+
+  /**
+   * Pattern matching the split command.
+   */
+  private static final Pattern SPLIT_PATTERN = Pattern.compile(SPLIT_COMMAND);
+
+  /**
+   * Percentage command to indicate the optional percentage by which a HAAR
+   * file is compressed when saved.
+   */
+  private static final String PERCENTAGE_COMMAND = "percentage";
+
+  /**
+   * Pattern matching the percentage command.
+   */
+  private static final Pattern PERCENTAGE_PATTERN =
+          Pattern.compile(PERCENTAGE_COMMAND);
+
+  /**
+   * Binary command to indicate that a PPM file is saved as a binary P6 file.
+   */
+  private static final String BINARY_COMMAND = "binary";
+
+  /**
+   * Pattern matching the binary command.
+   */
+  private static final Pattern BINARY_PATTERN = Pattern.compile(BINARY_COMMAND);
+
+  private CommandParser() {
+    //Empty private constructor to prevent instantiation.
+  }
+
+  /**
+   * Reads the arguments of the given command from the scanner.
+   *
+   * @param command the command to parse
+   * @param scanner scanner to read the command arguments
+   * @return the parsed command
+   * @throws ImageProcessorException if the arguments are invalid
+   */
+  public static ScriptCommand parse(UserCommand command, Scanner scanner)
+          throws ImageProcessorException {
+    switch (command) {
+      case LOAD:
+        return parseLoadCommand(scanner);
+      case SAVE:
+        return parseSaveCommand(scanner);
+      case RED_COMPONENT:
+        return parseSingleImageCommand(command, scanner,
+                "Successfully created red component.");
+      case BLUE_COMPONENT:
+        return parseSingleImageCommand(command, scanner,
+                "Successfully created blue component.");
+      case GREEN_COMPONENT:
+        return parseSingleImageCommand(command, scanner,
+                "Successfully created green component.");
+      case VALUE_COMPONENT:
+        return parseSingleImageCommand(command, scanner,
+                "Successfully created value component.");
+      case LUMA_COMPONENT:
+        return parseSplitViewCommand(command, scanner,
+                "Successfully created luma component.");
+      case INTENSITY_COMPONENT:
+        return parseSingleImageCommand(command, scanner,
+                "Successfully created intensity component.");
+      case HORIZONTAL_FLIP:
+        return parseSingleImageCommand(command, scanner,
+                "Successfully flipped the image horizontally.");
+      case VERTICAL_FLIP:
+        return parseSingleImageCommand(command, scanner,
+                "Successfully flipped the image vertically.");
+      case BRIGHTEN:
+        return parseBrightenCommand(scanner);
+      case RGB_SPLIT:
+        return parseRgbSplitCommand(scanner);
+      case RGB_COMBINE:
+        return parseRgbCombineCommand(scanner);
+      case BLUR:
+        return parseSplitViewCommand(command, scanner,
+                "Successfully blurred the image.");
+      case SHARPEN:
+        return parseSplitViewCommand(command, scanner,
+                "Successfully sharpened the image.");
+      case SEPIA:
+        return parseSplitViewCommand(command, scanner,
+                "Successfully converted the image to sepia.");
+      case RUN:
+        return parseRunCommand(scanner);
+      case COMPRESS:
+        return parseCompressionCommand(scanner);
+      case HISTOGRAM:
+        return parseSingleImageCommand(command, scanner,
+                "Successfully created histogram of the image.");
+      case COLOR_CORRECT:
+        return parseSplitViewCommand(command, scanner,
+                "Successfully color corrected the image.");
+      case LEVELS_ADJUST:
+        return parseLevelsAdjustCommand(scanner);
+      case RESET:
+        return createCommand(command, null, "Successfully reset the memory.");
+      default:
+        // Help, quit and the commands which cannot be run from the text
+        // interface take no arguments.
+        return createCommand(command, null, "");
+    }
+  }
+
+  /**
+   * Parses the load command.
+   *
+   * @param scanner scanner to read the command arguments
+   * @return the parsed command
+   * @throws ImageProcessorException if the arguments are invalid
+   */
+  private static ScriptCommand parseLoadCommand(Scanner scanner)
+          throws ImageProcessorException {
+    List<String> arguments = extractArguments(scanner, 2);
+    ImageProcessingRequest request = ImageProcessingRequest
+            .builder()
+            .imagePath(arguments.get(0))
+            .imageName(arguments.get(1)).build();
+    return new ScriptCommand(UserCommand.LOAD, request, null,
+            "Successfully loaded the image.", Collections.emptyList(),
+            List.of(request.getImageName()));
+  }
+
+  /**
+   * Parses the save command, which accepts either an optional percentage by
+   * which a HAAR file is compressed or the binary command to save a PPM file
+   * as a binary file.
+   *
+   * @param scanner scanner to read the command arguments
+   * @return the parsed command
+   * @throws ImageProcessorException if the arguments are invalid
+   */
+  private static ScriptCommand parseSaveCommand(Scanner scanner)
+          throws ImageProcessorException {
+    List<String> arguments = extractArguments(scanner, 2);
+    boolean binary = scanner.hasNext(BINARY_PATTERN);
+    if (binary) {
+      scanner.next();
+    }
+    ImageProcessingRequest request = ImageProcessingRequest
+            .builder()
+            .imagePath(arguments.get(0))
+            .imageName(arguments.get(1))
+            .percentage(binary ? null
+                    : extractOptionalPercentage(scanner, PERCENTAGE_PATTERN)
+                    .orElse(null))
+            .binary(binary)
+            .build();
+    return new ScriptCommand(UserCommand.SAVE, request, null,
+            "Successfully saved the image.", List.of(request.getImageName()),
+            Collections.emptyList());
+  }
+
+  /**
+   * Parses a command which creates a new image from a single image.
+   *
+   * @param command        the command to parse
+   * @param scanner        scanner to read the command arguments
+   * @param successMessage the message displayed when the command succeeds
+   * @return the parsed command
+   * @throws ImageProcessorException if the arguments are invalid
+   */
+  private static ScriptCommand parseSingleImageCommand(UserCommand command,
+                                                       Scanner scanner,
+                                                       String successMessage)
+          throws ImageProcessorException {
+    List<String> arguments = extractArguments(scanner, 2);
+    return createCommand(command, ImageProcessingRequest
+            .builder()
+            .imageName(arguments.get(0))
+            .destinationImageName(arguments.get(1))
+            .build(), successMessage);
+  }
+
+  /**
+   * Parses a command which creates a new image from a single image and
+   * accepts an optional split percentage.
+   *
+   * @param command        the command to parse
+   * @param scanner        scanner to read the command arguments
+   * @param successMessage the message displayed when the command succeeds
+   * @return the parsed command
+   * @throws ImageProcessorException if the arguments are invalid
+   */
+  private static ScriptCommand parseSplitViewCommand(UserCommand command,
+                                                     Scanner scanner,
+                                                     String successMessage)
+          throws ImageProcessorException {
+    List<String> arguments = extractArguments(scanner, 2);
+    return createCommand(command, ImageProcessingRequest
+            .builder()
+            .imageName(arguments.get(0))
+            .destinationImageName(arguments.get(1))
+            // Optional percentage argument to get the split view.
+            .percentage(extractOptionalSplitPercentage(scanner).orElse(null))
+            .build(), successMessage);
+  }
+
+  /**
+   * Parses the brighten command.
+   *
+   * @param scanner scanner to read the command arguments
+   * @return the parsed command
+   * @throws ImageProcessorException if the arguments are invalid
+   */
+  private static ScriptCommand parseBrightenCommand(Scanner scanner)
+          throws ImageProcessorException {
+    if (!scanner.hasNextInt()) {
+      throw new ImageProcessorException("Invalid factor provided for "
+              + "brightening the image.");
+    }
+    int brightness = scanner.nextInt();
+    List<String> arguments = extractArguments(scanner, 2);
+    return createCommand(UserCommand.BRIGHTEN, ImageProcessingRequest
+                    .builder()
+                    .imageName(arguments.get(0))
+                    .destinationImageName(arguments.get(1))
+                    .factor(brightness).build(),
+            String.format("Successfully brightened the image at factor:%s",
+                    brightness));
+  }
+
+  /**
+   * Parses the rgb split command.
+   *
+   * @param scanner scanner to read the command arguments
+   * @return the parsed command
+   * @throws ImageProcessorException if the arguments are invalid
+   */
+  private static ScriptCommand parseRgbSplitCommand(Scanner scanner)
+          throws ImageProcessorException {
+    List<String> arguments = extractArguments(scanner, 4);
+    ImageProcessingRequest request = ImageProcessingRequest
+            .builder()
+            .imageName(arguments.get(0))
+            .redImageName(arguments.get(1))
+            .greenImageName(arguments.get(2))
+            .blueImageName(arguments.get(3))
+            .build();
+    return new ScriptCommand(UserCommand.RGB_SPLIT, request, null,
+            "Successfully split the image into RGB components.",
+            List.of(request.getImageName()),
+            List.of(request.getRedImageName(), request.getGreenImageName(),
+                    request.getBlueImageName()));
+  }
+
+  /**
+   * Parses the rgb combine command.
+   *
+   * @param scanner scanner to read the command arguments
+   * @return the parsed command
+   * @throws ImageProcessorException if the arguments are invalid
+   */
+  private static ScriptCommand parseRgbCombineCommand(Scanner scanner)
+          throws ImageProcessorException {
+    List<String> arguments = extractArguments(scanner, 4);
+    ImageProcessingRequest request = ImageProcessingRequest
+            .builder()
+            .imageName(arguments.get(0))
+            .redImageName(arguments.get(1))
+            .greenImageName(arguments.get(2))
+            .blueImageName(arguments.get(3))
+            .build();
+    return new ScriptCommand(UserCommand.RGB_COMBINE, request, null,
+            "Successfully combined the RGB components.",
+            List.of(request.getRedImageName(), request.getGreenImageName(),
+                    request.getBlueImageName()),
+            List.of(request.getImageName()));
+  }
+
+  /**
+   * Parses the run command.
+   *
+   * @param scanner scanner to read the command arguments
+   * @return the parsed command
+   * @throws ImageProcessorException if the arguments are invalid
+   */
+  private static ScriptCommand parseRunCommand(Scanner scanner)
+          throws ImageProcessorException {
+    List<String> arguments = extractArguments(scanner, 1);
+    return new ScriptCommand(UserCommand.RUN, null, arguments.get(0),
+            "Successfully executed the script file.", Collections.emptyList(),
+            Collections.emptyList());
+  }
+
+  /**
+   * Parses the compression command.
+   *
+   * @param scanner scanner to read the command arguments
+   * @return the parsed command
+   * @throws ImageProcessorException if the arguments are invalid
+   */
+  private static ScriptCommand parseCompressionCommand(Scanner scanner)
+          throws ImageProcessorException {
+    List<String> arguments = extractArguments(scanner, 3);
+    try {
+      int compressionPercentage = Integer.parseInt(arguments.get(0));
+      return createCommand(UserCommand.COMPRESS, ImageProcessingRequest
+                      .builder()
+                      .imageName(arguments.get(1))
+                      .destinationImageName(arguments.get(2))
+                      .percentage(compressionPercentage)
+                      .build(),
+              String.format("Successfully compressed the image at %s%%.",
+                      compressionPercentage));
+    } catch (NumberFormatException e) {
+      throw new ImageProcessorException("Invalid compression percentage "
+              + "provided.");
+    }
+  }
+
+  /**
+   * Parses the levels adjust command.
+   *
+   * @param scanner scanner to read the command arguments
+   * @return the parsed command
+   * @throws ImageProcessorException if the arguments are invalid
+   */
+  private static ScriptCommand parseLevelsAdjustCommand(Scanner scanner)
+          throws ImageProcessorException {
+    List<String> arguments = extractArguments(scanner, 5);
+    try {
+      int black = Integer.parseInt(arguments.get(0));
+      int mid = Integer.parseInt(arguments.get(1));
+      int white = Integer.parseInt(arguments.get(2));
+      return createCommand(UserCommand.LEVELS_ADJUST, ImageProcessingRequest
+                      .builder()
+                      .imageName(arguments.get(3))
+                      .destinationImageName(arguments.get(4))
+                      .levels(black, mid, white)
+                      // Optional percentage argument to get the split view.
+                      .percentage(extractOptionalSplitPercentage(scanner).orElse(null))
+                      .build(),
+              String.format("Successfully adjusted the levels of the image to "
+                      + "black:%s, mid:%s, white:%s.", black, mid, white));
+    } catch (NumberFormatException e) {
+      throw new ImageProcessorException("Invalid levels provided.");
+    }
+  }
+
+  /**
+   * Creates a command which reads the image with the name of the request
+   * and writes its destination image.
+   *
+   * @param command        the command
+   * @param request        the request, null if the command does not work on
+   *                       images
+   * @param successMessage the message displayed when the command succeeds
+   * @return the command
+   */
+  private static ScriptCommand createCommand(UserCommand command,
+                                             ImageProcessingRequest request,
+                                             String successMessage) {
+    if (request == null) {
+      return new ScriptCommand(command, null, null, successMessage,
+              Collections.emptyList(), Collections.emptyList());
+    }
+    return new ScriptCommand(command, request, null, successMessage,
+            List.of(request.getImageName()),
+            List.of(request.getDestinationImageName()));
+  }
+
+  /**
+   * Extracts the arguments from the scanner.
+   *
+   * @param scanner           scanner to read the arguments
+   * @param numberOfArguments number of arguments to be read
+   * @return list of arguments
+   * @throws ImageProcessorException if the number of arguments is invalid.
+   */
+  private static List<String> extractArguments(Scanner scanner,
+                                               int numberOfArguments)
+          throws ImageProcessorException {
+    List<String> arguments = new ArrayList<>();
+    while (numberOfArguments-- > 0) {
+      if (!scanner.hasNext()) {
+        throw new ImageProcessorException("Invalid command parameters.");
+      }
+      arguments.add(scanner.next());
+    }
+    return arguments;
+  }
+
+  /**
+   * Extracts the optional split percentage argument from the scanner.
+   *
+   * @param scanner scanner to read the argument
+   * @return optional split percentage
+   */
+  private static Optional<Integer> extractOptionalSplitPercentage(Scanner scanner) {
+    return extractOptionalPercentage(scanner, SPLIT_PATTERN);
+  }
+
+  /**
+   * Extracts an optional percentage argument which follows the given command
+   * from the scanner.
+   *
+   * @param scanner scanner to read the argument
+   * @param command pattern matching the command before the percentage
+   * @return optional percentage
+   */
+  private static Optional<Integer> extractOptionalPercentage(Scanner scanner,
+                                                             Pattern command) {
+    if (scanner.hasNext(command)) {
+      scanner.next();
+      return scanner.hasNextInt() ? Optional.of(scanner.nextInt()) :
+              Optional.empty();
+    }
+    return Optional.empty();
+  }
+}
@@ -0,0 +1,21 @@
+package controller.script;
+
+import controller.ExecutionStatus;
+import exception.ImageProcessorException;
+
+/**
+ * Executes a parsed command, typically by calling the image processing
+ * service with its request.
+ */
+@FunctionalInterface
+public interface CommandRunner {
+
+  /**
+   * Executes the command.
+   *
+   * @param command the command to execute
+   * @return the status of the execution
+   * @throws ImageProcessorException if the command fails
+   */
+  ExecutionStatus execute(ScriptCommand command) throws ImageProcessorException;
+}
@@ -0,0 +1,148 @@
+package controller.script;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+import model.enumeration.UserCommand;
+import model.request.ImageProcessingRequest;
+
+/**
+ * A command parsed from the user input or a script, ready to be executed.
+ * Besides the request sent to the service, it knows the names of the images
+ * it reads and the names of the images it writes, which is what a script
+ * plan uses to find the commands whose results are never used.
+ */
+public final class ScriptCommand {
+
+  /**
+   * Commands which only write their destination images and can only fail if
+   * one of their source images is missing.
+   */
+  private static final Set<UserCommand> PURE_COMMANDS = EnumSet.of(
+          UserCommand.RED_COMPONENT,
+          UserCommand.GREEN_COMPONENT,
+          UserCommand.BLUE_COMPONENT,
+          UserCommand.VALUE_COMPONENT,
+          UserCommand.LUMA_COMPONENT,
+          UserCommand.INTENSITY_COMPONENT,
+          UserCommand.HORIZONTAL_FLIP,
+          UserCommand.VERTICAL_FLIP,
+          UserCommand.BRIGHTEN,
+          UserCommand.RGB_SPLIT,
+          UserCommand.BLUR,
+          UserCommand.SHARPEN,
+          UserCommand.SEPIA,
+          UserCommand.COMPRESS,
+          UserCommand.HISTOGRAM,
+          UserCommand.COLOR_CORRECT
+  );
+
+  private final UserCommand command;
+  private final ImageProcessingRequest request;
+  private final String scriptPath;
+  private final String successMessage;
+  private final List<String> sources;
+  private final List<String> destinations;
+
+  /**
+   * Constructs a ScriptCommand object.
+   *
+   * @param command        the command
+   * @param request        the request sent to the service, null if the
+   *                       command does not work on images
+   * @param scriptPath     the path of the script to run, null if the command
+   *                       is not a run command
+   * @param successMessage the message displayed when the command succeeds
+   * @param sources        the names of the images the command reads
+   * @param destinations   the names of the images the command writes
+   */
+  ScriptCommand(UserCommand command, ImageProcessingRequest request,
+                String scriptPath, String successMessage,
+                List<String> sources, List<String> destinations) {
+    this.command = Objects.requireNonNull(command, "Command cannot be null");
+    this.request = request;
+    this.scriptPath = scriptPath;
+    this.successMessage = Objects.requireNonNull(successMessage,
+            "Message cannot be null");
+    this.sources = Collections.unmodifiableList(sources);
+    this.destinations = Collections.unmodifiableList(destinations);
+  }
+
+  /**
+   * Gets the command.
+   *
+   * @return the command
+   */
+  public UserCommand getCommand() {
+    return command;
+  }
+
+  /**
+   * Gets the request sent to the service.
+   *
+   * @return the request, null if the command does not work on images
+   */
+  public ImageProcessingRequest getRequest() {
+    return request;
+  }
+
+  /**
+   * Gets the path of the script to run.
+   *
+   * @return the path, null if the command is not a run command
+   */
+  public String getScriptPath() {
+    return scriptPath;
+  }
+
+  /**
+   * Gets the message displayed when the command succeeds.
+   *
+   * @return the success message
+   */
+  public String getSuccessMessage() {
+    return successMessage;
+  }
+
+  /**
+   * Gets the names of the images the command reads.
+   *
+   * @return the source image names
+   */
+  public List<String> getSources() {
+    return sources;
+  }
+
+  /**
+   * Gets the names of the images the command writes.
+   *
+   * @return the destination image names
+   */
+  public List<String> getDestinations() {
+    return destinations;
+  }
+
+  /**
+   * Checks if the command only writes its destination images and cannot fail
+   * once its source images are in memory. Skipping such a command is not
+   * noticed if its destination images are never used.
+   * Commands with a split view are not pure since the split percentage may
+   * be out of range, and neither is a compression with a percentage out of
+   * range.
+   *
+   * @return true if the command is pure, false otherwise
+   */
+  public boolean isPure() {
+    if (!PURE_COMMANDS.contains(command)) {
+      return false;
+    }
+    if (command == UserCommand.COMPRESS) {
+      int percentage = request.getPercentage().orElse(0);
+      return percentage >= 0 && percentage <= 100;
+    }
+    return !request.getPercentage().isPresent();
+  }
+}
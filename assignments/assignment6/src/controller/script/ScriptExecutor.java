@@ -0,0 +1,400 @@
+package controller.script;
+
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+
+import controller.ExecutionStatus;
+import exception.ImageProcessorException;
+import model.enumeration.UserCommand;
+import view.DisplayMessageType;
+
+/**
+ * Executes the steps of a compiled script, running the commands which do not
+ * depend on each other concurrently on an executor.
+ *
+ * <p>A command depends on the earlier commands which write an image it reads
+ * or writes, on the earlier commands which read an image it writes and on the
+ * command before it on the same line, since an error ends the line. Loading
+ * and saving files are treated the same way, keyed by the normalised path of
+ * the file. Run, reset, quit and help commands are barriers: they execute on
+ * the calling thread once every earlier command is done, and no later command
+ * starts before them.
+ *
+ * <p>The messages are displayed on the calling thread in the order of the
+ * script, as soon as every earlier step is done, so the output is the same as
+ * executing the script one command at a time. With an executor running the
+ * tasks on the calling thread the script is executed sequentially.
+ * An unexpected runtime error stops the script once the earlier steps are
+ * displayed, although independent later commands may already have run.
+ */
+public final class ScriptExecutor {
+
+  /**
+   * Executor running the commands on the calling thread, one at a time.
+   */
+  public static final Executor SEQUENTIAL = Runnable::run;
+
+  /**
+   * Prefix of the keys of the images read and written by the commands.
+   */
+  private static final String IMAGE_PREFIX = "image:";
+
+  /**
+   * Prefix of the keys of the files read and written by the commands.
+   */
+  private static final String FILE_PREFIX = "file:";
+
+  /**
+   * Outcome of a step whose line ended before it.
+   */
+  private static final Outcome SKIPPED = new Outcome(null, DisplayMessageType.INFO,
+          false, true);
+
+  private final Executor executor;
+
+  /**
+   * Constructs a ScriptExecutor object.
+   *
+   * @param executor the executor running the commands
+   */
+  public ScriptExecutor(Executor executor) {
+    this.executor = Objects.requireNonNull(executor, "Executor cannot be null");
+  }
+
+  /**
+   * Executes the steps of the plan and displays their messages in order.
+   * Eliminated commands are skipped when their source images are known to
+   * be in memory, and display their success message as if they ran.
+   *
+   * @param plan    the compiled script
+   * @param runner  the runner executing the commands
+   * @param display the consumer displaying the messages
+   */
+  public void execute(ScriptPlan plan, CommandRunner runner,
+                      BiConsumer<String, DisplayMessageType> display) {
+    Objects.requireNonNull(plan, "Plan cannot be null");
+    Objects.requireNonNull(runner, "Runner cannot be null");
+    Objects.requireNonNull(display, "Display cannot be null");
+    new Execution(plan.getSteps(), runner, display).run();
+  }
+
+  /**
+   * Checks if the command has to run alone, after every earlier command and
+   * before every later command.
+   *
+   * @param command the command to check
+   * @return true if the command is a barrier, false otherwise
+   */
+  private static boolean isBarrier(ScriptCommand command) {
+    switch (command.getCommand()) {
+      case RUN:
+      case RESET:
+      case QUIT:
+      case HELP:
+      case STATS:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Gets the keys of the images and the file the command reads.
+   *
+   * @param command the command
+   * @return the keys read
+   */
+  private static List<String> getReadKeys(ScriptCommand command) {
+    List<String> keys = new ArrayList<>();
+    for (String source : command.getSources()) {
+      keys.add(IMAGE_PREFIX + source);
+    }
+    if (command.getCommand() == UserCommand.LOAD) {
+      keys.add(getFileKey(command.getRequest().getImagePath()));
+    }
+    return keys;
+  }
+
+  /**
+   * Gets the keys of the images and the file the command writes.
+   *
+   * @param command the command
+   * @return the keys written
+   */
+  private static List<String> getWrittenKeys(ScriptCommand command) {
+    List<String> keys = new ArrayList<>();
+    for (String destination : command.getDestinations()) {
+      keys.add(IMAGE_PREFIX + destination);
+    }
+    if (command.getCommand() == UserCommand.SAVE) {
+      keys.add(getFileKey(command.getRequest().getImagePath()));
+    }
+    return keys;
+  }
+
+  /**
+   * Gets the key of a file, so different paths to the same file share it.
+   *
+   * @param path the path of the file
+   * @return the key of the file
+   */
+  private static String getFileKey(String path) {
+    try {
+      return FILE_PREFIX + Paths.get(path).toAbsolutePath().normalize();
+    } catch (InvalidPathException e) {
+      return FILE_PREFIX + path;
+    }
+  }
+
+  /**
+   * The result of a step: the message to display, whether the command
+   * stored its destination images and whether the rest of the line is
+   * skipped.
+   */
+  private static final class Outcome {
+    private final String message;
+    private final DisplayMessageType messageType;
+    private final boolean stored;
+    private final boolean endsLine;
+
+    private Outcome(String message, DisplayMessageType messageType,
+                    boolean stored, boolean endsLine) {
+      this.message = message;
+      this.messageType = messageType;
+      this.stored = stored;
+      this.endsLine = endsLine;
+    }
+  }
+
+  /**
+   * The state of a single execution of a plan.
+   */
+  private final class Execution {
+    private final List<ScriptPlan.Step> steps;
+    private final CommandRunner runner;
+    private final BiConsumer<String, DisplayMessageType> display;
+    /**
+     * The result of every step scheduled so far, only used by the thread
+     * scheduling the steps. The steps get the results they wait for when
+     * they are scheduled.
+     */
+    private final List<CompletableFuture<Outcome>> results;
+    private final AtomicBoolean aborted;
+
+    /**
+     * Images known to be in memory after the steps displayed so far.
+     */
+    private final Set<String> storedImages;
+
+    /**
+     * Number of steps whose messages are displayed.
+     */
+    private int displayed;
+
+    private Execution(List<ScriptPlan.Step> steps, CommandRunner runner,
+                      BiConsumer<String, DisplayMessageType> display) {
+      this.steps = steps;
+      this.runner = runner;
+      this.display = display;
+      this.results = new ArrayList<>(steps.size());
+      this.aborted = new AtomicBoolean();
+      this.storedImages = new HashSet<>();
+    }
+
+    private void run() {
+      // Readers and writers of every key since the last barrier.
+      Map<String, List<Integer>> readers = new HashMap<>();
+      Map<String, List<Integer>> writers = new HashMap<>();
+      Map<Integer, Integer> lastStepOfLine = new HashMap<>();
+      Set<String> imagesBeforeSegment = Collections.emptySet();
+      for (int i = 0; i < steps.size(); i++) {
+        ScriptPlan.Step step = steps.get(i);
+        Integer previousIndex = lastStepOfLine.put(step.getLine(), i);
+        CompletableFuture<Outcome> previous = previousIndex == null
+                ? null : results.get(previousIndex);
+        if (!step.isMessage() && isBarrier(step.getCommand())) {
+          displayUpTo(i, true);
+          results.add(CompletableFuture.completedFuture(
+                  executeStep(step, previous, Collections.emptySet(),
+                          Collections.emptyMap())));
+          displayUpTo(i + 1, true);
+          readers.clear();
+          writers.clear();
+          imagesBeforeSegment = Collections.unmodifiableSet(new HashSet<>(storedImages));
+          continue;
+        }
+
+        List<CompletableFuture<Outcome>> dependencies = new ArrayList<>();
+        if (previous != null) {
+          dependencies.add(previous);
+        }
+        Map<String, List<CompletableFuture<Outcome>>> sourceWriters = new HashMap<>();
+        if (!step.isMessage()) {
+          ScriptCommand command = step.getCommand();
+          for (String source : command.getSources()) {
+            List<CompletableFuture<Outcome>> writersOfSource = new ArrayList<>();
+            addDependencies(writersOfSource, writers.get(IMAGE_PREFIX + source));
+            sourceWriters.put(source, writersOfSource);
+          }
+          List<String> readKeys = getReadKeys(command);
+          List<String> writtenKeys = getWrittenKeys(command);
+          for (String key : readKeys) {
+            addDependencies(dependencies, writers.get(key));
+          }
+          for (String key : writtenKeys) {
+            addDependencies(dependencies, writers.get(key));
+            addDependencies(dependencies, readers.get(key));
+          }
+          for (String key : readKeys) {
+            readers.computeIfAbsent(key, k -> new ArrayList<>()).add(i);
+          }
+          for (String key : writtenKeys) {
+            writers.computeIfAbsent(key, k -> new ArrayList<>()).add(i);
+          }
+        }
+
+        Set<String> imagesBefore = imagesBeforeSegment;
+        results.add(CompletableFuture
+                .allOf(dependencies.toArray(new CompletableFuture<?>[0]))
+                .thenApplyAsync(ignored -> executeStep(step, previous,
+                        imagesBefore, sourceWriters), executor));
+        displayUpTo(i + 1, false);
+      }
+      displayUpTo(steps.size(), true);
+    }
+
+    /**
+     * Adds the results of the given steps to the dependencies.
+     * Only called from the thread scheduling the steps, so the workers never
+     * read the list of results while it grows.
+     *
+     * @param dependencies the dependencies to add to
+     * @param indices      the indices of the steps, may be null
+     */
+    private void addDependencies(List<CompletableFuture<Outcome>> dependencies,
+                                 List<Integer> indices) {
+      if (indices != null) {
+        for (int index : indices) {
+          dependencies.add(results.get(index));
+        }
+      }
+    }
+
+    /**
+     * Executes a step once its dependencies are done.
+     *
+     * @param step          the step to execute
+     * @param previous      the result of the step before it on the same line,
+     *                      null if it is the first step of its line
+     * @param imagesBefore  images known to be in memory before the first step
+     *                      since the last barrier
+     * @param sourceWriters the results of the steps since the last barrier
+     *                      writing each source image of the command
+     * @return the outcome of the step
+     */
+    private Outcome executeStep(ScriptPlan.Step step,
+                                CompletableFuture<Outcome> previous,
+                                Set<String> imagesBefore,
+                                Map<String, List<CompletableFuture<Outcome>>> sourceWriters) {
+      if (aborted.get() || (previous != null && previous.join().endsLine)) {
+        return SKIPPED;
+      }
+      if (step.isMessage()) {
+        return new Outcome(step.getMessage(), DisplayMessageType.ERROR, false,
+                step.endsLine());
+      }
+      ScriptCommand command = step.getCommand();
+      if (step.isEliminated()
+              && areStored(command.getSources(), imagesBefore, sourceWriters)) {
+        return new Outcome(command.getSuccessMessage(), DisplayMessageType.INFO,
+                true, false);
+      }
+      try {
+        ExecutionStatus status = runner.execute(command);
+        return new Outcome(status.getMessage(), status.isSuccess()
+                ? DisplayMessageType.INFO : DisplayMessageType.ERROR,
+                status.isSuccess(), false);
+      } catch (ImageProcessorException e) {
+        return new Outcome(e.getMessage(), DisplayMessageType.ERROR, false, true);
+      } catch (RuntimeException | Error e) {
+        aborted.set(true);
+        throw e;
+      }
+    }
+
+    /**
+     * Checks if every source image is known to be in memory, either before
+     * the last barrier or stored by an earlier command since then.
+     *
+     * @param sources       the source images
+     * @param imagesBefore  images known to be in memory before the barrier
+     * @param sourceWriters the results of the steps writing each source image
+     * @return true if every source image is in memory, false otherwise
+     */
+    private boolean areStored(List<String> sources, Set<String> imagesBefore,
+                              Map<String, List<CompletableFuture<Outcome>>> sourceWriters) {
+      for (String source : sources) {
+        boolean stored = imagesBefore.contains(source);
+        for (CompletableFuture<Outcome> writer : sourceWriters.get(source)) {
+          stored = stored || writer.join().stored;
+        }
+        if (!stored) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /**
+     * Displays the messages of the steps in order, up to the given step.
+     *
+     * @param end   the index after the last step to display
+     * @param block true to wait for the steps, false to stop at the first
+     *              step which is not done
+     */
+    private void displayUpTo(int end, boolean block) {
+      while (displayed < end && (block || results.get(displayed).isDone())) {
+        Outcome outcome;
+        try {
+          outcome = results.get(displayed).join();
+        } catch (CompletionException e) {
+          aborted.set(true);
+          if (e.getCause() instanceof RuntimeException) {
+            throw (RuntimeException) e.getCause();
+          }
+          if (e.getCause() instanceof Error) {
+            throw (Error) e.getCause();
+          }
+          throw e;
+        }
+        if (outcome.message != null) {
+          display.accept(outcome.message, outcome.messageType);
+        }
+        ScriptPlan.Step step = steps.get(displayed);
+        if (!step.isMessage()) {
+          UserCommand command = step.getCommand().getCommand();
+          if (command == UserCommand.RESET || command == UserCommand.RUN) {
+            storedImages.clear();
+          }
+          if (outcome.stored) {
+            storedImages.addAll(step.getCommand().getDestinations());
+          }
+        }
+        displayed++;
+      }
+    }
+  }
+}
@@ -0,0 +1,262 @@
+package controller.script;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Scanner;
+import java.util.Set;
+
+import exception.ImageProcessorException;
+import model.enumeration.UserCommand;
+
+/**
+ * A script compiled into the list of steps to execute.
+ * The whole script is parsed once, before anything is executed, into the
+ * commands of every line and the error messages of the tokens which could not
+ * be parsed, in the order they appear in the script.
+ *
+ * <p>The images read and written by every command form a graph keyed by the
+ * image names, which is walked from the end of the script to find the pure
+ * commands whose results are never saved or used by a later command. Such
+ * commands are marked as eliminated and an executor may skip them, as long as
+ * their source images are in memory, while still displaying their success
+ * message. Chains of commands which only feed an eliminated command are
+ * eliminated as well.
+ * The images of a script whose memory is kept once it is done are all used,
+ * unless the memory is reset or the program quits first. A run command may
+ * use any image.
+ *
+ * <p>Adjacent pixel operations are not fused here since the service already
+ * stores every image as a lazy image, which fuses them when the image is
+ * materialised.
+ */
+public final class ScriptPlan {
+
+  /**
+   * Comment prefix to ignore the comments in the script file.
+   */
+  private static final String COMMENT_PREFIX = "#";
+
+  private final List<Step> steps;
+
+  private ScriptPlan(List<Step> steps) {
+    this.steps = Collections.unmodifiableList(steps);
+  }
+
+  /**
+   * Compiles the script read from the given reader.
+   * Empty lines and comments are skipped. Every line is parsed the same way
+   * as the commands typed by the user: an unknown command is reported and
+   * skipped and invalid arguments end the line.
+   *
+   * @param reader     the reader to read the script from
+   * @param keepImages true if the images in memory are used once the script
+   *                   is done, false if they are discarded
+   * @return the compiled script
+   * @throws IOException if the script cannot be read
+   */
+  public static ScriptPlan compile(BufferedReader reader, boolean keepImages)
+          throws IOException {
+    Objects.requireNonNull(reader, "Reader cannot be null");
+    List<Step> steps = new ArrayList<>();
+    String line;
+    int lineNumber = 0;
+    while ((line = reader.readLine()) != null) {
+      lineNumber++;
+      if (shouldSkipLine(line)) {
+        continue;
+      }
+      compileLine(line, lineNumber, steps);
+    }
+    eliminateUnusedCommands(steps, keepImages);
+    return new ScriptPlan(steps);
+  }
+
+  /**
+   * Gets the steps of the script in the order they are executed.
+   *
+   * @return the steps
+   */
+  public List<Step> getSteps() {
+    return steps;
+  }
+
+  /**
+   * Gets the number of commands which are eliminated.
+   *
+   * @return the number of eliminated commands
+   */
+  public int getEliminatedCount() {
+    int count = 0;
+    for (Step step : steps) {
+      if (step.isEliminated()) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Checks if the line should be skipped.
+   * A line should be skipped if it is a comment or empty.
+   *
+   * @param line line to be checked
+   * @return true if the line should be skipped, false otherwise
+   */
+  private static boolean shouldSkipLine(String line) {
+    String trimmed = line.trim();
+    return trimmed.startsWith(COMMENT_PREFIX) || trimmed.isEmpty();
+  }
+
+  /**
+   * Parses the commands of a line into steps.
+   *
+   * @param line       the line to parse
+   * @param lineNumber the number of the line in the script
+   * @param steps      the steps to add to
+   */
+  private static void compileLine(String line, int lineNumber, List<Step> steps) {
+    Scanner scanner = new Scanner(line);
+    while (scanner.hasNext()) {
+      String token = scanner.next();
+      Optional<UserCommand> command = UserCommand.getCommand(token);
+      if (command.isEmpty()) {
+        steps.add(new Step(lineNumber, null,
+                String.format("Invalid command: %s", token), false));
+        continue;
+      }
+      try {
+        steps.add(new Step(lineNumber, CommandParser.parse(command.get(), scanner),
+                null, false));
+      } catch (ImageProcessorException e) {
+        steps.add(new Step(lineNumber, null, e.getMessage(), true));
+        return;
+      }
+    }
+  }
+
+  /**
+   * Marks the pure commands whose destination images are never used as
+   * eliminated, walking the steps from the last one.
+   * A later command which overwrites an image is not trusted to hide it,
+   * since the command may fail and leave the image as it was.
+   *
+   * @param steps      the steps of the script
+   * @param keepImages true if the images are used once the script is done
+   */
+  private static void eliminateUnusedCommands(List<Step> steps,
+                                              boolean keepImages) {
+    Set<String> usedImages = new HashSet<>();
+    boolean allImagesUsed = keepImages;
+    for (int i = steps.size() - 1; i >= 0; i--) {
+      Step step = steps.get(i);
+      if (step.isMessage()) {
+        continue;
+      }
+      ScriptCommand command = step.getCommand();
+      switch (command.getCommand()) {
+        case RUN:
+          allImagesUsed = true;
+          break;
+        case RESET:
+        case QUIT:
+          // A failing command earlier on the same line would skip the reset
+          // or the quit, so only one starting its line hides the images.
+          if (i == 0 || steps.get(i - 1).getLine() != step.getLine()) {
+            allImagesUsed = false;
+            usedImages.clear();
+          }
+          break;
+        default:
+          if (!allImagesUsed && command.isPure()
+                  && Collections.disjoint(usedImages, command.getDestinations())) {
+            step.eliminated = true;
+          } else {
+            usedImages.addAll(command.getSources());
+          }
+          break;
+      }
+    }
+  }
+
+  /**
+   * A step of a script, either a command to execute or an error message to
+   * display.
+   */
+  public static final class Step {
+    private final int line;
+    private final ScriptCommand command;
+    private final String message;
+    private final boolean endsLine;
+    private boolean eliminated;
+
+    private Step(int line, ScriptCommand command, String message,
+                 boolean endsLine) {
+      this.line = line;
+      this.command = command;
+      this.message = message;
+      this.endsLine = endsLine;
+    }
+
+    /**
+     * Gets the number of the line of the script the step comes from.
+     *
+     * @return the line number, starting at 1
+     */
+    public int getLine() {
+      return line;
+    }
+
+    /**
+     * Checks if the step is an error message instead of a command.
+     *
+     * @return true if the step is a message, false otherwise
+     */
+    public boolean isMessage() {
+      return command == null;
+    }
+
+    /**
+     * Gets the command to execute.
+     *
+     * @return the command, null if the step is a message
+     */
+    public ScriptCommand getCommand() {
+      return command;
+    }
+
+    /**
+     * Gets the error message to display.
+     *
+     * @return the message, null if the step is a command
+     */
+    public String getMessage() {
+      return message;
+    }
+
+    /**
+     * Checks if the rest of the line is skipped after the message, which is
+     * the case for invalid arguments.
+     *
+     * @return true if the step ends its line, false otherwise
+     */
+    public boolean endsLine() {
+      return endsLine;
+    }
+
+    /**
+     * Checks if the results of the command are never used, so it can be
+     * skipped as long as its source images are in memory.
+     *
+     * @return true if the command is eliminated, false otherwise
+     */
+    public boolean isEliminated() {
+      return eliminated;
+    }
+  }
+}
@@ -0,0 +1,118 @@
+package controller.script;
+
+import java.util.Objects;
+
+import controller.ExecutionStatus;
+import controller.services.ImageProcessingService;
+import exception.ImageProcessingRunTimeException;
+import exception.ImageProcessorException;
+import model.request.ImageProcessingRequest;
+
+/**
+ * Executes the commands which work on images by calling the image processing
+ * service with their request.
+ * The reset command clears the memory of the service and the quit command
+ * quits. Commands which need the user interface, such as run and help, are
+ * invalid.
+ */
+public class ServiceCommandRunner implements CommandRunner {
+
+  /**
+   * ImageProcessingService object to process the image.
+   */
+  private final ImageProcessingService imageProcessingService;
+
+  /**
+   * Constructs a ServiceCommandRunner object.
+   *
+   * @param imageProcessingService the service to process the images
+   * @throws NullPointerException if the service is null
+   */
+  public ServiceCommandRunner(ImageProcessingService imageProcessingService) {
+    this.imageProcessingService = Objects.requireNonNull(imageProcessingService,
+            "ImageProcessor cannot be null");
+  }
+
+  /**
+   * Executes the command with the service.
+   *
+   * @throws ImageProcessingRunTimeException.QuitException if the command is
+   *                                                       quit
+   */
+  @Override
+  public ExecutionStatus execute(ScriptCommand command)
+          throws ImageProcessorException {
+    ImageProcessingRequest request = command.getRequest();
+    switch (command.getCommand()) {
+      case LOAD:
+        imageProcessingService.loadImage(request);
+        break;
+      case SAVE:
+        imageProcessingService.saveImage(request);
+        break;
+      case RED_COMPONENT:
+        imageProcessingService.createRedComponent(request);
+        break;
+      case BLUE_COMPONENT:
+        imageProcessingService.createBlueComponent(request);
+        break;
+      case GREEN_COMPONENT:
+        imageProcessingService.createGreenComponent(request);
+        break;
+      case VALUE_COMPONENT:
+        imageProcessingService.createValueComponent(request);
+        break;
+      case LUMA_COMPONENT:
+        imageProcessingService.createLumaComponent(request);
+        break;
+      case INTENSITY_COMPONENT:
+        imageProcessingService.createIntensityComponent(request);
+        break;
+      case HORIZONTAL_FLIP:
+        imageProcessingService.horizontalFlip(request);
+        break;
+      case VERTICAL_FLIP:
+        imageProcessingService.verticalFlip(request);
+        break;
+      case BRIGHTEN:
+        imageProcessingService.brighten(request);
+        break;
+      case RGB_SPLIT:
+        imageProcessingService.rgbSplit(request);
+        break;
+      case RGB_COMBINE:
+        imageProcessingService.rgbCombine(request);
+        break;
+      case BLUR:
+        imageProcessingService.blurImage(request);
+        break;
+      case SHARPEN:
+        imageProcessingService.sharpenImage(request);
+        break;
+      case SEPIA:
+        imageProcessingService.sepiaImage(request);
+        break;
+      case COMPRESS:
+        imageProcessingService.compressImage(request);
+        break;
+      case HISTOGRAM:
+        imageProcessingService.histogram(request);
+        break;
+      case COLOR_CORRECT:
+        imageProcessingService.colorCorrect(request);
+        break;
+      case LEVELS_ADJUST:
+        imageProcessingService.levelsAdjust(request);
+        break;
+      case RESET:
+        imageProcessingService.clearMemory();
+        break;
+      case QUIT:
+        throw new ImageProcessingRunTimeException.QuitException("Shutting "
+                + "down application");
+      default:
+        return new ExecutionStatus(false, "Invalid command.");
+    }
+    return new ExecutionStatus(true, command.getSuccessMessage());
+  }
+}
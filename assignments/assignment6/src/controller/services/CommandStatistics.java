@@ -0,0 +1,222 @@
+package controller.services;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import model.enumeration.UserCommand;
+
+/**
+ * Aggregates the time and memory taken by every command run by the image
+ * processor.
+ * The statistics of a command are kept in their own aggregate, so commands
+ * run concurrently only contend when they are the same command.
+ * The statistics can be read through the stats command or through JMX once
+ * registered.
+ */
+public class CommandStatistics implements CommandStatisticsMXBean {
+
+  /**
+   * Name under which the statistics are registered with JMX.
+   */
+  public static final String OBJECT_NAME =
+          "imageprocessor:type=CommandStatistics";
+
+  private static final double NANOS_PER_MILLI = 1_000_000.0;
+  private static final double BYTES_PER_MEGABYTE = 1024.0 * 1024.0;
+
+  /**
+   * Aggregates of every command, created up front so the map is only read.
+   */
+  private final Map<UserCommand, Aggregate> aggregates;
+
+  /**
+   * Constructs a CommandStatistics object with no command run.
+   */
+  public CommandStatistics() {
+    Map<UserCommand, Aggregate> commandAggregates =
+            new EnumMap<>(UserCommand.class);
+    for (UserCommand command : UserCommand.values()) {
+      commandAggregates.put(command, new Aggregate());
+    }
+    this.aggregates = Collections.unmodifiableMap(commandAggregates);
+  }
+
+  /**
+   * Records one run of the given command.
+   *
+   * @param command        the command which was run
+   * @param success        true if the command succeeded
+   * @param wallNanos      the elapsed time of the command
+   * @param cpuNanos       the CPU time of the command
+   * @param allocatedBytes the bytes allocated by the command
+   * @param input          the size of the image read, null if none
+   * @param output         the size of the image created, null if none
+   */
+  public void record(UserCommand command, boolean success, long wallNanos,
+                     long cpuNanos, long allocatedBytes, ImageSize input,
+                     ImageSize output) {
+    aggregates.get(command).record(success, wallNanos, cpuNanos,
+            allocatedBytes, input, output);
+  }
+
+  /**
+   * Registers the statistics with the platform MBean server, unless
+   * statistics are already registered there.
+   *
+   * @return true if the statistics were registered, false otherwise
+   */
+  public boolean register() {
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    try {
+      server.registerMBean(this, new ObjectName(OBJECT_NAME));
+      return true;
+    } catch (InstanceAlreadyExistsException e) {
+      return false;
+    } catch (JMException e) {
+      // The statistics can still be read through the stats command.
+      return false;
+    }
+  }
+
+  @Override
+  public List<CommandTiming> getCommandTimings() {
+    List<CommandTiming> timings = new ArrayList<>();
+    for (Map.Entry<UserCommand, Aggregate> entry : aggregates.entrySet()) {
+      CommandTiming timing = entry.getValue().snapshot(entry.getKey());
+      if (timing.getCount() > 0) {
+        timings.add(timing);
+      }
+    }
+    return timings;
+  }
+
+  @Override
+  public String getSummary() {
+    List<CommandTiming> timings = getCommandTimings();
+    if (timings.isEmpty()) {
+      return "No commands have been run.";
+    }
+    StringBuilder summary = new StringBuilder(String.format(
+            "%-20s %6s %6s %10s %10s %10s %10s %12s %11s %11s",
+            "command", "count", "failed", "total ms", "mean ms", "max ms",
+            "cpu ms", "allocated MB", "last input", "last output"));
+    for (CommandTiming timing : timings) {
+      summary.append(System.lineSeparator()).append(String.format(
+              "%-20s %6d %6d %10.2f %10.2f %10.2f %10.2f %12.2f %11s %11s",
+              timing.getCommand(), timing.getCount(), timing.getFailures(),
+              timing.getTotalWallMillis(), timing.getMeanWallMillis(),
+              timing.getMaxWallMillis(), timing.getTotalCpuMillis(),
+              timing.getAllocatedBytes() / BYTES_PER_MEGABYTE,
+              timing.getLastInputSize(), timing.getLastOutputSize()));
+    }
+    return summary.toString();
+  }
+
+  @Override
+  public void reset() {
+    for (Aggregate aggregate : aggregates.values()) {
+      aggregate.reset();
+    }
+  }
+
+  /**
+   * Represents the width and height of an image read or created by a
+   * command.
+   */
+  public static final class ImageSize {
+    private final int width;
+    private final int height;
+
+    /**
+     * Constructs an ImageSize object.
+     *
+     * @param width  the width of the image
+     * @param height the height of the image
+     */
+    public ImageSize(int width, int height) {
+      this.width = width;
+      this.height = height;
+    }
+
+    /**
+     * Gets the number of pixels of the image.
+     *
+     * @return the number of pixels
+     */
+    long getPixels() {
+      return (long) width * height;
+    }
+
+    @Override
+    public String toString() {
+      return width + "x" + height;
+    }
+  }
+
+  /**
+   * The statistics of one command, updated while holding its lock.
+   */
+  private static final class Aggregate {
+    private long count;
+    private long failures;
+    private long totalWallNanos;
+    private long maxWallNanos;
+    private long totalCpuNanos;
+    private long allocatedBytes;
+    private long inputPixels;
+    private long outputPixels;
+    private ImageSize lastInput;
+    private ImageSize lastOutput;
+
+    private synchronized void record(boolean success, long wallNanos,
+                                     long cpuNanos, long allocated,
+                                     ImageSize input, ImageSize output) {
+      count++;
+      if (!success) {
+        failures++;
+      }
+      totalWallNanos += wallNanos;
+      maxWallNanos = Math.max(maxWallNanos, wallNanos);
+      totalCpuNanos += cpuNanos;
+      allocatedBytes += allocated;
+      if (input != null) {
+        inputPixels += input.getPixels();
+        lastInput = input;
+      }
+      if (output != null) {
+        outputPixels += output.getPixels();
+        lastOutput = output;
+      }
+    }
+
+    private synchronized CommandTiming snapshot(UserCommand command) {
+      return new CommandTiming(command.getCommand(), count, failures,
+              totalWallNanos / NANOS_PER_MILLI, maxWallNanos / NANOS_PER_MILLI,
+              totalCpuNanos / NANOS_PER_MILLI, allocatedBytes, inputPixels,
+              outputPixels, lastInput == null ? "" : lastInput.toString(),
+              lastOutput == null ? "" : lastOutput.toString());
+    }
+
+    private synchronized void reset() {
+      count = 0;
+      failures = 0;
+      totalWallNanos = 0;
+      maxWallNanos = 0;
+      totalCpuNanos = 0;
+      allocatedBytes = 0;
+      inputPixels = 0;
+      outputPixels = 0;
+      lastInput = null;
+      lastOutput = null;
+    }
+  }
+}
@@ -0,0 +1,29 @@
+package controller.services;
+
+import java.util.List;
+
+/**
+ * Management interface exposing the statistics of the commands run by the
+ * image processor through JMX.
+ */
+public interface CommandStatisticsMXBean {
+
+  /**
+   * Gets the statistics of every command which has been run.
+   *
+   * @return the statistics of the commands, ordered by command
+   */
+  List<CommandTiming> getCommandTimings();
+
+  /**
+   * Gets the statistics of the commands as a table.
+   *
+   * @return the statistics formatted as text
+   */
+  String getSummary();
+
+  /**
+   * Discards the statistics of every command.
+   */
+  void reset();
+}
@@ -0,0 +1,166 @@
+package controller.services;
+
+import java.util.Objects;
+
+/**
+ * Represents the statistics of one command aggregated over every time it
+ * was run.
+ * Times are in milliseconds and sizes of images are given as
+ * widthxheight. Timings are immutable.
+ */
+public final class CommandTiming {
+
+  private final String command;
+  private final long count;
+  private final long failures;
+  private final double totalWallMillis;
+  private final double maxWallMillis;
+  private final double totalCpuMillis;
+  private final long allocatedBytes;
+  private final long inputPixels;
+  private final long outputPixels;
+  private final String lastInputSize;
+  private final String lastOutputSize;
+
+  /**
+   * Constructs a CommandTiming object with the given statistics.
+   *
+   * @param command         the command the statistics are of
+   * @param count           the number of times the command was run
+   * @param failures        the number of times the command failed
+   * @param totalWallMillis the total elapsed time of the command
+   * @param maxWallMillis   the longest elapsed time of the command
+   * @param totalCpuMillis  the total CPU time of the command
+   * @param allocatedBytes  the total bytes allocated by the command
+   * @param inputPixels     the total number of pixels read by the command
+   * @param outputPixels    the total number of pixels created by the command
+   * @param lastInputSize   the size of the last image read, empty if none
+   * @param lastOutputSize  the size of the last image created, empty if none
+   */
+  CommandTiming(String command, long count, long failures,
+                double totalWallMillis, double maxWallMillis,
+                double totalCpuMillis, long allocatedBytes, long inputPixels,
+                long outputPixels, String lastInputSize,
+                String lastOutputSize) {
+    this.command = Objects.requireNonNull(command, "Command cannot be null");
+    this.count = count;
+    this.failures = failures;
+    this.totalWallMillis = totalWallMillis;
+    this.maxWallMillis = maxWallMillis;
+    this.totalCpuMillis = totalCpuMillis;
+    this.allocatedBytes = allocatedBytes;
+    this.inputPixels = inputPixels;
+    this.outputPixels = outputPixels;
+    this.lastInputSize = lastInputSize;
+    this.lastOutputSize = lastOutputSize;
+  }
+
+  /**
+   * Gets the command the statistics are of.
+   *
+   * @return the name of the command
+   */
+  public String getCommand() {
+    return command;
+  }
+
+  /**
+   * Gets the number of times the command was run, including failures.
+   *
+   * @return the number of runs
+   */
+  public long getCount() {
+    return count;
+  }
+
+  /**
+   * Gets the number of times the command failed.
+   *
+   * @return the number of failures
+   */
+  public long getFailures() {
+    return failures;
+  }
+
+  /**
+   * Gets the total elapsed time of the command.
+   *
+   * @return the total elapsed time
+   */
+  public double getTotalWallMillis() {
+    return totalWallMillis;
+  }
+
+  /**
+   * Gets the mean elapsed time of the command.
+   *
+   * @return the mean elapsed time, 0 if the command was never run
+   */
+  public double getMeanWallMillis() {
+    return count == 0 ? 0 : totalWallMillis / count;
+  }
+
+  /**
+   * Gets the longest elapsed time of the command.
+   *
+   * @return the longest elapsed time
+   */
+  public double getMaxWallMillis() {
+    return maxWallMillis;
+  }
+
+  /**
+   * Gets the total CPU time of the calling thread while running the command.
+   *
+   * @return the total CPU time, 0 if the JVM cannot measure it
+   */
+  public double getTotalCpuMillis() {
+    return totalCpuMillis;
+  }
+
+  /**
+   * Gets the total bytes allocated by the calling thread while running the
+   * command.
+   *
+   * @return the total bytes allocated, 0 if the JVM cannot measure them
+   */
+  public long getAllocatedBytes() {
+    return allocatedBytes;
+  }
+
+  /**
+   * Gets the total number of pixels in the images read by the command.
+   *
+   * @return the total number of pixels read
+   */
+  public long getInputPixels() {
+    return inputPixels;
+  }
+
+  /**
+   * Gets the total number of pixels in the images created by the command.
+   *
+   * @return the total number of pixels created
+   */
+  public long getOutputPixels() {
+    return outputPixels;
+  }
+
+  /**
+   * Gets the size of the last image read by the command.
+   *
+   * @return the size as widthxheight, empty if the command read no image
+   */
+  public String getLastInputSize() {
+    return lastInputSize;
+  }
+
+  /**
+   * Gets the size of the last image created by the command.
+   *
+   * @return the size as widthxheight, empty if the command created no image
+   */
+  public String getLastOutputSize() {
+    return lastOutputSize;
+  }
+}
@@ -7,17 +7,26 @@ import factories.Factory;
 import model.enumeration.CompressionType;
 import model.enumeration.FilterOption;
 import model.enumeration.ImageType;
+import model.enumeration.UserCommand;
 import model.memory.ImageMemory;
 import model.request.ImageProcessingRequest;
 import model.visual.Image;
 import utility.IOUtils;
 import utility.StringUtils;
+import utility.events.ImageOperationEvent;
 
 /**
  * FileImageProcessingService class that implements the
  * ImageProcessingService interface
  * and provides the implementation for the methods to process images.
  * It uses the ImageMemory object to store and retrieve images.
+ * Every operation records an ImageOperationEvent for the flight recorder.
+ * The images read from and stored in the memory are reported to an
+ * ImageAccessListener, if one is given.
+ * The service can be called from many threads at once. Images are
+ * immutable and the only state is the memory, which is used directly if
+ * it is thread safe and is otherwise only accessed while holding its lock.
+ * The processing itself runs outside of the lock.
  */
 public class FileImageProcessingService implements ImageProcessingService {
 
@@ -26,6 +35,11 @@ public class FileImageProcessingService implements ImageProcessingService {
    */
   private final ImageMemory<Image> memory;
 
+  /**
+   * Listener notified of the images read from and stored in the memory.
+   */
+  private final ImageAccessListener listener;
+
   /**
    * Constructor to initialize the FileImageProcessingService.
    *
@@ -33,106 +47,150 @@ public class FileImageProcessingService implements ImageProcessingService {
    * @throws NullPointerException if memory is null
    */
   public FileImageProcessingService(ImageMemory<Image> memory) {
+    this(memory, new ImageAccessListener() {
+    });
+  }
+
+  /**
+   * Constructor to initialize the FileImageProcessingService with a
+   * listener notified of the images read from and stored in the memory.
+   *
+   * @param memory   ImageMemory object
+   * @param listener the listener to notify
+   * @throws NullPointerException if memory or listener is null
+   */
+  public FileImageProcessingService(ImageMemory<Image> memory,
+                                    ImageAccessListener listener) {
     Objects.requireNonNull(memory, "Memory cannot be null");
+    Objects.requireNonNull(listener, "Listener cannot be null");
     this.memory = memory;
+    this.listener = listener;
   }
 
   @Override
   public void loadImage(ImageProcessingRequest request) throws
           ImageProcessorException {
-    validateStringParams(request.getImagePath(), request.getImageName());
-    ImageType imageType =
-            ImageType.getImageTypeFromPath(request.getImagePath());
-    Image imageToLoad = IOUtils.read(request.getImagePath(), imageType);
-    memory.addImage(request.getImageName(), imageToLoad);
+    runOperation(UserCommand.LOAD, request, () -> {
+      validateStringParams(request.getImagePath(), request.getImageName());
+      ImageType imageType =
+              ImageType.getImageTypeFromPath(request.getImagePath());
+      Image imageToLoad = IOUtils.read(request.getImagePath(), imageType);
+      storeImage(request.getImageName(), imageToLoad);
+      return imageToLoad;
+    });
   }
 
   @Override
   public void saveImage(ImageProcessingRequest request) throws
           ImageProcessorException {
-    validateStringParams(request.getImagePath(), request.getImageName());
-    Image imageToSave = memory.getImage(request.getImageName());
-    ImageType imageType =
-            ImageType.getImageTypeFromPath(request.getImagePath());
-    IOUtils.write(imageToSave, request.getImagePath(), imageType);
+    runOperation(UserCommand.SAVE, request, () -> {
+      validateStringParams(request.getImagePath(), request.getImageName());
+      Image imageToSave = fetchImage(request.getImageName());
+      ImageType imageType =
+              ImageType.getImageTypeFromPath(request.getImagePath());
+      IOUtils.write(imageToSave, request.getImagePath(), imageType,
+              request.getPercentage().orElse(0), request.isBinary());
+      return imageToSave;
+    });
   }
 
   @Override
   public void createRedComponent(ImageProcessingRequest request)
           throws
           ImageProcessorException {
-    validateStringParams(request.getImageName(),
-            request.getDestinationImageName());
-    Image image = memory.getImage(request.getImageName());
-    memory.addImage(request.getDestinationImageName(),
-            image.createRedComponent());
+    runOperation(UserCommand.RED_COMPONENT, request, () -> {
+      validateStringParams(request.getImageName(),
+              request.getDestinationImageName());
+      Image image = fetchImage(request.getImageName());
+      storeImage(request.getDestinationImageName(),
+              image.createRedComponent());
+      return image;
+    });
   }
 
   @Override
   public void createGreenComponent(ImageProcessingRequest request)
           throws
           ImageProcessorException {
-    validateStringParams(request.getImageName(),
-            request.getDestinationImageName());
-    Image image = memory.getImage(request.getImageName());
-    memory.addImage(request.getDestinationImageName(),
-            image.createGreenComponent());
+    runOperation(UserCommand.GREEN_COMPONENT, request, () -> {
+      validateStringParams(request.getImageName(),
+              request.getDestinationImageName());
+      Image image = fetchImage(request.getImageName());
+      storeImage(request.getDestinationImageName(),
+              image.createGreenComponent());
+      return image;
+    });
   }
 
   @Override
   public void createBlueComponent(ImageProcessingRequest request)
           throws
           ImageProcessorException {
-    validateStringParams(request.getImageName(),
-            request.getDestinationImageName());
-    Image image = memory.getImage(request.getImageName());
-    memory.addImage(request.getDestinationImageName(),
-            image.createBlueComponent());
+    runOperation(UserCommand.BLUE_COMPONENT, request, () -> {
+      validateStringParams(request.getImageName(),
+              request.getDestinationImageName());
+      Image image = fetchImage(request.getImageName());
+      storeImage(request.getDestinationImageName(),
+              image.createBlueComponent());
+      return image;
+    });
   }
 
   @Override
   public void createValueComponent(ImageProcessingRequest request)
           throws
           ImageProcessorException {
-    validateStringParams(request.getImageName(),
-            request.getDestinationImageName());
-    Image image = memory.getImage(request.getImageName());
-    memory.addImage(request.getDestinationImageName(), image.getValue());
+    runOperation(UserCommand.VALUE_COMPONENT, request, () -> {
+      validateStringParams(request.getImageName(),
+              request.getDestinationImageName());
+      Image image = fetchImage(request.getImageName());
+      storeImage(request.getDestinationImageName(), image.getValue());
+      return image;
+    });
   }
 
   @Override
   public void createLumaComponent(ImageProcessingRequest request)
           throws
           ImageProcessorException {
-    validateStringParams(request.getImageName(),
-            request.getDestinationImageName());
-    Image image = memory.getImage(request.getImageName());
-    Image finalImage = image.getLuma();
-    if (request.getPercentage().isPresent()) {
-      finalImage = finalImage.combineImages(image,
-              request.getPercentage().get());
-    }
-    memory.addImage(request.getDestinationImageName(), finalImage);
+    runOperation(UserCommand.LUMA_COMPONENT, request, () -> {
+      validateStringParams(request.getImageName(),
+              request.getDestinationImageName());
+      Image image = fetchImage(request.getImageName());
+      Image finalImage = image.getLuma();
+      if (request.getPercentage().isPresent()) {
+        finalImage = finalImage.combineImages(image,
+                request.getPercentage().get());
+      }
+      storeImage(request.getDestinationImageName(), finalImage);
+      return image;
+    });
   }
 
   @Override
   public void createIntensityComponent(ImageProcessingRequest request)
           throws
           ImageProcessorException {
-    validateStringParams(request.getImageName(),
-            request.getDestinationImageName());
-    Image image = memory.getImage(request.getImageName());
-    memory.addImage(request.getDestinationImageName(), image.getIntensity());
+    runOperation(UserCommand.INTENSITY_COMPONENT, request, () -> {
+      validateStringParams(request.getImageName(),
+              request.getDestinationImageName());
+      Image image = fetchImage(request.getImageName());
+      storeImage(request.getDestinationImageName(), image.getIntensity());
+      return image;
+    });
   }
 
   @Override
   public void horizontalFlip(ImageProcessingRequest request)
           throws
           ImageProcessorException {
-    validateStringParams(request.getImageName(),
-            request.getDestinationImageName());
-    Image image = memory.getImage(request.getImageName());
-    memory.addImage(request.getDestinationImageName(), image.horizontalFlip());
+    runOperation(UserCommand.HORIZONTAL_FLIP, request, () -> {
+      validateStringParams(request.getImageName(),
+              request.getDestinationImageName());
+      Image image = fetchImage(request.getImageName());
+      storeImage(request.getDestinationImageName(), image.horizontalFlip());
+      return image;
+    });
   }
 
 
@@ -140,186 +198,311 @@ public class FileImageProcessingService implements ImageProcessingService {
   public void verticalFlip(ImageProcessingRequest request)
           throws
           ImageProcessorException {
-    validateStringParams(request.getImageName(),
-            request.getDestinationImageName());
-    Image image = memory.getImage(request.getImageName());
-    memory.addImage(request.getDestinationImageName(), image.verticalFlip());
+    runOperation(UserCommand.VERTICAL_FLIP, request, () -> {
+      validateStringParams(request.getImageName(),
+              request.getDestinationImageName());
+      Image image = fetchImage(request.getImageName());
+      storeImage(request.getDestinationImageName(), image.verticalFlip());
+      return image;
+    });
   }
 
   @Override
   public void brighten(ImageProcessingRequest request)
           throws
           ImageProcessorException {
-    validateStringParams(request.getImageName(),
-            request.getDestinationImageName());
-    Image image = memory.getImage(request.getImageName());
-    memory.addImage(request.getDestinationImageName(),
-            image.adjustImageBrightness(request.getFactor().orElse(0)));
+    runOperation(UserCommand.BRIGHTEN, request, () -> {
+      validateStringParams(request.getImageName(),
+              request.getDestinationImageName());
+      Image image = fetchImage(request.getImageName());
+      storeImage(request.getDestinationImageName(),
+              image.adjustImageBrightness(request.getFactor().orElse(0)));
+      return image;
+    });
   }
 
   @Override
   public void rgbSplit(ImageProcessingRequest request) throws
           ImageProcessorException {
-    validateStringParams(
-            request.getImageName(),
-            request.getRedImageName(),
-            request.getGreenImageName(),
-            request.getBlueImageName()
-    );
-    Image image = memory.getImage(request.getImageName());
-    memory.addImage(request.getRedImageName(), image.createRedComponent());
-    memory.addImage(request.getGreenImageName(), image.createGreenComponent());
-    memory.addImage(request.getBlueImageName(), image.createBlueComponent());
+    runOperation(UserCommand.RGB_SPLIT, request, () -> {
+      validateStringParams(
+              request.getImageName(),
+              request.getRedImageName(),
+              request.getGreenImageName(),
+              request.getBlueImageName()
+      );
+      Image image = fetchImage(request.getImageName());
+      storeImage(request.getRedImageName(), image.createRedComponent());
+      storeImage(request.getGreenImageName(), image.createGreenComponent());
+      storeImage(request.getBlueImageName(), image.createBlueComponent());
+      return image;
+    });
   }
 
   @Override
   public void rgbCombine(ImageProcessingRequest request) throws
           ImageProcessorException {
-    validateStringParams(request.getImageName(),
-            request.getRedImageName(),
-            request.getGreenImageName(),
-            request.getBlueImageName());
-    Image redImage = memory.getImage(request.getRedImageName());
-    Image greenImage = memory.getImage(request.getGreenImageName());
-    Image blueImage = memory.getImage(request.getBlueImageName());
-    Image combinedImage = Factory.combineRGBComponents(redImage, greenImage,
-            blueImage);
-    memory.addImage(request.getImageName(), combinedImage);
+    runOperation(UserCommand.RGB_COMBINE, request, () -> {
+      validateStringParams(request.getImageName(),
+              request.getRedImageName(),
+              request.getGreenImageName(),
+              request.getBlueImageName());
+      Image redImage = fetchImage(request.getRedImageName());
+      Image greenImage = fetchImage(request.getGreenImageName());
+      Image blueImage = fetchImage(request.getBlueImageName());
+      Image combinedImage = Factory.combineRGBComponents(redImage, greenImage,
+              blueImage);
+      storeImage(request.getImageName(), combinedImage);
+      return redImage;
+    });
   }
 
   @Override
   public void blurImage(ImageProcessingRequest request)
           throws
           ImageProcessorException {
-    validateStringParams(request.getImageName(),
-            request.getDestinationImageName());
-    Image image = memory.getImage(request.getImageName());
-    Image filteredImage = image.applyFilter(FilterOption.GAUSSIAN_BLUR);
-    // If percentage is provided, combines the blur image with the
-    // original image.
-    if (request.getPercentage().isPresent()) {
-      filteredImage = filteredImage.combineImages(image,
-              request.getPercentage().get());
-    }
-    memory.addImage(request.getDestinationImageName(), filteredImage);
+    runOperation(UserCommand.BLUR, request, () -> {
+      validateStringParams(request.getImageName(),
+              request.getDestinationImageName());
+      Image image = fetchImage(request.getImageName());
+      Image filteredImage = image.applyFilter(FilterOption.GAUSSIAN_BLUR);
+      // If percentage is provided, combines the blur image with the
+      // original image.
+      if (request.getPercentage().isPresent()) {
+        filteredImage = filteredImage.combineImages(image,
+                request.getPercentage().get());
+      }
+      storeImage(request.getDestinationImageName(), filteredImage);
+      return image;
+    });
   }
 
   @Override
   public void sharpenImage(ImageProcessingRequest request)
           throws
           ImageProcessorException {
-    validateStringParams(request.getImageName(),
-            request.getDestinationImageName());
-    Image image = memory.getImage(request.getImageName());
-    Image filteredImage = image.applyFilter(FilterOption.SHARPEN);
-    // If percentage is provided, combines the sharpen image with the
-    // original image.
-    if (request.getPercentage().isPresent()) {
-      filteredImage = filteredImage.combineImages(image,
-              request.getPercentage().get());
-    }
-    memory.addImage(request.getDestinationImageName(), filteredImage);
+    runOperation(UserCommand.SHARPEN, request, () -> {
+      validateStringParams(request.getImageName(),
+              request.getDestinationImageName());
+      Image image = fetchImage(request.getImageName());
+      Image filteredImage = image.applyFilter(FilterOption.SHARPEN);
+      // If percentage is provided, combines the sharpen image with the
+      // original image.
+      if (request.getPercentage().isPresent()) {
+        filteredImage = filteredImage.combineImages(image,
+                request.getPercentage().get());
+      }
+      storeImage(request.getDestinationImageName(), filteredImage);
+      return image;
+    });
   }
 
   @Override
   public void sepiaImage(ImageProcessingRequest request)
           throws
           ImageProcessorException {
-    validateStringParams(request.getImageName(),
-            request.getDestinationImageName());
-    Image image = memory.getImage(request.getImageName());
-    Image sepiaImage = image.getSepia();
-    // If percentage is provided, combines the sepia image with the
-    // original image.
-    if (request.getPercentage().isPresent()) {
-      sepiaImage = sepiaImage.combineImages(image,
-              request.getPercentage().get());
-    }
-    memory.addImage(request.getDestinationImageName(), sepiaImage);
+    runOperation(UserCommand.SEPIA, request, () -> {
+      validateStringParams(request.getImageName(),
+              request.getDestinationImageName());
+      Image image = fetchImage(request.getImageName());
+      Image sepiaImage = image.getSepia();
+      // If percentage is provided, combines the sepia image with the
+      // original image.
+      if (request.getPercentage().isPresent()) {
+        sepiaImage = sepiaImage.combineImages(image,
+                request.getPercentage().get());
+      }
+      storeImage(request.getDestinationImageName(), sepiaImage);
+      return image;
+    });
   }
 
   @Override
   public void compressImage(ImageProcessingRequest request) throws
           ImageProcessorException {
-    validateStringParams(request.getImageName(),
-            request.getDestinationImageName());
-    Image image = memory.getImage(request.getImageName());
-    memory.addImage(request.getDestinationImageName(),
-            image.compress(CompressionType.HAAR,
-                    request.getPercentage().orElse(0)));
+    runOperation(UserCommand.COMPRESS, request, () -> {
+      validateStringParams(request.getImageName(),
+              request.getDestinationImageName());
+      Image image = fetchImage(request.getImageName());
+      storeImage(request.getDestinationImageName(),
+              image.compress(CompressionType.HAAR,
+                      request.getPercentage().orElse(0)));
+      return image;
+    });
   }
 
   @Override
   public void histogram(ImageProcessingRequest request) throws
           ImageProcessorException {
-    validateStringParams(request.getImageName(),
-            request.getDestinationImageName());
-    Image image = memory.getImage(request.getImageName());
-    memory.addImage(request.getDestinationImageName(), image.histogram());
+    runOperation(UserCommand.HISTOGRAM, request, () -> {
+      validateStringParams(request.getImageName(),
+              request.getDestinationImageName());
+      Image image = fetchImage(request.getImageName());
+      storeImage(request.getDestinationImageName(), image.histogram());
+      return image;
+    });
   }
 
   @Override
   public void colorCorrect(ImageProcessingRequest request) throws
           ImageProcessorException {
-    validateStringParams(request.getImageName(),
-            request.getDestinationImageName());
-    Image image = memory.getImage(request.getImageName());
-    Image colorCorrect = image.colorCorrect();
-    // If percentage is provided, combines the color correct image with the
-    // original image.
-    if (request.getPercentage().isPresent()) {
-      colorCorrect = colorCorrect.combineImages(image,
-              request.getPercentage().get());
-    }
-    memory.addImage(request.getDestinationImageName(), colorCorrect);
+    runOperation(UserCommand.COLOR_CORRECT, request, () -> {
+      validateStringParams(request.getImageName(),
+              request.getDestinationImageName());
+      Image image = fetchImage(request.getImageName());
+      Image colorCorrect = image.colorCorrect();
+      // If percentage is provided, combines the color correct image with the
+      // original image.
+      if (request.getPercentage().isPresent()) {
+        colorCorrect = colorCorrect.combineImages(image,
+                request.getPercentage().get());
+      }
+      storeImage(request.getDestinationImageName(), colorCorrect);
+      return image;
+    });
   }
 
   @Override
   public void levelsAdjust(ImageProcessingRequest request) throws
           ImageProcessorException {
-    validateStringParams(request.getImageName(),
-            request.getDestinationImageName());
-    Image image = memory.getImage(request.getImageName());
-    ImageProcessingRequest.Levels levels = request.getLevels().orElseThrow(
-        () -> new ImageProcessorException("Levels not provided")
-    );
-    int black = levels.getBlack();
-    int white = levels.getWhite();
-    int mid = levels.getMid();
-    Image levelsAdjust = image.levelsAdjust(black, mid, white);
-    // If percentage is provided, combines the levels adjusted image with the
-    // original image.
-    if (request.getPercentage().isPresent()) {
-      levelsAdjust = levelsAdjust.combineImages(image,
-              request.getPercentage().get());
-    }
-    memory.addImage(request.getDestinationImageName(), levelsAdjust);
+    runOperation(UserCommand.LEVELS_ADJUST, request, () -> {
+      validateStringParams(request.getImageName(),
+              request.getDestinationImageName());
+      Image image = fetchImage(request.getImageName());
+      ImageProcessingRequest.Levels levels = request.getLevels().orElseThrow(
+          () -> new ImageProcessorException("Levels not provided")
+      );
+      int black = levels.getBlack();
+      int white = levels.getWhite();
+      int mid = levels.getMid();
+      Image levelsAdjust = image.levelsAdjust(black, mid, white);
+      // If percentage is provided, combines the levels adjusted image with the
+      // original image.
+      if (request.getPercentage().isPresent()) {
+        levelsAdjust = levelsAdjust.combineImages(image,
+                request.getPercentage().get());
+      }
+      storeImage(request.getDestinationImageName(), levelsAdjust);
+      return image;
+    });
   }
 
   @Override
   public void downscaleImage(ImageProcessingRequest request) throws
           ImageProcessorException {
-    validateStringParams(request.getImageName(),
-            request.getDestinationImageName());
-    Image image = memory.getImage(request.getImageName());
-    ImageProcessingRequest.ScalingFactors factors =
-            request.getScalingFactors().orElseThrow(
-              () -> new ImageProcessorException("Scaling factors not provided")
-    );
-    memory.addImage(request.getDestinationImageName(),
-            image.downscale(factors.getWidthFactor(),
-                    factors.getHeightFactor()));
+    runOperation(UserCommand.DOWNSCALE, request, () -> {
+      validateStringParams(request.getImageName(),
+              request.getDestinationImageName());
+      Image image = fetchImage(request.getImageName());
+      ImageProcessingRequest.ScalingFactors factors =
+              request.getScalingFactors().orElseThrow(
+                () -> new ImageProcessorException("Scaling factors not provided")
+      );
+      storeImage(request.getDestinationImageName(),
+              image.downscale(factors.getWidthFactor(),
+                      factors.getHeightFactor()));
+      return image;
+    });
   }
 
   @Override
   public Image getImage(String imageName) throws
           ImageProcessorException {
-    return memory.getImage(imageName);
+    return fetchImage(imageName);
+  }
+
+  @Override
+  public void addImage(String imageName, Image image) throws
+          ImageProcessorException {
+    validateStringParams(imageName);
+    if (Objects.isNull(image)) {
+      throw new ImageProcessorException("Image cannot be null");
+    }
+    storeImage(imageName, image);
   }
 
   @Override
   public void clearMemory() {
-    memory.clearMemory();
+    if (memory.isThreadSafe()) {
+      memory.clearMemory();
+      return;
+    }
+    synchronized (memory) {
+      memory.clearMemory();
+    }
+  }
+
+  /**
+   * Runs an operation of the service and records an ImageOperationEvent for
+   * the flight recorder once it is done, whether it succeeds or fails.
+   * The event is only filled in when it is enabled.
+   *
+   * @param command   the command of the operation
+   * @param request   the request of the operation
+   * @param operation the operation, returning the image it was applied to,
+   *                  which is the image read for load and the red image for
+   *                  rgb-combine
+   * @throws ImageProcessorException if the operation fails
+   */
+  private void runOperation(UserCommand command, ImageProcessingRequest request,
+                            Operation operation) throws ImageProcessorException {
+    ImageOperationEvent event = new ImageOperationEvent();
+    event.begin();
+    Image image = null;
+    boolean failed = true;
+    try {
+      image = operation.run();
+      failed = false;
+    } finally {
+      event.record(command.getCommand(), request, image, failed);
+    }
+  }
+
+  /**
+   * Stores the image in memory as a lazy image so that point operations
+   * applied to it later are fused and only applied when the pixels are
+   * needed.
+   *
+   * The stored image is reported to the listener.
+   *
+   * @param imageName the name to store the image by
+   * @param image     the image to store
+   */
+  private void storeImage(String imageName, Image image) {
+    Image imageToStore = Objects.isNull(image) ? null : Factory.createLazyImage(image);
+    if (memory.isThreadSafe()) {
+      memory.addImage(imageName, imageToStore);
+    } else {
+      synchronized (memory) {
+        memory.addImage(imageName, imageToStore);
+      }
+    }
+    if (Objects.nonNull(imageToStore)) {
+      listener.imageStored(imageName, imageToStore);
+    }
+  }
+
+  /**
+   * Gets the image with the given name from memory and reports it to the
+   * listener.
+   *
+   * @param imageName the name of the image
+   * @return the image
+   * @throws ImageProcessorException.NotFoundException if the image is not
+   *                                                   in memory
+   */
+  private Image fetchImage(String imageName)
+          throws ImageProcessorException.NotFoundException {
+    Image image;
+    if (memory.isThreadSafe()) {
+      image = memory.getImage(imageName);
+    } else {
+      synchronized (memory) {
+        image = memory.getImage(imageName);
+      }
+    }
+    listener.imageRead(imageName, image);
+    return image;
   }
 
   /**
@@ -336,4 +519,17 @@ public class FileImageProcessingService implements ImageProcessingService {
       throw new ImageProcessorException("Received input as null or empty");
     }
   }
+
+  /**
+   * An operation of the service.
+   */
+  private interface Operation {
+    /**
+     * Runs the operation.
+     *
+     * @return the image the operation was applied to
+     * @throws ImageProcessorException if the operation fails
+     */
+    Image run() throws ImageProcessorException;
+  }
 }
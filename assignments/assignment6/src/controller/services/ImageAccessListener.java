@@ -0,0 +1,32 @@
+package controller.services;
+
+import model.visual.Image;
+
+/**
+ * Listener notified by a FileImageProcessingService of the images a command
+ * reads from and stores in the memory, on the thread running the command.
+ * The images of a command can then be inspected without reading the memory
+ * again. Both methods do nothing by default.
+ */
+public interface ImageAccessListener {
+
+  /**
+   * Called when a command reads an image from the memory.
+   *
+   * @param imageName the name of the image
+   * @param image     the image read
+   */
+  default void imageRead(String imageName, Image image) {
+    // Nothing to do by default.
+  }
+
+  /**
+   * Called when a command stores an image in the memory.
+   *
+   * @param imageName the name of the image
+   * @param image     the image stored
+   */
+  default void imageStored(String imageName, Image image) {
+    // Nothing to do by default.
+  }
+}
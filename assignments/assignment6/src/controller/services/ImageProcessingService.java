@@ -234,6 +234,18 @@ public interface ImageProcessingService {
    */
   Image getImage(String imageName) throws ImageProcessorException;
 
+  /**
+   * Stores the given image in memory under the given name, replacing any
+   * image stored under that name.
+   * Used for images computed outside of a command, like the proxy of a
+   * preview, so they are not reported as a command.
+   *
+   * @param imageName the name to store the image by.
+   * @param image     the image to store.
+   * @throws ImageProcessorException if the image cannot be stored.
+   */
+  void addImage(String imageName, Image image) throws ImageProcessorException;
+
   /**
    * Clears the memory present in the service.
    */
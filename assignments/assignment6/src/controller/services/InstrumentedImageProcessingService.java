@@ -0,0 +1,379 @@
+package controller.services;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Objects;
+
+import exception.ImageProcessorException;
+import model.enumeration.UserCommand;
+import model.memory.ImageMemory;
+import model.request.ImageProcessingRequest;
+import model.visual.Image;
+
+/**
+ * InstrumentedImageProcessingService class that implements the
+ * ImageProcessingService interface by delegating to a
+ * FileImageProcessingService and measuring every command it runs.
+ * The elapsed time, the CPU time and the bytes allocated by the calling
+ * thread are recorded with the size of the image read and the image
+ * created, in the given CommandStatistics.
+ * The sizes are taken from the images the service reports as the command
+ * reads and stores them, so measuring never reads the memory itself and
+ * does not change its hit counts or the order in which it spills images.
+ * CPU time and allocations of the pool threads running the bands of a
+ * parallel operation are not part of the calling thread and are not
+ * counted, so they only show in the elapsed time.
+ * Point operations like brighten, sepia or levels adjust are lazy and
+ * only record the operation, so the cost of applying them is charged to
+ * the command which first needs their pixels, for example a filter or
+ * save.
+ */
+public class InstrumentedImageProcessingService implements
+        ImageProcessingService {
+
+  private final ImageProcessingService imageProcessingService;
+  private final CommandStatistics statistics;
+  private final ThreadMXBean threadMXBean;
+
+  /**
+   * The command being measured on each thread, null outside of a command.
+   */
+  private final ThreadLocal<Measurement> currentMeasurement;
+
+  /**
+   * Constructor to initialize the InstrumentedImageProcessingService.
+   *
+   * @param memory     the memory the images are stored in
+   * @param statistics the statistics the commands are recorded in
+   * @throws NullPointerException if the memory or the statistics are null
+   */
+  public InstrumentedImageProcessingService(ImageMemory<Image> memory,
+                                            CommandStatistics statistics) {
+    this.statistics = Objects.requireNonNull(statistics,
+            "Statistics cannot be null");
+    this.currentMeasurement = new ThreadLocal<>();
+    this.imageProcessingService = new FileImageProcessingService(memory,
+            new SizeRecorder());
+    this.threadMXBean = ManagementFactory.getThreadMXBean();
+  }
+
+  @Override
+  public void loadImage(ImageProcessingRequest request) throws
+          ImageProcessorException {
+    measure(UserCommand.LOAD, null, request.getImageName(),
+        () -> imageProcessingService.loadImage(request));
+  }
+
+  @Override
+  public void saveImage(ImageProcessingRequest request) throws
+          ImageProcessorException {
+    measure(UserCommand.SAVE, request.getImageName(), null,
+        () -> imageProcessingService.saveImage(request));
+  }
+
+  @Override
+  public void createRedComponent(ImageProcessingRequest request) throws
+          ImageProcessorException {
+    measure(UserCommand.RED_COMPONENT, request,
+        () -> imageProcessingService.createRedComponent(request));
+  }
+
+  @Override
+  public void createGreenComponent(ImageProcessingRequest request) throws
+          ImageProcessorException {
+    measure(UserCommand.GREEN_COMPONENT, request,
+        () -> imageProcessingService.createGreenComponent(request));
+  }
+
+  @Override
+  public void createBlueComponent(ImageProcessingRequest request) throws
+          ImageProcessorException {
+    measure(UserCommand.BLUE_COMPONENT, request,
+        () -> imageProcessingService.createBlueComponent(request));
+  }
+
+  @Override
+  public void createValueComponent(ImageProcessingRequest request) throws
+          ImageProcessorException {
+    measure(UserCommand.VALUE_COMPONENT, request,
+        () -> imageProcessingService.createValueComponent(request));
+  }
+
+  @Override
+  public void createLumaComponent(ImageProcessingRequest request) throws
+          ImageProcessorException {
+    measure(UserCommand.LUMA_COMPONENT, request,
+        () -> imageProcessingService.createLumaComponent(request));
+  }
+
+  @Override
+  public void createIntensityComponent(ImageProcessingRequest request) throws
+          ImageProcessorException {
+    measure(UserCommand.INTENSITY_COMPONENT, request,
+        () -> imageProcessingService.createIntensityComponent(request));
+  }
+
+  @Override
+  public void horizontalFlip(ImageProcessingRequest request) throws
+          ImageProcessorException {
+    measure(UserCommand.HORIZONTAL_FLIP, request,
+        () -> imageProcessingService.horizontalFlip(request));
+  }
+
+  @Override
+  public void verticalFlip(ImageProcessingRequest request) throws
+          ImageProcessorException {
+    measure(UserCommand.VERTICAL_FLIP, request,
+        () -> imageProcessingService.verticalFlip(request));
+  }
+
+  @Override
+  public void brighten(ImageProcessingRequest request) throws
+          ImageProcessorException {
+    measure(UserCommand.BRIGHTEN, request,
+        () -> imageProcessingService.brighten(request));
+  }
+
+  @Override
+  public void rgbSplit(ImageProcessingRequest request) throws
+          ImageProcessorException {
+    measure(UserCommand.RGB_SPLIT, request.getImageName(),
+        request.getRedImageName(),
+        () -> imageProcessingService.rgbSplit(request));
+  }
+
+  @Override
+  public void rgbCombine(ImageProcessingRequest request) throws
+          ImageProcessorException {
+    measure(UserCommand.RGB_COMBINE, request.getRedImageName(),
+        request.getImageName(),
+        () -> imageProcessingService.rgbCombine(request));
+  }
+
+  @Override
+  public void blurImage(ImageProcessingRequest request) throws
+          ImageProcessorException {
+    measure(UserCommand.BLUR, request,
+        () -> imageProcessingService.blurImage(request));
+  }
+
+  @Override
+  public void sharpenImage(ImageProcessingRequest request) throws
+          ImageProcessorException {
+    measure(UserCommand.SHARPEN, request,
+        () -> imageProcessingService.sharpenImage(request));
+  }
+
+  @Override
+  public void sepiaImage(ImageProcessingRequest request) throws
+          ImageProcessorException {
+    measure(UserCommand.SEPIA, request,
+        () -> imageProcessingService.sepiaImage(request));
+  }
+
+  @Override
+  public void compressImage(ImageProcessingRequest request) throws
+          ImageProcessorException {
+    measure(UserCommand.COMPRESS, request,
+        () -> imageProcessingService.compressImage(request));
+  }
+
+  @Override
+  public void histogram(ImageProcessingRequest request) throws
+          ImageProcessorException {
+    measure(UserCommand.HISTOGRAM, request,
+        () -> imageProcessingService.histogram(request));
+  }
+
+  @Override
+  public void colorCorrect(ImageProcessingRequest request) throws
+          ImageProcessorException {
+    measure(UserCommand.COLOR_CORRECT, request,
+        () -> imageProcessingService.colorCorrect(request));
+  }
+
+  @Override
+  public void levelsAdjust(ImageProcessingRequest request) throws
+          ImageProcessorException {
+    measure(UserCommand.LEVELS_ADJUST, request,
+        () -> imageProcessingService.levelsAdjust(request));
+  }
+
+  @Override
+  public void downscaleImage(ImageProcessingRequest request) throws
+          ImageProcessorException {
+    measure(UserCommand.DOWNSCALE, request,
+        () -> imageProcessingService.downscaleImage(request));
+  }
+
+  @Override
+  public Image getImage(String imageName) throws ImageProcessorException {
+    return imageProcessingService.getImage(imageName);
+  }
+
+  @Override
+  public void addImage(String imageName, Image image) throws
+          ImageProcessorException {
+    imageProcessingService.addImage(imageName, image);
+  }
+
+  @Override
+  public void clearMemory() {
+    try {
+      measure(UserCommand.RESET, null, null,
+          imageProcessingService::clearMemory);
+    } catch (ImageProcessorException e) {
+      // Clearing the memory does not throw checked exceptions.
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Runs and measures a command reading the image and creating the
+   * destination image of the request.
+   *
+   * @param command the command run
+   * @param request the request of the command
+   * @param call    the call to the service running the command
+   * @throws ImageProcessorException if the command fails
+   */
+  private void measure(UserCommand command, ImageProcessingRequest request,
+                       ServiceCall call) throws ImageProcessorException {
+    measure(command, request.getImageName(),
+            request.getDestinationImageName(), call);
+  }
+
+  /**
+   * Runs and measures a command.
+   * The command is recorded whether it succeeds or fails.
+   *
+   * @param command    the command run
+   * @param inputName  the name of the image read, null if none
+   * @param outputName the name of the image created, null if none
+   * @param call       the call to the service running the command
+   * @throws ImageProcessorException if the command fails
+   */
+  private void measure(UserCommand command, String inputName,
+                       String outputName, ServiceCall call) throws
+          ImageProcessorException {
+    Measurement measurement = new Measurement(inputName, outputName);
+    currentMeasurement.set(measurement);
+    long startAllocatedBytes = getAllocatedBytes();
+    long startCpuNanos = getCpuNanos();
+    long startWallNanos = System.nanoTime();
+    boolean success = false;
+    try {
+      call.run();
+      success = true;
+    } finally {
+      long wallNanos = System.nanoTime() - startWallNanos;
+      long cpuNanos = getCpuNanos() - startCpuNanos;
+      long allocatedBytes = getAllocatedBytes() - startAllocatedBytes;
+      currentMeasurement.remove();
+      statistics.record(command, success, wallNanos, cpuNanos,
+              allocatedBytes, measurement.input,
+              success ? measurement.output : null);
+    }
+  }
+
+  /**
+   * Gets the size of the image without reading its pixels.
+   *
+   * @param image the image
+   * @return the size of the image
+   */
+  private static CommandStatistics.ImageSize getSize(Image image) {
+    return new CommandStatistics.ImageSize(image.getWidth(), image.getHeight());
+  }
+
+  /**
+   * Gets the CPU time of the current thread.
+   *
+   * @return the CPU time in nanoseconds, 0 if it cannot be measured
+   */
+  private long getCpuNanos() {
+    if (!threadMXBean.isCurrentThreadCpuTimeSupported()) {
+      return 0;
+    }
+    return Math.max(0, threadMXBean.getCurrentThreadCpuTime());
+  }
+
+  /**
+   * Gets the bytes allocated by the current thread so far.
+   *
+   * @return the allocated bytes, 0 if they cannot be measured
+   */
+  @SuppressWarnings("deprecation")
+  private long getAllocatedBytes() {
+    if (!(threadMXBean instanceof com.sun.management.ThreadMXBean)) {
+      return 0;
+    }
+    com.sun.management.ThreadMXBean allocationMXBean =
+            (com.sun.management.ThreadMXBean) threadMXBean;
+    if (!allocationMXBean.isThreadAllocatedMemorySupported()
+            || !allocationMXBean.isThreadAllocatedMemoryEnabled()) {
+      return 0;
+    }
+    return Math.max(0, allocationMXBean.getThreadAllocatedBytes(
+            Thread.currentThread().getId()));
+  }
+
+  /**
+   * The names of the images a command reads and creates and the sizes
+   * reported for them while it runs.
+   */
+  private static final class Measurement {
+    private final String inputName;
+    private final String outputName;
+    private CommandStatistics.ImageSize input;
+    private CommandStatistics.ImageSize output;
+
+    /**
+     * Constructor to initialize the Measurement.
+     *
+     * @param inputName  the name of the image read, may be null
+     * @param outputName the name of the image created, may be null
+     */
+    private Measurement(String inputName, String outputName) {
+      this.inputName = inputName;
+      this.outputName = outputName;
+    }
+  }
+
+  /**
+   * Listener recording the size of the images the measured command reads
+   * and stores. Only the first image with each name is recorded.
+   */
+  private final class SizeRecorder implements ImageAccessListener {
+
+    @Override
+    public void imageRead(String imageName, Image image) {
+      Measurement measurement = currentMeasurement.get();
+      if (measurement != null && measurement.input == null
+              && imageName.equals(measurement.inputName)) {
+        measurement.input = getSize(image);
+      }
+    }
+
+    @Override
+    public void imageStored(String imageName, Image image) {
+      Measurement measurement = currentMeasurement.get();
+      if (measurement != null && measurement.output == null
+              && imageName.equals(measurement.outputName)) {
+        measurement.output = getSize(image);
+      }
+    }
+  }
+
+  /**
+   * A call to the service running a command.
+   */
+  private interface ServiceCall {
+    /**
+     * Runs the command.
+     *
+     * @throws ImageProcessorException if the command fails
+     */
+    void run() throws ImageProcessorException;
+  }
+}
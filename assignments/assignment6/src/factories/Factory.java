@@ -1,30 +1,69 @@
 package factories;
 
+import java.nio.file.Paths;
 import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import app.parsers.ArgumentParser;
+import app.parsers.BatchArgumentParser;
 import app.parsers.CommandLineArgumentParser;
 import app.parsers.GUIArgumentParser;
 import app.parsers.InteractiveArgumentParser;
 import compressors.Compression;
 import compressors.HaarCompression;
+import compressors.RectangularHaarCompression;
 import exception.ImageProcessingRunTimeException;
 import exception.ImageProcessorException;
 import model.enumeration.CompressionType;
+import model.enumeration.ImageStorageType;
 import model.enumeration.PixelType;
+import model.memory.HashMapMemory;
 import model.memory.ImageMemory;
+import model.memory.SpillingImageMemory;
 import model.pixels.Pixel;
 import model.pixels.RGB;
 import model.visual.Image;
+import model.visual.LazyImage;
+import model.visual.PackedImage;
 import model.visual.RenderedImage;
+import controller.script.ScriptExecutor;
+import controller.services.CommandStatistics;
 import controller.services.FileImageProcessingService;
 import controller.services.ImageProcessingService;
+import controller.services.InstrumentedImageProcessingService;
+import utility.ParallelUtils;
 import utility.StringUtils;
 
 /**
  * Factory class to create objects for the Image Processor application.
  */
 public class Factory {
+  /**
+   * System property with the number of megabytes images may take in the
+   * heap before they are spilled to disk.
+   */
+  public static final String MEMORY_BUDGET_PROPERTY = "imageprocessor.memory.budgetMB";
+
+  /**
+   * System property with the directory the private spill directory of the
+   * memory is created in.
+   */
+  public static final String SCRATCH_DIRECTORY_PROPERTY = "imageprocessor.memory.scratch";
+
+  /**
+   * System property with the number of threads running the commands of a
+   * script.
+   */
+  public static final String SCRIPT_THREADS_PROPERTY = "imageprocessor.script.threads";
+
+  /**
+   * Statistics of the commands run by every instrumented service.
+   */
+  private static final CommandStatistics COMMAND_STATISTICS =
+          new CommandStatistics();
+
   private Factory() {
     //Empty private constructor to prevent instantiation.
   }
@@ -43,6 +82,63 @@ public class Factory {
     return new RenderedImage(pixels);
   }
 
+  /**
+   * Creates an Image object with the given pixel array stored using the
+   * given storage type.
+   *
+   * @param pixels      the pixel array to create the image
+   * @param storageType the way the pixels of the image are stored
+   * @return the image object with the given pixel array
+   * @throws ImageProcessorException                         if the pixel
+   *                                                         array is empty
+   * @throws ImageProcessorException.NotImplementedException if the storage
+   *                                                         type is not
+   *                                                         implemented
+   */
+  public static Image createImage(Pixel[][] pixels,
+                                  ImageStorageType storageType) throws
+          ImageProcessorException {
+    if (ImageStorageType.PIXEL_ARRAY.equals(storageType)) {
+      return createImage(pixels);
+    } else if (ImageStorageType.PACKED.equals(storageType)) {
+      return PackedImage.fromPixels(pixels);
+    }
+    throw new ImageProcessorException
+            .NotImplementedException(String.format("Image storage type:%s not "
+            + "implemented", storageType));
+  }
+
+  /**
+   * Creates an Image object backed by the given packed pixel array.
+   * Each pixel is stored as 0xRRGGBB in row major order.
+   *
+   * @param width        the width of the image
+   * @param height       the height of the image
+   * @param packedPixels the packed pixels of the image
+   * @return the image object with the given packed pixels
+   * @throws ImageProcessorException if the dimensions are invalid or do
+   *                                 not match the pixel array
+   */
+  public static Image createImage(int width, int height, int[] packedPixels)
+          throws ImageProcessorException {
+    return new PackedImage(width, height, packedPixels);
+  }
+
+  /**
+   * Creates a lazy image which records point operations on the given image
+   * and applies them in a single pass when the pixels are needed.
+   * If the image is already lazy, it is returned as is.
+   *
+   * @param image the image to wrap
+   * @return the lazy image
+   */
+  public static Image createLazyImage(Image image) {
+    if (image instanceof LazyImage) {
+      return image;
+    }
+    return new LazyImage(image);
+  }
+
 
   /**
    * Combines the red, green, and blue components of an image to create a new
@@ -103,6 +199,69 @@ public class Factory {
     }
   }
 
+  /**
+   * Creates the memory to store the images of the application.
+   * If the system property {@value #MEMORY_BUDGET_PROPERTY} is set to a
+   * number of megabytes, a SpillingImageMemory with that budget is created
+   * which spills to a private directory created in the directory in the
+   * system property {@value #SCRATCH_DIRECTORY_PROPERTY}, or in the
+   * temporary directory if the property is not set.
+   * Otherwise, a HashMapMemory is created.
+   *
+   * @return the memory to store images
+   * @throws ImageProcessingRunTimeException if the properties are invalid
+   */
+  public static ImageMemory<Image> createImageMemory() {
+    String budget = System.getProperty(MEMORY_BUDGET_PROPERTY);
+    if (StringUtils.isNullOrEmpty(budget)) {
+      return new HashMapMemory();
+    }
+    String scratchDirectory = System.getProperty(SCRATCH_DIRECTORY_PROPERTY,
+            System.getProperty("java.io.tmpdir"));
+    try {
+      return new SpillingImageMemory(Long.parseLong(budget.trim()) * 1024 * 1024,
+              Paths.get(scratchDirectory));
+    } catch (NumberFormatException | ImageProcessorException e) {
+      throw new ImageProcessingRunTimeException(String.format(
+              "Invalid image memory configuration: %s", e.getMessage()), e);
+    }
+  }
+
+  /**
+   * Creates the executor running the commands of the scripts.
+   * If the system property {@value #SCRIPT_THREADS_PROPERTY} is set to a
+   * number of threads over 1, a pool of daemon threads of that size is
+   * created and the commands which do not depend on each other run
+   * concurrently. Otherwise, the commands run one at a time on the thread
+   * running the script.
+   *
+   * @return the executor running the commands of the scripts
+   * @throws ImageProcessingRunTimeException if the property is invalid
+   */
+  public static Executor createScriptExecutor() {
+    String threads = System.getProperty(SCRIPT_THREADS_PROPERTY);
+    if (StringUtils.isNullOrEmpty(threads)) {
+      return ScriptExecutor.SEQUENTIAL;
+    }
+    int threadCount;
+    try {
+      threadCount = Integer.parseInt(threads.trim());
+    } catch (NumberFormatException e) {
+      throw new ImageProcessingRunTimeException(String.format(
+              "Invalid script thread count: %s", threads), e);
+    }
+    if (threadCount <= 1) {
+      return ScriptExecutor.SEQUENTIAL;
+    }
+    AtomicInteger threadNumber = new AtomicInteger();
+    return Executors.newFixedThreadPool(threadCount, runnable -> {
+      Thread thread = new Thread(runnable,
+              "script-worker-" + threadNumber.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
   /**
    * Creates an ImageProcessingService object to process images.
    *
@@ -113,6 +272,30 @@ public class Factory {
     return new FileImageProcessingService(memory);
   }
 
+  /**
+   * Creates an ImageProcessingService object to process images which
+   * records the time and memory taken by every command in the statistics
+   * returned by getCommandStatistics.
+   * The statistics are registered with JMX the first time.
+   *
+   * @param memory the memory to store images
+   * @return the instrumented ImageProcessingService object
+   */
+  public static ImageProcessingService createInstrumentedImageProcessor(
+          ImageMemory<Image> memory) {
+    COMMAND_STATISTICS.register();
+    return new InstrumentedImageProcessingService(memory, COMMAND_STATISTICS);
+  }
+
+  /**
+   * Gets the statistics of the commands run by the instrumented services.
+   *
+   * @return the statistics of the commands
+   */
+  public static CommandStatistics getCommandStatistics() {
+    return COMMAND_STATISTICS;
+  }
+
 
   /**
    * Creates a pixel based on the given pixel and type.
@@ -180,6 +363,9 @@ public class Factory {
     if (CompressionType.HAAR.equals(type)) {
       return new HaarCompression();
     }
+    if (CompressionType.HAAR_RECTANGULAR.equals(type)) {
+      return new RectangularHaarCompression();
+    }
     throw new ImageProcessorException
             .NotImplementedException(String.format("Compression type:%s not "
             + "implemented", type));
@@ -202,21 +388,58 @@ public class Factory {
           ImageProcessorException {
     validateImageDimensions(firstImage, secondImage);
     validatePercentage(percentage);
+    if (firstImage instanceof PackedImage) {
+      return combinePackedImage((PackedImage) firstImage,
+              PackedImage.fromImage(secondImage), percentage);
+    }
     int height = firstImage.getHeight();
     int width = firstImage.getWidth();
     Pixel[][] newPixelArray = new Pixel[height][width];
     int widthWithPercentage = width * percentage / 100;
-    for (int row = 0; row < height; row++) {
-      for (int col = 0; col < widthWithPercentage; col++) {
-        newPixelArray[row][col] = firstImage.getPixel(row, col);
-      }
-      for (int col = widthWithPercentage; col < width; col++) {
-        newPixelArray[row][col] = secondImage.getPixel(row, col);
+    ParallelUtils.forEachRowBand(height, width, (startRow, endRow) -> {
+      for (int row = startRow; row < endRow; row++) {
+        for (int col = 0; col < widthWithPercentage; col++) {
+          newPixelArray[row][col] = firstImage.getPixel(row, col);
+        }
+        for (int col = widthWithPercentage; col < width; col++) {
+          newPixelArray[row][col] = secondImage.getPixel(row, col);
+        }
       }
-    }
+    });
     return createImage(newPixelArray);
   }
 
+  /**
+   * Combines the given packed images based on the given percentage without
+   * creating a Pixel object per pixel.
+   *
+   * @param firstImage  the first image to combine
+   * @param secondImage the second image to combine
+   * @param percentage  the percentage of the first image in the new image
+   * @return the new packed image with the combined images
+   * @throws ImageProcessorException if the image cannot be created
+   */
+  private static Image combinePackedImage(PackedImage firstImage,
+                                          PackedImage secondImage,
+                                          int percentage) throws
+          ImageProcessorException {
+    int height = firstImage.getHeight();
+    int width = firstImage.getWidth();
+    int[] newPixels = new int[width * height];
+    int widthWithPercentage = width * percentage / 100;
+    ParallelUtils.forEachRowBand(height, width, (startRow, endRow) -> {
+      for (int row = startRow; row < endRow; row++) {
+        for (int col = 0; col < widthWithPercentage; col++) {
+          newPixels[row * width + col] = firstImage.getRGB(row, col);
+        }
+        for (int col = widthWithPercentage; col < width; col++) {
+          newPixels[row * width + col] = secondImage.getRGB(row, col);
+        }
+      }
+    });
+    return createImage(width, height, newPixels);
+  }
+
   /**
    * Validates the dimensions of the given images.
    *
@@ -265,6 +488,8 @@ public class Factory {
       String firstArgument = args[0];
       if (firstArgument.equals("-file")) {
         return new CommandLineArgumentParser();
+      } else if (firstArgument.equals("-batch")) {
+        return new BatchArgumentParser();
       } else if (firstArgument.equals("-text")) {
         return new InteractiveArgumentParser();
       } else {
@@ -8,5 +8,12 @@ public enum CompressionType {
    * HAAR compression type.
    * Refer compressors.HaarCompression for more details.
    */
-  HAAR
+  HAAR,
+
+  /**
+   * HAAR compression type which pads the rows and columns of the image
+   * independently instead of padding it to a square.
+   * Refer compressors.RectangularHaarCompression for more details.
+   */
+  HAAR_RECTANGULAR
 }
@@ -0,0 +1,18 @@
+package model.enumeration;
+
+/**
+ * Represents the way the pixels of an image are stored in memory.
+ */
+public enum ImageStorageType {
+  /**
+   * Every pixel is stored as a separate Pixel object.
+   * Refer model.visual.RenderedImage for more details.
+   */
+  PIXEL_ARRAY,
+
+  /**
+   * Every pixel is packed into a single integer as 0xRRGGBB.
+   * Refer model.visual.PackedImage for more details.
+   */
+  PACKED
+}
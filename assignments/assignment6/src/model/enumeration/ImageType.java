@@ -13,7 +13,9 @@ public enum ImageType {
   PNG("png"),
   PPM("ppm"),
   JPG("jpg"),
-  JPEG("jpeg");
+  JPEG("jpeg"),
+  HAAR("haar"),
+  RAW("raw");
 
   /**
    * Extension of the image type.
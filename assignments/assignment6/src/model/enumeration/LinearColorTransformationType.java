@@ -23,8 +23,24 @@ public enum LinearColorTransformationType {
    */
   private final double[][] kernel;
 
+  /**
+   * Products of every kernel value with every channel value.
+   * products[row][col][value] is kernel[row][col] * value, so a pixel can
+   * be transformed by looking up the products instead of multiplying.
+   */
+  private final double[][][] products;
+
   LinearColorTransformationType(double[][] kernel) {
     this.kernel = kernel;
+    this.products = new double[kernel.length][][];
+    for (int row = 0; row < kernel.length; row++) {
+      products[row] = new double[kernel[row].length][256];
+      for (int col = 0; col < kernel[row].length; col++) {
+        for (int value = 0; value < 256; value++) {
+          products[row][col][value] = kernel[row][col] * value;
+        }
+      }
+    }
   }
 
   /**
@@ -35,4 +51,21 @@ public enum LinearColorTransformationType {
   public double[][] getKernel() {
     return kernel;
   }
+
+  /**
+   * Computes a channel of the transformed pixel which is the given row of
+   * the kernel multiplied with the red, green and blue channels.
+   * The result is the same as multiplying with the kernel directly.
+   *
+   * @param channel the row of the kernel, 0 for red, 1 for green and 2 for
+   *                blue
+   * @param red     the red channel between 0 and 255
+   * @param green   the green channel between 0 and 255
+   * @param blue    the blue channel between 0 and 255
+   * @return the transformed channel before it is clamped
+   */
+  public double transformChannel(int channel, int red, int green, int blue) {
+    double[][] row = products[channel];
+    return row[0][red] + row[1][green] + row[2][blue];
+  }
 }
@@ -0,0 +1,56 @@
+package model.enumeration;
+
+/**
+ * Represents the order in which the channels of a raw image are stored.
+ */
+public enum RawLayout {
+  /**
+   * The red, green and blue channels of every pixel are stored one after
+   * the other, pixel by pixel in row major order.
+   */
+  INTERLEAVED(0),
+
+  /**
+   * All the red channels are stored first, followed by all the green and
+   * then all the blue channels, each plane in row major order.
+   */
+  PLANAR(1);
+
+  /**
+   * Code of the layout in the header of a raw file.
+   */
+  private final int code;
+
+  /**
+   * Constructor for the raw layout.
+   *
+   * @param code code of the layout in the header of a raw file.
+   */
+  RawLayout(int code) {
+    this.code = code;
+  }
+
+  /**
+   * Get the code of the layout in the header of a raw file.
+   *
+   * @return code of the layout.
+   */
+  public int getCode() {
+    return code;
+  }
+
+  /**
+   * Get the layout from its code in the header of a raw file.
+   *
+   * @param code code of the layout.
+   * @return the layout, or null if there is no layout with the code.
+   */
+  public static RawLayout fromCode(int code) {
+    for (RawLayout layout : values()) {
+      if (layout.code == code) {
+        return layout;
+      }
+    }
+    return null;
+  }
+}
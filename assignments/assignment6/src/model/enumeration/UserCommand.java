@@ -1,6 +1,7 @@
 package model.enumeration;
 
-import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 
 
@@ -13,9 +14,11 @@ public enum UserCommand {
   LOAD("load", "load image-path image-name: "
           + "Load an image from the specified path and refer it to "
           + "henceforth in the program by the given image name."),
-  SAVE("save", "save image-path image-name: "
+  SAVE("save", "save image-path image-name [percentage p | binary]: "
           + "Save the image with the given name to the specified path "
-          + "which should include the name of the file."),
+          + "which should include the name of the file. A .haar file is "
+          + "compressed by the optional percentage, which loses detail. A "
+          + ".ppm file is saved as a binary P6 file if binary is given."),
   RED_COMPONENT("red-component", "red-component image-name dest-image-name: "
           + "Create an image with the red-component of the image with the "
           + "given name, "
@@ -110,9 +113,23 @@ public enum UserCommand {
 
   RESET("reset", "reset: Resets the program's memory."),
 
+  STATS("stats", "stats: Print the time and memory taken by every command "
+          + "run so far."),
+
   QUIT("quit", "quit: Quit the program."),
   HELP("help", "help: Print this help message.");
 
+  /**
+   * The user commands by the command the user gives.
+   */
+  private static final Map<String, UserCommand> COMMANDS = new HashMap<>();
+
+  static {
+    for (UserCommand userCommand : UserCommand.values()) {
+      COMMANDS.put(userCommand.command, userCommand);
+    }
+  }
+
   /**
    * Command which the user can give.
    */
@@ -139,8 +156,7 @@ public enum UserCommand {
    * @return the command type
    */
   public static Optional<UserCommand> getCommand(String command) {
-    return Arrays.stream(UserCommand.values()).filter(
-        userCommand -> userCommand.command.equals(command)).findFirst();
+    return Optional.ofNullable(COMMANDS.get(command));
   }
 
   /**
@@ -0,0 +1,133 @@
+package model.memory;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import exception.ImageProcessorException;
+import model.visual.Image;
+import utility.StringUtils;
+
+/**
+ * A class that represents a memory that stores images in a
+ * ConcurrentHashMap so that it can be used by many threads at once.
+ * Reads do not lock and writes only lock a part of the map.
+ *
+ * <p>A memory created with the public constructor is a shared memory.
+ * Sessions opened on it have their own namespace of images, so scripts
+ * running at the same time can use the same names without seeing each
+ * other's images. A session also sees the images of the shared memory, for
+ * example a common set of loaded base images, but never modifies them:
+ * adding an image with the name of a shared image hides the shared image
+ * in that session only, and clearing a session only removes its own
+ * images.
+ */
+public class ConcurrentImageMemory implements ImageMemory<Image> {
+
+  /**
+   * The images of this memory by name.
+   */
+  private final Map<String, Image> memory;
+
+  /**
+   * The images of the shared memory, which are only read.
+   * Empty for the shared memory itself.
+   */
+  private final Map<String, Image> sharedImages;
+
+  /**
+   * Whether this memory is a session opened on a shared memory.
+   */
+  private final boolean session;
+
+  /**
+   * Constructs an empty shared ConcurrentImageMemory.
+   */
+  public ConcurrentImageMemory() {
+    this(Map.of(), false);
+  }
+
+  /**
+   * Constructs a memory over the given shared images.
+   *
+   * @param sharedImages the images of the shared memory
+   * @param session      whether the memory is a session
+   */
+  private ConcurrentImageMemory(Map<String, Image> sharedImages, boolean session) {
+    this.memory = new ConcurrentHashMap<>();
+    this.sharedImages = sharedImages;
+    this.session = session;
+  }
+
+  /**
+   * Opens a new session with its own namespace over the images of the
+   * shared memory. A session opened on a session uses the same shared
+   * images as that session.
+   *
+   * @return the new session
+   */
+  public ConcurrentImageMemory openSession() {
+    return new ConcurrentImageMemory(session ? sharedImages : memory, true);
+  }
+
+  /**
+   * Checks if this memory is a session opened on a shared memory.
+   *
+   * @return true if this memory is a session
+   */
+  public boolean isSession() {
+    return session;
+  }
+
+  @Override
+  public void addImage(String imageName, Image image) {
+    if (Objects.isNull(image) || StringUtils.isNullOrEmpty(imageName)) {
+      return;
+    }
+    memory.put(imageName, image);
+  }
+
+  /**
+   * Gets the image from this memory, or from the shared memory if this
+   * memory does not have an image with the name.
+   */
+  @Override
+  public Image getImage(String imageName) throws ImageProcessorException.NotFoundException {
+    if (StringUtils.isNullOrEmpty(imageName)) {
+      throw notFound(imageName);
+    }
+    Image image = memory.get(imageName);
+    if (image == null) {
+      image = sharedImages.get(imageName);
+    }
+    if (image == null) {
+      throw notFound(imageName);
+    }
+    return image;
+  }
+
+  /**
+   * Removes the images of this memory. The images of the shared memory
+   * are kept.
+   */
+  @Override
+  public void clearMemory() {
+    memory.clear();
+  }
+
+  @Override
+  public boolean isThreadSafe() {
+    return true;
+  }
+
+  /**
+   * Creates the exception thrown when an image is not found.
+   *
+   * @param imageName the name of the image
+   * @return the exception
+   */
+  private static ImageProcessorException.NotFoundException notFound(String imageName) {
+    return new ImageProcessorException.NotFoundException(
+            String.format("Image with name %s not found in memory", imageName));
+  }
+}
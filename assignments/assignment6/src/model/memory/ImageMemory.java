@@ -29,4 +29,13 @@ public interface ImageMemory<T> {
 
   void clearMemory();
 
+  /**
+   * Checks if the memory can be used by many threads at once without any
+   * external synchronization.
+   *
+   * @return true if the memory is thread safe, false by default
+   */
+  default boolean isThreadSafe() {
+    return false;
+  }
 }
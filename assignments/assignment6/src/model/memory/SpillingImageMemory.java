@@ -0,0 +1,414 @@
+package model.memory;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import exception.ImageProcessingRunTimeException;
+import exception.ImageProcessorException;
+import model.enumeration.RawLayout;
+import model.visual.Image;
+import model.visual.LazyImage;
+import model.visual.MappedImage;
+import model.visual.RenderedImage;
+import utility.RawImageCodec;
+import utility.StringUtils;
+import utility.events.MemorySpillEvent;
+
+/**
+ * A class that represents a memory that keeps images in the heap up to a
+ * budget of bytes and spills the least recently used images to a scratch
+ * directory once the budget is exceeded.
+ * Images are spilled in the RAW format to a private directory created in
+ * the scratch directory, so that several memories and several processes
+ * never share their spill files. The private directory is deleted when the
+ * memory is cleared, or when the virtual machine exits.
+ * Spilled images are mapped back into memory when they are asked for again,
+ * which is instant and does not count against the budget since mapped images
+ * are not stored in the heap.
+ * The number of bytes an image takes is estimated from its dimensions and
+ * the way its pixels are stored.
+ * The most recently added image is never spilled, even if it is larger
+ * than the budget on its own.
+ * All the methods are synchronized so the memory can be shared between
+ * threads.
+ */
+public class SpillingImageMemory implements ImageMemory<Image> {
+
+  /**
+   * Estimated number of bytes a pixel of a RenderedImage takes, which is a
+   * reference and an RGB object.
+   */
+  private static final long RENDERED_BYTES_PER_PIXEL = 32;
+
+  /**
+   * Number of bytes a pixel of a packed image takes.
+   */
+  private static final long PACKED_BYTES_PER_PIXEL = 4;
+
+  /**
+   * Extension of the files the images are spilled to.
+   */
+  private static final String SPILL_EXTENSION = ".raw";
+
+  /**
+   * The images by name, from the least to the most recently used.
+   */
+  private final LinkedHashMap<String, Entry> memory;
+
+  /**
+   * The number of bytes the images in the heap may take.
+   */
+  private final long byteBudget;
+
+  /**
+   * Prefix of the name of the private directory the images are spilled to.
+   */
+  private static final String SPILL_DIRECTORY_PREFIX = "image-memory-";
+
+  /**
+   * The directory the private spill directory is created in.
+   */
+  private final Path scratchDirectory;
+
+  /**
+   * The private directory the images are spilled to.
+   * Null until the first image is spilled and after the memory is cleared.
+   */
+  private Path spillDirectory;
+
+  /**
+   * The estimated number of bytes the images in the heap take.
+   */
+  private long residentBytes;
+
+  /**
+   * Number used to name the next spill file.
+   */
+  private long nextSpillFile;
+
+  private long hitCount;
+  private long missCount;
+  private long spillCount;
+  private long reloadCount;
+
+  /**
+   * Constructs a SpillingImageMemory object.
+   *
+   * @param byteBudget       the number of bytes the images in the heap may take
+   * @param scratchDirectory the directory to create the private spill
+   *                         directory in, created if it does not exist
+   * @throws ImageProcessorException if the budget is negative or the
+   *                                 directory cannot be created
+   */
+  public SpillingImageMemory(long byteBudget, Path scratchDirectory)
+          throws ImageProcessorException {
+    Objects.requireNonNull(scratchDirectory, "Scratch directory cannot be null");
+    if (byteBudget < 0) {
+      throw new ImageProcessorException("Memory budget cannot be negative");
+    }
+    try {
+      Files.createDirectories(scratchDirectory);
+    } catch (IOException e) {
+      throw new ImageProcessorException("Error creating scratch directory: "
+              + scratchDirectory, e);
+    }
+    this.memory = new LinkedHashMap<>(16, 0.75f, true);
+    this.byteBudget = byteBudget;
+    this.scratchDirectory = scratchDirectory;
+  }
+
+  /**
+   * Adds the image to the memory and spills the least recently used images
+   * until the images in the heap fit in the budget.
+   * An image which cannot be spilled is kept in the heap.
+   */
+  @Override
+  public synchronized void addImage(String imageName, Image image) {
+    if (Objects.isNull(image) || StringUtils.isNullOrEmpty(imageName)) {
+      return;
+    }
+    Entry previous = memory.remove(imageName);
+    if (previous != null) {
+      discard(previous);
+    }
+    Entry entry = new Entry(image, estimateBytes(image));
+    memory.put(imageName, entry);
+    residentBytes += entry.bytes;
+    spillUntilWithinBudget(entry);
+  }
+
+  /**
+   * Gets the image from the memory. A spilled image is mapped back into
+   * memory from its spill file.
+   *
+   * @throws ImageProcessingRunTimeException if a spilled image cannot be
+   *                                         read back
+   */
+  @Override
+  public synchronized Image getImage(String imageName)
+          throws ImageProcessorException.NotFoundException {
+    Entry entry = memory.get(imageName);
+    if (entry == null) {
+      missCount++;
+      throw new ImageProcessorException.NotFoundException(
+              String.format("Image with name %s not found in memory", imageName));
+    }
+    if (entry.image != null) {
+      hitCount++;
+      return entry.image;
+    }
+    MemorySpillEvent event = new MemorySpillEvent();
+    event.begin();
+    try {
+      entry.image = RawImageCodec.read(entry.spillFile);
+    } catch (ImageProcessorException | IOException e) {
+      throw new ImageProcessingRunTimeException(String.format(
+              "Error reloading image %s from %s", imageName, entry.spillFile), e);
+    }
+    reloadCount++;
+    event.record(imageName, entry.spillFile.toString(), true, entry.image);
+    return entry.image;
+  }
+
+  /**
+   * Removes every image from the memory and deletes their spill files and
+   * the private spill directory. The counters are kept.
+   */
+  @Override
+  public synchronized void clearMemory() {
+    for (Entry entry : memory.values()) {
+      discard(entry);
+    }
+    memory.clear();
+    residentBytes = 0;
+    if (spillDirectory != null) {
+      deleteQuietly(spillDirectory);
+      spillDirectory = null;
+    }
+  }
+
+  @Override
+  public boolean isThreadSafe() {
+    return true;
+  }
+
+  /**
+   * Gets the number of bytes the images in the heap may take.
+   *
+   * @return the budget in bytes
+   */
+  public long getByteBudget() {
+    return byteBudget;
+  }
+
+  /**
+   * Gets the estimated number of bytes the images in the heap take.
+   *
+   * @return the resident bytes
+   */
+  public synchronized long getResidentBytes() {
+    return residentBytes;
+  }
+
+  /**
+   * Gets the number of times an image was found in the heap.
+   *
+   * @return the number of hits
+   */
+  public synchronized long getHitCount() {
+    return hitCount;
+  }
+
+  /**
+   * Gets the number of times an image was asked for which is not in the
+   * memory.
+   *
+   * @return the number of misses
+   */
+  public synchronized long getMissCount() {
+    return missCount;
+  }
+
+  /**
+   * Gets the number of times an image was spilled to the scratch directory.
+   *
+   * @return the number of spills
+   */
+  public synchronized long getSpillCount() {
+    return spillCount;
+  }
+
+  /**
+   * Gets the number of times a spilled image was read back.
+   *
+   * @return the number of reloads
+   */
+  public synchronized long getReloadCount() {
+    return reloadCount;
+  }
+
+  /**
+   * Checks if the image with the given name is spilled and not in the heap.
+   * Checking does not count as using the image.
+   *
+   * @param imageName the name of the image
+   * @return true if the image is spilled, false if it is in the heap or not
+   *         in the memory
+   */
+  public synchronized boolean isSpilled(String imageName) {
+    for (Map.Entry<String, Entry> entry : memory.entrySet()) {
+      if (entry.getKey().equals(imageName)) {
+        return entry.getValue().image == null;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Spills the least recently used images in the heap until the resident
+   * bytes fit in the budget. The given entry is not spilled.
+   *
+   * @param keep the entry which must stay in the heap
+   */
+  private void spillUntilWithinBudget(Entry keep) {
+    Iterator<Map.Entry<String, Entry>> iterator = memory.entrySet().iterator();
+    while (residentBytes > byteBudget && iterator.hasNext()) {
+      Map.Entry<String, Entry> next = iterator.next();
+      Entry entry = next.getValue();
+      if (entry == keep || entry.image == null || entry.bytes == 0) {
+        continue;
+      }
+      if (!spill(next.getKey(), entry)) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Writes the image of the entry to a spill file and removes it from the
+   * heap. A MemorySpillEvent is recorded for the flight recorder.
+   *
+   * @param imageName the name of the image
+   * @param entry     the entry to spill
+   * @return true if the image was spilled, false if it could not be written
+   */
+  private boolean spill(String imageName, Entry entry) {
+    MemorySpillEvent event = new MemorySpillEvent();
+    event.begin();
+    Path spillFile;
+    try {
+      spillFile = getSpillDirectory().resolve("spill-" + nextSpillFile++
+              + SPILL_EXTENSION);
+    } catch (IOException e) {
+      return false;
+    }
+    try (OutputStream output = new BufferedOutputStream(Files.newOutputStream(spillFile))) {
+      RawImageCodec.write(entry.image, output, RawLayout.INTERLEAVED);
+    } catch (ImageProcessorException | IOException e) {
+      deleteQuietly(spillFile);
+      return false;
+    }
+    // Registered after the directory, so deleted before it at exit.
+    spillFile.toFile().deleteOnExit();
+    event.record(imageName, spillFile.toString(), false, entry.image);
+    entry.image = null;
+    entry.spillFile = spillFile;
+    residentBytes -= entry.bytes;
+    entry.bytes = 0;
+    spillCount++;
+    return true;
+  }
+
+  /**
+   * Gets the private directory the images are spilled to, creating it with
+   * a unique name in the scratch directory if it does not exist. The
+   * directory is deleted when the virtual machine exits if it is empty by
+   * then.
+   *
+   * @return the private spill directory
+   * @throws IOException if the directory cannot be created
+   */
+  private Path getSpillDirectory() throws IOException {
+    if (spillDirectory == null) {
+      spillDirectory = Files.createTempDirectory(scratchDirectory,
+              SPILL_DIRECTORY_PREFIX);
+      spillDirectory.toFile().deleteOnExit();
+    }
+    return spillDirectory;
+  }
+
+  /**
+   * Removes the entry from the resident bytes and deletes its spill file.
+   *
+   * @param entry the entry to discard
+   */
+  private void discard(Entry entry) {
+    residentBytes -= entry.bytes;
+    if (entry.spillFile != null) {
+      deleteQuietly(entry.spillFile);
+    }
+  }
+
+  /**
+   * Deletes the file if it exists. A file which cannot be deleted, for
+   * example because it is still mapped, is left for the operating system
+   * to clean up.
+   *
+   * @param file the file to delete
+   */
+  private static void deleteQuietly(Path file) {
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      file.toFile().deleteOnExit();
+    }
+  }
+
+  /**
+   * Estimates the number of bytes the pixels of the image take in the heap.
+   * Mapped images do not take any, and lazy images take their source and
+   * a packed result if they have pending operations. A source shared by several
+   * images is counted for each of them, so the estimate errs on the high
+   * side.
+   *
+   * @param image the image to estimate
+   * @return the estimated number of bytes
+   */
+  static long estimateBytes(Image image) {
+    long pixels = (long) image.getWidth() * image.getHeight();
+    if (image instanceof MappedImage) {
+      return 0;
+    }
+    if (image instanceof LazyImage) {
+      LazyImage lazyImage = (LazyImage) image;
+      long sourceBytes = estimateBytes(lazyImage.getSource());
+      return lazyImage.hasOperations()
+              ? sourceBytes + pixels * PACKED_BYTES_PER_PIXEL : sourceBytes;
+    }
+    if (image instanceof RenderedImage) {
+      return pixels * RENDERED_BYTES_PER_PIXEL;
+    }
+    return pixels * PACKED_BYTES_PER_PIXEL;
+  }
+
+  /**
+   * An image in the memory, either in the heap or spilled to a file.
+   */
+  private static final class Entry {
+    private Image image;
+    private long bytes;
+    private Path spillFile;
+
+    private Entry(Image image, long bytes) {
+      this.image = image;
+      this.bytes = bytes;
+    }
+  }
+}
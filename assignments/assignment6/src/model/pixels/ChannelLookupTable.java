@@ -0,0 +1,271 @@
+package model.pixels;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Represents a point operation on the channels of a pixel as lookup tables.
+ * Every channel of the new pixel is looked up in a table of 256 entries
+ * using one of the channels of the original pixel, which covers operations
+ * like brightening, levels adjustment and extracting a component.
+ * Consecutive lookup tables can be composed into a single lookup table so
+ * an image is only visited once for a chain of such operations.
+ * Lookup tables are immutable.
+ */
+public final class ChannelLookupTable {
+
+  /**
+   * Number of values a channel can have.
+   */
+  private static final int CHANNEL_VALUES = 256;
+
+  /**
+   * Index of the red channel.
+   */
+  private static final int RED = 0;
+
+  /**
+   * Index of the green channel.
+   */
+  private static final int GREEN = 1;
+
+  /**
+   * Index of the blue channel.
+   */
+  private static final int BLUE = 2;
+
+  /**
+   * Lookup table which does not change the pixel.
+   */
+  private static final ChannelLookupTable IDENTITY = new ChannelLookupTable(
+          new int[]{RED, GREEN, BLUE},
+          new int[][]{identityTable(), identityTable(), identityTable()});
+
+  /**
+   * The channel of the original pixel every new channel is looked up by.
+   */
+  private final int[] sources;
+
+  /**
+   * The table of every new channel indexed by the value of its source
+   * channel. Every entry is between 0 and 255.
+   */
+  private final int[][] tables;
+
+  /**
+   * Constructs a lookup table from the given sources and tables.
+   *
+   * @param sources the source channel of every new channel
+   * @param tables  the table of every new channel
+   */
+  private ChannelLookupTable(int[] sources, int[][] tables) {
+    this.sources = sources;
+    this.tables = tables;
+  }
+
+  /**
+   * Gets the lookup table which does not change the pixel.
+   *
+   * @return the identity lookup table
+   */
+  public static ChannelLookupTable identity() {
+    return IDENTITY;
+  }
+
+  /**
+   * Creates a lookup table which adds the given factor to every channel.
+   * Same as Pixel.adjustBrightness.
+   *
+   * @param factor the factor to add, can be negative
+   * @return the lookup table
+   */
+  public static ChannelLookupTable brightness(int factor) {
+    int[] table = new int[CHANNEL_VALUES];
+    for (int value = 0; value < CHANNEL_VALUES; value++) {
+      table[value] = clamp(value + factor);
+    }
+    return perChannel(table);
+  }
+
+  /**
+   * Creates a lookup table which applies the quadratic transformation
+   * a * x^2 + b * x + c to every channel.
+   * Same as Pixel.quadraticTransform.
+   *
+   * @param coeffA quadratic coefficient a
+   * @param coeffB quadratic coefficient b
+   * @param coeffC quadratic coefficient c
+   * @return the lookup table
+   */
+  public static ChannelLookupTable quadratic(double coeffA, double coeffB,
+                                            double coeffC) {
+    int[] table = new int[CHANNEL_VALUES];
+    for (int value = 0; value < CHANNEL_VALUES; value++) {
+      double result = coeffA * Math.pow(value, 2) + coeffB * value + coeffC;
+      table[value] = clamp((int) Math.round(result));
+    }
+    return perChannel(table);
+  }
+
+  /**
+   * Creates a lookup table which sets every channel to the red channel.
+   * Same as Pixel.createRedComponent.
+   *
+   * @return the lookup table
+   */
+  public static ChannelLookupTable redComponent() {
+    return component(RED);
+  }
+
+  /**
+   * Creates a lookup table which sets every channel to the green channel.
+   * Same as Pixel.createGreenComponent.
+   *
+   * @return the lookup table
+   */
+  public static ChannelLookupTable greenComponent() {
+    return component(GREEN);
+  }
+
+  /**
+   * Creates a lookup table which sets every channel to the blue channel.
+   * Same as Pixel.createBlueComponent.
+   *
+   * @return the lookup table
+   */
+  public static ChannelLookupTable blueComponent() {
+    return component(BLUE);
+  }
+
+  /**
+   * Composes this lookup table with the next lookup table into a single
+   * lookup table which is the same as applying this table and then the
+   * next table.
+   *
+   * @param next the lookup table to apply after this table
+   * @return the composed lookup table
+   */
+  public ChannelLookupTable andThen(ChannelLookupTable next) {
+    Objects.requireNonNull(next, "Lookup table cannot be null");
+    int[] composedSources = new int[3];
+    int[][] composedTables = new int[3][CHANNEL_VALUES];
+    for (int channel = 0; channel < 3; channel++) {
+      int intermediate = next.sources[channel];
+      composedSources[channel] = this.sources[intermediate];
+      for (int value = 0; value < CHANNEL_VALUES; value++) {
+        composedTables[channel][value] =
+                next.tables[channel][this.tables[intermediate][value]];
+      }
+    }
+    return new ChannelLookupTable(composedSources, composedTables);
+  }
+
+  /**
+   * Applies the lookup table to the given pixel.
+   * The new pixel is created by the given pixel so it has the same type.
+   *
+   * @param pixel the pixel to apply the lookup table to
+   * @return the new pixel
+   */
+  public Pixel apply(Pixel pixel) {
+    int red = pixel.getRed();
+    int green = pixel.getGreen();
+    int blue = pixel.getBlue();
+    return pixel.createPixel(lookup(RED, red, green, blue),
+            lookup(GREEN, red, green, blue),
+            lookup(BLUE, red, green, blue));
+  }
+
+  /**
+   * Applies the lookup table to the given channels and returns the new
+   * channel.
+   *
+   * @param channel the index of the new channel, 0 for red, 1 for green
+   *                and 2 for blue
+   * @param red     the red channel of the original pixel
+   * @param green   the green channel of the original pixel
+   * @param blue    the blue channel of the original pixel
+   * @return the value of the new channel
+   */
+  public int lookup(int channel, int red, int green, int blue) {
+    int source = sources[channel];
+    int value = source == RED ? red : source == GREEN ? green : blue;
+    return tables[channel][value];
+  }
+
+  /**
+   * Gets the channel of the original pixel the given new channel is looked
+   * up by.
+   *
+   * @param channel the index of the new channel, 0 for red, 1 for green
+   *                and 2 for blue
+   * @return the index of the original channel
+   */
+  public int getSource(int channel) {
+    return sources[channel];
+  }
+
+  /**
+   * Creates a lookup table which applies the same table to every channel.
+   *
+   * @param table the table to apply
+   * @return the lookup table
+   */
+  private static ChannelLookupTable perChannel(int[] table) {
+    return new ChannelLookupTable(new int[]{RED, GREEN, BLUE},
+            new int[][]{table, table, table});
+  }
+
+  /**
+   * Creates a lookup table which sets every channel to the given channel.
+   *
+   * @param channel the channel to copy
+   * @return the lookup table
+   */
+  private static ChannelLookupTable component(int channel) {
+    int[] table = identityTable();
+    return new ChannelLookupTable(new int[]{channel, channel, channel},
+            new int[][]{table, table, table});
+  }
+
+  /**
+   * Creates a table which maps every value to itself.
+   *
+   * @return the identity table
+   */
+  private static int[] identityTable() {
+    int[] table = new int[CHANNEL_VALUES];
+    for (int value = 0; value < CHANNEL_VALUES; value++) {
+      table[value] = value;
+    }
+    return table;
+  }
+
+  /**
+   * Clamps a value between 0 and 255.
+   *
+   * @param value the value to clamp
+   * @return the clamped value
+   */
+  private static int clamp(int value) {
+    return Math.max(0, Math.min(CHANNEL_VALUES - 1, value));
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof ChannelLookupTable)) {
+      return false;
+    }
+    ChannelLookupTable that = (ChannelLookupTable) obj;
+    return Arrays.equals(sources, that.sources)
+            && Arrays.deepEquals(tables, that.tables);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * Arrays.hashCode(sources) + Arrays.deepHashCode(tables);
+  }
+}
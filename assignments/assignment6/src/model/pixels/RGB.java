@@ -62,10 +62,9 @@ public class RGB extends AbstractPixel {
     int r = pixel.getRed();
     int g = pixel.getGreen();
     int b = pixel.getBlue();
-    double[][] kernel = colorTransformationType.getKernel();
-    double rPrime = kernel[0][0] * r + kernel[0][1] * g + kernel[0][2] * b;
-    double gPrime = kernel[1][0] * r + kernel[1][1] * g + kernel[1][2] * b;
-    double bPrime = kernel[2][0] * r + kernel[2][1] * g + kernel[2][2] * b;
+    double rPrime = colorTransformationType.transformChannel(0, r, g, b);
+    double gPrime = colorTransformationType.transformChannel(1, r, g, b);
+    double bPrime = colorTransformationType.transformChannel(2, r, g, b);
     return new RGB((int) rPrime, (int) gPrime, (int) bPrime);
   }
 
@@ -10,7 +10,8 @@ import utility.StringUtils;
  * This class uses the Builder pattern to create an instance of ImageProcessingRequest.
  * It contains various parameters that can be set to customize the image processing request.
  * The data it can contain includes image path, image name, destination image name, factor,
- * red image name, green image name, blue image name, percentage, and levels.
+ * red image name, green image name, blue image name, percentage, levels, and
+ * whether to save a binary file.
  */
 public class ImageProcessingRequest {
 
@@ -24,6 +25,7 @@ public class ImageProcessingRequest {
   private final Integer percentage;
   private final Levels levels;
   private final ScalingFactors scalingFactors;
+  private final boolean binary;
 
   private ImageProcessingRequest(ImageProcessingRequestBuilder builder) {
     this.imagePath = builder.imagePath;
@@ -36,6 +38,7 @@ public class ImageProcessingRequest {
     this.percentage = builder.percentage;
     this.levels = builder.levels;
     this.scalingFactors = builder.scalingFactors;
+    this.binary = builder.binary;
   }
 
   /**
@@ -142,6 +145,16 @@ public class ImageProcessingRequest {
     return Optional.ofNullable(percentage);
   }
 
+  /**
+   * Returns whether to save the image as a binary file, for the formats
+   * which have a plain and a binary form like PPM.
+   *
+   * @return true if the image is saved as a binary file
+   */
+  public boolean isBinary() {
+    return binary;
+  }
+
   /**
    * Builder class to build an ImageProcessingRequest.
    */
@@ -158,6 +171,7 @@ public class ImageProcessingRequest {
     private Integer percentage;
     private Levels levels;
     private ScalingFactors scalingFactors;
+    private boolean binary;
 
     private ImageProcessingRequestBuilder() {
     }
@@ -275,6 +289,17 @@ public class ImageProcessingRequest {
       return this;
     }
 
+    /**
+     * Sets whether to save the image as a binary file.
+     *
+     * @param binary true to save the image as a binary file
+     * @return the ImageProcessingRequestBuilder
+     */
+    public ImageProcessingRequestBuilder binary(boolean binary) {
+      this.binary = binary;
+      return this;
+    }
+
     /**
      * Builds an ImageProcessingRequest.
      *
@@ -0,0 +1,255 @@
+package model.visual;
+
+import exception.ImageProcessorException;
+import factories.Factory;
+import model.enumeration.CompressionType;
+import model.enumeration.FilterOption;
+import utility.ExtractUtility;
+import utility.FilterUtils;
+
+/**
+ * This class represents an abstract image.
+ * It implements the Image interface and contains the operations
+ * and validations which are common to every image irrespective of how
+ * its pixels are stored.
+ */
+public abstract class AbstractImage implements Image {
+
+  /**
+   * Constructs an abstract image.
+   */
+  protected AbstractImage() {
+    // No fields to initialise.
+  }
+
+  /**
+   * Applies the given filter to the image.
+   * The filter is applied to each pixel in the image.
+   */
+  @Override
+  public Image applyFilter(FilterOption filterOption) throws ImageProcessorException {
+    return FilterUtils.applyFilter(this, filterOption);
+  }
+
+  /**
+   * Combines this image with another image provided in the argument.
+   *
+   * @param image      the image to combine with
+   * @param percentage the percentage of the first image(current image on which
+   *                   the function is called on.
+   * @return the combined image by creating a new image object.
+   */
+  @Override
+  public Image combineImages(Image image, int percentage) throws ImageProcessorException {
+    return Factory.combineImage(this, image, percentage);
+  }
+
+  /**
+   * Compresses the image by the given percentage.
+   *
+   * @param type       the type of compression
+   * @param percentage the percentage to compress by
+   * @return the compressed image
+   * @throws ImageProcessorException if the percentage is out of range
+   */
+  @Override
+  public Image compress(CompressionType type, int percentage) throws ImageProcessorException {
+    return Factory.createCompression(type).compress(
+            this, percentage
+    );
+  }
+
+  /**
+   * Extracts the histogram of the image.
+   *
+   * @return the histogram of the image
+   * @throws ImageProcessorException if the histogram cannot be created
+   */
+  @Override
+  public Image histogram() throws ImageProcessorException {
+    return ExtractUtility.createHistogram(colorHistogram());
+  }
+
+  /**
+   * Computes the histogram of every channel of the image in a single pass.
+   *
+   * @return the histogram of the red, green and blue channels
+   */
+  @Override
+  public ColorHistogram colorHistogram() {
+    return ColorHistogram.of(this);
+  }
+
+  /**
+   * Finds the meaningful peak in a frequency array, ignoring extremities.
+   * Only considers values between 10 and 245 to avoid dark/blown-out regions.
+   *
+   * @param freq the frequency array
+   * @return the value where the meaningful peak occurs
+   */
+  protected int findMeaningfulPeak(int[] freq) {
+    int maxFreq = 0;
+    int peakValue = 0;
+
+    // Only consider values between 10 and 245
+    for (int i = 10; i < 245; i++) {
+      if (freq[i] > maxFreq) {
+        maxFreq = freq[i];
+        peakValue = i;
+      }
+    }
+
+    return peakValue;
+  }
+
+  /**
+   * Computes the coefficients of the quadratic transformation which
+   * maps the black, mid and white points to 0, 128 and 255.
+   *
+   * @param black the black point value (0-255)
+   * @param mid   the mid point value (0-255)
+   * @param white the white point value (0-255)
+   * @return the coefficients A, B and C in that order
+   * @throws ImageProcessorException if any of the values are out of range
+   *                                 (0-255)
+   *                                 or not in ascending order
+   */
+  protected double[] computeLevelsCoefficients(int black, int mid, int white)
+          throws ImageProcessorException {
+    validateLevels(black, mid, white);
+
+    double a = fittingCoefficientA(black, mid, white);
+    double aA = fittingCoefficientAa(black, mid, white);
+    double aB = fittingCoefficientAb(black, mid, white);
+    double aC = fittingCoefficientAc(black, mid, white);
+
+    return new double[]{aA / a, aB / a, aC / a};
+  }
+
+  /**
+   * Validates the black, mid, and white points for levels adjustment.
+   *
+   * @param black the black point value
+   * @param mid   the mid point value
+   * @param white the white point value
+   * @throws ImageProcessorException if any of the values are out of range
+   *                                 (0-255)
+   *                                 or not in ascending order
+   */
+  private void validateLevels(int black, int mid, int white)
+          throws ImageProcessorException {
+    if (black < 0 || black > 255 || mid < 0 || mid > 255 || white < 0 || white > 255) {
+      throw new ImageProcessorException("Levels must be between 0 and 255");
+    }
+    if (black >= mid || mid >= white) {
+      throw new ImageProcessorException("Levels must be in ascending order");
+    }
+  }
+
+  /**
+   * Calculates the fitting coefficient A for the quadratic transformation.
+   *
+   * @param black the black point value
+   * @param mid   the mid point value
+   * @param white the white point value
+   * @return the fitting coefficient A
+   */
+  private double fittingCoefficientA(int black, int mid, int white) {
+    return Math.pow(black, 2) * (mid - white)
+            - black * (Math.pow(mid, 2) - Math.pow(white, 2))
+            + Math.pow(mid, 2) * white - Math.pow(white, 2) * mid;
+  }
+
+  /**
+   * Calculates the fitting coefficient Aa for the quadratic transformation.
+   *
+   * @param black the black point value
+   * @param mid   the mid point value
+   * @param white the white point value
+   * @return the fitting coefficient Aa
+   */
+  private double fittingCoefficientAa(int black, int mid, int white) {
+    return (-black) * (128 - 255) + 128 * white - 255 * mid;
+  }
+
+  /**
+   * Calculates the fitting coefficient Ab for the quadratic transformation.
+   *
+   * @param black the black point value
+   * @param mid   the mid point value
+   * @param white the white point value
+   * @return the fitting coefficient Ab
+   */
+  private double fittingCoefficientAb(int black, int mid, int white) {
+    return Math.pow(black, 2) * (128 - 255)
+            + 255 * Math.pow(mid, 2) - 128 * Math.pow(white, 2);
+  }
+
+  /**
+   * Calculates the fitting coefficient Ac for the quadratic transformation.
+   *
+   * @param black the black point value
+   * @param mid   the mid point value
+   * @param white the white point value
+   * @return the fitting coefficient Ac
+   */
+  private double fittingCoefficientAc(int black, int mid, int white) {
+    return Math.pow(black, 2) * (255 * mid - 128 * white)
+            - black * (255 * Math.pow(mid, 2) - 128 * Math.pow(white, 2));
+  }
+
+  /**
+   * Performs downscaling for a single color channel
+   * using m = (topLeftValue * (1 - dx) + topRightValue * dx)
+   * and n = (bottomLeftValue * (1 - dx) + bottomRightValue * dx).
+   * @param topLeftValue top-left value
+   * @param topRightValue top-right value
+   * @param bottomLeftValue bottom-left value
+   * @param bottomRightValue bottom-right value
+   * @param dx x-axis interpolation factor
+   * @param dy y-axis interpolation factor
+   * @return interpolated value
+   */
+  protected int computeChannelDownscale(int topLeftValue, int topRightValue,
+                                        int bottomLeftValue, int bottomRightValue,
+                                        double dx, double dy) {
+    double mCoefficient = (topLeftValue * (1 - dx) + topRightValue * dx);
+    double nCoefficient = (bottomLeftValue * (1 - dx) + bottomRightValue * dx);
+    return (int) Math.round(mCoefficient * (1 - dy) + nCoefficient * dy);
+  }
+
+  /**
+   * Validates the scale factors for downscaling.
+   * @param widthFactor the width scaling factor
+   * @param heightFactor the height scaling factor
+   * @throws ImageProcessorException if the factors are out of range
+   */
+  protected void validateScale(int widthFactor, int heightFactor) throws ImageProcessorException {
+    if (widthFactor <= 0 || heightFactor <= 0 || widthFactor > 100 || heightFactor > 100) {
+      throw new ImageProcessorException("Scaling factors must be within 0 and 100");
+    }
+  }
+
+  /**
+   * Compares this image with the given image pixel by pixel.
+   * Used when the two images do not share the same storage.
+   *
+   * @param that the image to compare with
+   * @return true if both images have the same dimensions and pixels
+   */
+  protected boolean equalsPixelByPixel(Image that) {
+    int height = this.getHeight();
+    int width = this.getWidth();
+    if (height != that.getHeight() || width != that.getWidth()) {
+      return false;
+    }
+    for (int row = 0; row < height; row++) {
+      for (int col = 0; col < width; col++) {
+        if (!this.getPixel(row, col).equals(that.getPixel(row, col))) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+}
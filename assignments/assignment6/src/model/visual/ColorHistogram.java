@@ -0,0 +1,231 @@
+package model.visual;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+import model.pixels.ChannelLookupTable;
+import model.pixels.Pixel;
+import utility.ParallelUtils;
+
+/**
+ * Represents the frequencies of every value of the red, green and blue
+ * channels of an image.
+ * All three channels are counted in a single row major pass over the image.
+ * The rows are split into bands counted in parallel into bins local to the
+ * band, which are added together once the bands are done, so no counter is
+ * shared between threads.
+ * A histogram is computed once and can be shared by every operation needing
+ * it, such as rendering the histogram image and color correction.
+ * Histograms are immutable.
+ */
+public final class ColorHistogram {
+
+  /**
+   * Number of values a channel can have.
+   */
+  public static final int CHANNEL_VALUES = 256;
+
+  private final int[] redFrequencies;
+  private final int[] greenFrequencies;
+  private final int[] blueFrequencies;
+
+  /**
+   * Constructs a histogram from the given frequencies.
+   * The arrays are used as they are.
+   *
+   * @param redFrequencies   the frequencies of the red channel
+   * @param greenFrequencies the frequencies of the green channel
+   * @param blueFrequencies  the frequencies of the blue channel
+   */
+  private ColorHistogram(int[] redFrequencies, int[] greenFrequencies,
+                         int[] blueFrequencies) {
+    this.redFrequencies = redFrequencies;
+    this.greenFrequencies = greenFrequencies;
+    this.blueFrequencies = blueFrequencies;
+  }
+
+  /**
+   * Creates an empty histogram to count into.
+   *
+   * @return the empty histogram
+   */
+  private static ColorHistogram empty() {
+    return new ColorHistogram(new int[CHANNEL_VALUES],
+            new int[CHANNEL_VALUES], new int[CHANNEL_VALUES]);
+  }
+
+  /**
+   * Computes the histogram of the given image.
+   * Images which can give their pixels packed are read without creating a
+   * Pixel object for every pixel.
+   *
+   * @param image the image to count
+   * @return the histogram of the image
+   */
+  public static ColorHistogram of(Image image) {
+    Objects.requireNonNull(image, "Image cannot be null");
+    int width = image.getWidth();
+    if (image instanceof PackedPixelSource) {
+      PackedPixelSource source = (PackedPixelSource) image;
+      return ParallelUtils.reduceRowBands(image.getHeight(), width,
+          (startRow, endRow) -> {
+            ColorHistogram band = empty();
+            for (int row = startRow; row < endRow; row++) {
+              for (int col = 0; col < width; col++) {
+                band.count(source.getRGB(row, col));
+              }
+            }
+            return band;
+          }, ColorHistogram::add);
+    }
+    return ParallelUtils.reduceRowBands(image.getHeight(), width,
+        (startRow, endRow) -> {
+          ColorHistogram band = empty();
+          for (int row = startRow; row < endRow; row++) {
+            for (int col = 0; col < width; col++) {
+              Pixel pixel = image.getPixel(row, col);
+              band.redFrequencies[pixel.getRed()]++;
+              band.greenFrequencies[pixel.getGreen()]++;
+              band.blueFrequencies[pixel.getBlue()]++;
+            }
+          }
+          return band;
+        }, ColorHistogram::add);
+  }
+
+  /**
+   * Computes the histogram of the given pixels packed as 0xRRGGBB in row
+   * major order.
+   *
+   * @param pixels the packed pixels
+   * @param width  the width of the image
+   * @param height the height of the image
+   * @return the histogram of the pixels
+   */
+  static ColorHistogram ofPacked(int[] pixels, int width, int height) {
+    return ParallelUtils.reduceRowBands(height, width,
+        (startRow, endRow) -> {
+          ColorHistogram band = empty();
+          for (int i = startRow * width; i < endRow * width; i++) {
+            band.count(pixels[i]);
+          }
+          return band;
+        }, ColorHistogram::add);
+  }
+
+  /**
+   * Counts the given packed pixel.
+   * Only used while the histogram is being computed.
+   *
+   * @param rgb the pixel packed as 0xRRGGBB
+   */
+  private void count(int rgb) {
+    redFrequencies[(rgb >> 16) & 0xFF]++;
+    greenFrequencies[(rgb >> 8) & 0xFF]++;
+    blueFrequencies[rgb & 0xFF]++;
+  }
+
+  /**
+   * Adds the counts of the other histogram into this one.
+   * Only used to merge the bins of the bands while the histogram is being
+   * computed.
+   *
+   * @param other the histogram to add
+   * @return this histogram
+   */
+  private ColorHistogram add(ColorHistogram other) {
+    for (int value = 0; value < CHANNEL_VALUES; value++) {
+      redFrequencies[value] += other.redFrequencies[value];
+      greenFrequencies[value] += other.greenFrequencies[value];
+      blueFrequencies[value] += other.blueFrequencies[value];
+    }
+    return this;
+  }
+
+  /**
+   * Derives the histogram of the image after applying the given lookup
+   * table from this histogram, without the pixels of the image.
+   * Every new channel only depends on one channel of the original pixel, so
+   * the frequency of every original value moves to the value it is looked
+   * up as.
+   *
+   * @param lookupTable the lookup table applied to the image
+   * @return the histogram of the image after the lookup table
+   */
+  public ColorHistogram remap(ChannelLookupTable lookupTable) {
+    Objects.requireNonNull(lookupTable, "Lookup table cannot be null");
+    int[][] frequencies = {redFrequencies, greenFrequencies, blueFrequencies};
+    int[][] remapped = new int[3][CHANNEL_VALUES];
+    for (int channel = 0; channel < 3; channel++) {
+      int[] sourceFrequencies = frequencies[lookupTable.getSource(channel)];
+      for (int value = 0; value < CHANNEL_VALUES; value++) {
+        remapped[channel][lookupTable.lookup(channel, value, value, value)] +=
+                sourceFrequencies[value];
+      }
+    }
+    return new ColorHistogram(remapped[0], remapped[1], remapped[2]);
+  }
+
+  /**
+   * Gets the frequencies of the red channel.
+   *
+   * @return a copy of the frequency of every red value (0-255)
+   */
+  public int[] getRedFrequencies() {
+    return redFrequencies.clone();
+  }
+
+  /**
+   * Gets the frequencies of the green channel.
+   *
+   * @return a copy of the frequency of every green value (0-255)
+   */
+  public int[] getGreenFrequencies() {
+    return greenFrequencies.clone();
+  }
+
+  /**
+   * Gets the frequencies of the blue channel.
+   *
+   * @return a copy of the frequency of every blue value (0-255)
+   */
+  public int[] getBlueFrequencies() {
+    return blueFrequencies.clone();
+  }
+
+  /**
+   * Gets the highest frequency of any value of any channel.
+   *
+   * @return the maximum frequency
+   */
+  public int getMaxFrequency() {
+    int maxFrequency = 0;
+    for (int value = 0; value < CHANNEL_VALUES; value++) {
+      maxFrequency = Math.max(maxFrequency, redFrequencies[value]);
+      maxFrequency = Math.max(maxFrequency, greenFrequencies[value]);
+      maxFrequency = Math.max(maxFrequency, blueFrequencies[value]);
+    }
+    return maxFrequency;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof ColorHistogram)) {
+      return false;
+    }
+    ColorHistogram that = (ColorHistogram) o;
+    return Arrays.equals(redFrequencies, that.redFrequencies)
+            && Arrays.equals(greenFrequencies, that.greenFrequencies)
+            && Arrays.equals(blueFrequencies, that.blueFrequencies);
+  }
+
+  @Override
+  public int hashCode() {
+    int result = Arrays.hashCode(redFrequencies);
+    result = 31 * result + Arrays.hashCode(greenFrequencies);
+    return 31 * result + Arrays.hashCode(blueFrequencies);
+  }
+}
@@ -4,6 +4,7 @@ package model.visual;
 import exception.ImageProcessorException;
 import model.enumeration.CompressionType;
 import model.enumeration.FilterOption;
+import model.pixels.ChannelLookupTable;
 import model.pixels.Pixel;
 
 /**
@@ -198,6 +199,13 @@ public interface Image {
    */
   Image histogram() throws ImageProcessorException;
 
+  /**
+   * Computes the frequencies of the values of every channel of the image.
+   *
+   * @return the histogram of the red, green and blue channels
+   */
+  ColorHistogram colorHistogram();
+
   /**
    * Adjusts the levels of the image.
    *
@@ -210,6 +218,18 @@ public interface Image {
    */
   Image levelsAdjust(int black, int mid, int white) throws ImageProcessorException;
 
+  /**
+   * Applies the given lookup table to every pixel of the image.
+   * Lookup tables can be composed so a chain of point operations visits
+   * the image only once.
+   *
+   * @param lookupTable the lookup table to apply
+   * @return the image with the lookup table applied by creating a new
+   *         image object.
+   * @throws ImageProcessorException if the lookup table cannot be applied
+   */
+  Image applyLookupTable(ChannelLookupTable lookupTable) throws ImageProcessorException;
+
   /**
    * Resizes the image to the specified dimensions using bilinear interpolation.
    * @param newWidth the desired width of the resized image
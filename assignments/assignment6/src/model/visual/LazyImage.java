@@ -0,0 +1,551 @@
+package model.visual;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.IntUnaryOperator;
+
+import exception.ImageProcessingRunTimeException;
+import exception.ImageProcessorException;
+import factories.Factory;
+import model.enumeration.CompressionType;
+import model.enumeration.FilterOption;
+import model.enumeration.LinearColorTransformationType;
+import model.pixels.ChannelLookupTable;
+import model.pixels.Pixel;
+import utility.ExtractUtility;
+import utility.ParallelUtils;
+
+/**
+ * LazyImage class that implements Image interface
+ * and represents an image which is a source image with a chain of pending
+ * point operations.
+ * Point operations like brighten, sepia or levels adjust only record the
+ * operation and return a new LazyImage without touching any pixel.
+ * Consecutive lookup table operations are fused into a single lookup table.
+ * The pending operations are applied to the source image in a single pass
+ * the first time the pixels are needed, for example to save, filter or
+ * display the image, and the result is kept for later calls. Once the
+ * image is materialised, the source image and the pending operations are
+ * dropped, so that the source image is not kept alive by this image.
+ * The histogram of the image is computed once and kept with the image. The
+ * histogram of a flipped image or of a lookup table operation, like
+ * brighten, levels adjust or a component, is derived from the histogram of
+ * this image when it is already known, without visiting any pixel.
+ * A LazyImage is safe to be shared between threads.
+ */
+public class LazyImage extends AbstractImage {
+
+  /**
+   * The width of the image.
+   */
+  private final int width;
+
+  /**
+   * The height of the image.
+   */
+  private final int height;
+
+  /**
+   * The image the pending operations are applied to.
+   * Replaced by the materialised image once it is materialised.
+   * Guarded by this image.
+   */
+  private Image source;
+
+  /**
+   * The pending operations in the order they are applied.
+   * Empty once the image is materialised.
+   * Guarded by this image.
+   */
+  private List<Stage> stages;
+
+  /**
+   * The image after the pending operations are applied.
+   * Null until the image is materialised.
+   */
+  private volatile Image materialised;
+
+  /**
+   * The histogram of the channels of the image.
+   * Null until it is computed or derived.
+   */
+  private volatile ColorHistogram colorHistogram;
+
+  /**
+   * The histogram rendered as an image.
+   * Null until it is first rendered.
+   */
+  private volatile Image histogramImage;
+
+  /**
+   * Constructs a LazyImage without any pending operation.
+   *
+   * @param source the image to wrap
+   */
+  public LazyImage(Image source) {
+    this(source, Collections.emptyList());
+  }
+
+  /**
+   * Constructs a LazyImage with the given pending operations.
+   *
+   * @param source the image the operations are applied to
+   * @param stages the pending operations
+   */
+  private LazyImage(Image source, List<Stage> stages) {
+    this(source, stages, null);
+  }
+
+  /**
+   * Constructs a LazyImage with the given pending operations whose
+   * histogram is already known.
+   *
+   * @param source         the image the operations are applied to
+   * @param stages         the pending operations
+   * @param colorHistogram the histogram of the image, null if not known
+   */
+  private LazyImage(Image source, List<Stage> stages,
+                    ColorHistogram colorHistogram) {
+    this.source = Objects.requireNonNull(source, "Source image cannot be null");
+    this.stages = stages;
+    this.width = source.getWidth();
+    this.height = source.getHeight();
+    this.colorHistogram = colorHistogram;
+  }
+
+  /**
+   * Gets the number of pending operations which are not yet applied.
+   * Fused operations count as one.
+   *
+   * @return the number of pending operations
+   */
+  public synchronized int getPendingOperationCount() {
+    return stages.size();
+  }
+
+  /**
+   * Gets the image the pending operations are applied to.
+   * Once this image is materialised, this is the materialised image.
+   *
+   * @return the source image
+   */
+  public synchronized Image getSource() {
+    return source;
+  }
+
+  /**
+   * Checks if this image has any pending operation, so that its pixels
+   * differ from those of the source image.
+   *
+   * @return true if there is at least one pending operation
+   */
+  public synchronized boolean hasOperations() {
+    return !stages.isEmpty();
+  }
+
+  /**
+   * Applies the pending operations if not already applied and returns the
+   * resulting image.
+   * The resulting image replaces the source image and the pending operations
+   * are dropped.
+   *
+   * @return the image with all the operations applied
+   */
+  public Image materialise() {
+    Image result = materialised;
+    if (result == null) {
+      synchronized (this) {
+        result = materialised;
+        if (result == null) {
+          result = applyStages();
+          materialised = result;
+          source = result;
+          stages = Collections.emptyList();
+        }
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public Pixel getPixel(int x, int y) {
+    return materialise().getPixel(x, y);
+  }
+
+  @Override
+  public int getWidth() {
+    return width;
+  }
+
+  @Override
+  public int getHeight() {
+    return height;
+  }
+
+  @Override
+  public Image createRedComponent() throws ImageProcessorException {
+    return applyLookupTable(ChannelLookupTable.redComponent());
+  }
+
+  @Override
+  public Image createGreenComponent() throws ImageProcessorException {
+    return applyLookupTable(ChannelLookupTable.greenComponent());
+  }
+
+  @Override
+  public Image createBlueComponent() throws ImageProcessorException {
+    return applyLookupTable(ChannelLookupTable.blueComponent());
+  }
+
+  @Override
+  public Image adjustImageBrightness(int factor) throws ImageProcessorException {
+    return applyLookupTable(ChannelLookupTable.brightness(factor));
+  }
+
+  @Override
+  public Image getLuma() throws ImageProcessorException {
+    return withStage(new FunctionStage(rgb -> PackedImage.matrixOperation(rgb,
+            LinearColorTransformationType.LUMA)));
+  }
+
+  @Override
+  public Image getSepia() throws ImageProcessorException {
+    return withStage(new FunctionStage(rgb -> PackedImage.matrixOperation(rgb,
+            LinearColorTransformationType.SEPIA)));
+  }
+
+  @Override
+  public Image getIntensity() throws ImageProcessorException {
+    return withStage(new FunctionStage(PackedImage::intensity));
+  }
+
+  @Override
+  public Image getValue() throws ImageProcessorException {
+    return withStage(new FunctionStage(PackedImage::value));
+  }
+
+  /**
+   * Records the levels adjustment as a lookup table.
+   * The levels are validated immediately.
+   */
+  @Override
+  public Image levelsAdjust(int black, int mid, int white) throws ImageProcessorException {
+    double[] coefficients = computeLevelsCoefficients(black, mid, white);
+    return applyLookupTable(ChannelLookupTable.quadratic(coefficients[0],
+            coefficients[1], coefficients[2]));
+  }
+
+  @Override
+  public Image applyLookupTable(ChannelLookupTable lookupTable)
+          throws ImageProcessorException {
+    Objects.requireNonNull(lookupTable, "Lookup table cannot be null");
+    return withStage(new LookupStage(lookupTable));
+  }
+
+  /**
+   * Flips the image horizontally.
+   * A flip does not change the histogram, so a known histogram is kept by
+   * the flipped image.
+   */
+  @Override
+  public Image horizontalFlip() throws ImageProcessorException {
+    return withKnownHistogram(materialise().horizontalFlip());
+  }
+
+  /**
+   * Flips the image vertically.
+   * A flip does not change the histogram, so a known histogram is kept by
+   * the flipped image.
+   */
+  @Override
+  public Image verticalFlip() throws ImageProcessorException {
+    return withKnownHistogram(materialise().verticalFlip());
+  }
+
+  @Override
+  public Image applyFilter(FilterOption filterOption) throws ImageProcessorException {
+    return materialise().applyFilter(filterOption);
+  }
+
+  @Override
+  public Image colorCorrect() throws ImageProcessorException {
+    return materialise().colorCorrect();
+  }
+
+  @Override
+  public Image combineImages(Image image, int percentage) throws ImageProcessorException {
+    return materialise().combineImages(image, percentage);
+  }
+
+  @Override
+  public Image compress(CompressionType type, int percentage) throws ImageProcessorException {
+    return materialise().compress(type, percentage);
+  }
+
+  /**
+   * Renders the histogram of the image, once.
+   */
+  @Override
+  public Image histogram() throws ImageProcessorException {
+    Image result = histogramImage;
+    if (result == null) {
+      result = ExtractUtility.createHistogram(colorHistogram());
+      histogramImage = result;
+    }
+    return result;
+  }
+
+  /**
+   * Gets the histogram of the image, computing it the first time.
+   * If the only pending operation is a lookup table, the histogram of the
+   * source image is remapped and this image is not materialised.
+   */
+  @Override
+  public ColorHistogram colorHistogram() {
+    ColorHistogram result = colorHistogram;
+    if (result == null) {
+      result = computeColorHistogram();
+      colorHistogram = result;
+    }
+    return result;
+  }
+
+  /**
+   * Computes the histogram of the image.
+   *
+   * @return the histogram of the image
+   */
+  private ColorHistogram computeColorHistogram() {
+    Image currentSource;
+    List<Stage> currentStages;
+    synchronized (this) {
+      currentSource = source;
+      currentStages = stages;
+    }
+    if (currentStages.isEmpty()) {
+      return currentSource.colorHistogram();
+    }
+    if (currentStages.size() == 1 && currentStages.get(0) instanceof LookupStage) {
+      return currentSource.colorHistogram().remap(
+              ((LookupStage) currentStages.get(0)).lookupTable);
+    }
+    return materialise().colorHistogram();
+  }
+
+  /**
+   * Wraps an image with the same pixel values as this image, in another
+   * order, so that it keeps the histogram of this image if already known.
+   *
+   * @param image the image with the same pixel values
+   * @return the image, wrapped if the histogram is known
+   */
+  private Image withKnownHistogram(Image image) {
+    ColorHistogram known = colorHistogram;
+    if (known == null) {
+      return image;
+    }
+    return new LazyImage(image, Collections.emptyList(), known);
+  }
+
+  @Override
+  public Image downscale(int widthFactor, int heightFactor) throws ImageProcessorException {
+    return materialise().downscale(widthFactor, heightFactor);
+  }
+
+  @Override
+  public int[][] getRedChannel() {
+    return materialise().getRedChannel();
+  }
+
+  @Override
+  public int[][] getGreenChannel() {
+    return materialise().getGreenChannel();
+  }
+
+  @Override
+  public int[][] getBlueChannel() {
+    return materialise().getBlueChannel();
+  }
+
+  /**
+   * Creates a new LazyImage with the given operation added to the pending
+   * operations. If the last pending operation and the given operation are
+   * both lookup tables, they are fused into one.
+   * If this image is already materialised, the new image starts from the
+   * materialised image.
+   * If the histogram of this image is known and the operation is a lookup
+   * table, the histogram of the new image is derived from it.
+   *
+   * @param stage the operation to add
+   * @return the new LazyImage
+   */
+  private LazyImage withStage(Stage stage) {
+    ColorHistogram known = colorHistogram;
+    ColorHistogram derived = known != null && stage instanceof LookupStage
+            ? known.remap(((LookupStage) stage).lookupTable) : null;
+    Image currentSource;
+    List<Stage> currentStages;
+    synchronized (this) {
+      currentSource = source;
+      currentStages = stages;
+    }
+    List<Stage> newStages = new ArrayList<>(currentStages);
+    int last = newStages.size() - 1;
+    if (last >= 0 && newStages.get(last) instanceof LookupStage
+            && stage instanceof LookupStage) {
+      ChannelLookupTable fused = ((LookupStage) newStages.get(last)).lookupTable
+              .andThen(((LookupStage) stage).lookupTable);
+      newStages.set(last, new LookupStage(fused));
+    } else {
+      newStages.add(stage);
+    }
+    return new LazyImage(currentSource,
+            Collections.unmodifiableList(newStages), derived);
+  }
+
+  /**
+   * Applies every pending operation to every pixel of the source image in a
+   * single pass. Called while holding the lock of this image.
+   * A source image which gives packed pixels, like a packed or mapped
+   * image, results in a packed image.
+   *
+   * @return the image with the operations applied
+   */
+  private Image applyStages() {
+    if (stages.isEmpty()) {
+      return source;
+    }
+    int width = source.getWidth();
+    int height = source.getHeight();
+    try {
+      if (source instanceof PackedPixelSource) {
+        PackedPixelSource packedSource = (PackedPixelSource) source;
+        int[] newPixels = new int[width * height];
+        ParallelUtils.forEachRowBand(height, width, (startRow, endRow) -> {
+          for (int row = startRow; row < endRow; row++) {
+            for (int col = 0; col < width; col++) {
+              newPixels[row * width + col] =
+                      applyStages(packedSource.getRGB(row, col));
+            }
+          }
+        });
+        return Factory.createImage(width, height, newPixels);
+      }
+      Pixel[][] newPixels = new Pixel[height][width];
+      ParallelUtils.forEachRowBand(height, width, (startRow, endRow) -> {
+        for (int row = startRow; row < endRow; row++) {
+          for (int col = 0; col < width; col++) {
+            Pixel pixel = source.getPixel(row, col);
+            int rgb = applyStages(PackedImage.pack(pixel.getRed(),
+                    pixel.getGreen(), pixel.getBlue()));
+            newPixels[row][col] = pixel.createPixel(PackedImage.red(rgb),
+                    PackedImage.green(rgb), PackedImage.blue(rgb));
+          }
+        }
+      });
+      return Factory.createImage(newPixels);
+    } catch (ImageProcessorException e) {
+      // Dimensions are those of an existing image so creating it cannot fail.
+      throw new ImageProcessingRunTimeException("Could not apply the pending "
+              + "operations", e);
+    }
+  }
+
+  /**
+   * Applies every pending operation to a packed pixel.
+   *
+   * @param rgb the packed pixel
+   * @return the packed pixel after the operations
+   */
+  private int applyStages(int rgb) {
+    int result = rgb;
+    for (Stage stage : stages) {
+      result = stage.apply(result);
+    }
+    return result;
+  }
+
+  /**
+   * Compares the materialised image with the given object.
+   */
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof Image)) {
+      return false;
+    }
+    if (obj instanceof LazyImage) {
+      return materialise().equals(((LazyImage) obj).materialise());
+    }
+    return materialise().equals(obj);
+  }
+
+  /**
+   * Returns the hash code of the materialised image.
+   */
+  @Override
+  public int hashCode() {
+    return materialise().hashCode();
+  }
+
+  /**
+   * Converts the image to a string representation.
+   */
+  @Override
+  public String toString() {
+    return "LazyImage{"
+            + "source=" + getSource()
+            + ", pendingOperations=" + getPendingOperationCount()
+            + '}';
+  }
+
+  /**
+   * Represents a pending point operation on a packed pixel.
+   */
+  private interface Stage {
+    /**
+     * Applies the operation to the packed pixel.
+     *
+     * @param rgb the packed pixel
+     * @return the new packed pixel
+     */
+    int apply(int rgb);
+  }
+
+  /**
+   * Pending operation which is a lookup table and can be fused with other
+   * lookup tables.
+   */
+  private static final class LookupStage implements Stage {
+    private final ChannelLookupTable lookupTable;
+
+    private LookupStage(ChannelLookupTable lookupTable) {
+      this.lookupTable = lookupTable;
+    }
+
+    @Override
+    public int apply(int rgb) {
+      return PackedImage.lookup(rgb, lookupTable);
+    }
+  }
+
+  /**
+   * Pending operation which mixes the channels of a pixel.
+   */
+  private static final class FunctionStage implements Stage {
+    private final IntUnaryOperator operation;
+
+    private FunctionStage(IntUnaryOperator operation) {
+      this.operation = operation;
+    }
+
+    @Override
+    public int apply(int rgb) {
+      return operation.applyAsInt(rgb);
+    }
+  }
+}
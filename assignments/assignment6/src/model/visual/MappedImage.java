@@ -0,0 +1,430 @@
+package model.visual;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.function.IntUnaryOperator;
+
+import exception.ImageProcessorException;
+import factories.Factory;
+import model.enumeration.CompressionType;
+import model.enumeration.FilterOption;
+import model.enumeration.LinearColorTransformationType;
+import model.enumeration.RawLayout;
+import model.pixels.ChannelLookupTable;
+import model.pixels.Pixel;
+import utility.ParallelUtils;
+
+/**
+ * MappedImage class that implements Image interface
+ * and represents an image whose 8 bit channels are read straight from
+ * buffers, usually a file mapped into memory.
+ * Creating a MappedImage does not read any pixel, so a huge image is
+ * available immediately and does not need to fit in the heap.
+ * The channels are either interleaved or stored as separate planes. Every
+ * plane is split into segments of whole rows since a single buffer cannot
+ * hold more than 2 GB.
+ *
+ * <p>Point operations and flips read the buffers directly and result in a
+ * packed image. The other operations work on a packed copy of the image.
+ * The buffers are only read, so a MappedImage is safe to be shared between
+ * threads.
+ */
+public class MappedImage extends AbstractImage implements PackedPixelSource {
+
+  /**
+   * Width of the image which is the number of pixels in a row.
+   */
+  private final int width;
+
+  /**
+   * Height of the image which is the number of rows in the image.
+   */
+  private final int height;
+
+  /**
+   * The order in which the channels are stored.
+   */
+  private final RawLayout layout;
+
+  /**
+   * The segments of every plane, plane by plane. An interleaved image has
+   * a single plane.
+   */
+  private final ByteBuffer[] segments;
+
+  /**
+   * The number of rows in every segment except maybe the last segment of a
+   * plane.
+   */
+  private final int rowsPerSegment;
+
+  /**
+   * The number of segments of every plane.
+   */
+  private final int segmentsPerPlane;
+
+  /**
+   * Constructs a MappedImage over the given segments.
+   * The contents of the segments are not copied and must not be modified
+   * after the image is created.
+   *
+   * @param width          the width of the image
+   * @param height         the height of the image
+   * @param layout         the order in which the channels are stored
+   * @param segments       the segments of every plane, plane by plane
+   * @param rowsPerSegment the number of rows in every segment except maybe
+   *                       the last segment of a plane
+   * @throws ImageProcessorException if the width or height is 0 or the
+   *                                 segments do not match the dimensions
+   */
+  public MappedImage(int width, int height, RawLayout layout, ByteBuffer[] segments,
+                     int rowsPerSegment) throws ImageProcessorException {
+    Objects.requireNonNull(layout, "Layout cannot be null");
+    Objects.requireNonNull(segments, "Segments cannot be null");
+    if (width <= 0 || height <= 0) {
+      throw new ImageProcessorException("Cannot render image of 0 width or height");
+    }
+    if (rowsPerSegment <= 0) {
+      throw new ImageProcessorException("Segments must contain at least one row");
+    }
+    int planes = getPlaneCount(layout);
+    int segmentsPerPlane = (height + rowsPerSegment - 1) / rowsPerSegment;
+    if (segments.length != planes * segmentsPerPlane) {
+      throw new ImageProcessorException("Segments do not match the image "
+              + "dimensions");
+    }
+    long rowBytes = (long) width * getBytesPerPixel(layout);
+    for (int i = 0; i < segments.length; i++) {
+      int firstRow = (i % segmentsPerPlane) * rowsPerSegment;
+      int rows = Math.min(rowsPerSegment, height - firstRow);
+      if (segments[i] == null || segments[i].capacity() < rows * rowBytes) {
+        throw new ImageProcessorException("Segments do not match the image "
+                + "dimensions");
+      }
+    }
+    this.width = width;
+    this.height = height;
+    this.layout = layout;
+    this.segments = segments.clone();
+    this.rowsPerSegment = rowsPerSegment;
+    this.segmentsPerPlane = segmentsPerPlane;
+  }
+
+  /**
+   * Gets the number of planes the channels of the given layout are stored
+   * in.
+   *
+   * @param layout the layout of the channels
+   * @return the number of planes
+   */
+  public static int getPlaneCount(RawLayout layout) {
+    return layout == RawLayout.PLANAR ? 3 : 1;
+  }
+
+  /**
+   * Gets the number of bytes a pixel takes in a plane of the given layout.
+   *
+   * @param layout the layout of the channels
+   * @return the number of bytes of a pixel in a plane
+   */
+  public static int getBytesPerPixel(RawLayout layout) {
+    return layout == RawLayout.PLANAR ? 1 : 3;
+  }
+
+  /**
+   * Gets the order in which the channels are stored.
+   *
+   * @return the layout of the channels
+   */
+  public RawLayout getLayout() {
+    return layout;
+  }
+
+  /**
+   * Get the packed pixel at the specified coordinates as 0xRRGGBB.
+   *
+   * @param row the row of the pixel
+   * @param col the column of the pixel
+   * @return the packed pixel
+   */
+  @Override
+  public int getRGB(int row, int col) {
+    Objects.checkIndex(row, height);
+    Objects.checkIndex(col, width);
+    int segment = row / rowsPerSegment;
+    int offset = (row - segment * rowsPerSegment) * width + col;
+    if (layout == RawLayout.PLANAR) {
+      int red = segments[segment].get(offset) & 0xff;
+      int green = segments[segmentsPerPlane + segment].get(offset) & 0xff;
+      int blue = segments[2 * segmentsPerPlane + segment].get(offset) & 0xff;
+      return (red << 16) | (green << 8) | blue;
+    }
+    ByteBuffer buffer = segments[segment];
+    int index = offset * 3;
+    return ((buffer.get(index) & 0xff) << 16) | ((buffer.get(index + 1) & 0xff) << 8)
+            | (buffer.get(index + 2) & 0xff);
+  }
+
+  /**
+   * Copies the pixels into a packed image.
+   *
+   * @return the packed image with the same pixels
+   * @throws ImageProcessorException if the packed image cannot be created
+   */
+  public PackedImage toPackedImage() throws ImageProcessorException {
+    return transformImage(IntUnaryOperator.identity());
+  }
+
+  /**
+   * Returns a new Pixel object for the pixel at the given coordinates.
+   */
+  @Override
+  public Pixel getPixel(int x, int y) {
+    int rgb = getRGB(x, y);
+    return Factory.createRGBPixel(PackedImage.red(rgb), PackedImage.green(rgb),
+            PackedImage.blue(rgb));
+  }
+
+  @Override
+  public int getWidth() {
+    return width;
+  }
+
+  @Override
+  public int getHeight() {
+    return height;
+  }
+
+  @Override
+  public Image createRedComponent() throws ImageProcessorException {
+    return applyLookupTable(ChannelLookupTable.redComponent());
+  }
+
+  @Override
+  public Image createGreenComponent() throws ImageProcessorException {
+    return applyLookupTable(ChannelLookupTable.greenComponent());
+  }
+
+  @Override
+  public Image createBlueComponent() throws ImageProcessorException {
+    return applyLookupTable(ChannelLookupTable.blueComponent());
+  }
+
+  @Override
+  public Image adjustImageBrightness(int factor) throws ImageProcessorException {
+    return applyLookupTable(ChannelLookupTable.brightness(factor));
+  }
+
+  @Override
+  public Image applyLookupTable(ChannelLookupTable lookupTable)
+          throws ImageProcessorException {
+    Objects.requireNonNull(lookupTable, "Lookup table cannot be null");
+    return transformImage(rgb -> PackedImage.lookup(rgb, lookupTable));
+  }
+
+  @Override
+  public Image getLuma() throws ImageProcessorException {
+    return transformImage(rgb -> PackedImage.matrixOperation(rgb,
+            LinearColorTransformationType.LUMA));
+  }
+
+  @Override
+  public Image getSepia() throws ImageProcessorException {
+    return transformImage(rgb -> PackedImage.matrixOperation(rgb,
+            LinearColorTransformationType.SEPIA));
+  }
+
+  @Override
+  public Image getIntensity() throws ImageProcessorException {
+    return transformImage(PackedImage::intensity);
+  }
+
+  @Override
+  public Image getValue() throws ImageProcessorException {
+    return transformImage(PackedImage::value);
+  }
+
+  /**
+   * Applies the levels adjustment as a lookup table.
+   */
+  @Override
+  public Image levelsAdjust(int black, int mid, int white) throws ImageProcessorException {
+    double[] coefficients = computeLevelsCoefficients(black, mid, white);
+    return applyLookupTable(ChannelLookupTable.quadratic(coefficients[0],
+            coefficients[1], coefficients[2]));
+  }
+
+  /**
+   * Flips the image horizontally.
+   * The image is flipped by reversing the columns of the image.
+   */
+  @Override
+  public Image horizontalFlip() throws ImageProcessorException {
+    int[] newPixels = new int[width * height];
+    ParallelUtils.forEachRowBand(height, width, (startRow, endRow) -> {
+      for (int row = startRow; row < endRow; row++) {
+        for (int col = 0; col < width; col++) {
+          newPixels[row * width + col] = getRGB(row, width - col - 1);
+        }
+      }
+    });
+    return new PackedImage(width, height, newPixels);
+  }
+
+  /**
+   * Flips the image vertically.
+   * The image is flipped by reversing the rows of the image.
+   */
+  @Override
+  public Image verticalFlip() throws ImageProcessorException {
+    int[] newPixels = new int[width * height];
+    ParallelUtils.forEachRowBand(height, width, (startRow, endRow) -> {
+      for (int row = startRow; row < endRow; row++) {
+        for (int col = 0; col < width; col++) {
+          newPixels[row * width + col] = getRGB(height - row - 1, col);
+        }
+      }
+    });
+    return new PackedImage(width, height, newPixels);
+  }
+
+  @Override
+  public Image applyFilter(FilterOption filterOption) throws ImageProcessorException {
+    return toPackedImage().applyFilter(filterOption);
+  }
+
+  @Override
+  public Image colorCorrect() throws ImageProcessorException {
+    return toPackedImage().colorCorrect();
+  }
+
+  @Override
+  public Image combineImages(Image image, int percentage) throws ImageProcessorException {
+    return toPackedImage().combineImages(image, percentage);
+  }
+
+  @Override
+  public Image compress(CompressionType type, int percentage) throws ImageProcessorException {
+    return toPackedImage().compress(type, percentage);
+  }
+
+  @Override
+  public Image downscale(int widthFactor, int heightFactor) throws ImageProcessorException {
+    return toPackedImage().downscale(widthFactor, heightFactor);
+  }
+
+  @Override
+  public int[][] getRedChannel() {
+    return getChannel(16);
+  }
+
+  @Override
+  public int[][] getGreenChannel() {
+    return getChannel(8);
+  }
+
+  @Override
+  public int[][] getBlueChannel() {
+    return getChannel(0);
+  }
+
+  /**
+   * Gets a channel of the image as a 2D array.
+   *
+   * @param shift the shift of the channel in a packed pixel
+   * @return the channel
+   */
+  private int[][] getChannel(int shift) {
+    int[][] channelArray = new int[height][width];
+    for (int row = 0; row < height; row++) {
+      for (int col = 0; col < width; col++) {
+        channelArray[row][col] = (getRGB(row, col) >> shift) & 0xff;
+      }
+    }
+    return channelArray;
+  }
+
+  /**
+   * Applies the operation to every pixel and creates a packed image of the
+   * results.
+   *
+   * @param operation the operation on a packed pixel
+   * @return the new packed image
+   * @throws ImageProcessorException if the image cannot be created
+   */
+  private PackedImage transformImage(IntUnaryOperator operation)
+          throws ImageProcessorException {
+    int[] newPixels = new int[width * height];
+    ParallelUtils.forEachRowBand(height, width, (startRow, endRow) -> {
+      for (int row = startRow; row < endRow; row++) {
+        for (int col = 0; col < width; col++) {
+          newPixels[row * width + col] = operation.applyAsInt(getRGB(row, col));
+        }
+      }
+    });
+    return new PackedImage(width, height, newPixels);
+  }
+
+  /**
+   * Compares this image with another object.
+   * Two images are equal if they have the same dimensions and the same
+   * pixels, irrespective of how the pixels are stored.
+   */
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof Image)) {
+      return false;
+    }
+    Image that = (Image) obj;
+    if (width != that.getWidth() || height != that.getHeight()) {
+      return false;
+    }
+    if (obj instanceof PackedPixelSource) {
+      PackedPixelSource source = (PackedPixelSource) obj;
+      for (int row = 0; row < height; row++) {
+        for (int col = 0; col < width; col++) {
+          if (getRGB(row, col) != source.getRGB(row, col)) {
+            return false;
+          }
+        }
+      }
+      return true;
+    }
+    return equalsPixelByPixel(that);
+  }
+
+  /**
+   * Returns the hash code of the image.
+   * The hash code is the same as a RenderedImage with the same pixels.
+   */
+  @Override
+  public int hashCode() {
+    int result = 1;
+    for (int row = 0; row < height; row++) {
+      int rowHash = 1;
+      for (int col = 0; col < width; col++) {
+        int rgb = getRGB(row, col);
+        int pixelHash = ((31 + PackedImage.red(rgb)) * 31 + PackedImage.green(rgb))
+                * 31 + PackedImage.blue(rgb);
+        rowHash = 31 * rowHash + pixelHash;
+      }
+      result = 31 * result + rowHash;
+    }
+    return result;
+  }
+
+  /**
+   * Converts the image to a string representation.
+   */
+  @Override
+  public String toString() {
+    return "MappedImage{"
+            + "width=" + width
+            + ", height=" + height
+            + ", layout=" + layout
+            + '}';
+  }
+}
@@ -0,0 +1,570 @@
+package model.visual;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.IntUnaryOperator;
+
+import exception.ImageProcessorException;
+import factories.Factory;
+import model.enumeration.LinearColorTransformationType;
+import model.pixels.ChannelLookupTable;
+import model.pixels.Pixel;
+import utility.ParallelUtils;
+
+/**
+ * PackedImage class that implements Image interface
+ * and represents an image whose pixels are packed into a single
+ * integer array.
+ * Every pixel is stored as 0xRRGGBB in row major order, which takes 4 bytes
+ * per pixel instead of a separate Pixel object per pixel.
+ * Pixel objects are only created when a caller asks for one through
+ * getPixel.
+ */
+public class PackedImage extends AbstractImage implements PackedPixelSource {
+
+  /**
+   * Maximum value a channel of the pixel can have.
+   */
+  private static final int MAX_CHANNEL_VALUE = 255;
+
+  /**
+   * Width of the image which is the number of pixels in a row.
+   */
+  private final int width;
+
+  /**
+   * Height of the image which is the number of rows in the image.
+   */
+  private final int height;
+
+  /**
+   * The packed pixels of the image.
+   * Pixel at (row, col) is present at index row * width + col
+   * and is stored as 0xRRGGBB.
+   */
+  private final int[] pixels;
+
+  /**
+   * Constructs a PackedImage object with the given packed pixel array.
+   * The array is not copied and must not be modified after the image is
+   * created.
+   *
+   * @param width  the width of the image
+   * @param height the height of the image
+   * @param pixels the packed pixels of the image in row major order
+   * @throws ImageProcessorException if the width or height is 0 or the
+   *                                 pixel array does not match the
+   *                                 dimensions.
+   */
+  public PackedImage(int width, int height, int[] pixels)
+          throws ImageProcessorException {
+    Objects.requireNonNull(pixels, "Pixel array cannot be null");
+    if (width <= 0 || height <= 0) {
+      throw new ImageProcessorException("Cannot render image of 0 width or height");
+    }
+    if ((long) width * height != pixels.length) {
+      throw new ImageProcessorException("Pixel array does not match the "
+              + "image dimensions");
+    }
+    this.width = width;
+    this.height = height;
+    this.pixels = pixels;
+  }
+
+  /**
+   * Creates a PackedImage with the pixels of the given pixel array.
+   * The pixels are packed straight into the image, without creating any
+   * other image first.
+   *
+   * @param pixels the pixels of the image, indexed by row and column
+   * @return the packed image
+   * @throws ImageProcessorException if the pixel array is empty or its rows
+   *                                 do not have the same length
+   */
+  public static PackedImage fromPixels(Pixel[][] pixels)
+          throws ImageProcessorException {
+    Objects.requireNonNull(pixels, "Pixel array cannot be null");
+    if (pixels.length == 0 || pixels[0].length == 0) {
+      throw new ImageProcessorException("Cannot render image of 0 width or height");
+    }
+    int height = pixels.length;
+    int width = pixels[0].length;
+    int[] packedPixels = new int[width * height];
+    for (int row = 0; row < height; row++) {
+      if (pixels[row].length != width) {
+        throw new ImageProcessorException("Rows of the pixel array must have "
+                + "the same length");
+      }
+      for (int col = 0; col < width; col++) {
+        Pixel pixel = pixels[row][col];
+        packedPixels[row * width + col] = pack(pixel.getRed(),
+                pixel.getGreen(), pixel.getBlue());
+      }
+    }
+    return new PackedImage(width, height, packedPixels);
+  }
+
+  /**
+   * Creates a PackedImage containing the same pixels as the given image.
+   * If the image is already a PackedImage, it is returned as is.
+   *
+   * @param image the image to convert
+   * @return the packed image
+   * @throws ImageProcessorException if the image cannot be converted
+   */
+  public static PackedImage fromImage(Image image) throws ImageProcessorException {
+    Objects.requireNonNull(image, "Image cannot be null");
+    if (image instanceof PackedImage) {
+      return (PackedImage) image;
+    }
+    if (image instanceof LazyImage) {
+      return fromImage(((LazyImage) image).materialise());
+    }
+    int width = image.getWidth();
+    int height = image.getHeight();
+    int[] packedPixels = new int[width * height];
+    if (image instanceof PackedPixelSource) {
+      PackedPixelSource source = (PackedPixelSource) image;
+      ParallelUtils.forEachRowBand(height, width, (startRow, endRow) -> {
+        for (int row = startRow; row < endRow; row++) {
+          for (int col = 0; col < width; col++) {
+            packedPixels[row * width + col] = source.getRGB(row, col);
+          }
+        }
+      });
+      return new PackedImage(width, height, packedPixels);
+    }
+    for (int row = 0; row < height; row++) {
+      for (int col = 0; col < width; col++) {
+        Pixel pixel = image.getPixel(row, col);
+        packedPixels[row * width + col] = pack(pixel.getRed(),
+                pixel.getGreen(), pixel.getBlue());
+      }
+    }
+    return new PackedImage(width, height, packedPixels);
+  }
+
+  /**
+   * Packs the given channels into a single integer as 0xRRGGBB.
+   * Channels are clamped between 0 and 255 the same way an RGB pixel
+   * clamps them.
+   *
+   * @param red   the red channel
+   * @param green the green channel
+   * @param blue  the blue channel
+   * @return the packed pixel
+   */
+  public static int pack(int red, int green, int blue) {
+    return (clamp(red) << 16) | (clamp(green) << 8) | clamp(blue);
+  }
+
+  /**
+   * Gets the red channel of a packed pixel.
+   *
+   * @param rgb the packed pixel
+   * @return the red channel
+   */
+  public static int red(int rgb) {
+    return (rgb >> 16) & 0xff;
+  }
+
+  /**
+   * Gets the green channel of a packed pixel.
+   *
+   * @param rgb the packed pixel
+   * @return the green channel
+   */
+  public static int green(int rgb) {
+    return (rgb >> 8) & 0xff;
+  }
+
+  /**
+   * Gets the blue channel of a packed pixel.
+   *
+   * @param rgb the packed pixel
+   * @return the blue channel
+   */
+  public static int blue(int rgb) {
+    return rgb & 0xff;
+  }
+
+  /**
+   * Clamps a value between 0 and 255.
+   *
+   * @param value the value to clamp
+   * @return the clamped value
+   */
+  private static int clamp(int value) {
+    return Math.max(0, Math.min(MAX_CHANNEL_VALUE, value));
+  }
+
+  /**
+   * Get the packed pixel at the specified coordinates as 0xRRGGBB.
+   *
+   * @param row the row of the pixel
+   * @param col the column of the pixel
+   * @return the packed pixel
+   */
+  @Override
+  public int getRGB(int row, int col) {
+    Objects.checkIndex(row, height);
+    Objects.checkIndex(col, width);
+    return pixels[row * width + col];
+  }
+
+  /**
+   * Returns a new Pixel object for the packed pixel at the given coordinates.
+   */
+  @Override
+  public Pixel getPixel(int x, int y) {
+    int rgb = getRGB(x, y);
+    return Factory.createRGBPixel(red(rgb), green(rgb), blue(rgb));
+  }
+
+  @Override
+  public int getWidth() {
+    return width;
+  }
+
+  @Override
+  public int getHeight() {
+    return height;
+  }
+
+  @Override
+  public Image createRedComponent() throws ImageProcessorException {
+    return applyLookupTable(ChannelLookupTable.redComponent());
+  }
+
+  @Override
+  public Image createGreenComponent() throws ImageProcessorException {
+    return applyLookupTable(ChannelLookupTable.greenComponent());
+  }
+
+  @Override
+  public Image createBlueComponent() throws ImageProcessorException {
+    return applyLookupTable(ChannelLookupTable.blueComponent());
+  }
+
+  @Override
+  public Image adjustImageBrightness(int factor) throws ImageProcessorException {
+    return applyLookupTable(ChannelLookupTable.brightness(factor));
+  }
+
+  @Override
+  public Image applyLookupTable(ChannelLookupTable lookupTable)
+          throws ImageProcessorException {
+    Objects.requireNonNull(lookupTable, "Lookup table cannot be null");
+    return transformImage(rgb -> lookup(rgb, lookupTable));
+  }
+
+  @Override
+  public Image getLuma() throws ImageProcessorException {
+    return transformImage(rgb -> matrixOperation(rgb,
+            LinearColorTransformationType.LUMA));
+  }
+
+  @Override
+  public Image getSepia() throws ImageProcessorException {
+    return transformImage(rgb -> matrixOperation(rgb,
+            LinearColorTransformationType.SEPIA));
+  }
+
+  @Override
+  public Image getIntensity() throws ImageProcessorException {
+    return transformImage(PackedImage::intensity);
+  }
+
+  @Override
+  public Image getValue() throws ImageProcessorException {
+    return transformImage(PackedImage::value);
+  }
+
+  /**
+   * Flips the image horizontally.
+   * The image is flipped by reversing the columns of the image.
+   */
+  @Override
+  public Image horizontalFlip() throws ImageProcessorException {
+    int[] newPixels = new int[pixels.length];
+    ParallelUtils.forEachRowBand(height, width, (startRow, endRow) -> {
+      for (int row = startRow; row < endRow; row++) {
+        int offset = row * width;
+        for (int col = 0; col < width; col++) {
+          newPixels[offset + col] = pixels[offset + width - col - 1];
+        }
+      }
+    });
+    return new PackedImage(width, height, newPixels);
+  }
+
+  /**
+   * Flips the image vertically.
+   * The image is flipped by reversing the rows of the image.
+   */
+  @Override
+  public Image verticalFlip() throws ImageProcessorException {
+    int[] newPixels = new int[pixels.length];
+    ParallelUtils.forEachRowBand(height, width, (startRow, endRow) -> {
+      for (int row = startRow; row < endRow; row++) {
+        System.arraycopy(pixels, (height - row - 1) * width, newPixels,
+                row * width, width);
+      }
+    });
+    return new PackedImage(width, height, newPixels);
+  }
+
+  @Override
+  public int[][] getRedChannel() {
+    return getChannel(16);
+  }
+
+  @Override
+  public int[][] getGreenChannel() {
+    return getChannel(8);
+  }
+
+  @Override
+  public int[][] getBlueChannel() {
+    return getChannel(0);
+  }
+
+  /**
+   * Applies color correction to the image.
+   * The color correction is done by aligning the meaningful peaks of the
+   * red, green and blue histograms to their average.
+   */
+  @Override
+  public Image colorCorrect() throws ImageProcessorException {
+    ColorHistogram histogram = colorHistogram();
+    int redPeak = findMeaningfulPeak(histogram.getRedFrequencies());
+    int greenPeak = findMeaningfulPeak(histogram.getGreenFrequencies());
+    int bluePeak = findMeaningfulPeak(histogram.getBlueFrequencies());
+
+    int avgPeak = (redPeak + greenPeak + bluePeak) / 3;
+
+    int redOffset = avgPeak - redPeak;
+    int greenOffset = avgPeak - greenPeak;
+    int blueOffset = avgPeak - bluePeak;
+
+    return transformImage(rgb -> pack(red(rgb) + redOffset,
+            green(rgb) + greenOffset, blue(rgb) + blueOffset));
+  }
+
+  /**
+   * Computes the histogram of every channel straight from the packed pixels.
+   */
+  @Override
+  public ColorHistogram colorHistogram() {
+    return ColorHistogram.ofPacked(pixels, width, height);
+  }
+
+  /**
+   * Adjusts the levels of the image using the specified black, mid, and
+   * white points by applying the quadratic transformation to each channel.
+   */
+  @Override
+  public Image levelsAdjust(int black, int mid, int white) throws ImageProcessorException {
+    double[] coefficients = computeLevelsCoefficients(black, mid, white);
+    return applyLookupTable(ChannelLookupTable.quadratic(coefficients[0],
+            coefficients[1], coefficients[2]));
+  }
+
+  /**
+   * Downscale the image by the given width and height factors
+   * using bilinear interpolation.
+   */
+  @Override
+  public Image downscale(int widthFactor, int heightFactor) throws ImageProcessorException {
+    validateScale(widthFactor, heightFactor);
+
+    int newWidth = (int) (width * ((double) widthFactor / 100));
+    int newHeight = (int) (height * ((double) heightFactor / 100));
+
+    int[] newPixels = new int[newWidth * newHeight];
+    double scaleX = (double) width / newWidth;
+    double scaleY = (double) height / newHeight;
+
+    ParallelUtils.forEachRowBand(newHeight, newWidth, (startY, endY) -> {
+      for (int y = startY; y < endY; y++) {
+        for (int x = 0; x < newWidth; x++) {
+          double sourceX = x * scaleX;
+          double sourceY = y * scaleY;
+
+          int floorSourceX = (int) Math.floor(sourceX);
+          int floorSourceY = (int) Math.floor(sourceY);
+          int ceilingSourceX = Math.min(floorSourceX + 1, width - 1);
+          int ceilingSourceY = Math.min(floorSourceY + 1, height - 1);
+
+          int topLeft = pixels[floorSourceY * width + floorSourceX];
+          int topRight = pixels[floorSourceY * width + ceilingSourceX];
+          int bottomLeft = pixels[ceilingSourceY * width + floorSourceX];
+          int bottomRight = pixels[ceilingSourceY * width + ceilingSourceX];
+
+          double dx = sourceX - floorSourceX;
+          double dy = sourceY - floorSourceY;
+
+          newPixels[y * newWidth + x] = pack(
+                  computeChannelDownscale(red(topLeft), red(topRight),
+                          red(bottomLeft), red(bottomRight), dx, dy),
+                  computeChannelDownscale(green(topLeft), green(topRight),
+                          green(bottomLeft), green(bottomRight), dx, dy),
+                  computeChannelDownscale(blue(topLeft), blue(topRight),
+                          blue(bottomLeft), blue(bottomRight), dx, dy));
+        }
+      }
+    });
+    return new PackedImage(newWidth, newHeight, newPixels);
+  }
+
+  /**
+   * Helper method to transform the image using the given transformation.
+   * Transformation is applied to each packed pixel in the image, with bands
+   * of rows transformed in parallel.
+   */
+  private Image transformImage(IntUnaryOperator transformation)
+          throws ImageProcessorException {
+    int[] newPixels = new int[pixels.length];
+    ParallelUtils.forEachRowBand(height, width, (startRow, endRow) -> {
+      for (int i = startRow * width; i < endRow * width; i++) {
+        newPixels[i] = transformation.applyAsInt(pixels[i]);
+      }
+    });
+    return new PackedImage(width, height, newPixels);
+  }
+
+  /**
+   * Helper method to get a channel of the image.
+   *
+   * @param shift the number of bits the channel is shifted by in the packed
+   *              pixel
+   * @return the channel as a 2D array
+   */
+  private int[][] getChannel(int shift) {
+    int[][] channelArray = new int[height][width];
+    for (int row = 0; row < height; row++) {
+      for (int col = 0; col < width; col++) {
+        channelArray[row][col] = (pixels[row * width + col] >> shift) & 0xff;
+      }
+    }
+    return channelArray;
+  }
+
+  /**
+   * Looks up the channels of a packed pixel in the given lookup table.
+   *
+   * @param rgb         the packed pixel
+   * @param lookupTable the lookup table to apply
+   * @return the new packed pixel
+   */
+  static int lookup(int rgb, ChannelLookupTable lookupTable) {
+    int red = red(rgb);
+    int green = green(rgb);
+    int blue = blue(rgb);
+    return (lookupTable.lookup(0, red, green, blue) << 16)
+            | (lookupTable.lookup(1, red, green, blue) << 8)
+            | lookupTable.lookup(2, red, green, blue);
+  }
+
+  /**
+   * Computes the intensity of a packed pixel, the average of its channels.
+   *
+   * @param rgb the packed pixel
+   * @return the packed pixel with every channel set to the intensity
+   */
+  static int intensity(int rgb) {
+    int intensity = (red(rgb) + green(rgb) + blue(rgb)) / 3;
+    return pack(intensity, intensity, intensity);
+  }
+
+  /**
+   * Computes the value of a packed pixel, the maximum of its channels.
+   *
+   * @param rgb the packed pixel
+   * @return the packed pixel with every channel set to the value
+   */
+  static int value(int rgb) {
+    int value = Math.max(Math.max(red(rgb), green(rgb)), blue(rgb));
+    return pack(value, value, value);
+  }
+
+  /**
+   * Matrix operation to multiply a kernel with the channels of a packed
+   * pixel to get a new packed pixel.
+   *
+   * @param rgb                     the packed pixel
+   * @param colorTransformationType the type of color transformation
+   * @return the new packed pixel after the matrix operation.
+   */
+  static int matrixOperation(int rgb,
+                                     LinearColorTransformationType colorTransformationType) {
+    int r = red(rgb);
+    int g = green(rgb);
+    int b = blue(rgb);
+    double rPrime = colorTransformationType.transformChannel(0, r, g, b);
+    double gPrime = colorTransformationType.transformChannel(1, r, g, b);
+    double bPrime = colorTransformationType.transformChannel(2, r, g, b);
+    return pack((int) rPrime, (int) gPrime, (int) bPrime);
+  }
+
+  /**
+   * Compares this image with another object.
+   * Two images are equal if they have the same dimensions and the same
+   * pixels, irrespective of how the pixels are stored.
+   */
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof Image)) {
+      return false;
+    }
+    if (obj instanceof PackedImage) {
+      PackedImage that = (PackedImage) obj;
+      return width == that.width && height == that.height
+              && Arrays.equals(pixels, that.pixels);
+    }
+    return equalsPixelByPixel((Image) obj);
+  }
+
+  /**
+   * Returns the hash code of the image.
+   * The hash code is the same as a RenderedImage with the same pixels.
+   */
+  @Override
+  public int hashCode() {
+    int result = 1;
+    for (int row = 0; row < height; row++) {
+      int rowHash = 1;
+      for (int col = 0; col < width; col++) {
+        int rgb = pixels[row * width + col];
+        int pixelHash = ((31 + red(rgb)) * 31 + green(rgb)) * 31 + blue(rgb);
+        rowHash = 31 * rowHash + pixelHash;
+      }
+      result = 31 * result + rowHash;
+    }
+    return result;
+  }
+
+  /**
+   * Converts the image to a string representation.
+   * The string is the same as a RenderedImage with the same pixels, so
+   * equal images give the same string irrespective of their storage.
+   */
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder("RenderedImage{pixels=[");
+    for (int row = 0; row < height; row++) {
+      builder.append(row == 0 ? "[" : ", [");
+      for (int col = 0; col < width; col++) {
+        if (col > 0) {
+          builder.append(", ");
+        }
+        builder.append(getPixel(row, col));
+      }
+      builder.append(']');
+    }
+    return builder.append("]}").toString();
+  }
+}
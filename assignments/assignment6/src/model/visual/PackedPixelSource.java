@@ -0,0 +1,17 @@
+package model.visual;
+
+/**
+ * Represents an image which can give its pixels packed as 0xRRGGBB without
+ * creating a Pixel object for every pixel.
+ */
+public interface PackedPixelSource {
+
+  /**
+   * Get the packed pixel at the specified coordinates as 0xRRGGBB.
+   *
+   * @param row the row of the pixel
+   * @param col the column of the pixel
+   * @return the packed pixel
+   */
+  int getRGB(int row, int col);
+}
@@ -6,18 +6,16 @@ import java.util.function.Function;
 
 import exception.ImageProcessorException;
 import factories.Factory;
-import model.enumeration.CompressionType;
-import model.enumeration.FilterOption;
+import model.pixels.ChannelLookupTable;
 import model.pixels.Pixel;
 import model.pixels.RGB;
-import utility.ExtractUtility;
-import utility.FilterUtils;
+import utility.ParallelUtils;
 
 /**
  * RenderedImage class that implements Image interface
  * and represents an image containing pixels.
  */
-public class RenderedImage implements Image {
+public class RenderedImage extends AbstractImage {
   /**
    * The pixel array of the image.
    * The first index represents the x-coordinate of the pixel.
@@ -59,22 +57,29 @@ public class RenderedImage implements Image {
 
   @Override
   public Image createRedComponent() throws ImageProcessorException {
-    return transformImage(Pixel::createRedComponent);
+    return applyLookupTable(ChannelLookupTable.redComponent());
   }
 
   @Override
   public Image createGreenComponent() throws ImageProcessorException {
-    return transformImage(Pixel::createGreenComponent);
+    return applyLookupTable(ChannelLookupTable.greenComponent());
   }
 
   @Override
   public Image createBlueComponent() throws ImageProcessorException {
-    return transformImage(Pixel::createBlueComponent);
+    return applyLookupTable(ChannelLookupTable.blueComponent());
   }
 
   @Override
   public Image adjustImageBrightness(int factor) throws ImageProcessorException {
-    return transformImage(pixel -> pixel.adjustBrightness(factor));
+    return applyLookupTable(ChannelLookupTable.brightness(factor));
+  }
+
+  @Override
+  public Image applyLookupTable(ChannelLookupTable lookupTable)
+          throws ImageProcessorException {
+    Objects.requireNonNull(lookupTable, "Lookup table cannot be null");
+    return transformImage(lookupTable::apply);
   }
 
   @Override
@@ -116,11 +121,13 @@ public class RenderedImage implements Image {
     int height = this.getHeight();
     int width = this.getWidth();
     Pixel[][] newPixelArray = new Pixel[height][width];
-    for (int row = 0; row < height; row++) {
-      for (int col = 0; col < width; col++) {
-        newPixelArray[row][col] = this.getPixel(row, width - col - 1);
+    ParallelUtils.forEachRowBand(height, width, (startRow, endRow) -> {
+      for (int row = startRow; row < endRow; row++) {
+        for (int col = 0; col < width; col++) {
+          newPixelArray[row][col] = this.getPixel(row, width - col - 1);
+        }
       }
-    }
+    });
 
     return Factory.createImage(newPixelArray);
   }
@@ -134,23 +141,16 @@ public class RenderedImage implements Image {
     int height = this.getHeight();
     int width = this.getWidth();
     Pixel[][] newPixelArray = new Pixel[height][width];
-    for (int row = 0; row < height; row++) {
-      for (int col = 0; col < width; col++) {
-        newPixelArray[row][col] = this.getPixel(height - row - 1, col);
+    ParallelUtils.forEachRowBand(height, width, (startRow, endRow) -> {
+      for (int row = startRow; row < endRow; row++) {
+        for (int col = 0; col < width; col++) {
+          newPixelArray[row][col] = this.getPixel(height - row - 1, col);
+        }
       }
-    }
+    });
     return Factory.createImage(newPixelArray);
   }
 
-  /**
-   * Applies the given filter to the image.
-   * The filter is applied to each pixel in the image.
-   */
-  @Override
-  public Image applyFilter(FilterOption filterOption) throws ImageProcessorException {
-    return FilterUtils.applyFilter(this, filterOption);
-  }
-
   @Override
   public int[][] getRedChannel() {
     return getChannel(Pixel::getRed);
@@ -168,7 +168,8 @@ public class RenderedImage implements Image {
 
   /**
    * Helper method to transform the image using the given transformation.
-   * Transformation is applied to each pixel in the image.
+   * Transformation is applied to each pixel in the image, with bands of
+   * rows transformed in parallel.
    */
   private Image transformImage(Function<Pixel, Pixel> transformation)
           throws ImageProcessorException {
@@ -176,11 +177,13 @@ public class RenderedImage implements Image {
     int width = this.getWidth();
     Pixel[][] newPixelArray = new Pixel[height][width];
 
-    for (int row = 0; row < height; row++) {
-      for (int col = 0; col < width; col++) {
-        newPixelArray[row][col] = transformation.apply(this.getPixel(row, col));
+    ParallelUtils.forEachRowBand(height, width, (startRow, endRow) -> {
+      for (int row = startRow; row < endRow; row++) {
+        for (int col = 0; col < width; col++) {
+          newPixelArray[row][col] = transformation.apply(this.getPixel(row, col));
+        }
       }
-    }
+    });
     return new RenderedImage(newPixelArray);
   }
 
@@ -244,16 +247,10 @@ public class RenderedImage implements Image {
     int width = getWidth();
     int height = getHeight();
 
-    int[] redFreq = ExtractUtility.calculateColorFrequencies(this,
-            Pixel::getRed);
-    int[] greenFreq = ExtractUtility.calculateColorFrequencies(this,
-            Pixel::getGreen);
-    int[] blueFreq = ExtractUtility.calculateColorFrequencies(this,
-            Pixel::getBlue);
-
-    int redPeak = findMeaningfulPeak(redFreq);
-    int greenPeak = findMeaningfulPeak(greenFreq);
-    int bluePeak = findMeaningfulPeak(blueFreq);
+    ColorHistogram histogram = colorHistogram();
+    int redPeak = findMeaningfulPeak(histogram.getRedFrequencies());
+    int greenPeak = findMeaningfulPeak(histogram.getGreenFrequencies());
+    int bluePeak = findMeaningfulPeak(histogram.getBlueFrequencies());
 
     int avgPeak = (redPeak + greenPeak + bluePeak) / 3;
 
@@ -262,44 +259,26 @@ public class RenderedImage implements Image {
     int blueOffset = avgPeak - bluePeak;
 
     Pixel[][] newPixels = new Pixel[height][width];
-    for (int column = 0; column < width; column++) {
-      for (int row = 0; row < height; row++) {
-        Pixel oldPixel = getPixel(row, column);
-        int newRed = oldPixel.getRed() + redOffset;
-        int newGreen = oldPixel.getGreen() + greenOffset;
-        int newBlue = oldPixel.getBlue() + blueOffset;
-        newPixels[row][column] = new RGB(newRed, newGreen, newBlue);
+    ParallelUtils.forEachRowBand(height, width, (startRow, endRow) -> {
+      for (int row = startRow; row < endRow; row++) {
+        for (int column = 0; column < width; column++) {
+          Pixel oldPixel = getPixel(row, column);
+          int newRed = oldPixel.getRed() + redOffset;
+          int newGreen = oldPixel.getGreen() + greenOffset;
+          int newBlue = oldPixel.getBlue() + blueOffset;
+          newPixels[row][column] = new RGB(newRed, newGreen, newBlue);
+        }
       }
-    }
+    });
 
     return Factory.createImage(newPixels);
   }
 
-  /**
-   * Finds the meaningful peak in a frequency array, ignoring extremities.
-   * Only considers values between 10 and 245 to avoid dark/blown-out regions.
-   *
-   * @param freq the frequency array
-   * @return the value where the meaningful peak occurs
-   */
-  private int findMeaningfulPeak(int[] freq) {
-    int maxFreq = 0;
-    int peakValue = 0;
-
-    // Only consider values between 10 and 245
-    for (int i = 10; i < 245; i++) {
-      if (freq[i] > maxFreq) {
-        maxFreq = freq[i];
-        peakValue = i;
-      }
-    }
-
-    return peakValue;
-  }
-
   /**
    * Adjusts the levels of the image using the specified black, mid, and
    * white points.
+   * The transformation is computed once for every channel value into a
+   * lookup table which is then applied to every pixel.
    * Quadratic Transformation used
    * <a href="https://northeastern.instructure.com/courses/192553/assignments/2490204">...</a>
    *
@@ -313,140 +292,9 @@ public class RenderedImage implements Image {
    */
   @Override
   public Image levelsAdjust(int black, int mid, int white) throws ImageProcessorException {
-    validateLevels(black, mid, white);
-
-    double a = fittingCoefficientA(black, mid, white);
-    double aA = fittingCoefficientAa(black, mid, white);
-    double aB = fittingCoefficientAb(black, mid, white);
-    double aC = fittingCoefficientAc(black, mid, white);
-
-    double coeffA = aA / a;
-    double coeffB = aB / a;
-    double coeffC = aC / a;
-
-    int height = this.getHeight();
-    int width = this.getWidth();
-    Pixel[][] adjustedPixels = new Pixel[height][width];
-
-    for (int column = 0; column < width; column++) {
-      for (int row = 0; row < height; row++) {
-        adjustedPixels[row][column] = this.getPixel(row, column)
-                .quadraticTransform(coeffA, coeffB, coeffC);
-      }
-    }
-
-    return Factory.createImage(adjustedPixels);
-  }
-
-  /**
-   * Combines this image with another image provided in the argument.
-   *
-   * @param image      the image to combine with
-   * @param percentage the percentage of the first image(current image on which
-   *                   the function is called on.
-   * @return the combined image by creating a new image object.
-   */
-  @Override
-  public Image combineImages(Image image, int percentage) throws ImageProcessorException {
-    return Factory.combineImage(this, image, percentage);
-  }
-
-  /**
-   * Compresses the image by the given percentage.
-   *
-   * @param type       the type of compression
-   * @param percentage the percentage to compress by
-   * @return the compressed image
-   * @throws ImageProcessorException if the percentage is out of range
-   */
-  @Override
-  public Image compress(CompressionType type, int percentage) throws ImageProcessorException {
-    return Factory.createCompression(type).compress(
-            this, percentage
-    );
-  }
-
-  /**
-   * Extracts the histogram of the image.
-   *
-   * @return the histogram of the image
-   * @throws ImageProcessorException if the histogram cannot be created
-   */
-  @Override
-  public Image histogram() throws ImageProcessorException {
-    return ExtractUtility.createHistogram(this);
-  }
-
-  /**
-   * Validates the black, mid, and white points for levels adjustment.
-   *
-   * @param black the black point value
-   * @param mid   the mid point value
-   * @param white the white point value
-   * @throws ImageProcessorException if any of the values are out of range
-   *                                 (0-255)
-   *                                 or not in ascending order
-   */
-  private void validateLevels(int black, int mid, int white)
-          throws ImageProcessorException {
-    if (black < 0 || black > 255 || mid < 0 || mid > 255 || white < 0 || white > 255) {
-      throw new ImageProcessorException("Levels must be between 0 and 255");
-    }
-    if (black >= mid || mid >= white) {
-      throw new ImageProcessorException("Levels must be in ascending order");
-    }
-  }
-
-  /**
-   * Calculates the fitting coefficient A for the quadratic transformation.
-   *
-   * @param black the black point value
-   * @param mid   the mid point value
-   * @param white the white point value
-   * @return the fitting coefficient A
-   */
-  private double fittingCoefficientA(int black, int mid, int white) {
-    return Math.pow(black, 2) * (mid - white)
-            - black * (Math.pow(mid, 2) - Math.pow(white, 2))
-            + Math.pow(mid, 2) * white - Math.pow(white, 2) * mid;
-  }
-
-  /**
-   * Calculates the fitting coefficient Aa for the quadratic transformation.
-   *
-   * @param black the black point value
-   * @param mid   the mid point value
-   * @param white the white point value
-   * @return the fitting coefficient Aa
-   */
-  private double fittingCoefficientAa(int black, int mid, int white) {
-    return (-black) * (128 - 255) + 128 * white - 255 * mid;
-  }
-
-  /**
-   * Calculates the fitting coefficient Ab for the quadratic transformation.
-   *
-   * @param black the black point value
-   * @param mid   the mid point value
-   * @param white the white point value
-   * @return the fitting coefficient Ab
-   */
-  private double fittingCoefficientAb(int black, int mid, int white) {
-    return Math.pow(black, 2) * (128 - 255)
-            + 255 * Math.pow(mid, 2) - 128 * Math.pow(white, 2);
-  }
-
-  /**
-   * Calculates the fitting coefficient Ac for the quadratic transformation.
-   *
-   * @param black the black point value
-   * @param mid   the mid point value
-   * @param white the white point value
-   * @return the fitting coefficient Ac
-   */
-  private double fittingCoefficientAc(int black, int mid, int white) {
-    return Math.pow(black, 2) * (255 * mid - 128 * white)
-            - black * (255 * Math.pow(mid, 2) - 128 * Math.pow(white, 2));
+    double[] coefficients = computeLevelsCoefficients(black, mid, white);
+    return applyLookupTable(ChannelLookupTable.quadratic(coefficients[0],
+            coefficients[1], coefficients[2]));
   }
 
   /**
@@ -468,74 +316,44 @@ public class RenderedImage implements Image {
     double scaleX = (double) this.getWidth() / newWidth;
     double scaleY = (double) this.getHeight() / newHeight;
 
-    for (int y = 0; y < newHeight; y++) {
-      for (int x = 0; x < newWidth; x++) {
-
-        double sourceX = x * scaleX;
-        double sourceY = y * scaleY;
-
-        int floorSourceX = (int) Math.floor(sourceX);
-        int floorSourceY = (int) Math.floor(sourceY);
-        int ceilingSourceX = Math.min(floorSourceX + 1, this.getWidth() - 1);
-        int ceilingSourceY = Math.min(floorSourceY + 1, this.getHeight() - 1);
-
-        Pixel topLeft = this.getPixel(floorSourceY, floorSourceX);
-        Pixel topRight = this.getPixel(floorSourceY, ceilingSourceX);
-        Pixel bottomLeft = this.getPixel(ceilingSourceY, floorSourceX);
-        Pixel bottomRight = this.getPixel(ceilingSourceY, ceilingSourceX);
-
-        double dx = sourceX - floorSourceX;
-        double dy = sourceY - floorSourceY;
-
-        int red = computeChannelDownscale(
-                topLeft.getRed(), topRight.getRed(),
-                bottomLeft.getRed(), bottomRight.getRed(),
-                dx, dy);
-        int green = computeChannelDownscale(
-                topLeft.getGreen(), topRight.getGreen(),
-                bottomLeft.getGreen(), bottomRight.getGreen(),
-                dx, dy);
-        int blue = computeChannelDownscale(
-                topLeft.getBlue(), topRight.getBlue(),
-                bottomLeft.getBlue(), bottomRight.getBlue(),
-                dx, dy);
-
-        newPixels[y][x] = Factory.createRGBPixel(red, green, blue);
+    ParallelUtils.forEachRowBand(newHeight, newWidth, (startY, endY) -> {
+      for (int y = startY; y < endY; y++) {
+        for (int x = 0; x < newWidth; x++) {
+
+          double sourceX = x * scaleX;
+          double sourceY = y * scaleY;
+
+          int floorSourceX = (int) Math.floor(sourceX);
+          int floorSourceY = (int) Math.floor(sourceY);
+          int ceilingSourceX = Math.min(floorSourceX + 1, this.getWidth() - 1);
+          int ceilingSourceY = Math.min(floorSourceY + 1, this.getHeight() - 1);
+
+          Pixel topLeft = this.getPixel(floorSourceY, floorSourceX);
+          Pixel topRight = this.getPixel(floorSourceY, ceilingSourceX);
+          Pixel bottomLeft = this.getPixel(ceilingSourceY, floorSourceX);
+          Pixel bottomRight = this.getPixel(ceilingSourceY, ceilingSourceX);
+
+          double dx = sourceX - floorSourceX;
+          double dy = sourceY - floorSourceY;
+
+          int red = computeChannelDownscale(
+                  topLeft.getRed(), topRight.getRed(),
+                  bottomLeft.getRed(), bottomRight.getRed(),
+                  dx, dy);
+          int green = computeChannelDownscale(
+                  topLeft.getGreen(), topRight.getGreen(),
+                  bottomLeft.getGreen(), bottomRight.getGreen(),
+                  dx, dy);
+          int blue = computeChannelDownscale(
+                  topLeft.getBlue(), topRight.getBlue(),
+                  bottomLeft.getBlue(), bottomRight.getBlue(),
+                  dx, dy);
+
+          newPixels[y][x] = Factory.createRGBPixel(red, green, blue);
+        }
       }
-    }
+    });
 
     return new RenderedImage(newPixels);
   }
-
-  /**
-   * Performs downscaling for a single color channel
-   * using m = (topLeftValue * (1 - dx) + topRightValue * dx)
-   * and n = (bottomLeftValue * (1 - dx) + bottomRightValue * dx).
-   * @param topLeftValue top-left value
-   * @param topRightValue top-right value
-   * @param bottomLeftValue bottom-left value
-   * @param bottomRightValue bottom-right value
-   * @param dx x-axis interpolation factor
-   * @param dy y-axis interpolation factor
-   * @return interpolated value
-   */
-  private int computeChannelDownscale(int topLeftValue, int topRightValue,
-                                      int bottomLeftValue, int bottomRightValue,
-                                      double dx, double dy) {
-    double mCoefficient = (topLeftValue * (1 - dx) + topRightValue * dx);
-    double nCoefficient = (bottomLeftValue * (1 - dx) + bottomRightValue * dx);
-    return (int) Math.round(mCoefficient * (1 - dy) + nCoefficient * dy);
-  }
-
-  /**
-   * Validates the scale factors for downscaling.
-   * @param widthFactor the width scaling factor
-   * @param heightFactor the height scaling factor
-   * @throws ImageProcessorException if the factors are out of range
-   */
-  private void validateScale(int widthFactor, int heightFactor) throws ImageProcessorException {
-    if (widthFactor <= 0 || heightFactor <= 0 || widthFactor > 100 || heightFactor > 100) {
-      throw new ImageProcessorException("Scaling factors must be within 0 and 100");
-    }
-  }
-}
\ No newline at end of file
+}
@@ -9,6 +9,7 @@ import exception.ImageProcessorException;
 import factories.Factory;
 import model.pixels.Pixel;
 import model.pixels.RGB;
+import model.visual.ColorHistogram;
 import model.visual.Image;
 
 /**
@@ -31,14 +32,22 @@ public class ExtractUtility {
    * @throws ImageProcessorException if the histogram cannot be created
    */
   public static Image createHistogram(Image image) throws ImageProcessorException {
-    int[] redFreq = calculateColorFrequencies(image, Pixel::getRed);
-    int[] greenFreq = calculateColorFrequencies(image, Pixel::getGreen);
-    int[] blueFreq = calculateColorFrequencies(image, Pixel::getBlue);
-
-    int maxFreq = findMaxFrequency(redFreq, greenFreq, blueFreq);
+    return createHistogram(image.colorHistogram());
+  }
 
-    BufferedImage histogramImage = createHistogramImage(redFreq, greenFreq,
-            blueFreq, maxFreq);
+  /**
+   * Creates a histogram image from the already computed frequencies of an
+   * image.
+   *
+   * @param histogram the frequencies of every channel of the image
+   * @return a new Image representing the histogram
+   * @throws ImageProcessorException if the histogram cannot be created
+   */
+  public static Image createHistogram(ColorHistogram histogram) throws
+          ImageProcessorException {
+    BufferedImage histogramImage = createHistogramImage(
+            histogram.getRedFrequencies(), histogram.getGreenFrequencies(),
+            histogram.getBlueFrequencies(), histogram.getMaxFrequency());
 
     Pixel[][] histogramPixels = convertBufferedImageToPixels(histogramImage);
 
@@ -55,8 +64,8 @@ public class ExtractUtility {
   public static int[] calculateColorFrequencies(Image image, Function<Pixel,
           Integer> transformation) {
     int[] colorFrequencies = new int[HISTOGRAM_SIZE];
-    for (int column = 0; column < image.getWidth(); column++) {
-      for (int row = 0; row < image.getHeight(); row++) {
+    for (int row = 0; row < image.getHeight(); row++) {
+      for (int column = 0; column < image.getWidth(); column++) {
         Pixel pixel = image.getPixel(row, column);
         colorFrequencies[transformation.apply(pixel)]++;
       }
@@ -64,26 +73,6 @@ public class ExtractUtility {
     return colorFrequencies;
   }
 
-  /**
-   * Finds the maximum frequency among the red, green, and blue frequency
-   * arrays.
-   *
-   * @param redFreq   the frequency array for the red channel
-   * @param greenFreq the frequency array for the green channel
-   * @param blueFreq  the frequency array for the blue channel
-   * @return the maximum frequency value among the three channels
-   */
-  private static int findMaxFrequency(int[] redFreq, int[] greenFreq,
-                                      int[] blueFreq) {
-    int maxFreq = 0;
-    for (int i = 0; i < HISTOGRAM_SIZE; i++) {
-      maxFreq = Math.max(maxFreq, redFreq[i]);
-      maxFreq = Math.max(maxFreq, greenFreq[i]);
-      maxFreq = Math.max(maxFreq, blueFreq[i]);
-    }
-    return maxFreq;
-  }
-
   /**
    * Creates a histogram image from the red, green, and blue frequency arrays.
    *
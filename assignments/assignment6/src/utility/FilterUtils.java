@@ -7,6 +7,8 @@ import factories.Factory;
 import model.enumeration.FilterOption;
 import model.pixels.Pixel;
 import model.visual.Image;
+import model.visual.PackedImage;
+import utility.events.FilterEvent;
 
 /**
  * Utility class for applying filters to an image.
@@ -14,6 +16,24 @@ import model.visual.Image;
  */
 public class FilterUtils {
 
+  /**
+   * Largest power of two a kernel weight may be scaled by to become an
+   * integer for the kernel to be considered exact.
+   */
+  private static final int MAX_DYADIC_EXPONENT = 30;
+
+  /**
+   * Largest channel value a pixel can have.
+   */
+  private static final int MAX_CHANNEL_VALUE = 255;
+
+  /**
+   * Numbers which are a multiple of the same power of two and have a
+   * magnitude below this bound, measured in that power, are represented
+   * exactly by a double.
+   */
+  private static final double EXACT_DOUBLE_BOUND = Math.scalb(1.0, 52);
+
   private FilterUtils() {
     //Empty private constructor to prevent instantiation.
   }
@@ -24,6 +44,15 @@ public class FilterUtils {
    * For each pixel in the image, the kernel is centered on the pixel, and the
    * surrounding pixels are multiplied by the corresponding kernel values.
    * The results are summed to produce the new pixel value.
+   * Pixels of the kernel which fall outside the image are ignored.
+   *
+   * <p>The convolution runs on primitive channel arrays and bands of rows
+   * are filtered in parallel. If the kernel is separable and every sum can
+   * be computed exactly, the kernel is applied as two one dimensional passes.
+   * Otherwise, the kernel is applied directly in the same order as the
+   * weights appear in the kernel, with the bounds only checked on the border
+   * of the image. Both give the same result as applying the kernel pixel by
+   * pixel. A FilterEvent is recorded for the flight recorder.
    *
    * @param image        the image to apply the filter to
    * @param filterOption the filter option to apply
@@ -34,38 +63,312 @@ public class FilterUtils {
           throws ImageProcessorException {
     Objects.requireNonNull(image);
     Objects.requireNonNull(filterOption);
+    FilterEvent event = new FilterEvent();
+    event.begin();
+    int width = image.getWidth();
+    int height = image.getHeight();
+    double[][] kernel = filterOption.getKernel();
+    int[][] channels = extractChannels(image);
+
+    double[][] separatedKernel = separateExactKernel(kernel);
+    int[][] filteredChannels;
+    if (separatedKernel != null) {
+      filteredChannels = convolveSeparable(channels, width, height,
+              separatedKernel[0], separatedKernel[1]);
+    } else {
+      filteredChannels = convolveDirect(channels, width, height, kernel);
+    }
+    Image filteredImage = createFilteredImage(image, filteredChannels);
+    event.record(filterOption.name(), kernel.length, separatedKernel != null,
+            width, height);
+    return filteredImage;
+  }
+
+  /**
+   * Extracts the red, green and blue channels of the image as row major
+   * arrays.
+   *
+   * @param image the image to extract the channels from
+   * @return the red, green and blue channels in that order
+   */
+  private static int[][] extractChannels(Image image) {
     int width = image.getWidth();
     int height = image.getHeight();
-    int radius = filterOption.getKernel().length / 2;
+    int[][] channels = new int[3][width * height];
+    ParallelUtils.forEachRowBand(height, width, (startRow, endRow) -> {
+      for (int row = startRow; row < endRow; row++) {
+        for (int col = 0; col < width; col++) {
+          int index = row * width + col;
+          if (image instanceof PackedImage) {
+            int rgb = ((PackedImage) image).getRGB(row, col);
+            channels[0][index] = PackedImage.red(rgb);
+            channels[1][index] = PackedImage.green(rgb);
+            channels[2][index] = PackedImage.blue(rgb);
+          } else {
+            Pixel pixel = image.getPixel(row, col);
+            channels[0][index] = pixel.getRed();
+            channels[1][index] = pixel.getGreen();
+            channels[2][index] = pixel.getBlue();
+          }
+        }
+      }
+    });
+    return channels;
+  }
+
+  /**
+   * Creates the filtered image from the filtered channels.
+   * A packed image stays packed, otherwise every new pixel is created from
+   * the original pixel so the type of the pixel is retained.
+   *
+   * @param image    the image the filter was applied to
+   * @param channels the filtered red, green and blue channels
+   * @return the filtered image
+   * @throws ImageProcessorException if the image cannot be created
+   */
+  private static Image createFilteredImage(Image image, int[][] channels)
+          throws ImageProcessorException {
+    int width = image.getWidth();
+    int height = image.getHeight();
+    if (image instanceof PackedImage) {
+      int[] packedPixels = new int[width * height];
+      ParallelUtils.forEachRowBand(height, width, (startRow, endRow) -> {
+        for (int index = startRow * width; index < endRow * width; index++) {
+          packedPixels[index] = PackedImage.pack(channels[0][index],
+                  channels[1][index], channels[2][index]);
+        }
+      });
+      return Factory.createImage(width, height, packedPixels);
+    }
     Pixel[][] newPixelArray = new Pixel[height][width];
+    ParallelUtils.forEachRowBand(height, width, (startRow, endRow) -> {
+      for (int row = startRow; row < endRow; row++) {
+        for (int col = 0; col < width; col++) {
+          int index = row * width + col;
+          newPixelArray[row][col] = image.getPixel(row, col)
+                  .createPixel(channels[0][index], channels[1][index],
+                          channels[2][index]);
+        }
+      }
+    });
+    return Factory.createImage(newPixelArray);
+  }
+
+  /**
+   * Applies the kernel to every pixel directly.
+   * Weight kernel[ky][kx] is applied to the pixel kx rows and ky columns away
+   * from the centre, and the weights are summed in the order they appear
+   * in the kernel. Interior pixels skip the bounds checks.
+   *
+   * @param channels the red, green and blue channels
+   * @param width    the width of the image
+   * @param height   the height of the image
+   * @param kernel   the kernel to apply
+   * @return the filtered red, green and blue channels
+   */
+  private static int[][] convolveDirect(int[][] channels, int width,
+                                        int height, double[][] kernel) {
+    int radius = kernel.length / 2;
+    int size = 2 * radius + 1;
+    int[] offsets = new int[size * size];
+    double[] weights = new double[size * size];
+    int tap = 0;
+    for (int ky = -radius; ky <= radius; ky++) {
+      for (int kx = -radius; kx <= radius; kx++) {
+        offsets[tap] = kx * width + ky;
+        weights[tap] = kernel[ky + radius][kx + radius];
+        tap++;
+      }
+    }
+
+    int[] red = channels[0];
+    int[] green = channels[1];
+    int[] blue = channels[2];
+    int[][] result = new int[3][width * height];
+    ParallelUtils.forEachRowBand(height, width, (startRow, endRow) -> {
+      for (int row = startRow; row < endRow; row++) {
+        boolean interiorRow = row >= radius && row < height - radius;
+        for (int col = 0; col < width; col++) {
+          int index = row * width + col;
+          double redSum = 0;
+          double greenSum = 0;
+          double blueSum = 0;
+          if (interiorRow && col >= radius && col < width - radius) {
+            for (int i = 0; i < offsets.length; i++) {
+              int neighbour = index + offsets[i];
+              redSum += red[neighbour] * weights[i];
+              greenSum += green[neighbour] * weights[i];
+              blueSum += blue[neighbour] * weights[i];
+            }
+          } else {
+            for (int ky = -radius; ky <= radius; ky++) {
+              for (int kx = -radius; kx <= radius; kx++) {
+                int pixelX = row + kx;
+                int pixelY = col + ky;
+                if (pixelX >= 0 && pixelX < height && pixelY >= 0 && pixelY < width) {
+                  int neighbour = pixelX * width + pixelY;
+                  double kernelValue = kernel[ky + radius][kx + radius];
+                  redSum += red[neighbour] * kernelValue;
+                  greenSum += green[neighbour] * kernelValue;
+                  blueSum += blue[neighbour] * kernelValue;
+                }
+              }
+            }
+          }
+          result[0][index] = (int) redSum;
+          result[1][index] = (int) greenSum;
+          result[2][index] = (int) blueSum;
+        }
+      }
+    });
+    return result;
+  }
 
-    for (int row = 0; row < height; row++) {
-      for (int col = 0; col < width; col++) {
-
-        double redSum = 0;
-        double greenSum = 0;
-        double blueSum = 0;
-
-        for (int ky = -radius; ky <= radius; ky++) {
-          for (int kx = -radius; kx <= radius; kx++) {
-            int pixelX = row + kx;
-            int pixelY = col + ky;
-            if (pixelX >= 0 && pixelX < height && pixelY >= 0 && pixelY < width) {
-              Pixel pixel = image.getPixel(pixelX, pixelY);
-              double kernelValue =
-                      filterOption.getKernel()[ky + radius][kx + radius];
-
-              redSum += pixel.getRed() * kernelValue;
-              greenSum += pixel.getGreen() * kernelValue;
-              blueSum += pixel.getBlue() * kernelValue;
+  /**
+   * Applies a separated kernel as a pass along the rows followed by a pass
+   * along the columns.
+   * Weights which fall outside the image are skipped in both passes, which
+   * is the same as skipping them in the two dimensional kernel.
+   *
+   * @param channels      the red, green and blue channels
+   * @param width         the width of the image
+   * @param height        the height of the image
+   * @param columnWeights the weights applied to neighbouring columns
+   * @param rowWeights    the weights applied to neighbouring rows
+   * @return the filtered red, green and blue channels
+   */
+  private static int[][] convolveSeparable(int[][] channels, int width,
+                                           int height, double[] columnWeights,
+                                           double[] rowWeights) {
+    int radius = rowWeights.length / 2;
+    int[][] result = new int[3][];
+    for (int channel = 0; channel < channels.length; channel++) {
+      int[] values = channels[channel];
+      double[] rowPass = new double[width * height];
+      int[] columnPass = new int[width * height];
+      ParallelUtils.forEachRowBand(height, width, (startRow, endRow) -> {
+        for (int row = startRow; row < endRow; row++) {
+          int minOffset = Math.max(-radius, -row);
+          int maxOffset = Math.min(radius, height - 1 - row);
+          for (int col = 0; col < width; col++) {
+            double sum = 0;
+            for (int kx = minOffset; kx <= maxOffset; kx++) {
+              sum += values[(row + kx) * width + col] * rowWeights[kx + radius];
+            }
+            rowPass[row * width + col] = sum;
+          }
+        }
+      });
+      ParallelUtils.forEachRowBand(height, width, (startRow, endRow) -> {
+        for (int row = startRow; row < endRow; row++) {
+          int offset = row * width;
+          for (int col = 0; col < width; col++) {
+            int minOffset = Math.max(-radius, -col);
+            int maxOffset = Math.min(radius, width - 1 - col);
+            double sum = 0;
+            for (int ky = minOffset; ky <= maxOffset; ky++) {
+              sum += rowPass[offset + col + ky] * columnWeights[ky + radius];
             }
+            columnPass[offset + col] = (int) sum;
           }
         }
-        newPixelArray[row][col] = image.getPixel(row, col)
-                .createPixel((int) redSum, (int) greenSum, (int) blueSum);
+      });
+      result[channel] = columnPass;
+    }
+    return result;
+  }
+
+  /**
+   * Separates the kernel into the weights applied along the columns and
+   * the rows such that kernel[ky][kx] = columnWeights[ky] * rowWeights[kx].
+   * The kernel is only separated if every weight is a dyadic fraction small
+   * enough that every partial sum of the convolution is exact, as the order
+   * of the sums then does not change the result.
+   *
+   * @param kernel the kernel to separate
+   * @return the column weights and the row weights in that order, or null if
+   *         the kernel cannot be separated exactly
+   */
+  private static double[][] separateExactKernel(double[][] kernel) {
+    int size = kernel.length;
+    int pivotRow = 0;
+    int pivotCol = 0;
+    for (int i = 0; i < size; i++) {
+      if (kernel[i].length != size) {
+        return null;
+      }
+      for (int j = 0; j < size; j++) {
+        if (Math.abs(kernel[i][j]) > Math.abs(kernel[pivotRow][pivotCol])) {
+          pivotRow = i;
+          pivotCol = j;
+        }
       }
     }
+    double pivot = kernel[pivotRow][pivotCol];
+    if (pivot == 0) {
+      return null;
+    }
 
-    return Factory.createImage(newPixelArray);
+    double[] columnWeights = new double[size];
+    double[] rowWeights = new double[size];
+    for (int i = 0; i < size; i++) {
+      columnWeights[i] = kernel[i][pivotCol] / pivot;
+      rowWeights[i] = kernel[pivotRow][i];
+    }
+    for (int i = 0; i < size; i++) {
+      for (int j = 0; j < size; j++) {
+        if (columnWeights[i] * rowWeights[j] != kernel[i][j]) {
+          return null;
+        }
+      }
+    }
+
+    int columnExponent = dyadicExponent(columnWeights);
+    int rowExponent = dyadicExponent(rowWeights);
+    if (columnExponent < 0 || rowExponent < 0) {
+      return null;
+    }
+    double largestSum = MAX_CHANNEL_VALUE * absoluteSum(columnWeights)
+            * absoluteSum(rowWeights);
+    if (Math.scalb(largestSum, columnExponent + rowExponent)
+            >= EXACT_DOUBLE_BOUND) {
+      return null;
+    }
+    return new double[][]{columnWeights, rowWeights};
+  }
+
+  /**
+   * Finds the smallest power of two which turns every weight into an
+   * integer when the weight is multiplied by it.
+   *
+   * @param weights the weights to check
+   * @return the exponent of the power of two or -1 if there is none
+   */
+  private static int dyadicExponent(double[] weights) {
+    int exponent = 0;
+    for (double weight : weights) {
+      while (exponent <= MAX_DYADIC_EXPONENT
+              && Math.scalb(weight, exponent) != Math.rint(Math.scalb(weight, exponent))) {
+        exponent++;
+      }
+      if (exponent > MAX_DYADIC_EXPONENT) {
+        return -1;
+      }
+    }
+    return exponent;
+  }
+
+  /**
+   * Sums the absolute values of the weights.
+   *
+   * @param weights the weights to sum
+   * @return the sum of the absolute values
+   */
+  private static double absoluteSum(double[] weights) {
+    double sum = 0;
+    for (double weight : weights) {
+      sum += Math.abs(weight);
+    }
+    return sum;
   }
 }
@@ -1,22 +1,38 @@
 package utility;
 
 import java.awt.image.BufferedImage;
-import java.io.BufferedWriter;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.util.Scanner;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 
 import javax.imageio.ImageIO;
 
+import compressors.HaarImageCodec;
 import exception.ImageProcessorException;
 import factories.Factory;
 import model.enumeration.ImageType;
 import model.enumeration.PixelType;
+import model.enumeration.RawLayout;
 import model.pixels.Pixel;
 import model.visual.Image;
+import model.visual.LazyImage;
+import model.visual.PackedPixelSource;
+import utility.events.ImageReadEvent;
+import utility.events.ImageWriteEvent;
 
 /**
  * Utility class for reading and writing images.
@@ -24,6 +40,11 @@ import model.visual.Image;
  */
 public class IOUtils {
 
+  /**
+   * Size of the buffer of the streams used to read and write files.
+   */
+  private static final int STREAM_BUFFER_SIZE = 1 << 16;
+
   /**
    * Private constructor to prevent instantiation.
    */
@@ -35,14 +56,44 @@ public class IOUtils {
    * Reads an image from a file.
    * Uses the ImageIO class to read the image.
    *
+   * An ImageReadEvent is recorded for the flight recorder, also when the
+   * read fails.
+   *
    * @param path      the path to the file.
    * @param imageType the type of the image.
    * @return the image read from the file.
    * @throws ImageProcessorException if the image cannot be read.
    */
   public static Image read(String path, ImageType imageType) throws ImageProcessorException {
+    ImageReadEvent event = new ImageReadEvent();
+    event.begin();
+    Image image = null;
+    boolean failed = true;
+    try {
+      image = readImage(path, imageType);
+      failed = false;
+      return image;
+    } finally {
+      event.record(path, imageType, image, failed);
+    }
+  }
+
+  /**
+   * Reads an image from a file in the given format.
+   *
+   * @param path      the path to the file.
+   * @param imageType the type of the image.
+   * @return the image read from the file.
+   * @throws ImageProcessorException if the image cannot be read.
+   */
+  private static Image readImage(String path, ImageType imageType)
+          throws ImageProcessorException {
     if (ImageType.PPM.equals(imageType)) {
       return readImageForPPM(path);
+    } else if (ImageType.HAAR.equals(imageType)) {
+      return readImageForHaar(path);
+    } else if (ImageType.RAW.equals(imageType)) {
+      return readImageForRaw(path);
     } else {
       return readImageUsingIOImage(path);
     }
@@ -50,49 +101,63 @@ public class IOUtils {
 
   /**
    * Reads a PPM image from a file.
-   * Custom implementation for reading PPM images.
+   * Both plain P3 and binary P6 images are supported.
    *
    * @param path the path to the file.
    * @return the image read from the file.
    * @throws ImageProcessorException if the image cannot be read.
    */
   private static Image readImageForPPM(String path) throws ImageProcessorException {
-    Scanner scanner;
-    try {
-      scanner = new Scanner(new FileInputStream(path));
-    }
-    catch (FileNotFoundException e) {
+    try (InputStream input = new BufferedInputStream(new FileInputStream(path),
+            STREAM_BUFFER_SIZE)) {
+      return PPMCodec.read(input);
+    } catch (FileNotFoundException e) {
       throw new ImageProcessorException(String.format("File %s not found!", path));
+    } catch (IOException e) {
+      throw new ImageProcessorException("Error reading PPM file: " + path, e);
     }
-    StringBuilder builder = new StringBuilder();
-    while (scanner.hasNextLine()) {
-      String line = scanner.nextLine();
-      if (line.charAt(0) != '#') {
-        builder.append(line).append(System.lineSeparator());
-      }
-    }
-    scanner = new Scanner(builder.toString());
-    String token = scanner.next();
-    if (!token.equals("P3")) {
-      throw new ImageProcessorException("Invalid PPM file: plain RAW file should begin with P3");
+  }
+
+  /**
+   * Reads an image stored as Haar coefficients from a file.
+   *
+   * @param path the path to the file.
+   * @return the image read from the file.
+   * @throws ImageProcessorException if the image cannot be read.
+   */
+  private static Image readImageForHaar(String path) throws ImageProcessorException {
+    try (InputStream input = new BufferedInputStream(new FileInputStream(path))) {
+      return HaarImageCodec.read(input);
+    } catch (FileNotFoundException e) {
+      throw new ImageProcessorException(String.format("File %s not found!", path));
+    } catch (IOException e) {
+      throw new ImageProcessorException("Error reading HAAR file: " + path, e);
     }
-    int width = scanner.nextInt();
-    int height = scanner.nextInt();
-    int maxValue = scanner.nextInt();
-    Pixel[][] pixelArray = new Pixel[height][width];
-    for (int i = 0; i < height; i++) {
-      for (int j = 0; j < width; j++) {
-        int r = scanner.nextInt();
-        int g = scanner.nextInt();
-        int b = scanner.nextInt();
-        pixelArray[i][j] = Factory.createRGBPixel(r, g, b);
-      }
+  }
+
+  /**
+   * Maps a RAW image file into memory.
+   * The pixels of the image are read from the mapping when they are needed.
+   *
+   * @param path the path to the file.
+   * @return the image read from the file.
+   * @throws ImageProcessorException if the image cannot be read.
+   */
+  private static Image readImageForRaw(String path) throws ImageProcessorException {
+    try {
+      return RawImageCodec.read(Paths.get(path));
+    } catch (NoSuchFileException e) {
+      throw new ImageProcessorException(String.format("File %s not found!", path));
+    } catch (IOException e) {
+      throw new ImageProcessorException("Error reading RAW file: " + path, e);
     }
-    return Factory.createImage(pixelArray);
   }
 
   /**
    * Reads an image from a file using the ImageIO class.
+   * The pixels are read a row at a time into a packed image. Rows of the
+   * common sRGB image types are read straight from the raster, other images
+   * are converted to RGB by the color model of the image.
    *
    * @param path the path to the file.
    * @return the image read from the file.
@@ -104,25 +169,68 @@ public class IOUtils {
       BufferedImage image = ImageIO.read(file);
       int width = image.getWidth();
       int height = image.getHeight();
-      Pixel[][] pixelArray = new Pixel[height][width];
+      // Rejects the image types whose pixels are not supported.
+      PixelType.fromBufferedImageType(image.getType());
+      int[] pixels = new int[width * height];
+      int[] rowPixels = new int[width];
+      int[] rowSamples = new int[width * 4];
       for (int row = 0; row < height; row++) {
-        for (int col = 0; col < width; col++) {
-          pixelArray[row][col] = Factory.createPixel(
-                  image.getRGB(col, row),
-                  PixelType.fromBufferedImageType(image.getType())
-          );
-        }
+        readRow(image, row, rowPixels, rowSamples);
+        System.arraycopy(rowPixels, 0, pixels, row * width, width);
       }
-      return Factory.createImage(pixelArray);
+      return Factory.createImage(width, height, pixels);
     } catch (IOException e) {
       throw new ImageProcessorException("Error loading the image file", e);
     }
   }
 
+  /**
+   * Reads a row of the image as pixels packed as 0xRRGGBB.
+   * The same values are read as BufferedImage.getRGB, ignoring the alpha.
+   *
+   * @param image      the image to read from.
+   * @param row        the row to read.
+   * @param rowPixels  the array to fill with the packed pixels of the row.
+   * @param rowSamples scratch space for four samples per pixel of the row.
+   */
+  private static void readRow(BufferedImage image, int row, int[] rowPixels,
+                              int[] rowSamples) {
+    int width = image.getWidth();
+    Raster raster = image.getRaster();
+    boolean standardRgb = image.getColorModel().getColorSpace().isCS_sRGB();
+    switch (standardRgb ? image.getType() : BufferedImage.TYPE_CUSTOM) {
+      case BufferedImage.TYPE_INT_RGB:
+      case BufferedImage.TYPE_INT_ARGB:
+        raster.getDataElements(0, row, width, 1, rowPixels);
+        for (int col = 0; col < width; col++) {
+          rowPixels[col] &= 0xffffff;
+        }
+        break;
+      case BufferedImage.TYPE_3BYTE_BGR:
+      case BufferedImage.TYPE_4BYTE_ABGR:
+        // Samples are in the order of the bands, red, green, blue and alpha.
+        int bands = raster.getNumBands();
+        raster.getPixels(0, row, width, 1, rowSamples);
+        for (int col = 0; col < width; col++) {
+          int offset = col * bands;
+          rowPixels[col] = (rowSamples[offset] << 16) | (rowSamples[offset + 1] << 8)
+                  | rowSamples[offset + 2];
+        }
+        break;
+      default:
+        image.getRGB(0, row, width, 1, rowPixels, 0, width);
+        for (int col = 0; col < width; col++) {
+          rowPixels[col] &= 0xffffff;
+        }
+        break;
+    }
+  }
+
 
   /**
    * Write an image from a file.
    * Uses the ImageIO class to write the image.
+   * An ImageWriteEvent is recorded for the flight recorder.
    *
    * @param path      the path to the file.
    * @param image     the image to write.
@@ -131,9 +239,79 @@ public class IOUtils {
    */
   public static void write(Image image, String path, ImageType imageType)
           throws ImageProcessorException {
+    write(image, path, imageType, 0);
+  }
+
+  /**
+   * Write an image from a file.
+   * A HAAR file is compressed by the given percentage, which is lossy unless
+   * the percentage is 0. The percentage is ignored by the other types.
+   * An ImageWriteEvent is recorded for the flight recorder.
+   *
+   * @param path       the path to the file.
+   * @param image      the image to write.
+   * @param imageType  the type of the image.
+   * @param percentage the percentage by which to compress a HAAR file.
+   * @throws ImageProcessorException if the image cannot be written.
+   */
+  public static void write(Image image, String path, ImageType imageType,
+                           int percentage)
+          throws ImageProcessorException {
+    write(image, path, imageType, percentage, false);
+  }
+
+  /**
+   * Write an image from a file.
+   * A HAAR file is compressed by the given percentage, which is lossy unless
+   * the percentage is 0. A PPM file is written as a binary P6 file if binary
+   * is true, and as a plain P3 file otherwise. Both are ignored by the other
+   * types.
+   * An ImageWriteEvent is recorded for the flight recorder, also when the
+   * write fails.
+   *
+   * @param path       the path to the file.
+   * @param image      the image to write.
+   * @param imageType  the type of the image.
+   * @param percentage the percentage by which to compress a HAAR file.
+   * @param binary     whether to write a PPM file as a binary file.
+   * @throws ImageProcessorException if the image cannot be written.
+   */
+  public static void write(Image image, String path, ImageType imageType,
+                           int percentage, boolean binary)
+          throws ImageProcessorException {
+    ImageWriteEvent event = new ImageWriteEvent();
+    event.begin();
+    boolean failed = true;
+    try {
+      writeImage(image, path, imageType, percentage, binary);
+      failed = false;
+    } finally {
+      event.record(path, imageType, image, failed);
+    }
+  }
+
+  /**
+   * Writes an image to a file in the given format.
+   *
+   * @param image      the image to write.
+   * @param path       the path to the file.
+   * @param imageType  the type of the image.
+   * @param percentage the percentage by which to compress a HAAR file.
+   * @param binary     whether to write a PPM file as a binary file.
+   * @throws ImageProcessorException if the image cannot be written.
+   */
+  private static void writeImage(Image image, String path, ImageType imageType,
+                                 int percentage, boolean binary)
+          throws ImageProcessorException {
     createDirectoryIfNotPresent(path);
-    if (ImageType.PPM.equals(imageType)) {
+    if (ImageType.PPM.equals(imageType) && binary) {
+      writeImageForBinaryPPM(image, path);
+    } else if (ImageType.PPM.equals(imageType)) {
       writeImageForPPM(image, path);
+    } else if (ImageType.HAAR.equals(imageType)) {
+      writeImageForHaar(image, path, percentage);
+    } else if (ImageType.RAW.equals(imageType)) {
+      writeImageForRaw(image, path);
     } else {
       writeImageUsingImageIO(image, path);
     }
@@ -142,6 +320,9 @@ public class IOUtils {
 
   /**
    * Converts an Image object to a BufferedImage object.
+   * The pixels are written into the raster a row at a time. A lazy image is
+   * materialised first, so that the pixels of an image which gives packed
+   * pixels are copied without creating a Pixel for every pixel.
    *
    * @param image the Image object to convert.
    * @return the BufferedImage object.
@@ -154,14 +335,25 @@ public class IOUtils {
     );
     int width = image.getWidth();
     int height = image.getHeight();
+    WritableRaster raster = bufferedImage.getRaster();
+    int[] rowPixels = new int[width];
+    Image source = image instanceof LazyImage
+            ? ((LazyImage) image).materialise() : image;
 
     for (int row = 0; row < height; row++) {
-      for (int col = 0; col < width; col++) {
-        Pixel pixel = image.getPixel(row, col);
-        int rgb =
-                (pixel.getRed() << 16) | (pixel.getGreen() << 8) | pixel.getBlue();
-        bufferedImage.setRGB(col, row, rgb);
+      if (source instanceof PackedPixelSource) {
+        PackedPixelSource packedSource = (PackedPixelSource) source;
+        for (int col = 0; col < width; col++) {
+          rowPixels[col] = packedSource.getRGB(row, col);
+        }
+      } else {
+        for (int col = 0; col < width; col++) {
+          Pixel pixel = source.getPixel(row, col);
+          rowPixels[col] =
+                  (pixel.getRed() << 16) | (pixel.getGreen() << 8) | pixel.getBlue();
+        }
       }
+      raster.setDataElements(0, row, width, 1, rowPixels);
     }
     return bufferedImage;
   }
@@ -192,7 +384,7 @@ public class IOUtils {
   }
 
   /**
-   * Writes an image to a PPM file.
+   * Writes an image to a plain P3 PPM file.
    *
    * @param image the image to write.
    * @param path  the path to the file.
@@ -200,23 +392,102 @@ public class IOUtils {
    */
   private static void writeImageForPPM(Image image, String path)
           throws ImageProcessorException {
-    try (BufferedWriter writer = new BufferedWriter(new FileWriter(path))) {
-      writer.write("P3\n");
-      writer.write(image.getWidth() + " " + image.getHeight() + "\n");
-      writer.write("255\n"); // max color value
-      for (int row = 0; row < image.getHeight(); row++) {
-        for (int col = 0; col < image.getWidth(); col++) {
-          Pixel pixel = image.getPixel(row, col);
-          writer.write(pixel.getRed() + " ");
-          writer.write(pixel.getGreen() + " ");
-          writer.write(pixel.getBlue() + " ");
-        }
-        writer.write("\n");
-      }
+    try (OutputStream output = new BufferedOutputStream(new FileOutputStream(path),
+            STREAM_BUFFER_SIZE)) {
+      PPMCodec.writePlain(image, output);
+    } catch (IOException e) {
+      throw new ImageProcessorException("Error writing PPM file: " + path, e);
+    }
+  }
+
+  /**
+   * Writes an image to a binary P6 PPM file.
+   * Binary files are about a quarter of the size of plain files and are
+   * much faster to read and write.
+   *
+   * @param image the image to write.
+   * @param path  the path to the file.
+   * @throws ImageProcessorException if the image cannot be written.
+   */
+  private static void writeImageForBinaryPPM(Image image, String path)
+          throws ImageProcessorException {
+    try (OutputStream output = new BufferedOutputStream(new FileOutputStream(path),
+            STREAM_BUFFER_SIZE)) {
+      PPMCodec.writeBinary(image, output);
     } catch (IOException e) {
       throw new ImageProcessorException("Error writing PPM file: " + path, e);
     }
+  }
 
+  /**
+   * Writes an image to a file as Haar coefficients.
+   *
+   * @param image      the image to write.
+   * @param path       the path to the file.
+   * @param percentage the percentage by which to compress the image.
+   * @throws ImageProcessorException if the image cannot be written.
+   */
+  private static void writeImageForHaar(Image image, String path, int percentage)
+          throws ImageProcessorException {
+    try (OutputStream output = new BufferedOutputStream(new FileOutputStream(path))) {
+      HaarImageCodec.write(image, percentage, output);
+    } catch (IOException e) {
+      throw new ImageProcessorException("Error writing HAAR file: " + path, e);
+    }
+  }
+
+  /**
+   * Writes an image to a RAW file with interleaved channels.
+   * An image read from a RAW file reads its pixels from a mapping of the
+   * file, so the image is first written to a temporary file in the same
+   * directory which then replaces the file. Saving an image back to the
+   * file it was loaded from never truncates the file the pixels are read
+   * from.
+   *
+   * @param image the image to write.
+   * @param path  the path to the file.
+   * @throws ImageProcessorException if the image cannot be written.
+   */
+  private static void writeImageForRaw(Image image, String path)
+          throws ImageProcessorException {
+    Path target = Paths.get(path).toAbsolutePath();
+    Path temporary = null;
+    try {
+      // File creates the temporary file with the permissions of a new file.
+      temporary = File.createTempFile(target.getFileName().toString(), ".tmp",
+              target.getParent().toFile()).toPath();
+      try (OutputStream output = new BufferedOutputStream(
+              Files.newOutputStream(temporary), STREAM_BUFFER_SIZE)) {
+        RawImageCodec.write(image, output, RawLayout.INTERLEAVED);
+      }
+      try {
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+      }
+      temporary = null;
+    } catch (IOException e) {
+      throw new ImageProcessorException("Error writing RAW file: " + path, e);
+    } finally {
+      deleteQuietly(temporary);
+    }
+  }
+
+  /**
+   * Deletes the given file if it exists, ignoring any error.
+   *
+   * @param path the file to delete, may be null.
+   */
+  private static void deleteQuietly(Path path) {
+    if (path == null) {
+      return;
+    }
+    try {
+      Files.deleteIfExists(path);
+    } catch (IOException e) {
+      // The temporary file is left behind, the error is already reported.
+    }
   }
 
   /**
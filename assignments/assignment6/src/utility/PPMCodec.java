@@ -0,0 +1,337 @@
+package utility;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import exception.ImageProcessorException;
+import factories.Factory;
+import model.visual.Image;
+import model.visual.PackedImage;
+
+/**
+ * Reads and writes PPM images byte by byte over buffered streams.
+ * Both the plain format, P3, where the channels are written as decimal
+ * numbers and the binary format, P6, where every channel is a byte, are
+ * supported. Numbers are parsed straight from the bytes of the stream and
+ * written into a byte buffer, so no line, string or scanner is created
+ * for every value and the file is never held in memory as text.
+ * Images read are packed images, built straight from the packed channels.
+ */
+final class PPMCodec {
+
+  /**
+   * Size of the buffer used to write the file.
+   */
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  /**
+   * Largest channel value written.
+   */
+  private static final int MAX_VALUE = 255;
+
+  private PPMCodec() {
+    //Empty private constructor to prevent instantiation.
+  }
+
+  /**
+   * Reads a P3 or P6 image from the given stream.
+   * Comments starting with '#' are skipped until the end of the line.
+   * Channels of a plain image are used as they are, clamped between 0 and
+   * 255. Channels of a binary image with a maximum value over 255 take two
+   * bytes and are scaled down to 255.
+   *
+   * @param input the buffered stream to read from
+   * @return the image read
+   * @throws ImageProcessorException if the stream is not a valid PPM image
+   * @throws IOException             if the stream cannot be read
+   */
+  static Image read(InputStream input) throws ImageProcessorException, IOException {
+    Tokenizer tokenizer = new Tokenizer(input);
+    String magic = tokenizer.nextToken();
+    boolean binary;
+    if ("P3".equals(magic)) {
+      binary = false;
+    } else if ("P6".equals(magic)) {
+      binary = true;
+    } else {
+      throw new ImageProcessorException("Invalid PPM file: plain RAW file should "
+              + "begin with P3");
+    }
+    int width = tokenizer.nextInt();
+    int height = tokenizer.nextInt();
+    int maxValue = tokenizer.nextInt();
+    if (width <= 0 || height <= 0 || maxValue <= 0 || maxValue > 65535
+            || (long) width * height > Integer.MAX_VALUE) {
+      throw new ImageProcessorException("Invalid PPM file: invalid header");
+    }
+
+    int[] pixels = new int[width * height];
+    if (binary) {
+      // A single whitespace character separates the header from the data.
+      readBinaryPixels(input, pixels, maxValue);
+    } else {
+      for (int i = 0; i < pixels.length; i++) {
+        int red = clamp(tokenizer.nextInt());
+        int green = clamp(tokenizer.nextInt());
+        int blue = clamp(tokenizer.nextInt());
+        pixels[i] = PackedImage.pack(red, green, blue);
+      }
+    }
+    return Factory.createImage(width, height, pixels);
+  }
+
+  /**
+   * Writes the image as a plain P3 image to the given stream.
+   * Every row of the image is written on its own line.
+   *
+   * @param image  the image to write
+   * @param output the stream to write to
+   * @throws ImageProcessorException if the image cannot be packed
+   * @throws IOException             if the stream cannot be written
+   */
+  static void writePlain(Image image, OutputStream output)
+          throws ImageProcessorException, IOException {
+    PackedImage packedImage = PackedImage.fromImage(image);
+    int width = packedImage.getWidth();
+    int height = packedImage.getHeight();
+    writeHeader(output, "P3", width, height);
+    byte[] buffer = new byte[BUFFER_SIZE];
+    int position = 0;
+    for (int row = 0; row < height; row++) {
+      for (int col = 0; col < width; col++) {
+        // Every channel takes at most 3 digits and a space.
+        if (position > buffer.length - 12) {
+          output.write(buffer, 0, position);
+          position = 0;
+        }
+        int rgb = packedImage.getRGB(row, col);
+        position = writeChannel(buffer, position, PackedImage.red(rgb));
+        position = writeChannel(buffer, position, PackedImage.green(rgb));
+        position = writeChannel(buffer, position, PackedImage.blue(rgb));
+      }
+      if (position == buffer.length) {
+        output.write(buffer, 0, position);
+        position = 0;
+      }
+      buffer[position++] = '\n';
+    }
+    output.write(buffer, 0, position);
+    output.flush();
+  }
+
+  /**
+   * Writes the image as a binary P6 image to the given stream.
+   *
+   * @param image  the image to write
+   * @param output the stream to write to
+   * @throws ImageProcessorException if the image cannot be packed
+   * @throws IOException             if the stream cannot be written
+   */
+  static void writeBinary(Image image, OutputStream output)
+          throws ImageProcessorException, IOException {
+    PackedImage packedImage = PackedImage.fromImage(image);
+    int width = packedImage.getWidth();
+    int height = packedImage.getHeight();
+    writeHeader(output, "P6", width, height);
+    byte[] rowBytes = new byte[width * 3];
+    for (int row = 0; row < height; row++) {
+      for (int col = 0; col < width; col++) {
+        int rgb = packedImage.getRGB(row, col);
+        rowBytes[col * 3] = (byte) PackedImage.red(rgb);
+        rowBytes[col * 3 + 1] = (byte) PackedImage.green(rgb);
+        rowBytes[col * 3 + 2] = (byte) PackedImage.blue(rgb);
+      }
+      output.write(rowBytes);
+    }
+    output.flush();
+  }
+
+  /**
+   * Writes the magic number, the dimensions and the maximum value.
+   *
+   * @param output the stream to write to
+   * @param magic  the magic number of the format
+   * @param width  the width of the image
+   * @param height the height of the image
+   * @throws IOException if the stream cannot be written
+   */
+  private static void writeHeader(OutputStream output, String magic, int width,
+                                  int height) throws IOException {
+    String header = magic + "\n" + width + " " + height + "\n" + MAX_VALUE + "\n";
+    output.write(header.getBytes(StandardCharsets.US_ASCII));
+  }
+
+  /**
+   * Writes a channel value followed by a space into the buffer.
+   *
+   * @param buffer   the buffer to write to
+   * @param position the position to write at
+   * @param value    the channel value between 0 and 255
+   * @return the position after the space
+   */
+  private static int writeChannel(byte[] buffer, int position, int value) {
+    int next = position;
+    if (value >= 100) {
+      buffer[next++] = (byte) ('0' + value / 100);
+    }
+    if (value >= 10) {
+      buffer[next++] = (byte) ('0' + value / 10 % 10);
+    }
+    buffer[next++] = (byte) ('0' + value % 10);
+    buffer[next++] = ' ';
+    return next;
+  }
+
+  /**
+   * Reads the channels of a binary image into packed pixels.
+   *
+   * @param input    the stream positioned at the first channel
+   * @param pixels   the pixels to fill
+   * @param maxValue the maximum value of a channel
+   * @throws ImageProcessorException if the stream ends too early
+   * @throws IOException             if the stream cannot be read
+   */
+  private static void readBinaryPixels(InputStream input, int[] pixels,
+                                       int maxValue)
+          throws ImageProcessorException, IOException {
+    int bytesPerChannel = maxValue > MAX_VALUE ? 2 : 1;
+    int pixelsPerChunk = Math.max(1, BUFFER_SIZE / (3 * bytesPerChannel));
+    byte[] chunk = new byte[pixelsPerChunk * 3 * bytesPerChannel];
+    int[] channels = new int[3];
+    for (int start = 0; start < pixels.length; start += pixelsPerChunk) {
+      int count = Math.min(pixelsPerChunk, pixels.length - start);
+      readFully(input, chunk, count * 3 * bytesPerChannel);
+      for (int i = 0; i < count; i++) {
+        for (int channel = 0; channel < 3; channel++) {
+          int offset = (i * 3 + channel) * bytesPerChannel;
+          int value = chunk[offset] & 0xff;
+          if (bytesPerChannel == 2) {
+            value = (value << 8) | (chunk[offset + 1] & 0xff);
+          }
+          channels[channel] = maxValue == MAX_VALUE ? value
+                  : clamp((int) Math.round(value * (double) MAX_VALUE / maxValue));
+        }
+        pixels[start + i] = PackedImage.pack(channels[0], channels[1], channels[2]);
+      }
+    }
+  }
+
+  /**
+   * Reads exactly the given number of bytes.
+   *
+   * @param input  the stream to read from
+   * @param buffer the buffer to read into
+   * @param length the number of bytes to read
+   * @throws ImageProcessorException if the stream ends too early
+   * @throws IOException             if the stream cannot be read
+   */
+  private static void readFully(InputStream input, byte[] buffer, int length)
+          throws ImageProcessorException, IOException {
+    int read = 0;
+    while (read < length) {
+      int count = input.read(buffer, read, length - read);
+      if (count < 0) {
+        throw new ImageProcessorException("Invalid PPM file: file is truncated");
+      }
+      read += count;
+    }
+  }
+
+  /**
+   * Clamps a value between 0 and 255 the same way an RGB pixel does.
+   *
+   * @param value the value to clamp
+   * @return the clamped value
+   */
+  private static int clamp(int value) {
+    return Math.max(0, Math.min(MAX_VALUE, value));
+  }
+
+  /**
+   * Splits the header and the plain channels of a PPM image into tokens
+   * separated by whitespace, reading one byte at a time from a buffered
+   * stream.
+   */
+  private static final class Tokenizer {
+    private final InputStream input;
+
+    private Tokenizer(InputStream input) {
+      this.input = input;
+    }
+
+    /**
+     * Skips whitespace and comments and reads the next token.
+     * The whitespace character ending the token is consumed.
+     *
+     * @return the next token
+     * @throws ImageProcessorException if the stream ends before a token
+     * @throws IOException             if the stream cannot be read
+     */
+    String nextToken() throws ImageProcessorException, IOException {
+      int next = skipWhitespace();
+      StringBuilder token = new StringBuilder();
+      while (next >= 0 && !isWhitespace(next)) {
+        token.append((char) next);
+        next = input.read();
+      }
+      return token.toString();
+    }
+
+    /**
+     * Skips whitespace and comments and reads the next non-negative integer.
+     * The whitespace character ending the integer is consumed.
+     *
+     * @return the next integer
+     * @throws ImageProcessorException if the next token is not an integer
+     * @throws IOException             if the stream cannot be read
+     */
+    int nextInt() throws ImageProcessorException, IOException {
+      int next = skipWhitespace();
+      long value = 0;
+      int digits = 0;
+      while (next >= '0' && next <= '9') {
+        value = value * 10 + (next - '0');
+        if (value > Integer.MAX_VALUE) {
+          throw new ImageProcessorException("Invalid PPM file: number is too large");
+        }
+        digits++;
+        next = input.read();
+      }
+      if (digits == 0 || (next >= 0 && !isWhitespace(next))) {
+        throw new ImageProcessorException("Invalid PPM file: expected a number");
+      }
+      return (int) value;
+    }
+
+    /**
+     * Skips whitespace and comments.
+     *
+     * @return the first byte of the next token
+     * @throws ImageProcessorException if the stream ends
+     * @throws IOException             if the stream cannot be read
+     */
+    private int skipWhitespace() throws ImageProcessorException, IOException {
+      int next = input.read();
+      while (next >= 0 && (isWhitespace(next) || next == '#')) {
+        if (next == '#') {
+          while (next >= 0 && next != '\n' && next != '\r') {
+            next = input.read();
+          }
+        } else {
+          next = input.read();
+        }
+      }
+      if (next < 0) {
+        throw new ImageProcessorException("Invalid PPM file: file is truncated");
+      }
+      return next;
+    }
+
+    private static boolean isWhitespace(int value) {
+      return value == ' ' || value == '\t' || value == '\n' || value == '\r'
+              || value == '\f' || value == 0x0b;
+    }
+  }
+}
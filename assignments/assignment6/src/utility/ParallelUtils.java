@@ -0,0 +1,334 @@
+package utility;
+
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+
+/**
+ * Utility class to run per-pixel image operations in parallel.
+ * The rows of an image are split into bands which are processed on a
+ * ForkJoinPool. Every row is written by exactly one task, so the result
+ * is identical to processing the rows one after the other on a single
+ * thread.
+ * Small images are processed sequentially on the calling thread as the
+ * cost of forking outweighs the gain.
+ * The calling thread is checked for an interrupt before every band, so an
+ * operation whose task is cancelled with an interrupt stops at the next band
+ * with a CancellationException instead of processing the rest of the image.
+ * The calling thread waits for the bands interruptibly, as a thread waiting
+ * in ForkJoinPool.invoke does not see its interrupt until the whole image
+ * is processed. The interrupt status of the calling thread is kept.
+ */
+public class ParallelUtils {
+
+  /**
+   * Default number of pixels below which a band is processed sequentially.
+   */
+  public static final int DEFAULT_SEQUENTIAL_THRESHOLD = 1 << 14;
+
+  /**
+   * Pool on which the row bands are processed.
+   */
+  private static volatile ForkJoinPool pool = ForkJoinPool.commonPool();
+
+  /**
+   * Number of pixels below which a band is processed sequentially.
+   */
+  private static volatile int sequentialThreshold = DEFAULT_SEQUENTIAL_THRESHOLD;
+
+  private ParallelUtils() {
+    //Empty private constructor to prevent instantiation.
+  }
+
+  /**
+   * Represents an operation on a band of rows of an image.
+   * The operation must only write to the rows of the band it is given.
+   */
+  @FunctionalInterface
+  public interface RowBandOperation {
+    /**
+     * Processes the rows from startRow inclusive to endRow exclusive.
+     *
+     * @param startRow the first row of the band
+     * @param endRow   the row after the last row of the band
+     */
+    void processRows(int startRow, int endRow);
+  }
+
+  /**
+   * Represents a computation over a band of rows of an image giving a
+   * partial result, such as counts local to the band.
+   *
+   * @param <T> the type of the partial result
+   */
+  @FunctionalInterface
+  public interface RowBandFunction<T> {
+    /**
+     * Computes the partial result of the rows from startRow inclusive to
+     * endRow exclusive.
+     *
+     * @param startRow the first row of the band
+     * @param endRow   the row after the last row of the band
+     * @return the partial result of the band
+     */
+    T processRows(int startRow, int endRow);
+  }
+
+  /**
+   * Sets the pool on which the row bands are processed.
+   * A pool with a parallelism of 1 effectively makes every operation
+   * sequential.
+   *
+   * @param forkJoinPool the pool to use
+   */
+  public static void setPool(ForkJoinPool forkJoinPool) {
+    pool = Objects.requireNonNull(forkJoinPool, "Pool cannot be null");
+  }
+
+  /**
+   * Gets the pool on which the row bands are processed.
+   *
+   * @return the pool in use
+   */
+  public static ForkJoinPool getPool() {
+    return pool;
+  }
+
+  /**
+   * Sets the number of pixels below which a band is no longer split and
+   * is processed sequentially.
+   *
+   * @param threshold the number of pixels, must be positive
+   * @throws IllegalArgumentException if the threshold is not positive
+   */
+  public static void setSequentialThreshold(int threshold) {
+    if (threshold <= 0) {
+      throw new IllegalArgumentException("Sequential threshold must be "
+              + "positive");
+    }
+    sequentialThreshold = threshold;
+  }
+
+  /**
+   * Gets the number of pixels below which a band is processed sequentially.
+   *
+   * @return the sequential threshold
+   */
+  public static int getSequentialThreshold() {
+    return sequentialThreshold;
+  }
+
+  /**
+   * Runs the given operation over all rows of an image of the given size.
+   * If the image is smaller than the sequential threshold, the operation is
+   * run on the calling thread for all the rows at once.
+   *
+   * @param height    the number of rows of the image
+   * @param width     the number of pixels in a row
+   * @param operation the operation to run on every band
+   * @throws CancellationException if the calling thread is interrupted
+   */
+  public static void forEachRowBand(int height, int width,
+                                    RowBandOperation operation) {
+    Objects.requireNonNull(operation, "Operation cannot be null");
+    if (height <= 0) {
+      return;
+    }
+    Cancellation cancellation = new Cancellation(Thread.currentThread());
+    cancellation.check();
+    int rowsPerBand = Math.max(1, sequentialThreshold / Math.max(1, width));
+    if (height <= rowsPerBand || pool.getParallelism() <= 1) {
+      operation.processRows(0, height);
+      return;
+    }
+    invoke(new RowBandTask(0, height, rowsPerBand, operation, cancellation),
+            cancellation);
+  }
+
+  /**
+   * Computes the given function over all rows of an image of the given size
+   * and merges the partial results of the bands.
+   * Every band gets its own partial result, so the function does not need
+   * to synchronise, and the partial results are merged in row order as the
+   * bands are joined. The merger may reuse either of its arguments.
+   * If the image is smaller than the sequential threshold, the function is
+   * run on the calling thread for all the rows at once.
+   *
+   * @param height   the number of rows of the image
+   * @param width    the number of pixels in a row
+   * @param function the function computing the partial result of a band
+   * @param merger   the function merging two partial results
+   * @param <T>      the type of the result
+   * @return the merged result of all the rows
+   * @throws CancellationException if the calling thread is interrupted
+   */
+  public static <T> T reduceRowBands(int height, int width,
+                                     RowBandFunction<T> function,
+                                     BinaryOperator<T> merger) {
+    Objects.requireNonNull(function, "Function cannot be null");
+    Objects.requireNonNull(merger, "Merger cannot be null");
+    Cancellation cancellation = new Cancellation(Thread.currentThread());
+    cancellation.check();
+    int rowsPerBand = Math.max(1, sequentialThreshold / Math.max(1, width));
+    if (height <= rowsPerBand || pool.getParallelism() <= 1) {
+      return function.processRows(0, Math.max(0, height));
+    }
+    return invoke(new RowBandReduceTask<>(0, height, rowsPerBand,
+            function, merger, cancellation), cancellation);
+  }
+
+  /**
+   * Runs the given task on the pool and waits for its result.
+   * A task started from a thread of a pool is run with invoke, so that the
+   * thread helps with the bands. Any other thread waits interruptibly, and
+   * an interrupt cancels the remaining bands, waits for the running bands
+   * to finish and keeps the interrupt status of the thread.
+   *
+   * @param task         the task to run
+   * @param cancellation the cancellation of the operation
+   * @param <T>          the type of the result
+   * @return the result of the task
+   * @throws CancellationException if the calling thread is interrupted
+   */
+  private static <T> T invoke(ForkJoinTask<T> task, Cancellation cancellation) {
+    if (ForkJoinTask.inForkJoinPool()) {
+      return pool.invoke(task);
+    }
+    pool.execute(task);
+    try {
+      return task.get();
+    } catch (InterruptedException e) {
+      cancellation.cancel();
+      task.quietlyJoin();
+      Thread.currentThread().interrupt();
+      throw new CancellationException("Operation was cancelled");
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException(cause);
+    }
+  }
+
+  /**
+   * The cancellation of one operation shared by all of its bands.
+   * The bands run on the threads of the pool, so the interrupt status of
+   * the calling thread is checked rather than that of the current thread.
+   */
+  private static final class Cancellation {
+    private final Thread caller;
+    private volatile boolean cancelled;
+
+    /**
+     * Constructor to initialize the Cancellation.
+     *
+     * @param caller the thread which started the operation
+     */
+    private Cancellation(Thread caller) {
+      this.caller = caller;
+    }
+
+    /**
+     * Cancels the bands which have not started yet.
+     */
+    private void cancel() {
+      cancelled = true;
+    }
+
+    /**
+     * Checks if the operation was cancelled or the thread which started it
+     * is interrupted.
+     *
+     * @throws CancellationException if the operation is cancelled
+     */
+    private void check() {
+      if (cancelled || caller.isInterrupted()) {
+        throw new CancellationException("Operation was cancelled");
+      }
+    }
+  }
+
+  /**
+   * Task which splits its band of rows in half until the band is small
+   * enough to be processed sequentially.
+   */
+  private static class RowBandTask extends RecursiveAction {
+    private final int startRow;
+    private final int endRow;
+    private final int rowsPerBand;
+    private final RowBandOperation operation;
+    private final Cancellation cancellation;
+
+    RowBandTask(int startRow, int endRow, int rowsPerBand,
+                RowBandOperation operation, Cancellation cancellation) {
+      this.startRow = startRow;
+      this.endRow = endRow;
+      this.rowsPerBand = rowsPerBand;
+      this.operation = operation;
+      this.cancellation = cancellation;
+    }
+
+    @Override
+    protected void compute() {
+      if (endRow - startRow <= rowsPerBand) {
+        cancellation.check();
+        operation.processRows(startRow, endRow);
+        return;
+      }
+      int midRow = (startRow + endRow) >>> 1;
+      invokeAll(new RowBandTask(startRow, midRow, rowsPerBand, operation, cancellation),
+              new RowBandTask(midRow, endRow, rowsPerBand, operation, cancellation));
+    }
+  }
+
+  /**
+   * Task which splits its band of rows in half until the band is small
+   * enough to be computed sequentially, then merges the results of both
+   * halves.
+   *
+   * @param <T> the type of the result
+   */
+  private static class RowBandReduceTask<T> extends RecursiveTask<T> {
+    private final int startRow;
+    private final int endRow;
+    private final int rowsPerBand;
+    private final RowBandFunction<T> function;
+    private final BinaryOperator<T> merger;
+    private final Cancellation cancellation;
+
+    RowBandReduceTask(int startRow, int endRow, int rowsPerBand,
+                      RowBandFunction<T> function, BinaryOperator<T> merger,
+                      Cancellation cancellation) {
+      this.startRow = startRow;
+      this.endRow = endRow;
+      this.rowsPerBand = rowsPerBand;
+      this.function = function;
+      this.merger = merger;
+      this.cancellation = cancellation;
+    }
+
+    @Override
+    protected T compute() {
+      if (endRow - startRow <= rowsPerBand) {
+        cancellation.check();
+        return function.processRows(startRow, endRow);
+      }
+      int midRow = (startRow + endRow) >>> 1;
+      RowBandReduceTask<T> upper = new RowBandReduceTask<>(startRow, midRow,
+              rowsPerBand, function, merger, cancellation);
+      upper.fork();
+      T lower = new RowBandReduceTask<>(midRow, endRow, rowsPerBand,
+              function, merger, cancellation).compute();
+      return merger.apply(upper.join(), lower);
+    }
+  }
+}
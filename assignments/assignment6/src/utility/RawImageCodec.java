@@ -0,0 +1,174 @@
+package utility;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+import exception.ImageProcessorException;
+import model.enumeration.RawLayout;
+import model.visual.Image;
+import model.visual.MappedImage;
+import model.visual.PackedImage;
+
+/**
+ * Reads and writes images in the RAW file format, a small header followed
+ * by the 8 bit channels of the image without any encoding.
+ * Reading maps the file into memory and creates a MappedImage over the
+ * mapping, so no pixel is read until it is needed and the image does not
+ * have to fit in the heap.
+ *
+ * <p>The header is 16 bytes long and is made of the magic bytes
+ * {@code RAWI}, the version of the format, the code of the layout of the
+ * channels, two reserved bytes and the width and the height of the image
+ * as big endian integers. The channels follow, either interleaved pixel by
+ * pixel or as a red, a green and a blue plane, in row major order.
+ */
+public final class RawImageCodec {
+
+  /**
+   * Magic bytes at the start of every RAW file.
+   */
+  private static final byte[] MAGIC = {'R', 'A', 'W', 'I'};
+
+  /**
+   * Version of the format written.
+   */
+  private static final int VERSION = 1;
+
+  /**
+   * Size of the header in bytes.
+   */
+  private static final int HEADER_SIZE = 16;
+
+  /**
+   * Largest number of bytes mapped in a single segment.
+   */
+  private static final int MAX_SEGMENT_SIZE = Integer.MAX_VALUE;
+
+  private RawImageCodec() {
+    //Empty private constructor to prevent instantiation.
+  }
+
+  /**
+   * Writes the image in the RAW format to the given stream.
+   * The stream is not closed.
+   *
+   * @param image  the image to write
+   * @param output the stream to write to
+   * @param layout the order in which the channels are written
+   * @throws ImageProcessorException if the image cannot be packed
+   * @throws IOException             if the stream cannot be written
+   */
+  public static void write(Image image, OutputStream output, RawLayout layout)
+          throws ImageProcessorException, IOException {
+    Objects.requireNonNull(image, "Image cannot be null");
+    Objects.requireNonNull(output, "Output stream cannot be null");
+    Objects.requireNonNull(layout, "Layout cannot be null");
+    PackedImage packedImage = PackedImage.fromImage(image);
+    int width = packedImage.getWidth();
+    int height = packedImage.getHeight();
+
+    DataOutputStream header = new DataOutputStream(output);
+    header.write(MAGIC);
+    header.writeByte(VERSION);
+    header.writeByte(layout.getCode());
+    header.writeShort(0);
+    header.writeInt(width);
+    header.writeInt(height);
+    header.flush();
+
+    byte[] rowBytes = new byte[width * MappedImage.getBytesPerPixel(layout)];
+    if (layout == RawLayout.PLANAR) {
+      for (int shift = 16; shift >= 0; shift -= 8) {
+        for (int row = 0; row < height; row++) {
+          for (int col = 0; col < width; col++) {
+            rowBytes[col] = (byte) (packedImage.getRGB(row, col) >> shift);
+          }
+          output.write(rowBytes);
+        }
+      }
+    } else {
+      for (int row = 0; row < height; row++) {
+        for (int col = 0; col < width; col++) {
+          int rgb = packedImage.getRGB(row, col);
+          rowBytes[col * 3] = (byte) (rgb >> 16);
+          rowBytes[col * 3 + 1] = (byte) (rgb >> 8);
+          rowBytes[col * 3 + 2] = (byte) rgb;
+        }
+        output.write(rowBytes);
+      }
+    }
+    output.flush();
+  }
+
+  /**
+   * Maps the RAW file at the given path into memory and creates an image
+   * reading its pixels from the mapping.
+   * The mapping stays valid after the file is closed, until the image is
+   * garbage collected.
+   *
+   * @param path the path to the file
+   * @return the mapped image
+   * @throws ImageProcessorException if the file is not a valid RAW file
+   * @throws IOException             if the file cannot be read or mapped
+   */
+  public static MappedImage read(Path path) throws ImageProcessorException, IOException {
+    Objects.requireNonNull(path, "Path cannot be null");
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size < HEADER_SIZE) {
+        throw new ImageProcessorException("Invalid RAW file: header is incomplete");
+      }
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+      while (header.hasRemaining()) {
+        if (channel.read(header, header.position()) < 0) {
+          throw new ImageProcessorException("Invalid RAW file: header is incomplete");
+        }
+      }
+      header.flip();
+      for (byte magic : MAGIC) {
+        if (header.get() != magic) {
+          throw new ImageProcessorException("Invalid RAW file: file should begin "
+                  + "with RAWI");
+        }
+      }
+      int version = header.get() & 0xff;
+      if (version != VERSION) {
+        throw new ImageProcessorException(String.format(
+                "Unsupported RAW file version: %d", version));
+      }
+      RawLayout layout = RawLayout.fromCode(header.get() & 0xff);
+      header.getShort();
+      int width = header.getInt();
+      int height = header.getInt();
+      if (layout == null || width <= 0 || height <= 0) {
+        throw new ImageProcessorException("Invalid RAW file: invalid header");
+      }
+
+      long rowBytes = (long) width * MappedImage.getBytesPerPixel(layout);
+      long planeBytes = rowBytes * height;
+      int planes = MappedImage.getPlaneCount(layout);
+      if (rowBytes > MAX_SEGMENT_SIZE || size < HEADER_SIZE + planes * planeBytes) {
+        throw new ImageProcessorException("Invalid RAW file: file is truncated");
+      }
+      int rowsPerSegment = (int) Math.min(height, MAX_SEGMENT_SIZE / rowBytes);
+      int segmentsPerPlane = (height + rowsPerSegment - 1) / rowsPerSegment;
+      ByteBuffer[] segments = new ByteBuffer[planes * segmentsPerPlane];
+      for (int plane = 0; plane < planes; plane++) {
+        for (int segment = 0; segment < segmentsPerPlane; segment++) {
+          int firstRow = segment * rowsPerSegment;
+          int rows = Math.min(rowsPerSegment, height - firstRow);
+          long position = HEADER_SIZE + plane * planeBytes + firstRow * rowBytes;
+          segments[plane * segmentsPerPlane + segment] = channel.map(
+                  FileChannel.MapMode.READ_ONLY, position, rows * rowBytes);
+        }
+      }
+      return new MappedImage(width, height, layout, segments, rowsPerSegment);
+    }
+  }
+}
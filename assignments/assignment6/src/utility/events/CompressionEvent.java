@@ -0,0 +1,62 @@
+package utility.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Percentage;
+
+/**
+ * Flight recorder event for compressing an image.
+ */
+@Name("imageprocessor.Compression")
+@Label("Compression")
+@Category({"Image Processor", "Compression"})
+@Description("An image compressed with the Haar transform")
+public class CompressionEvent extends Event {
+
+  @Label("Compression")
+  private String compression;
+
+  @Label("Percentage")
+  @Percentage
+  private double percentage;
+
+  @Label("Width")
+  private int width;
+
+  @Label("Height")
+  private int height;
+
+  @Label("Padded Width")
+  private int paddedWidth;
+
+  @Label("Padded Height")
+  private int paddedHeight;
+
+  /**
+   * Ends the event and commits it with the given details, if the event is
+   * enabled.
+   *
+   * @param compression  the name of the compression
+   * @param percentage   the percentage the image was compressed by
+   * @param width        the width of the image
+   * @param height       the height of the image
+   * @param paddedWidth  the width of the transformed channels
+   * @param paddedHeight the height of the transformed channels
+   */
+  public void record(String compression, int percentage, int width,
+                     int height, int paddedWidth, int paddedHeight) {
+    if (!shouldCommit()) {
+      return;
+    }
+    this.compression = compression;
+    this.percentage = percentage / 100.0;
+    this.width = width;
+    this.height = height;
+    this.paddedWidth = paddedWidth;
+    this.paddedHeight = paddedHeight;
+    commit();
+  }
+}
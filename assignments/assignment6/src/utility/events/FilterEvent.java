@@ -0,0 +1,57 @@
+package utility.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for convolving an image with the kernel of a
+ * filter.
+ */
+@Name("imageprocessor.Filter")
+@Label("Filter")
+@Category({"Image Processor", "Filter"})
+@Description("An image convolved with the kernel of a filter")
+public class FilterEvent extends Event {
+
+  @Label("Filter")
+  private String filter;
+
+  @Label("Kernel Size")
+  private int kernelSize;
+
+  @Label("Separable")
+  @Description("True if the kernel was applied as two one dimensional passes")
+  private boolean separable;
+
+  @Label("Width")
+  private int width;
+
+  @Label("Height")
+  private int height;
+
+  /**
+   * Ends the event and commits it with the given details, if the event is
+   * enabled.
+   *
+   * @param filter     the name of the filter
+   * @param kernelSize the number of rows of the kernel
+   * @param separable  true if the kernel was separated
+   * @param width      the width of the image
+   * @param height     the height of the image
+   */
+  public void record(String filter, int kernelSize, boolean separable,
+                     int width, int height) {
+    if (!shouldCommit()) {
+      return;
+    }
+    this.filter = filter;
+    this.kernelSize = kernelSize;
+    this.separable = separable;
+    this.width = width;
+    this.height = height;
+    commit();
+  }
+}
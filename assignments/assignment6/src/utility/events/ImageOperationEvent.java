@@ -0,0 +1,104 @@
+package utility.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import model.request.ImageProcessingRequest;
+import model.visual.Image;
+import utility.StringUtils;
+
+/**
+ * Flight recorder event for an operation of the image processing service,
+ * from fetching its image from memory to storing its result.
+ * Loading and saving also include reading and writing the file.
+ */
+@Name("imageprocessor.ImageOperation")
+@Label("Image Operation")
+@Category({"Image Processor", "Service"})
+@Description("An operation run by the image processing service")
+public class ImageOperationEvent extends Event {
+
+  @Label("Operation")
+  private String operation;
+
+  @Label("Image Name")
+  private String imageName;
+
+  @Label("Destination Image Name")
+  private String destinationImageName;
+
+  @Label("Width")
+  @Description("Width of the image the operation was applied to")
+  private int width;
+
+  @Label("Height")
+  @Description("Height of the image the operation was applied to")
+  private int height;
+
+  @Label("Failed")
+  @Description("Whether the operation threw an exception")
+  private boolean failed;
+
+  @Label("Parameters")
+  @Description("The path, factor, percentage, levels, scaling factors and "
+          + "channel images of the request which were given")
+  private String parameters;
+
+  /**
+   * Ends the event and commits it with the given details, if the event is
+   * enabled.
+   *
+   * @param operation the command of the operation
+   * @param request   the request of the operation
+   * @param image     the image the operation was applied to, may be null
+   * @param failed    whether the operation threw an exception
+   */
+  public void record(String operation, ImageProcessingRequest request,
+                     Image image, boolean failed) {
+    if (!shouldCommit()) {
+      return;
+    }
+    this.operation = operation;
+    this.imageName = request.getImageName();
+    this.destinationImageName = request.getDestinationImageName();
+    if (image != null) {
+      this.width = image.getWidth();
+      this.height = image.getHeight();
+    }
+    this.failed = failed;
+    this.parameters = describeParameters(request);
+    commit();
+  }
+
+  /**
+   * Describes the parameters given in the request other than the image
+   * names, as name=value pairs separated by spaces.
+   *
+   * @param request the request to describe
+   * @return the parameters, empty if none were given
+   */
+  private static String describeParameters(ImageProcessingRequest request) {
+    StringBuilder parameters = new StringBuilder();
+    if (StringUtils.isNotNullOrEmpty(request.getImagePath())) {
+      parameters.append(" path=").append(request.getImagePath());
+    }
+    request.getFactor().ifPresent(
+        factor -> parameters.append(" factor=").append(factor));
+    request.getPercentage().ifPresent(
+        percentage -> parameters.append(" percentage=").append(percentage));
+    request.getLevels().ifPresent(levels -> parameters.append(" levels=")
+            .append(levels.getBlack()).append(',').append(levels.getMid())
+            .append(',').append(levels.getWhite()));
+    request.getScalingFactors().ifPresent(factors -> parameters
+            .append(" scale=").append(factors.getWidthFactor()).append('x')
+            .append(factors.getHeightFactor()));
+    if (StringUtils.isNotNullOrEmpty(request.getRedImageName())) {
+      parameters.append(" channels=").append(request.getRedImageName())
+              .append(',').append(request.getGreenImageName()).append(',')
+              .append(request.getBlueImageName());
+    }
+    return parameters.toString().trim();
+  }
+}
@@ -0,0 +1,60 @@
+package utility.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import model.enumeration.ImageType;
+import model.visual.Image;
+
+/**
+ * Flight recorder event for reading an image from a file.
+ * The event spans the whole read, including the decoding of the pixels.
+ */
+@Name("imageprocessor.ImageRead")
+@Label("Image Read")
+@Category({"Image Processor", "IO"})
+@Description("An image read from a file")
+public class ImageReadEvent extends Event {
+
+  @Label("Path")
+  private String path;
+
+  @Label("Format")
+  private String format;
+
+  @Label("Width")
+  private int width;
+
+  @Label("Height")
+  private int height;
+
+  @Label("Failed")
+  @Description("Whether the read threw an exception")
+  private boolean failed;
+
+  /**
+   * Ends the event and commits it with the given details, if the event is
+   * enabled.
+   *
+   * @param path      the path of the file
+   * @param imageType the format of the file
+   * @param image     the image read, may be null
+   * @param failed    whether the read threw an exception
+   */
+  public void record(String path, ImageType imageType, Image image,
+                     boolean failed) {
+    if (!shouldCommit()) {
+      return;
+    }
+    this.path = path;
+    this.format = imageType == null ? null : imageType.getExtension();
+    if (image != null) {
+      this.width = image.getWidth();
+      this.height = image.getHeight();
+    }
+    this.failed = failed;
+    commit();
+  }
+}
@@ -0,0 +1,57 @@
+package utility.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import model.visual.Image;
+
+/**
+ * Flight recorder event for an image of the memory written to or read back
+ * from its spill file.
+ */
+@Name("imageprocessor.MemorySpill")
+@Label("Memory Spill")
+@Category({"Image Processor", "Memory"})
+@Description("An image spilled to disk or reloaded from disk")
+public class MemorySpillEvent extends Event {
+
+  @Label("Image Name")
+  private String imageName;
+
+  @Label("Spill File")
+  private String spillFile;
+
+  @Label("Reload")
+  @Description("True if the image was read back, false if it was spilled")
+  private boolean reload;
+
+  @Label("Width")
+  private int width;
+
+  @Label("Height")
+  private int height;
+
+  /**
+   * Ends the event and commits it with the given details, if the event is
+   * enabled.
+   *
+   * @param imageName the name of the image, null if not known
+   * @param spillFile the path of the spill file
+   * @param reload    true if the image was read back
+   * @param image     the image spilled or read back
+   */
+  public void record(String imageName, String spillFile, boolean reload,
+                     Image image) {
+    if (!shouldCommit()) {
+      return;
+    }
+    this.imageName = imageName;
+    this.spillFile = spillFile;
+    this.reload = reload;
+    this.width = image.getWidth();
+    this.height = image.getHeight();
+    commit();
+  }
+}
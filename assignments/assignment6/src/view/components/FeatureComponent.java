@@ -54,6 +54,15 @@ public class FeatureComponent extends JPanel {
     }
   }
 
+  /**
+   * Calls the features to cancel the operations which are still running.
+   */
+  public void cancelOperation() {
+    for (Features feature : featureListeners) {
+      feature.cancelOperation();
+    }
+  }
+
   /**
    * Handles the event when a button is clicked.
    *
@@ -0,0 +1,71 @@
+package view.components;
+
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+import java.util.Objects;
+
+import javax.swing.JComponent;
+
+/**
+ * A component showing two images of the same size split at a column.
+ * The columns before the boundary are taken from the first image and the
+ * rest from the second one, the same way images are combined with a
+ * percentage. Both images are converted once, so moving the boundary only
+ * repaints the component.
+ */
+public class SplitImageComponent extends JComponent {
+  private final BufferedImage firstImage;
+  private final BufferedImage secondImage;
+  private int boundary;
+
+  /**
+   * Constructs a SplitImageComponent object showing the whole first image.
+   *
+   * @param firstImage  the image shown before the boundary
+   * @param secondImage the image shown after the boundary
+   * @throws IllegalArgumentException if the images do not have the same size
+   */
+  public SplitImageComponent(BufferedImage firstImage, BufferedImage secondImage) {
+    super();
+    this.firstImage = Objects.requireNonNull(firstImage, "First image cannot be null");
+    this.secondImage = Objects.requireNonNull(secondImage, "Second image cannot be null");
+    if (firstImage.getWidth() != secondImage.getWidth()
+            || firstImage.getHeight() != secondImage.getHeight()) {
+      throw new IllegalArgumentException("Images must have the same dimensions");
+    }
+    this.boundary = firstImage.getWidth();
+    setPreferredSize(new Dimension(firstImage.getWidth(), firstImage.getHeight()));
+  }
+
+  /**
+   * Moves the boundary to the given percentage of the width and repaints.
+   *
+   * @param percentage the percentage of the width taken from the first image
+   */
+  public void setPercentage(int percentage) {
+    int clamped = Math.max(0, Math.min(100, percentage));
+    int newBoundary = firstImage.getWidth() * clamped / 100;
+    if (newBoundary != boundary) {
+      boundary = newBoundary;
+      repaint();
+    }
+  }
+
+  @Override
+  protected void paintComponent(Graphics graphics) {
+    super.paintComponent(graphics);
+    int width = firstImage.getWidth();
+    int height = firstImage.getHeight();
+    int x = Math.max(0, (getWidth() - width) / 2);
+    int y = Math.max(0, (getHeight() - height) / 2);
+    if (boundary > 0) {
+      graphics.drawImage(firstImage, x, y, x + boundary, y + height,
+              0, 0, boundary, height, null);
+    }
+    if (boundary < width) {
+      graphics.drawImage(secondImage, x + boundary, y, x + width, y + height,
+              boundary, 0, width, height, null);
+    }
+  }
+}
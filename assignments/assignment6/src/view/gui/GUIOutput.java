@@ -33,6 +33,68 @@ public interface GUIOutput extends UserOutput {
           throws
           ImageProcessingRunTimeException.DisplayException;
 
+  /**
+   * Displays the split view of an image being previewed, with the whole
+   * first image shown until the boundary is moved.
+   * The images are kept until another image is displayed, so moving the
+   * boundary does not need them again.
+   *
+   * @param image    the image shown before the boundary
+   * @param original the image shown after the boundary
+   * @throws ImageProcessingRunTimeException.DisplayException if there is an
+   *                                                          error
+   *                                                          displaying the
+   *                                                          images
+   */
+  void displaySplitView(Image image, Image original)
+          throws
+          ImageProcessingRunTimeException.DisplayException;
+
+  /**
+   * Gets the width available to preview an image.
+   * Previews are computed on a proxy of the image fitting this size.
+   *
+   * @return the width of the preview in pixels
+   */
+  int getPreviewWidth();
+
+  /**
+   * Gets the height available to preview an image.
+   * Previews are computed on a proxy of the image fitting this size.
+   *
+   * @return the height of the preview in pixels
+   */
+  int getPreviewHeight();
+
+  /**
+   * Moves the boundary of the split view being displayed.
+   * Does nothing if no split view is displayed.
+   *
+   * @param percentage the percentage of the width showing the first image
+   */
+  void updateSplitView(int percentage);
+
+  /**
+   * Displays the progress of an operation running in the background, with a
+   * way for the user to cancel it.
+   *
+   * @param message the message describing the running operation
+   */
+  void displayProgress(String message);
+
+  /**
+   * Hides the progress once no operation is running in the background.
+   */
+  void hideProgress();
+
+  /**
+   * Runs the given action on the thread displaying the output.
+   * The results of background operations are displayed through this.
+   *
+   * @param action the action to be run
+   */
+  void invokeOnDisplayThread(Runnable action);
+
   /**
    * Clears the image from the output.
    *
@@ -40,11 +40,7 @@ public class SwingInput implements GUIInput {
   public boolean confirmSplitView(IntConsumer updateImageCallback) {
     JLabel value = new JLabel("Value: 100");
     JSlider slider = createSlider(value);
-    slider.addChangeListener(e -> {
-      if (!slider.getValueIsAdjusting()) {
-        updateImageCallback.accept(slider.getValue());
-      }
-    });
+    slider.addChangeListener(e -> updateImageCallback.accept(slider.getValue()));
     JPanel panel = new JPanel();
     panel.add(new JLabel("Split View"));
     panel.add(slider);
@@ -185,7 +181,9 @@ public class SwingInput implements GUIInput {
             ImageType.JPEG.getExtension(),
             ImageType.PNG.getExtension(),
             ImageType.PPM.getExtension(),
-            ImageType.JPG.getExtension());
+            ImageType.JPG.getExtension(),
+            ImageType.HAAR.getExtension(),
+            ImageType.RAW.getExtension());
     fileChooser.setFileFilter(filter);
     return fileChooser;
   }
@@ -4,15 +4,20 @@ import controller.Features;
 import exception.ImageProcessingRunTimeException;
 import model.visual.Image;
 import view.components.FeatureComponent;
+import view.components.SplitImageComponent;
 
 import javax.swing.BoxLayout;
+import javax.swing.JButton;
 import javax.swing.ImageIcon;
+import javax.swing.JComponent;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
+import javax.swing.JProgressBar;
 import javax.swing.JScrollPane;
 import javax.swing.ScrollPaneConstants;
+import javax.swing.SwingUtilities;
 import javax.swing.border.TitledBorder;
 
 import java.awt.BorderLayout;
@@ -34,11 +39,18 @@ public class SwingOutput extends JFrame implements GUIOutput {
   private final FeatureComponent featurePanel;
   private final JPanel imagePanel;
   private final JPanel histogramPanel;
+  private final JPanel progressPanel;
+  private final JLabel progressLabel;
 
   private final JScrollPane featureScrollPane;
   private final JScrollPane imageScrollPane;
   private final JScrollPane histogramScrollPane;
 
+  /**
+   * Split view being displayed, null if the image panel shows an image.
+   */
+  private SplitImageComponent splitView;
+
   private static final int DEFAULT_WIDTH = 400;
   private static final int DEFAULT_HEIGHT = 600;
 
@@ -55,6 +67,8 @@ public class SwingOutput extends JFrame implements GUIOutput {
     featurePanel = new FeatureComponent();
     imagePanel = new JPanel();
     histogramPanel = new JPanel();
+    progressPanel = new JPanel();
+    progressLabel = new JLabel();
     featureScrollPane = new JScrollPane(featurePanel);
     imageScrollPane = new JScrollPane(imagePanel);
     histogramScrollPane = new JScrollPane(histogramPanel);
@@ -64,10 +78,12 @@ public class SwingOutput extends JFrame implements GUIOutput {
     buildImagePanel();
     buildCommandPanel();
     buildHistogramPanel();
+    buildProgressPanel();
     buildScrollPanes();
     addScrollPanes();
 
     this.add(mainPanel);
+    this.add(progressPanel, BorderLayout.SOUTH);
     addWindowListener(
           new WindowAdapter() {
             @Override
@@ -132,6 +148,21 @@ public class SwingOutput extends JFrame implements GUIOutput {
     buildPanel(histogramPanel, "Histogram", 200, DEFAULT_HEIGHT);
   }
 
+  /**
+   * Builds the progress panel of the GUI.
+   * It is hidden until an operation runs in the background.
+   */
+  private void buildProgressPanel() {
+    JProgressBar progressBar = new JProgressBar();
+    progressBar.setIndeterminate(true);
+    JButton cancelButton = new JButton("Cancel");
+    cancelButton.addActionListener(e -> featurePanel.cancelOperation());
+    progressPanel.add(progressLabel);
+    progressPanel.add(progressBar);
+    progressPanel.add(cancelButton);
+    progressPanel.setVisible(false);
+  }
+
   /**
    * Builds a panel with the specified title, width and height.
    *
@@ -187,13 +218,67 @@ public class SwingOutput extends JFrame implements GUIOutput {
 
   @Override
   public void displayImage(Image image, Image histogram) {
+    if (Objects.nonNull(image)) {
+      splitView = null;
+    }
     displayImageToPanel(imagePanel, image);
     displayImageToPanel(histogramPanel, histogram);
   }
 
+  @Override
+  public void displaySplitView(Image image, Image original) {
+    Objects.requireNonNull(image, "Image cannot be null");
+    Objects.requireNonNull(original, "Original image cannot be null");
+    splitView = new SplitImageComponent(IOUtils.toBufferedImage(image),
+            IOUtils.toBufferedImage(original));
+    showInPanel(imagePanel, splitView, image);
+  }
+
+  @Override
+  public int getPreviewWidth() {
+    return Math.max(DEFAULT_WIDTH,
+            imageScrollPane.getViewport().getExtentSize().width);
+  }
+
+  @Override
+  public int getPreviewHeight() {
+    return Math.max(DEFAULT_HEIGHT,
+            imageScrollPane.getViewport().getExtentSize().height);
+  }
+
+  @Override
+  public void updateSplitView(int percentage) {
+    if (Objects.nonNull(splitView)) {
+      splitView.setPercentage(percentage);
+    }
+  }
+
+  @Override
+  public void displayProgress(String message) {
+    progressLabel.setText(message);
+    progressPanel.setVisible(true);
+    progressPanel.revalidate();
+  }
+
+  @Override
+  public void hideProgress() {
+    progressPanel.setVisible(false);
+    progressPanel.revalidate();
+  }
+
+  @Override
+  public void invokeOnDisplayThread(Runnable action) {
+    if (SwingUtilities.isEventDispatchThread()) {
+      action.run();
+    } else {
+      SwingUtilities.invokeLater(action);
+    }
+  }
+
   @Override
   public void clearImage() throws
           ImageProcessingRunTimeException.DisplayException {
+    splitView = null;
     clearPanel(imagePanel);
     clearPanel(histogramPanel);
   }
@@ -228,18 +313,30 @@ public class SwingOutput extends JFrame implements GUIOutput {
    */
   private void displayImageToPanel(JPanel panel, Image image) {
     if (Objects.nonNull(image)) {
-      panel.removeAll();
       JLabel imageLabel =
               new JLabel(new ImageIcon(IOUtils.toBufferedImage(image)));
       imageLabel.setHorizontalAlignment(JLabel.CENTER);
       imageLabel.setVerticalAlignment(JLabel.CENTER);
-      panel.setPreferredSize(new Dimension(
-              Math.max(DEFAULT_WIDTH, image.getWidth()),
-              Math.max(DEFAULT_HEIGHT, image.getHeight())
-      ));
-      panel.add(imageLabel);
-      panel.revalidate();
-      panel.repaint();
+      showInPanel(panel, imageLabel, image);
     }
   }
+
+  /**
+   * Replaces the content of the panel with the given component showing the
+   * image.
+   *
+   * @param panel     the panel to show the component in
+   * @param component the component showing the image
+   * @param image     the image shown, used to size the panel
+   */
+  private void showInPanel(JPanel panel, JComponent component, Image image) {
+    panel.removeAll();
+    panel.setPreferredSize(new Dimension(
+            Math.max(DEFAULT_WIDTH, image.getWidth()),
+            Math.max(DEFAULT_HEIGHT, image.getHeight())
+    ));
+    panel.add(component);
+    panel.revalidate();
+    panel.repaint();
+  }
 }
\ No newline at end of file
@@ -3794,4 +3794,26 @@ public class ControllerIntegrationTest {
     })), imageMemory.getImage("lumaImage"));
     assertTrue(output.toString().contains("Successfully created luma component"));
   }
+
+  @Test
+  public void testStatsCommandShowsCommandsRun() throws ImageProcessorException {
+    StringBuilder output = new StringBuilder();
+    imageMemory = new HashMapMemory();
+    imageMemory.addImage(INITIAL_IMAGE_NAME, TestUtils.randomRectangleImage());
+    Factory.getCommandStatistics().reset();
+    controller = new InteractiveImageProcessorController(
+            new ConsoleInput(new StringReader(String.format(
+                    "horizontal-flip %s flipped\nstats", INITIAL_IMAGE_NAME))),
+            new ConsoleOutput(output),
+            Factory.createInstrumentedImageProcessor(imageMemory)
+    );
+
+    controller.processCommands();
+
+    String statistics = output.substring(
+            output.indexOf("Successfully flipped the image horizontally."));
+    assertTrue(statistics.contains("allocated MB"));
+    assertTrue(statistics.contains("horizontal-flip"));
+    assertTrue(statistics.contains("3x2"));
+  }
 }
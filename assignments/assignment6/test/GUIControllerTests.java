@@ -6,12 +6,16 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 
 import controller.Features;
 import controller.GUIImageProcessorController;
+import controller.ProxyPyramid;
 import controller.services.FileImageProcessingService;
 import exception.ImageProcessorException;
 import factories.Factory;
+import model.enumeration.FilterOption;
 import model.enumeration.UserCommand;
 import model.memory.HashMapMemory;
 import model.memory.ImageMemory;
@@ -4012,6 +4016,169 @@ public class GUIControllerTests {
     assertTrue(output.toString().contains("No image loaded"));
   }
 
+  // BACKGROUND EXECUTION TESTS
+  @Test
+  public void testLatestBlurSupersedesEarlierBlur() throws
+          ImageProcessorException {
+    ImageMemory<Image> imageMemory = initialiseImageMemory();
+    imageMemory.addImage(INITIAL_IMAGE_NAME, TestUtils.randomRectangleImage());
+    ImageMemory<String> stringMemory = initialiseStringMemory();
+    stringMemory.addImage(INITIAL_IMAGE_NAME, null);
+    StringBuilder output = new StringBuilder();
+    List<Runnable> queue = new ArrayList<>();
+    initialiseQueuedController(stringMemory, imageMemory, output, queue);
+    features.blurImage();
+    features.blurImage();
+    assertEquals(2, queue.size());
+    runQueued(queue);
+    Image expectedFinalImage =
+            Factory.createImage(TestUtils.createPixels(new int[][]{
+                    {6230063, 4663127, 999231},
+                    {6234159, 6233935, 2039631}
+            }));
+    assertEquals(expectedFinalImage,
+            imageMemory.getImage(stringMemory.getImage("")));
+    String histogram = expectedFinalImage.histogram().toString();
+    String log = output.toString();
+    assertEquals(log.indexOf(histogram), log.lastIndexOf(histogram));
+  }
+
+  @Test
+  public void testCancelOperationDiscardsResult() throws
+          ImageProcessorException {
+    ImageMemory<Image> imageMemory = initialiseImageMemory();
+    imageMemory.addImage(INITIAL_IMAGE_NAME, TestUtils.randomRectangleImage());
+    ImageMemory<String> stringMemory = initialiseStringMemory();
+    stringMemory.addImage(INITIAL_IMAGE_NAME, null);
+    StringBuilder output = new StringBuilder();
+    List<Runnable> queue = new ArrayList<>();
+    initialiseQueuedController(stringMemory, imageMemory, output, queue);
+    features.verticalFlip();
+    features.cancelOperation();
+    runQueued(queue);
+    assertTrue(output.toString().contains("Operation cancelled"));
+    assertEquals(INITIAL_IMAGE_NAME, stringMemory.getImage(""));
+    assertThrows(ImageProcessorException.class,
+        () -> imageMemory.getImage(createDestinationImageName(
+                INITIAL_IMAGE_NAME, UserCommand.VERTICAL_FLIP)));
+  }
+
+  @Test
+  public void testCancelOperationWithNothingRunning() {
+    ImageMemory<Image> imageMemory = initialiseImageMemory();
+    ImageMemory<String> stringMemory = initialiseStringMemory();
+    StringBuilder output = new StringBuilder();
+    initialiseQueuedController(stringMemory, imageMemory, output,
+            new ArrayList<>());
+    features.cancelOperation();
+    assertFalse(output.toString().contains("Operation cancelled"));
+  }
+
+  // PROXY PREVIEW TESTS
+  @Test
+  public void testBlurPreviewsOnProxyAndConfirmsAtFullResolution() throws
+          ImageProcessorException {
+    ImageMemory<Image> imageMemory = initialiseImageMemory();
+    Image image = Factory.createImage(TestUtils.createPixels(new int[][]{
+            {16711680, 255, 65280, 8421504},
+            {8421504, 16711680, 255, 65280}
+    }));
+    imageMemory.addImage(INITIAL_IMAGE_NAME, image);
+    ImageMemory<String> stringMemory = initialiseStringMemory();
+    stringMemory.addImage(INITIAL_IMAGE_NAME, null);
+    StringBuilder output = new StringBuilder();
+    initialiseProxyController(true, 2, 1, stringMemory, imageMemory, output);
+    features.blurImage();
+    Image proxy = imageMemory.getImage(ProxyPyramid.PROXY_NAME);
+    assertEquals(2, proxy.getWidth());
+    assertEquals(1, proxy.getHeight());
+    Image preview = imageMemory.getImage(createDestinationImageName(
+            ProxyPyramid.PROXY_NAME, UserCommand.BLUR));
+    assertTrue(output.toString().contains(preview.toString()));
+    String blurImageName = createDestinationImageName(INITIAL_IMAGE_NAME,
+            UserCommand.BLUR);
+    assertEquals(blurImageName, stringMemory.getImage(""));
+    assertEquals(image.applyFilter(FilterOption.GAUSSIAN_BLUR),
+            imageMemory.getImage(blurImageName));
+  }
+
+  @Test
+  public void testCancelledProxyPreviewDoesNotApplyFullResolution() throws
+          ImageProcessorException {
+    ImageMemory<Image> imageMemory = initialiseImageMemory();
+    imageMemory.addImage(INITIAL_IMAGE_NAME,
+            Factory.createImage(TestUtils.createPixels(new int[][]{
+                    {16711680, 255, 65280, 8421504},
+                    {8421504, 16711680, 255, 65280}
+            })));
+    ImageMemory<String> stringMemory = initialiseStringMemory();
+    stringMemory.addImage(INITIAL_IMAGE_NAME, null);
+    StringBuilder output = new StringBuilder();
+    initialiseProxyController(false, 2, 1, stringMemory, imageMemory, output);
+    features.applySepia();
+    assertEquals(INITIAL_IMAGE_NAME, stringMemory.getImage(""));
+    assertThrows(ImageProcessorException.class,
+        () -> imageMemory.getImage(createDestinationImageName(
+                INITIAL_IMAGE_NAME, UserCommand.SEPIA)));
+  }
+
+  @Test
+  public void testProxyLevelsAreNotStoredInMemory() throws
+          ImageProcessorException {
+    ImageMemory<Image> imageMemory = initialiseImageMemory();
+    imageMemory.addImage(INITIAL_IMAGE_NAME, TestUtils.randomRectangleImage());
+    ImageMemory<String> stringMemory = initialiseStringMemory();
+    stringMemory.addImage(INITIAL_IMAGE_NAME, null);
+    StringBuilder output = new StringBuilder();
+    initialiseProxyController(true, 1, 1, stringMemory, imageMemory, output);
+    features.blurImage();
+    features.applySepia();
+    String blurImageName = createDestinationImageName(INITIAL_IMAGE_NAME,
+            UserCommand.BLUR);
+    assertEquals(createDestinationImageName(blurImageName, UserCommand.SEPIA),
+            stringMemory.getImage(""));
+    Image proxy = imageMemory.getImage(ProxyPyramid.PROXY_NAME);
+    assertEquals(1, proxy.getWidth());
+    assertEquals(1, proxy.getHeight());
+    for (String name : new String[]{INITIAL_IMAGE_NAME, blurImageName}) {
+      assertThrows(ImageProcessorException.class,
+          () -> imageMemory.getImage("proxy1_" + name));
+      assertThrows(ImageProcessorException.class,
+          () -> imageMemory.getImage("downscale_proxy_" + name));
+    }
+  }
+
+  private void initialiseProxyController(boolean confirmSplitView,
+                                         int previewWidth,
+                                         int previewHeight,
+                                         ImageMemory<String> stringMemory,
+                                         ImageMemory<Image> imageMemory,
+                                         StringBuilder log) {
+    features = new GUIImageProcessorController(
+            new MockGUIInput(confirmSplitView, null, null, null, null, null),
+            new MockGUIOutput(log, previewWidth, previewHeight),
+            new FileImageProcessingService(imageMemory),
+            stringMemory);
+  }
+
+  private void runQueued(List<Runnable> queue) {
+    while (!queue.isEmpty()) {
+      queue.remove(0).run();
+    }
+  }
+
+  private void initialiseQueuedController(ImageMemory<String> stringMemory,
+                                          ImageMemory<Image> imageMemory,
+                                          StringBuilder log,
+                                          List<Runnable> queue) {
+    features = new GUIImageProcessorController(
+            new MockGUIInput(true, null, null, null, null, null),
+            new MockGUIOutput(log),
+            new FileImageProcessingService(imageMemory),
+            stringMemory,
+            queue::add);
+  }
+
   private ImageMemory<Image> initialiseImageMemory() {
     return new HashMapMemory();
   }
@@ -3,6 +3,7 @@ import java.util.Objects;
 
 import controller.Features;
 import exception.ImageProcessingRunTimeException;
+import exception.ImageProcessorException;
 import model.enumeration.UserCommand;
 import model.visual.Image;
 import view.DisplayMessageType;
@@ -13,13 +14,30 @@ import view.gui.GUIOutput;
  */
 public class MockGUIOutput implements GUIOutput {
   private final StringBuilder log;
+  private final int previewWidth;
+  private final int previewHeight;
+  private Image splitImage;
+  private Image splitOriginal;
 
   /**
    * Constructor for the MockInput class.
    * @param log                           the log to log the output
    */
   public MockGUIOutput(StringBuilder log) {
+    this(log, Integer.MAX_VALUE, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Constructor for the MockInput class with the size available to preview
+   * images.
+   * @param log                           the log to log the output
+   * @param previewWidth                  the width of the preview
+   * @param previewHeight                 the height of the preview
+   */
+  public MockGUIOutput(StringBuilder log, int previewWidth, int previewHeight) {
     this.log = log;
+    this.previewWidth = previewWidth;
+    this.previewHeight = previewHeight;
   }
 
 
@@ -52,6 +70,51 @@ public class MockGUIOutput implements GUIOutput {
     }
   }
 
+  @Override
+  public void displaySplitView(Image image, Image original) throws
+          ImageProcessingRunTimeException.DisplayException {
+    splitImage = image;
+    splitOriginal = original;
+    log(image.toString());
+  }
+
+  @Override
+  public int getPreviewWidth() {
+    return previewWidth;
+  }
+
+  @Override
+  public int getPreviewHeight() {
+    return previewHeight;
+  }
+
+  @Override
+  public void updateSplitView(int percentage) {
+    if (Objects.isNull(splitImage)) {
+      return;
+    }
+    try {
+      log(splitImage.combineImages(splitOriginal, percentage).toString());
+    } catch (ImageProcessorException e) {
+      log(e.getMessage());
+    }
+  }
+
+  @Override
+  public void displayProgress(String message) {
+    log(message);
+  }
+
+  @Override
+  public void hideProgress() {
+    // Do nothing as this is mock output
+  }
+
+  @Override
+  public void invokeOnDisplayThread(Runnable action) {
+    action.run();
+  }
+
   @Override
   public void clearImage() throws
           ImageProcessingRunTimeException.DisplayException {
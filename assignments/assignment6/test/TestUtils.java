@@ -4,12 +4,14 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Comparator;
+import java.util.Random;
 
 import exception.ImageProcessingRunTimeException;
 import exception.ImageProcessorException;
 import factories.Factory;
 import model.enumeration.PixelType;
 import model.pixels.Pixel;
+import model.pixels.RGB;
 import model.visual.Image;
 
 /**
@@ -186,6 +188,29 @@ public class TestUtils {
     return Factory.createImage(createPixels(randomArray));
   }
 
+  /**
+   * Creates an image of the given size with random channels drawn from a
+   * generator with the given seed, so the same seed gives the same image.
+   *
+   * @param height the height of the image
+   * @param width  the width of the image
+   * @param seed   the seed of the random channels
+   * @return the random image
+   * @throws ImageProcessorException if the image cannot be created
+   */
+  public static Image randomImage(int height, int width, long seed) throws
+          ImageProcessorException {
+    Random random = new Random(seed);
+    Pixel[][] pixels = new Pixel[height][width];
+    for (int row = 0; row < height; row++) {
+      for (int col = 0; col < width; col++) {
+        pixels[row][col] = new RGB(random.nextInt(256), random.nextInt(256),
+                random.nextInt(256));
+      }
+    }
+    return Factory.createImage(pixels);
+  }
+
   /**
    * Create a Pixel array with the given 2D array.
    *
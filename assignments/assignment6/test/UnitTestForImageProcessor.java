@@ -1,49 +1,110 @@
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.experimental.runners.Enclosed;
 import org.junit.runner.RunWith;
 
 import java.awt.image.BufferedImage;
+import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.PrintStream;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
-
+import java.util.Random;
+import java.util.Scanner;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import javax.imageio.ImageIO;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 
 import app.parsers.ArgumentParser;
+import app.parsers.BatchArgumentParser;
 import app.parsers.CommandLineArgumentParser;
 import app.parsers.GUIArgumentParser;
 import app.parsers.InteractiveArgumentParser;
+import compressors.HaarImageCodec;
+import compressors.RectangularHaarCompression;
+import controller.BatchImageProcessorController;
 import controller.CommandLineImageProcessorController;
 import controller.ExecutionStatus;
 import app.ImageProcessorApp;
 import controller.GUIImageProcessorController;
 import controller.ImageProcessorController;
+import controller.script.CommandParser;
+import controller.script.ScriptCommand;
+import controller.script.ScriptExecutor;
+import controller.script.ScriptPlan;
 import controller.InteractiveImageProcessorController;
 import exception.ImageProcessingRunTimeException;
 import exception.ImageProcessorException;
 import factories.Factory;
+import model.enumeration.CompressionType;
 import model.enumeration.FilterOption;
+import model.enumeration.ImageStorageType;
 import model.memory.ImageMemory;
+import model.memory.SpillingImageMemory;
 import model.request.ImageProcessingRequest;
+import controller.services.CommandStatistics;
+import controller.services.CommandTiming;
 import controller.services.FileImageProcessingService;
 import controller.services.ImageProcessingService;
+import controller.services.InstrumentedImageProcessingService;
 import utility.ExtractUtility;
 import utility.FilterUtils;
 import model.enumeration.ImageType;
 import model.enumeration.LinearColorTransformationType;
 import model.enumeration.PixelType;
+import model.enumeration.RawLayout;
 import model.enumeration.UserCommand;
+import model.memory.ConcurrentImageMemory;
 import model.memory.HashMapMemory;
+import model.pixels.ChannelLookupTable;
 import model.pixels.Pixel;
 import model.pixels.RGB;
+import model.visual.ColorHistogram;
 import model.visual.Image;
+import model.visual.LazyImage;
+import model.visual.MappedImage;
+import model.visual.PackedImage;
 import model.visual.RenderedImage;
 import utility.IOUtils;
+import utility.ParallelUtils;
+import utility.RawImageCodec;
 import view.text.ConsoleInput;
 import view.DisplayMessageType;
 import view.text.ConsoleOutput;
@@ -1384,9 +1445,11 @@ public class UnitTestForImageProcessor {
       String expectedCommands = "load image-path image-name: Load an image "
               + "from the specified path and refer it to henceforth in the "
               + "program by the given image name.\n"
-              + "save image-path image-name: Save the image with the given name"
-              + " to the specified path which should include the name of the "
-              + "file.\n"
+              + "save image-path image-name [percentage p | binary]: Save the "
+              + "image with the given name to the specified path which should "
+              + "include the name of the file. A .haar file is compressed by the "
+              + "optional percentage, which loses detail. A .ppm file is saved "
+              + "as a binary P6 file if binary is given.\n"
               + "red-component image-name dest-image-name: Create an "
               + "image "
               + "with the red-component of the image with the given name, and "
@@ -1472,6 +1535,8 @@ public class UnitTestForImageProcessor {
               + "Downscale the given image by the given factor and store the "
               + "result in another image with the given name.\n"
               + "reset: Resets the program's memory.\n"
+              + "stats: Print the time and memory taken by every command "
+              + "run so far.\n"
               + "quit: Quit the program.\n"
               + "help: Print this help message.\n";
 
@@ -3506,6 +3571,289 @@ public class UnitTestForImageProcessor {
     }
   }
 
+  /**
+   * Test class for the InstrumentedImageProcessingService class.
+   */
+  public static class InstrumentedImageProcessingServiceTest {
+    private ImageMemory<Image> memory;
+    private CommandStatistics statistics;
+    private ImageProcessingService service;
+
+    @Before
+    public void setUp() throws ImageProcessorException {
+      memory = new HashMapMemory();
+      statistics = new CommandStatistics();
+      service = new InstrumentedImageProcessingService(memory, statistics);
+      memory.addImage("image", Factory.createImage(new Pixel[][]{
+          {new RGB(10, 20, 30), new RGB(40, 50, 60), new RGB(70, 80, 90)},
+          {new RGB(15, 25, 35), new RGB(45, 55, 65), new RGB(75, 85, 95)}}));
+    }
+
+    private CommandTiming getTiming(String command) {
+      return statistics.getCommandTimings().stream()
+              .filter(timing -> timing.getCommand().equals(command))
+              .findFirst().orElseThrow(AssertionError::new);
+    }
+
+    @Test
+    public void testCommandsAreRecordedWithSizes()
+            throws ImageProcessorException {
+      service.horizontalFlip(ImageProcessingRequest.builder()
+              .imageName("image").destinationImageName("flipped").build());
+      service.horizontalFlip(ImageProcessingRequest.builder()
+              .imageName("flipped").destinationImageName("image").build());
+      service.downscaleImage(ImageProcessingRequest.builder()
+              .imageName("image").destinationImageName("small")
+              .scalingFactors(50, 50).build());
+
+      assertEquals(2, statistics.getCommandTimings().size());
+      CommandTiming flip = getTiming("horizontal-flip");
+      assertEquals(2, flip.getCount());
+      assertEquals(0, flip.getFailures());
+      assertEquals(12, flip.getInputPixels());
+      assertEquals(12, flip.getOutputPixels());
+      assertEquals("3x2", flip.getLastInputSize());
+      assertTrue(flip.getTotalWallMillis() >= flip.getMaxWallMillis());
+      assertTrue(flip.getTotalCpuMillis() >= 0);
+      assertTrue(flip.getAllocatedBytes() >= 0);
+      CommandTiming downscale = getTiming("downscale");
+      assertEquals("3x2", downscale.getLastInputSize());
+      assertEquals("1x1", downscale.getLastOutputSize());
+    }
+
+    @Test
+    public void testFailedCommandIsRecorded() {
+      assertThrows(ImageProcessorException.class,
+          () -> service.blurImage(ImageProcessingRequest.builder()
+                  .imageName("missing").destinationImageName("blurred")
+                  .build()));
+      CommandTiming blur = getTiming("blur");
+      assertEquals(1, blur.getCount());
+      assertEquals(1, blur.getFailures());
+      assertEquals("", blur.getLastInputSize());
+      assertEquals(0, blur.getOutputPixels());
+    }
+
+    @Test
+    public void testSplitAndCombineSizes() throws ImageProcessorException {
+      service.rgbSplit(ImageProcessingRequest.builder().imageName("image")
+              .redImageName("red").greenImageName("green")
+              .blueImageName("blue").build());
+      service.rgbCombine(ImageProcessingRequest.builder()
+              .imageName("combined").redImageName("red")
+              .greenImageName("green").blueImageName("blue").build());
+      assertEquals("3x2", getTiming("rgb-split").getLastOutputSize());
+      assertEquals("3x2", getTiming("rgb-combine").getLastInputSize());
+      assertEquals("3x2", getTiming("rgb-combine").getLastOutputSize());
+    }
+
+    @Test
+    public void testAddImageIsNotRecorded() throws ImageProcessorException {
+      Image image = memory.getImage("image");
+      service.addImage("added", image);
+      assertEquals(image, service.getImage("added"));
+      assertTrue(statistics.getCommandTimings().isEmpty());
+    }
+
+    @Test
+    public void testMeasuringDoesNotReadMemory() throws ImageProcessorException {
+      Path scratchDirectory = Paths.get("test_resources/output/instrumented");
+      SpillingImageMemory plainMemory = new SpillingImageMemory(1 << 20,
+              scratchDirectory);
+      SpillingImageMemory measuredMemory = new SpillingImageMemory(1 << 20,
+              scratchDirectory);
+      Image image = memory.getImage("image");
+      plainMemory.addImage("image", image);
+      measuredMemory.addImage("image", image);
+      ImageProcessingRequest request = ImageProcessingRequest.builder()
+              .imageName("image").destinationImageName("flipped").build();
+      Factory.createImageProcessor(plainMemory).horizontalFlip(request);
+      new InstrumentedImageProcessingService(measuredMemory, statistics)
+              .horizontalFlip(request);
+      assertEquals(plainMemory.getHitCount(), measuredMemory.getHitCount());
+      assertEquals(plainMemory.getMissCount(), measuredMemory.getMissCount());
+      assertEquals("3x2", getTiming("horizontal-flip").getLastOutputSize());
+      plainMemory.clearMemory();
+      measuredMemory.clearMemory();
+    }
+
+    @Test
+    public void testSummaryAndReset() throws ImageProcessorException {
+      assertEquals("No commands have been run.", statistics.getSummary());
+      service.clearMemory();
+      String summary = statistics.getSummary();
+      assertTrue(summary.contains("allocated MB"));
+      assertTrue(summary.contains("reset"));
+      statistics.reset();
+      assertTrue(statistics.getCommandTimings().isEmpty());
+    }
+
+    @Test
+    public void testFactoryCreatesInstrumentedService()
+            throws MalformedObjectNameException {
+      assertTrue(Factory.createInstrumentedImageProcessor(memory)
+              instanceof InstrumentedImageProcessingService);
+      assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(
+              new ObjectName(CommandStatistics.OBJECT_NAME)));
+    }
+  }
+
+  /**
+   * Test class for the flight recorder events of the image pipeline.
+   */
+  public static class FlightRecorderEventsTest {
+    private static final Path OUTPUT_DIRECTORY =
+            Paths.get("test_resources/output/jfr");
+    private Recording recording;
+    private ImageMemory<Image> memory;
+    private ImageProcessingService service;
+
+    @Before
+    public void setUp() throws ImageProcessorException {
+      recording = new Recording();
+      for (String event : new String[]{"ImageRead", "ImageWrite",
+          "ImageOperation", "Compression", "Filter", "MemorySpill"}) {
+        recording.enable("imageprocessor." + event).withoutThreshold();
+      }
+      memory = new HashMapMemory();
+      service = Factory.createImageProcessor(memory);
+      memory.addImage("image", TestUtils.randomRectangleImage());
+      recording.start();
+    }
+
+    @After
+    public void tearDown() {
+      recording.close();
+      TestUtils.cleanUp(OUTPUT_DIRECTORY.toString());
+    }
+
+    private List<RecordedEvent> stopRecording() throws IOException {
+      recording.stop();
+      Files.createDirectories(OUTPUT_DIRECTORY);
+      Path file = OUTPUT_DIRECTORY.resolve("recording.jfr");
+      recording.dump(file);
+      return RecordingFile.readAllEvents(file);
+    }
+
+    private static List<RecordedEvent> ofType(List<RecordedEvent> events,
+                                              String eventName) {
+      List<RecordedEvent> matching = new ArrayList<>();
+      for (RecordedEvent event : events) {
+        if (event.getEventType().getName().equals("imageprocessor." + eventName)) {
+          matching.add(event);
+        }
+      }
+      return matching;
+    }
+
+    @Test
+    public void testServiceOperationEvent()
+            throws ImageProcessorException, IOException {
+      service.levelsAdjust(ImageProcessingRequest.builder().imageName("image")
+              .destinationImageName("adjusted").levels(10, 128, 240)
+              .percentage(50).build());
+      List<RecordedEvent> events = ofType(stopRecording(), "ImageOperation");
+      assertEquals(1, events.size());
+      RecordedEvent event = events.get(0);
+      assertEquals("levels-adjust", event.getString("operation"));
+      assertEquals("image", event.getString("imageName"));
+      assertEquals("adjusted", event.getString("destinationImageName"));
+      assertEquals(3, event.getInt("width"));
+      assertEquals(2, event.getInt("height"));
+      assertEquals("percentage=50 levels=10,128,240",
+              event.getString("parameters"));
+    }
+
+    @Test
+    public void testFailedOperationIsRecorded() throws IOException {
+      assertThrows(ImageProcessorException.class,
+          () -> service.blurImage(ImageProcessingRequest.builder()
+                  .imageName("missing").destinationImageName("blurred")
+                  .build()));
+      List<RecordedEvent> events = ofType(stopRecording(), "ImageOperation");
+      assertEquals(1, events.size());
+      assertEquals("blur", events.get(0).getString("operation"));
+      assertTrue(events.get(0).getBoolean("failed"));
+    }
+
+    @Test
+    public void testFailedReadIsRecorded() throws IOException {
+      String path = OUTPUT_DIRECTORY.resolve("missing.ppm").toString();
+      assertThrows(ImageProcessorException.class,
+          () -> service.loadImage(ImageProcessingRequest.builder()
+                  .imagePath(path).imageName("missing").build()));
+      List<RecordedEvent> events = stopRecording();
+      List<RecordedEvent> reads = ofType(events, "ImageRead");
+      assertEquals(1, reads.size());
+      assertEquals(path, reads.get(0).getString("path"));
+      assertTrue(reads.get(0).getBoolean("failed"));
+      assertTrue(ofType(events, "ImageOperation").get(0).getBoolean("failed"));
+    }
+
+    @Test
+    public void testFilterAndCompressionEvents()
+            throws ImageProcessorException, IOException {
+      Image image = TestUtils.randomRectangleImage();
+      image.applyFilter(FilterOption.SHARPEN);
+      image.compress(CompressionType.HAAR, 40);
+      List<RecordedEvent> events = stopRecording();
+      List<RecordedEvent> filters = ofType(events, "Filter");
+      assertEquals(1, filters.size());
+      assertEquals("SHARPEN", filters.get(0).getString("filter"));
+      assertEquals(5, filters.get(0).getInt("kernelSize"));
+      assertEquals(3, filters.get(0).getInt("width"));
+      List<RecordedEvent> compressions = ofType(events, "Compression");
+      assertEquals(1, compressions.size());
+      RecordedEvent compression = compressions.get(0);
+      assertEquals("HaarCompression", compression.getString("compression"));
+      assertEquals(0.4, compression.getDouble("percentage"), 1e-9);
+      assertEquals(4, compression.getInt("paddedWidth"));
+      assertEquals(4, compression.getInt("paddedHeight"));
+    }
+
+    @Test
+    public void testReadAndWriteEvents()
+            throws ImageProcessorException, IOException {
+      String path = OUTPUT_DIRECTORY.resolve("image.ppm").toString();
+      service.saveImage(ImageProcessingRequest.builder().imagePath(path)
+              .imageName("image").build());
+      service.loadImage(ImageProcessingRequest.builder().imagePath(path)
+              .imageName("loaded").build());
+      List<RecordedEvent> events = stopRecording();
+      List<RecordedEvent> writes = ofType(events, "ImageWrite");
+      assertEquals(1, writes.size());
+      assertEquals(path, writes.get(0).getString("path"));
+      assertEquals("ppm", writes.get(0).getString("format"));
+      assertFalse(writes.get(0).getBoolean("failed"));
+      List<RecordedEvent> reads = ofType(events, "ImageRead");
+      assertEquals(1, reads.size());
+      assertEquals(3, reads.get(0).getInt("width"));
+      assertEquals(2, reads.get(0).getInt("height"));
+      List<RecordedEvent> operations = ofType(events, "ImageOperation");
+      assertEquals(2, operations.size());
+      assertEquals("path=" + path, operations.get(1).getString("parameters"));
+    }
+
+    @Test
+    public void testMemorySpillEvents()
+            throws ImageProcessorException, IOException {
+      SpillingImageMemory spillingMemory = new SpillingImageMemory(0,
+              OUTPUT_DIRECTORY.resolve("spill"));
+      spillingMemory.addImage("spilled", PackedImage.fromImage(
+              TestUtils.randomRectangleImage()));
+      spillingMemory.addImage("kept", PackedImage.fromImage(
+              TestUtils.randomRectangleImage()));
+      spillingMemory.getImage("spilled");
+      List<RecordedEvent> events = ofType(stopRecording(), "MemorySpill");
+      spillingMemory.clearMemory();
+      assertEquals(2, events.size());
+      assertFalse(events.get(0).getBoolean("reload"));
+      assertTrue(events.get(1).getBoolean("reload"));
+      assertEquals("spilled", events.get(1).getString("imageName"));
+      assertEquals(3, events.get(1).getInt("width"));
+    }
+  }
+
   /**
    * Test class for image processor app.
    */
@@ -4681,4 +5029,1924 @@ public class UnitTestForImageProcessor {
       }
     }
   }
+
+  /**
+   * Test class for the PackedImage which stores pixels in a packed array.
+   */
+  public static class PackedImageTest {
+    private Image renderedImage;
+    private Image packedImage;
+
+    @Before
+    public void setUp() throws ImageProcessorException {
+      Pixel[][] pixels = new Pixel[3][4];
+      for (int row = 0; row < 3; row++) {
+        for (int col = 0; col < 4; col++) {
+          pixels[row][col] = new RGB(row * 97 + col * 13,
+                  255 - row * 41 - col * 29, (row * 53 + col * 71) % 256);
+        }
+      }
+      renderedImage = Factory.createImage(pixels);
+      packedImage = Factory.createImage(pixels, ImageStorageType.PACKED);
+    }
+
+    @Test
+    public void testFactoryCreatesSelectedStorage() throws
+            ImageProcessorException {
+      Pixel[][] pixels = new Pixel[][]{{new RGB(1, 2, 3)}};
+      assertTrue(Factory.createImage(pixels, ImageStorageType.PACKED)
+              instanceof PackedImage);
+      assertTrue(Factory.createImage(pixels, ImageStorageType.PIXEL_ARRAY)
+              instanceof RenderedImage);
+    }
+
+    @Test
+    public void testFromPixelsRejectsRaggedRows() {
+      Pixel[][] pixels = new Pixel[][]{{new RGB(1, 2, 3), new RGB(4, 5, 6)},
+          {new RGB(7, 8, 9)}};
+      assertThrows(ImageProcessorException.class,
+          () -> PackedImage.fromPixels(pixels));
+      assertThrows(ImageProcessorException.class,
+          () -> PackedImage.fromPixels(new Pixel[0][0]));
+    }
+
+    @Test
+    public void testEqualsAndHashCodeAcrossStorage() {
+      assertEquals(renderedImage, packedImage);
+      assertEquals(packedImage, renderedImage);
+      assertEquals(renderedImage.hashCode(), packedImage.hashCode());
+    }
+
+    @Test
+    public void testToStringAcrossStorage() {
+      assertEquals(renderedImage.toString(), packedImage.toString());
+    }
+
+    @Test
+    public void testGetPixel() {
+      assertEquals(renderedImage.getPixel(2, 3), packedImage.getPixel(2, 3));
+      assertEquals(new RGB(0, 255, 0), packedImage.getPixel(0, 0));
+    }
+
+    @Test
+    public void testGetPixelOutOfBounds() {
+      assertThrows(IndexOutOfBoundsException.class,
+          () -> packedImage.getPixel(0, 4));
+    }
+
+    @Test
+    public void testOperationsMatchRenderedImage() throws
+            ImageProcessorException {
+      assertEquals(renderedImage.createRedComponent(),
+              packedImage.createRedComponent());
+      assertEquals(renderedImage.createGreenComponent(),
+              packedImage.createGreenComponent());
+      assertEquals(renderedImage.createBlueComponent(),
+              packedImage.createBlueComponent());
+      assertEquals(renderedImage.adjustImageBrightness(70),
+              packedImage.adjustImageBrightness(70));
+      assertEquals(renderedImage.adjustImageBrightness(-70),
+              packedImage.adjustImageBrightness(-70));
+      assertEquals(renderedImage.getLuma(), packedImage.getLuma());
+      assertEquals(renderedImage.getSepia(), packedImage.getSepia());
+      assertEquals(renderedImage.getIntensity(), packedImage.getIntensity());
+      assertEquals(renderedImage.getValue(), packedImage.getValue());
+      assertEquals(renderedImage.horizontalFlip(),
+              packedImage.horizontalFlip());
+      assertEquals(renderedImage.verticalFlip(), packedImage.verticalFlip());
+      assertEquals(renderedImage.applyFilter(FilterOption.GAUSSIAN_BLUR),
+              packedImage.applyFilter(FilterOption.GAUSSIAN_BLUR));
+      assertEquals(renderedImage.applyFilter(FilterOption.SHARPEN),
+              packedImage.applyFilter(FilterOption.SHARPEN));
+      assertEquals(renderedImage.colorCorrect(), packedImage.colorCorrect());
+      assertEquals(renderedImage.levelsAdjust(20, 100, 230),
+              packedImage.levelsAdjust(20, 100, 230));
+      assertEquals(renderedImage.downscale(50, 70),
+              packedImage.downscale(50, 70));
+      assertEquals(renderedImage.compress(CompressionType.HAAR, 40),
+              packedImage.compress(CompressionType.HAAR, 40));
+      assertEquals(renderedImage.histogram(), packedImage.histogram());
+      assertEquals(renderedImage.combineImages(renderedImage.getSepia(), 50),
+              packedImage.combineImages(packedImage.getSepia(), 50));
+      assertArrayEquals(renderedImage.getRedChannel(),
+              packedImage.getRedChannel());
+      assertArrayEquals(renderedImage.getGreenChannel(),
+              packedImage.getGreenChannel());
+      assertArrayEquals(renderedImage.getBlueChannel(),
+              packedImage.getBlueChannel());
+    }
+
+    @Test
+    public void testOperationsKeepPackedStorage() throws
+            ImageProcessorException {
+      assertTrue(packedImage.getSepia() instanceof PackedImage);
+      assertTrue(packedImage.applyFilter(FilterOption.SHARPEN)
+              instanceof PackedImage);
+      assertTrue(packedImage.combineImages(renderedImage, 30)
+              instanceof PackedImage);
+    }
+
+    @Test
+    public void testInvalidDimensions() {
+      assertThrows(ImageProcessorException.class,
+          () -> Factory.createImage(0, 2, new int[0]));
+      assertThrows(ImageProcessorException.class,
+          () -> Factory.createImage(2, 2, new int[3]));
+    }
+
+    @Test
+    public void testInvalidLevelsAndScale() {
+      assertThrows(ImageProcessorException.class,
+          () -> packedImage.levelsAdjust(100, 50, 200));
+      assertThrows(ImageProcessorException.class,
+          () -> packedImage.downscale(0, 50));
+    }
+  }
+
+  /**
+   * Test class for ParallelUtils which runs image operations on row bands
+   * in parallel.
+   */
+  public static class ParallelUtilsTest {
+    private ForkJoinPool forkJoinPool;
+    private Image image;
+
+    @Before
+    public void setUp() throws ImageProcessorException {
+      forkJoinPool = new ForkJoinPool(4);
+      image = TestUtils.randomImage(37, 23, 42);
+    }
+
+    @After
+    public void tearDown() {
+      ParallelUtils.setPool(ForkJoinPool.commonPool());
+      ParallelUtils.setSequentialThreshold(
+              ParallelUtils.DEFAULT_SEQUENTIAL_THRESHOLD);
+      forkJoinPool.shutdown();
+    }
+
+    private List<Image> applyAllOperations(Image source)
+            throws ImageProcessorException {
+      List<Image> results = new ArrayList<>();
+      results.add(source.getSepia());
+      results.add(source.adjustImageBrightness(-30));
+      results.add(source.horizontalFlip());
+      results.add(source.verticalFlip());
+      results.add(source.applyFilter(FilterOption.GAUSSIAN_BLUR));
+      results.add(source.applyFilter(FilterOption.SHARPEN));
+      results.add(source.colorCorrect());
+      results.add(source.levelsAdjust(10, 120, 240));
+      results.add(source.downscale(70, 40));
+      results.add(source.combineImages(source.getLuma(), 35));
+      results.add(source.histogram());
+      return results;
+    }
+
+    @Test
+    public void testParallelResultIsIdenticalToSequential()
+            throws ImageProcessorException {
+      List<Image> sequential = applyAllOperations(image);
+      ParallelUtils.setPool(forkJoinPool);
+      ParallelUtils.setSequentialThreshold(1);
+      assertEquals(sequential, applyAllOperations(image));
+      Image packedImage = PackedImage.fromImage(image);
+      assertEquals(sequential, applyAllOperations(packedImage));
+    }
+
+    @Test
+    public void testEveryRowProcessedExactlyOnce() {
+      ParallelUtils.setPool(forkJoinPool);
+      ParallelUtils.setSequentialThreshold(10);
+      AtomicIntegerArray visits = new AtomicIntegerArray(101);
+      ParallelUtils.forEachRowBand(101, 3, (startRow, endRow) -> {
+        for (int row = startRow; row < endRow; row++) {
+          visits.incrementAndGet(row);
+        }
+      });
+      for (int row = 0; row < visits.length(); row++) {
+        assertEquals(1, visits.get(row));
+      }
+    }
+
+    @Test
+    public void testSmallImageRunsOnCallingThread() {
+      ParallelUtils.setPool(forkJoinPool);
+      Thread caller = Thread.currentThread();
+      List<Thread> threads = new ArrayList<>();
+      ParallelUtils.forEachRowBand(4, 4,
+          (startRow, endRow) -> threads.add(Thread.currentThread()));
+      assertEquals(List.of(caller), threads);
+    }
+
+    @Test
+    public void testInterruptCancelsRemainingBands() {
+      ParallelUtils.setPool(forkJoinPool);
+      ParallelUtils.setSequentialThreshold(1);
+      Thread caller = Thread.currentThread();
+      AtomicInteger bands = new AtomicInteger();
+      try {
+        assertThrows(CancellationException.class,
+            () -> ParallelUtils.forEachRowBand(1000, 1, (startRow, endRow) -> {
+              if (bands.incrementAndGet() == 1) {
+                caller.interrupt();
+              }
+            }));
+        assertTrue(Thread.currentThread().isInterrupted());
+      } finally {
+        Thread.interrupted();
+      }
+      assertTrue(bands.get() < 1000);
+    }
+
+    @Test
+    public void testInterruptedCallerDoesNotStart() {
+      ParallelUtils.setPool(forkJoinPool);
+      AtomicInteger bands = new AtomicInteger();
+      Thread.currentThread().interrupt();
+      try {
+        assertThrows(CancellationException.class,
+            () -> ParallelUtils.forEachRowBand(4, 4,
+                (startRow, endRow) -> bands.incrementAndGet()));
+        assertThrows(CancellationException.class,
+            () -> ParallelUtils.reduceRowBands(4, 4,
+                (startRow, endRow) -> bands.incrementAndGet(), Integer::sum));
+      } finally {
+        Thread.interrupted();
+      }
+      assertEquals(0, bands.get());
+    }
+
+    @Test
+    public void testInvalidThreshold() {
+      assertThrows(IllegalArgumentException.class,
+          () -> ParallelUtils.setSequentialThreshold(0));
+    }
+  }
+
+  /**
+   * Test class for the convolution paths of FilterUtils.
+   * Results are compared against a plain pixel by pixel convolution.
+   */
+  public static class FilterUtilsConvolutionTest {
+
+    private static Image convolvePixelByPixel(Image image,
+                                              FilterOption filterOption)
+            throws ImageProcessorException {
+      int width = image.getWidth();
+      int height = image.getHeight();
+      double[][] kernel = filterOption.getKernel();
+      int radius = kernel.length / 2;
+      Pixel[][] pixels = new Pixel[height][width];
+      for (int row = 0; row < height; row++) {
+        for (int col = 0; col < width; col++) {
+          double redSum = 0;
+          double greenSum = 0;
+          double blueSum = 0;
+          for (int ky = -radius; ky <= radius; ky++) {
+            for (int kx = -radius; kx <= radius; kx++) {
+              int pixelX = row + kx;
+              int pixelY = col + ky;
+              if (pixelX >= 0 && pixelX < height && pixelY >= 0
+                      && pixelY < width) {
+                Pixel pixel = image.getPixel(pixelX, pixelY);
+                double kernelValue = kernel[ky + radius][kx + radius];
+                redSum += pixel.getRed() * kernelValue;
+                greenSum += pixel.getGreen() * kernelValue;
+                blueSum += pixel.getBlue() * kernelValue;
+              }
+            }
+          }
+          pixels[row][col] = new RGB((int) redSum, (int) greenSum,
+                  (int) blueSum);
+        }
+      }
+      return Factory.createImage(pixels);
+    }
+
+    private void assertMatchesPixelByPixel(int height, int width)
+            throws ImageProcessorException {
+      Image image = TestUtils.randomImage(height, width, height * 31L + width);
+      for (FilterOption filterOption : FilterOption.values()) {
+        Image expected = convolvePixelByPixel(image, filterOption);
+        assertEquals(expected, FilterUtils.applyFilter(image, filterOption));
+        assertEquals(expected, FilterUtils.applyFilter(
+                PackedImage.fromImage(image), filterOption));
+      }
+    }
+
+    @Test
+    public void testLargeImageMatchesPixelByPixel()
+            throws ImageProcessorException {
+      assertMatchesPixelByPixel(41, 57);
+    }
+
+    @Test
+    public void testImagesSmallerThanKernelMatchPixelByPixel()
+            throws ImageProcessorException {
+      assertMatchesPixelByPixel(1, 1);
+      assertMatchesPixelByPixel(1, 9);
+      assertMatchesPixelByPixel(9, 1);
+      assertMatchesPixelByPixel(3, 4);
+      assertMatchesPixelByPixel(5, 5);
+    }
+
+    @Test
+    public void testPackedImageStaysPacked() throws ImageProcessorException {
+      Image image = PackedImage.fromImage(TestUtils.randomImage(6, 6, 7));
+      assertTrue(FilterUtils.applyFilter(image, FilterOption.SHARPEN)
+              instanceof PackedImage);
+      assertTrue(FilterUtils.applyFilter(image, FilterOption.GAUSSIAN_BLUR)
+              instanceof PackedImage);
+    }
+
+    @Test
+    public void testSaturatedImageIsClamped() throws ImageProcessorException {
+      Pixel[][] pixels = new Pixel[4][4];
+      for (Pixel[] row : pixels) {
+        Arrays.fill(row, new RGB(255, 255, 255));
+      }
+      Image image = Factory.createImage(pixels);
+      Image sharpened = FilterUtils.applyFilter(image, FilterOption.SHARPEN);
+      assertEquals(convolvePixelByPixel(image, FilterOption.SHARPEN),
+              sharpened);
+      assertEquals(new RGB(255, 255, 255), sharpened.getPixel(0, 0));
+    }
+  }
+
+  /**
+   * Test class for ChannelLookupTable which applies point operations
+   * using lookup tables.
+   */
+  public static class ChannelLookupTableTest {
+    private Pixel[] samplePixels;
+
+    @Before
+    public void setUp() {
+      samplePixels = new Pixel[]{new RGB(0, 0, 0), new RGB(255, 255, 255),
+          new RGB(12, 200, 99), new RGB(250, 3, 128), new RGB(77, 77, 240)};
+    }
+
+    @Test
+    public void testBrightnessMatchesPixel() {
+      for (int factor : new int[]{-300, -50, 0, 17, 300}) {
+        ChannelLookupTable lookupTable = ChannelLookupTable.brightness(factor);
+        for (Pixel pixel : samplePixels) {
+          assertEquals(pixel.adjustBrightness(factor), lookupTable.apply(pixel));
+        }
+      }
+    }
+
+    @Test
+    public void testQuadraticMatchesPixel() {
+      double[][] coefficients = {{0.001, 0.7, 3.2}, {-0.004, 2.1, -40},
+          {0, 1, 0}};
+      for (double[] c : coefficients) {
+        ChannelLookupTable lookupTable =
+                ChannelLookupTable.quadratic(c[0], c[1], c[2]);
+        for (Pixel pixel : samplePixels) {
+          assertEquals(pixel.quadraticTransform(c[0], c[1], c[2]),
+                  lookupTable.apply(pixel));
+        }
+      }
+    }
+
+    @Test
+    public void testComponentsMatchPixel() {
+      for (Pixel pixel : samplePixels) {
+        assertEquals(pixel.createRedComponent(),
+                ChannelLookupTable.redComponent().apply(pixel));
+        assertEquals(pixel.createGreenComponent(),
+                ChannelLookupTable.greenComponent().apply(pixel));
+        assertEquals(pixel.createBlueComponent(),
+                ChannelLookupTable.blueComponent().apply(pixel));
+      }
+    }
+
+    @Test
+    public void testIdentity() {
+      for (Pixel pixel : samplePixels) {
+        assertEquals(pixel, ChannelLookupTable.identity().apply(pixel));
+      }
+      assertEquals(ChannelLookupTable.brightness(0),
+              ChannelLookupTable.identity());
+    }
+
+    @Test
+    public void testComposedTableMatchesConsecutiveTables() {
+      ChannelLookupTable brighten = ChannelLookupTable.brightness(60);
+      ChannelLookupTable levels = ChannelLookupTable.quadratic(-0.002, 1.4, -5);
+      ChannelLookupTable green = ChannelLookupTable.greenComponent();
+      ChannelLookupTable darken = ChannelLookupTable.brightness(-90);
+      ChannelLookupTable composed = brighten.andThen(green).andThen(levels)
+              .andThen(darken);
+      for (Pixel pixel : samplePixels) {
+        Pixel expected = darken.apply(levels.apply(green.apply(
+                brighten.apply(pixel))));
+        assertEquals(expected, composed.apply(pixel));
+      }
+    }
+
+    @Test
+    public void testApplyLookupTableOnImages() throws ImageProcessorException {
+      Pixel[][] pixels = new Pixel[][]{samplePixels, samplePixels};
+      Image image = Factory.createImage(pixels);
+      Image packedImage = Factory.createImage(pixels, ImageStorageType.PACKED);
+      ChannelLookupTable composed = ChannelLookupTable.brightness(40)
+              .andThen(ChannelLookupTable.blueComponent());
+      Image expected = image.adjustImageBrightness(40).createBlueComponent();
+      assertEquals(expected, image.applyLookupTable(composed));
+      assertEquals(expected, packedImage.applyLookupTable(composed));
+    }
+
+    @Test
+    public void testLinearTransformationMatchesKernel() {
+      for (LinearColorTransformationType type
+              : LinearColorTransformationType.values()) {
+        double[][] kernel = type.getKernel();
+        for (Pixel pixel : samplePixels) {
+          int r = pixel.getRed();
+          int g = pixel.getGreen();
+          int b = pixel.getBlue();
+          for (int channel = 0; channel < 3; channel++) {
+            double expected = kernel[channel][0] * r + kernel[channel][1] * g
+                    + kernel[channel][2] * b;
+            assertEquals(expected, type.transformChannel(channel, r, g, b),
+                    0.0);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Test class for LazyImage which fuses pending point operations.
+   */
+  public static class LazyImageTest {
+    private Image image;
+
+    @Before
+    public void setUp() throws ImageProcessorException {
+      image = TestUtils.randomImage(9, 7, 5);
+    }
+
+    @Test
+    public void testPointOperationsAreNotApplied()
+            throws ImageProcessorException {
+      LazyImage lazyImage = (LazyImage) Factory.createLazyImage(image)
+              .adjustImageBrightness(20);
+      assertEquals(1, lazyImage.getPendingOperationCount());
+      assertEquals(image.getWidth(), lazyImage.getWidth());
+      assertEquals(image.getHeight(), lazyImage.getHeight());
+    }
+
+    @Test
+    public void testConsecutiveLookupTablesAreFused()
+            throws ImageProcessorException {
+      LazyImage lazyImage = (LazyImage) Factory.createLazyImage(image)
+              .adjustImageBrightness(20).levelsAdjust(10, 100, 200)
+              .createRedComponent();
+      assertEquals(1, lazyImage.getPendingOperationCount());
+      LazyImage withSepia = (LazyImage) lazyImage.getSepia()
+              .adjustImageBrightness(-10).adjustImageBrightness(5);
+      assertEquals(3, withSepia.getPendingOperationCount());
+    }
+
+    @Test
+    public void testChainMatchesEagerOperations()
+            throws ImageProcessorException {
+      Image expected = image.adjustImageBrightness(35).getSepia()
+              .levelsAdjust(20, 110, 230).getLuma().getIntensity().getValue()
+              .createGreenComponent().adjustImageBrightness(-80);
+      for (Image source : new Image[]{image, PackedImage.fromImage(image)}) {
+        Image actual = Factory.createLazyImage(source)
+                .adjustImageBrightness(35).getSepia().levelsAdjust(20, 110, 230)
+                .getLuma().getIntensity().getValue().createGreenComponent()
+                .adjustImageBrightness(-80);
+        assertEquals(expected, actual);
+        assertEquals(actual, expected);
+        assertEquals(expected.hashCode(), actual.hashCode());
+      }
+    }
+
+    @Test
+    public void testMaterialisedOnceAndKept() throws ImageProcessorException {
+      LazyImage lazyImage = (LazyImage) Factory.createLazyImage(image)
+              .getSepia();
+      Image materialised = lazyImage.materialise();
+      assertEquals(0, lazyImage.getPendingOperationCount());
+      assertTrue(materialised == lazyImage.materialise());
+      assertTrue(materialised == lazyImage.getSource());
+      assertEquals(image.getSepia().getPixel(3, 4), lazyImage.getPixel(3, 4));
+    }
+
+    @Test
+    public void testOtherOperationsMatchEagerOperations()
+            throws ImageProcessorException {
+      Image lazyImage = Factory.createLazyImage(image).getSepia();
+      Image sepia = image.getSepia();
+      assertEquals(sepia.horizontalFlip(), lazyImage.horizontalFlip());
+      assertEquals(sepia.verticalFlip(), lazyImage.verticalFlip());
+      assertEquals(sepia.applyFilter(FilterOption.SHARPEN),
+              lazyImage.applyFilter(FilterOption.SHARPEN));
+      assertEquals(sepia.colorCorrect(), lazyImage.colorCorrect());
+      assertEquals(sepia.histogram(), lazyImage.histogram());
+      assertEquals(sepia.downscale(50, 50), lazyImage.downscale(50, 50));
+      assertEquals(sepia.combineImages(image, 40),
+              lazyImage.combineImages(image, 40));
+      assertEquals(image.combineImages(sepia, 40),
+              image.combineImages(lazyImage, 40));
+      assertArrayEquals(sepia.getRedChannel(), lazyImage.getRedChannel());
+    }
+
+    @Test
+    public void testInvalidLevelsFailImmediately() {
+      Image lazyImage = Factory.createLazyImage(image);
+      assertThrows(ImageProcessorException.class,
+          () -> lazyImage.levelsAdjust(200, 100, 50));
+    }
+
+    @Test
+    public void testCreateLazyImageDoesNotWrapTwice() {
+      Image lazyImage = Factory.createLazyImage(image);
+      assertTrue(lazyImage == Factory.createLazyImage(lazyImage));
+    }
+
+    @Test
+    public void testServiceStoresLazyImages() throws ImageProcessorException {
+      ImageMemory<Image> memory = new HashMapMemory();
+      memory.addImage("image", Factory.createLazyImage(image));
+      ImageProcessingService service = Factory.createImageProcessor(memory);
+      service.brighten(ImageProcessingRequest.builder().imageName("image")
+              .destinationImageName("bright").factor(10).build());
+      service.sepiaImage(ImageProcessingRequest.builder()
+              .imageName("bright").destinationImageName("sepia").build());
+      Image stored = memory.getImage("sepia");
+      assertTrue(stored instanceof LazyImage);
+      assertEquals(2, ((LazyImage) stored).getPendingOperationCount());
+      assertEquals(image.adjustImageBrightness(10).getSepia(), stored);
+    }
+
+    @Test
+    public void testLookupHistogramIsDerivedWithoutMaterialising()
+            throws ImageProcessorException {
+      LazyImage lazyImage = (LazyImage) Factory.createLazyImage(image)
+              .adjustImageBrightness(40).levelsAdjust(10, 100, 200)
+              .createBlueComponent();
+      ColorHistogram histogram = lazyImage.colorHistogram();
+      assertEquals(1, lazyImage.getPendingOperationCount());
+      assertEquals(ColorHistogram.of(image.adjustImageBrightness(40)
+              .levelsAdjust(10, 100, 200).createBlueComponent()), histogram);
+    }
+
+    @Test
+    public void testKnownHistogramIsDerivedForLookupTables()
+            throws ImageProcessorException {
+      Image lazyImage = Factory.createLazyImage(image);
+      lazyImage.colorHistogram();
+      Image bright = lazyImage.adjustImageBrightness(-60);
+      assertEquals(ColorHistogram.of(image.adjustImageBrightness(-60)),
+              bright.colorHistogram());
+      Image red = bright.createRedComponent();
+      assertEquals(ColorHistogram.of(image.adjustImageBrightness(-60)
+              .createRedComponent()), red.colorHistogram());
+    }
+
+    @Test
+    public void testFlipKeepsKnownHistogram() throws ImageProcessorException {
+      Image lazyImage = Factory.createLazyImage(image).getSepia();
+      ColorHistogram histogram = lazyImage.colorHistogram();
+      Image flipped = lazyImage.horizontalFlip().verticalFlip();
+      assertTrue(histogram == flipped.colorHistogram());
+      assertEquals(image.getSepia().horizontalFlip().verticalFlip(), flipped);
+      assertEquals(flipped, image.getSepia().horizontalFlip().verticalFlip());
+    }
+
+    @Test
+    public void testHistogramIsRenderedOnce() throws ImageProcessorException {
+      Image lazyImage = Factory.createLazyImage(image).getLuma();
+      Image histogram = lazyImage.histogram();
+      assertTrue(histogram == lazyImage.histogram());
+      assertEquals(image.getLuma().histogram(), histogram);
+    }
+  }
+
+  /**
+   * Test class for HaarCompression.
+   */
+  public static class HaarCompressionTest {
+    private Image image;
+
+    @Before
+    public void setUp() throws ImageProcessorException {
+      Random random = new Random(11);
+      Pixel[][] pixels = new Pixel[13][21];
+      for (int row = 0; row < pixels.length; row++) {
+        for (int col = 0; col < pixels[0].length; col++) {
+          pixels[row][col] = new RGB(random.nextInt(256),
+                  1 + random.nextInt(255), 1 + random.nextInt(255));
+        }
+      }
+      image = Factory.createImage(pixels);
+    }
+
+    @Test
+    public void testNoCompressionReconstructsImage()
+            throws ImageProcessorException {
+      assertEquals(image, image.compress(CompressionType.HAAR, 0));
+    }
+
+    @Test
+    public void testFullCompressionRemovesEveryCoefficient()
+            throws ImageProcessorException {
+      Pixel[][] pixels = new Pixel[2][2];
+      pixels[0][0] = new RGB(10, 20, 30);
+      pixels[0][1] = new RGB(30, 40, 50);
+      pixels[1][0] = new RGB(50, 60, 70);
+      pixels[1][1] = new RGB(70, 80, 90);
+      Image compressed = Factory.createImage(pixels)
+              .compress(CompressionType.HAAR, 100);
+      for (int row = 0; row < 2; row++) {
+        for (int col = 0; col < 2; col++) {
+          assertEquals(new RGB(0, 0, 0), compressed.getPixel(row, col));
+        }
+      }
+    }
+
+    @Test
+    public void testCompressionKeepsDimensions() throws ImageProcessorException {
+      Image compressed = image.compress(CompressionType.HAAR, 60);
+      assertEquals(image.getWidth(), compressed.getWidth());
+      assertEquals(image.getHeight(), compressed.getHeight());
+      assertNotEquals(image, compressed);
+    }
+
+    @Test
+    public void testPackedImageMatchesAndStaysPacked()
+            throws ImageProcessorException {
+      Image packedImage = PackedImage.fromImage(image);
+      Image compressed = packedImage.compress(CompressionType.HAAR, 45);
+      assertTrue(compressed instanceof PackedImage);
+      assertEquals(image.compress(CompressionType.HAAR, 45), compressed);
+    }
+
+    @Test
+    public void testChannelWithoutCoefficientsIsKept()
+            throws ImageProcessorException {
+      Pixel[][] pixels = new Pixel[3][5];
+      for (Pixel[] row : pixels) {
+        Arrays.fill(row, new RGB(0, 0, 0));
+      }
+      pixels[1][2] = new RGB(200, 0, 0);
+      Image compressed = Factory.createImage(pixels)
+              .compress(CompressionType.HAAR, 20);
+      for (int row = 0; row < 3; row++) {
+        for (int col = 0; col < 5; col++) {
+          assertEquals(0, compressed.getPixel(row, col).getGreen());
+          assertEquals(0, compressed.getPixel(row, col).getBlue());
+        }
+      }
+    }
+
+    @Test
+    public void testInvalidPercentage() {
+      assertThrows(ImageProcessorException.class,
+          () -> image.compress(CompressionType.HAAR, 101));
+      assertThrows(ImageProcessorException.class,
+          () -> image.compress(CompressionType.HAAR, -1));
+    }
+  }
+
+  /**
+   * Test class for RectangularHaarCompression.
+   */
+  public static class RectangularHaarCompressionTest {
+
+    private static Image createRandomImage(int height, int width)
+            throws ImageProcessorException {
+      return TestUtils.randomImage(height, width, height * 17L + width);
+    }
+
+    @Test
+    public void testFactoryCreatesRectangularCompression()
+            throws ImageProcessorException {
+      assertTrue(Factory.createCompression(CompressionType.HAAR_RECTANGULAR)
+              instanceof RectangularHaarCompression);
+    }
+
+    @Test
+    public void testNoCompressionReconstructsImage()
+            throws ImageProcessorException {
+      // Compressing by 0 percent still removes the smallest coefficient, so
+      // the channels can be off by a small amount.
+      for (int[] dimensions : new int[][]{{5, 13}, {40, 10}, {16, 64},
+          {3, 100}}) {
+        Image image = createRandomImage(dimensions[0], dimensions[1]);
+        Image compressed = image.compress(CompressionType.HAAR_RECTANGULAR, 0);
+        for (int row = 0; row < image.getHeight(); row++) {
+          for (int col = 0; col < image.getWidth(); col++) {
+            Pixel expected = image.getPixel(row, col);
+            Pixel actual = compressed.getPixel(row, col);
+            assertEquals(expected.getRed(), actual.getRed(), 2);
+            assertEquals(expected.getGreen(), actual.getGreen(), 2);
+            assertEquals(expected.getBlue(), actual.getBlue(), 2);
+          }
+        }
+      }
+    }
+
+    @Test
+    public void testSquareImageMatchesSquareCompression()
+            throws ImageProcessorException {
+      Image image = createRandomImage(16, 16);
+      for (int percentage : new int[]{0, 30, 75, 100}) {
+        assertEquals(image.compress(CompressionType.HAAR, percentage),
+                image.compress(CompressionType.HAAR_RECTANGULAR, percentage));
+      }
+    }
+
+    @Test
+    public void testCompressionKeepsDimensionsAndStorage()
+            throws ImageProcessorException {
+      Image image = PackedImage.fromImage(createRandomImage(7, 30));
+      Image compressed = image.compress(CompressionType.HAAR_RECTANGULAR, 50);
+      assertTrue(compressed instanceof PackedImage);
+      assertEquals(7, compressed.getHeight());
+      assertEquals(30, compressed.getWidth());
+      assertNotEquals(image, compressed);
+    }
+
+    @Test
+    public void testFullCompressionRemovesEveryCoefficient()
+            throws ImageProcessorException {
+      Image compressed = createRandomImage(3, 6)
+              .compress(CompressionType.HAAR_RECTANGULAR, 100);
+      for (int row = 0; row < 3; row++) {
+        for (int col = 0; col < 6; col++) {
+          assertEquals(new RGB(0, 0, 0), compressed.getPixel(row, col));
+        }
+      }
+    }
+  }
+
+
+  /**
+   * Test class for HaarImageCodec and the HAAR image type.
+   */
+  public static class HaarImageCodecTest {
+    private Image image;
+
+    @Before
+    public void setUp() throws ImageProcessorException {
+      Pixel[][] pixels = new Pixel[24][40];
+      for (int row = 0; row < pixels.length; row++) {
+        for (int col = 0; col < pixels[0].length; col++) {
+          pixels[row][col] = new RGB(row * 10, col * 6, (row + col) * 4);
+        }
+      }
+      image = Factory.createImage(pixels);
+    }
+
+    private static byte[] encode(Image image)
+            throws ImageProcessorException, IOException {
+      ByteArrayOutputStream output = new ByteArrayOutputStream();
+      HaarImageCodec.write(image, output);
+      return output.toByteArray();
+    }
+
+    private static byte[] encode(Image image, int percentage)
+            throws ImageProcessorException, IOException {
+      ByteArrayOutputStream output = new ByteArrayOutputStream();
+      HaarImageCodec.write(image, percentage, output);
+      return output.toByteArray();
+    }
+
+    private static void assertClose(Image expected, Image actual, int delta) {
+      assertEquals(expected.getHeight(), actual.getHeight());
+      assertEquals(expected.getWidth(), actual.getWidth());
+      for (int row = 0; row < expected.getHeight(); row++) {
+        for (int col = 0; col < expected.getWidth(); col++) {
+          Pixel expectedPixel = expected.getPixel(row, col);
+          Pixel actualPixel = actual.getPixel(row, col);
+          assertEquals(expectedPixel.getRed(), actualPixel.getRed(), delta);
+          assertEquals(expectedPixel.getGreen(), actualPixel.getGreen(), delta);
+          assertEquals(expectedPixel.getBlue(), actualPixel.getBlue(), delta);
+        }
+      }
+    }
+
+    @Test
+    public void testRoundTripKeepsImage()
+            throws ImageProcessorException, IOException {
+      Image decoded = HaarImageCodec.read(new ByteArrayInputStream(encode(image)));
+      assertTrue(decoded instanceof PackedImage);
+      assertClose(image, decoded, 0);
+
+      Image noise = TestUtils.randomImage(37, 53, 11);
+      assertClose(noise, HaarImageCodec.read(
+              new ByteArrayInputStream(encode(noise))), 0);
+    }
+
+    @Test
+    public void testPercentageMatchesCompression()
+            throws ImageProcessorException, IOException {
+      byte[] encoded = encode(image, 90);
+      assertTrue(encoded.length < encode(image).length);
+      assertClose(image.compress(CompressionType.HAAR, 90),
+              HaarImageCodec.read(new ByteArrayInputStream(encoded)), 1);
+    }
+
+    @Test
+    public void testInvalidPercentageIsRejected() {
+      assertThrows(ImageProcessorException.class, () -> encode(image, 101));
+      assertThrows(ImageProcessorException.class, () -> encode(image, -1));
+    }
+
+    @Test
+    public void testInvalidFileIsRejected() {
+      assertThrows(ImageProcessorException.class, () -> HaarImageCodec.read(
+              new ByteArrayInputStream("P3 1 1 255".getBytes())));
+      assertThrows(ImageProcessorException.class, () -> HaarImageCodec.read(
+              new ByteArrayInputStream(new byte[]{'H', 'A', 'A', 'R', 1, 0})));
+    }
+
+    @Test
+    public void testTruncatedFileIsRejected()
+            throws ImageProcessorException, IOException {
+      byte[] encoded = encode(image);
+      byte[] truncated = Arrays.copyOf(encoded, encoded.length / 2);
+      assertThrows(Exception.class, () -> HaarImageCodec.read(
+              new ByteArrayInputStream(truncated)));
+    }
+
+    @Test
+    public void testHugeHeaderIsRejected() throws IOException {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      DataOutputStream header = new DataOutputStream(bytes);
+      header.writeBytes("HAAR");
+      header.writeByte(2);
+      header.writeInt(32768);
+      header.writeInt(32768);
+      header.writeDouble(1.0 / 8);
+      assertThrows(ImageProcessorException.class, () -> HaarImageCodec.read(
+              new ByteArrayInputStream(bytes.toByteArray())));
+    }
+
+    @Test
+    public void testReadAndWriteThroughIOUtils() throws ImageProcessorException {
+      String path = "test_resources/output/haar-codec.haar";
+      assertEquals(ImageType.HAAR, ImageType.getImageTypeFromPath(path));
+      IOUtils.write(image, path, ImageType.HAAR);
+      assertClose(image, IOUtils.read(path, ImageType.HAAR), 0);
+      IOUtils.write(image, path, ImageType.HAAR, 50);
+      assertClose(image.compress(CompressionType.HAAR, 50),
+              IOUtils.read(path, ImageType.HAAR), 1);
+    }
+
+    @Test
+    public void testSaveCommandTakesPercentage() throws ImageProcessorException {
+      ScriptCommand save = CommandParser.parse(UserCommand.SAVE,
+              new Scanner("out.haar image percentage 40"));
+      assertEquals(Optional.of(40), save.getRequest().getPercentage());
+      assertEquals(Optional.empty(), CommandParser.parse(UserCommand.SAVE,
+              new Scanner("out.haar image")).getRequest().getPercentage());
+    }
+  }
+
+
+  /**
+   * Test class for reading and writing plain and binary PPM images.
+   */
+  public static class PPMCodecTest {
+    private static final String OUTPUT_DIRECTORY = "test_resources/output/";
+    private Image image;
+
+    @Before
+    public void setUp() throws ImageProcessorException {
+      Pixel[][] pixels = new Pixel[3][4];
+      for (int row = 0; row < pixels.length; row++) {
+        for (int col = 0; col < pixels[0].length; col++) {
+          pixels[row][col] = new RGB(row * 100, col * 85, 7 + row * col);
+        }
+      }
+      image = Factory.createImage(pixels);
+    }
+
+    private static String writeFile(String name, String content) throws IOException {
+      Path path = Paths.get(OUTPUT_DIRECTORY, name);
+      Files.createDirectories(path.getParent());
+      Files.write(path, content.getBytes(
+              StandardCharsets.US_ASCII));
+      return path.toString();
+    }
+
+    @Test
+    public void testPlainRoundTrip() throws ImageProcessorException {
+      String path = OUTPUT_DIRECTORY + "ppm-codec-plain.ppm";
+      IOUtils.write(image, path, ImageType.PPM);
+      assertEquals(image, IOUtils.read(path, ImageType.PPM));
+    }
+
+    @Test
+    public void testBinaryRoundTrip() throws ImageProcessorException, IOException {
+      String path = OUTPUT_DIRECTORY + "ppm-codec-binary.ppm";
+      IOUtils.write(image, path, ImageType.PPM, 0, true);
+      byte[] content = Files.readAllBytes(Paths.get(path));
+      assertEquals("P6", new String(content, 0, 2, StandardCharsets.US_ASCII));
+      assertEquals(image, IOUtils.read(path, ImageType.PPM));
+    }
+
+    @Test
+    public void testSaveCommandTakesBinary() throws ImageProcessorException {
+      ScriptCommand save = CommandParser.parse(UserCommand.SAVE,
+              new Scanner("out.ppm image binary"));
+      assertTrue(save.getRequest().isBinary());
+      assertEquals(Optional.empty(), save.getRequest().getPercentage());
+      assertFalse(CommandParser.parse(UserCommand.SAVE,
+              new Scanner("out.ppm image")).getRequest().isBinary());
+    }
+
+    @Test
+    public void testPlainFileFormat() throws ImageProcessorException, IOException {
+      String path = OUTPUT_DIRECTORY + "ppm-codec-format.ppm";
+      Pixel[][] pixels = {{new RGB(0, 10, 255), new RGB(9, 99, 100)}};
+      IOUtils.write(Factory.createImage(pixels), path, ImageType.PPM);
+      String content = new String(Files.readAllBytes(
+              Paths.get(path)), StandardCharsets.US_ASCII);
+      assertEquals("P3\n2 1\n255\n0 10 255 9 99 100 \n", content);
+    }
+
+    @Test
+    public void testPlainFileWithComments()
+            throws ImageProcessorException, IOException {
+      String path = writeFile("ppm-codec-comments.ppm",
+              "P3\n# a comment\n2 1 # trailing comment\n255\n"
+              + "1 2 3\n\n  4 5 300\n");
+      Image read = IOUtils.read(path, ImageType.PPM);
+      assertEquals(new RGB(1, 2, 3), read.getPixel(0, 0));
+      assertEquals(new RGB(4, 5, 255), read.getPixel(0, 1));
+    }
+
+    @Test
+    public void testBinaryFileWithSixteenBitChannels()
+            throws ImageProcessorException, IOException {
+      Path path = Paths.get(OUTPUT_DIRECTORY,
+              "ppm-codec-wide.ppm");
+      Files.createDirectories(path.getParent());
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      bytes.write("P6 1 1 65535\n".getBytes(StandardCharsets.US_ASCII));
+      bytes.write(new byte[]{(byte) 0xff, (byte) 0xff, 0, 0, (byte) 0x80, 0});
+      Files.write(path, bytes.toByteArray());
+      Image read = IOUtils.read(path.toString(), ImageType.PPM);
+      assertEquals(new RGB(255, 0, 128), read.getPixel(0, 0));
+    }
+
+    @Test
+    public void testInvalidFiles() throws IOException {
+      String wrongMagic = writeFile("ppm-codec-magic.ppm", "P2\n1 1\n255\n0\n");
+      String truncated = writeFile("ppm-codec-truncated.ppm", "P3\n2 1\n255\n1 2 3\n");
+      String notNumber = writeFile("ppm-codec-number.ppm", "P3\n1 1\n255\n1 x 3\n");
+      assertThrows(ImageProcessorException.class,
+          () -> IOUtils.read(wrongMagic, ImageType.PPM));
+      assertThrows(ImageProcessorException.class,
+          () -> IOUtils.read(truncated, ImageType.PPM));
+      assertThrows(ImageProcessorException.class,
+          () -> IOUtils.read(notNumber, ImageType.PPM));
+    }
+  }
+
+
+  /**
+   * Test class for MappedImage and the RAW image type.
+   */
+  public static class MappedImageTest {
+    private static final String OUTPUT_DIRECTORY = "test_resources/output/";
+    private Image image;
+
+    @Before
+    public void setUp() throws ImageProcessorException {
+      image = TestUtils.randomImage(9, 14, 5);
+    }
+
+    private static byte[] channelBytes(Image image, boolean planar) {
+      int width = image.getWidth();
+      int height = image.getHeight();
+      byte[] bytes = new byte[width * height * 3];
+      for (int row = 0; row < height; row++) {
+        for (int col = 0; col < width; col++) {
+          Pixel pixel = image.getPixel(row, col);
+          int[] channels = {pixel.getRed(), pixel.getGreen(), pixel.getBlue()};
+          for (int channel = 0; channel < 3; channel++) {
+            int index = planar ? channel * width * height + row * width + col
+                    : (row * width + col) * 3 + channel;
+            bytes[index] = (byte) channels[channel];
+          }
+        }
+      }
+      return bytes;
+    }
+
+    @Test
+    public void testReadAndWriteThroughIOUtils() throws ImageProcessorException {
+      String path = OUTPUT_DIRECTORY + "mapped-image.raw";
+      assertEquals(ImageType.RAW, ImageType.getImageTypeFromPath(path));
+      IOUtils.write(image, path, ImageType.RAW);
+      Image read = IOUtils.read(path, ImageType.RAW);
+      assertTrue(read instanceof MappedImage);
+      assertEquals(RawLayout.INTERLEAVED, ((MappedImage) read).getLayout());
+      assertEquals(image, read);
+      assertEquals(read, image);
+      assertEquals(image.hashCode(), read.hashCode());
+    }
+
+    @Test
+    public void testSaveToPathItWasLoadedFrom()
+            throws ImageProcessorException, IOException {
+      Path directory = Paths.get(OUTPUT_DIRECTORY, "same-path");
+      String path = directory.resolve("image.raw").toString();
+      IOUtils.write(image, path, ImageType.RAW);
+      Image read = IOUtils.read(path, ImageType.RAW);
+      IOUtils.write(read.horizontalFlip(), path, ImageType.RAW);
+      assertEquals(image, read);
+      assertEquals(image.horizontalFlip(), IOUtils.read(path, ImageType.RAW));
+      try (Stream<Path> files = Files.list(directory)) {
+        assertEquals(1, files.count());
+      }
+    }
+
+    @Test
+    public void testPlanarFile() throws ImageProcessorException, IOException {
+      Path path = Paths.get(OUTPUT_DIRECTORY, "mapped-image-planar.raw");
+      Files.createDirectories(path.getParent());
+      try (OutputStream output = Files.newOutputStream(path)) {
+        RawImageCodec.write(image, output, RawLayout.PLANAR);
+      }
+      assertEquals(16 + 3 * 9 * 14, Files.size(path));
+      MappedImage read = RawImageCodec.read(path);
+      assertEquals(RawLayout.PLANAR, read.getLayout());
+      assertEquals(image, read);
+    }
+
+    @Test
+    public void testSegmentsOfRows() throws ImageProcessorException {
+      for (boolean planar : new boolean[]{false, true}) {
+        RawLayout layout = planar ? RawLayout.PLANAR : RawLayout.INTERLEAVED;
+        byte[] bytes = channelBytes(image, planar);
+        int planeSize = bytes.length / MappedImage.getPlaneCount(layout);
+        int rowSize = planeSize / 9;
+        List<ByteBuffer> segments = new ArrayList<>();
+        for (int plane = 0; plane < MappedImage.getPlaneCount(layout); plane++) {
+          for (int firstRow = 0; firstRow < 9; firstRow += 4) {
+            int rows = Math.min(4, 9 - firstRow);
+            segments.add(ByteBuffer.wrap(bytes,
+                    plane * planeSize + firstRow * rowSize, rows * rowSize).slice());
+          }
+        }
+        MappedImage mapped = new MappedImage(14, 9, layout,
+                segments.toArray(new ByteBuffer[0]), 4);
+        assertEquals(image, mapped);
+      }
+    }
+
+    @Test
+    public void testOperationsMatchPixelArrayImage()
+            throws ImageProcessorException {
+      String path = OUTPUT_DIRECTORY + "mapped-image-operations.raw";
+      IOUtils.write(image, path, ImageType.RAW);
+      Image read = IOUtils.read(path, ImageType.RAW);
+      assertEquals(image.getSepia(), read.getSepia());
+      assertEquals(image.adjustImageBrightness(40), read.adjustImageBrightness(40));
+      assertEquals(image.levelsAdjust(10, 100, 200), read.levelsAdjust(10, 100, 200));
+      assertEquals(image.horizontalFlip(), read.horizontalFlip());
+      assertEquals(image.verticalFlip(), read.verticalFlip());
+      assertEquals(image.applyFilter(FilterOption.GAUSSIAN_BLUR),
+              read.applyFilter(FilterOption.GAUSSIAN_BLUR));
+      assertEquals(image.colorCorrect(), read.colorCorrect());
+      assertTrue(Arrays.deepEquals(image.getGreenChannel(), read.getGreenChannel()));
+      assertEquals(image.getLuma(), Factory.createLazyImage(read).getLuma());
+    }
+
+    @Test
+    public void testInvalidFilesAreRejected() throws IOException {
+      Path wrongMagic = Paths.get(OUTPUT_DIRECTORY, "mapped-image-magic.raw");
+      Path truncated = Paths.get(OUTPUT_DIRECTORY, "mapped-image-truncated.raw");
+      Files.createDirectories(wrongMagic.getParent());
+      Files.write(wrongMagic, new byte[20]);
+      Files.write(truncated, new byte[]{'R', 'A', 'W', 'I', 1, 0, 0, 0,
+          0, 0, 0, 2, 0, 0, 0, 2, 1, 2, 3});
+      assertThrows(ImageProcessorException.class,
+          () -> IOUtils.read(wrongMagic.toString(), ImageType.RAW));
+      assertThrows(ImageProcessorException.class,
+          () -> IOUtils.read(truncated.toString(), ImageType.RAW));
+      assertThrows(ImageProcessorException.class,
+          () -> IOUtils.read(OUTPUT_DIRECTORY + "missing.raw", ImageType.RAW));
+    }
+  }
+
+
+  /**
+   * Test class for reading and writing images through the raster in bulk.
+   */
+  public static class BulkRasterTest {
+    private static final String OUTPUT_DIRECTORY = "test_resources/output/";
+
+    private static BufferedImage createBufferedImage(int type) {
+      Random random = new Random(type);
+      BufferedImage image = new BufferedImage(11, 7, type);
+      for (int row = 0; row < 7; row++) {
+        for (int col = 0; col < 11; col++) {
+          image.setRGB(col, row, (random.nextInt(256) << 24) | random.nextInt(1 << 24));
+        }
+      }
+      return image;
+    }
+
+    private static void assertSamePixels(BufferedImage expected, Image actual) {
+      assertEquals(expected.getWidth(), actual.getWidth());
+      assertEquals(expected.getHeight(), actual.getHeight());
+      for (int row = 0; row < expected.getHeight(); row++) {
+        for (int col = 0; col < expected.getWidth(); col++) {
+          int rgb = expected.getRGB(col, row);
+          Pixel pixel = actual.getPixel(row, col);
+          assertEquals((rgb >> 16) & 0xff, pixel.getRed());
+          assertEquals((rgb >> 8) & 0xff, pixel.getGreen());
+          assertEquals(rgb & 0xff, pixel.getBlue());
+        }
+      }
+    }
+
+    @Test
+    public void testReadMatchesGetRGB() throws ImageProcessorException, IOException {
+      int[] types = {BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB,
+          BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_4BYTE_ABGR,
+          BufferedImage.TYPE_BYTE_INDEXED, BufferedImage.TYPE_USHORT_565_RGB};
+      Files.createDirectories(Paths.get(OUTPUT_DIRECTORY));
+      for (int type : types) {
+        String path = OUTPUT_DIRECTORY + "bulk-raster-" + type + ".png";
+        ImageIO.write(createBufferedImage(type), "png",
+                new File(path));
+        BufferedImage expected = ImageIO.read(new File(path));
+        Image read = IOUtils.read(path, ImageType.PNG);
+        assertTrue(read instanceof PackedImage);
+        assertSamePixels(expected, read);
+      }
+    }
+
+    @Test
+    public void testToBufferedImage() throws ImageProcessorException {
+      Pixel[][] pixels = new Pixel[5][8];
+      for (int row = 0; row < 5; row++) {
+        for (int col = 0; col < 8; col++) {
+          pixels[row][col] = new RGB(row * 50, col * 30, row * col * 5);
+        }
+      }
+      Image image = Factory.createImage(pixels);
+      for (Image source : new Image[]{image, PackedImage.fromImage(image),
+          Factory.createLazyImage(image).adjustImageBrightness(0)}) {
+        BufferedImage bufferedImage = IOUtils.toBufferedImage(source);
+        assertEquals(BufferedImage.TYPE_INT_RGB, bufferedImage.getType());
+        assertSamePixels(bufferedImage, image);
+      }
+    }
+  }
+
+
+  /**
+   * Test class for SpillingImageMemory.
+   */
+  public static class SpillingImageMemoryTest {
+    private static final Path SCRATCH_DIRECTORY =
+            Paths.get("test_resources/output/spill");
+    private SpillingImageMemory memory;
+
+    private static Image createImage(int seed) throws ImageProcessorException {
+      return PackedImage.fromImage(TestUtils.randomImage(10, 10, seed));
+    }
+
+    @Before
+    public void setUp() throws ImageProcessorException {
+      // Every packed image of 10x10 takes 400 bytes, so two images fit.
+      memory = new SpillingImageMemory(800, SCRATCH_DIRECTORY);
+    }
+
+    @After
+    public void tearDown() {
+      memory.clearMemory();
+    }
+
+    @Test
+    public void testImagesWithinBudgetStayInHeap()
+            throws ImageProcessorException {
+      memory.addImage("first", createImage(1));
+      memory.addImage("second", createImage(2));
+      assertEquals(800, memory.getResidentBytes());
+      assertEquals(0, memory.getSpillCount());
+      assertEquals(createImage(1), memory.getImage("first"));
+      assertEquals(1, memory.getHitCount());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedImageIsSpilledAndReloaded()
+            throws ImageProcessorException {
+      memory.addImage("first", createImage(1));
+      memory.addImage("second", createImage(2));
+      memory.getImage("first");
+      memory.addImage("third", createImage(3));
+
+      assertTrue(memory.isSpilled("second"));
+      assertFalse(memory.isSpilled("first"));
+      assertFalse(memory.isSpilled("third"));
+      assertEquals(1, memory.getSpillCount());
+      assertEquals(800, memory.getResidentBytes());
+
+      Image reloaded = memory.getImage("second");
+      assertTrue(reloaded instanceof MappedImage);
+      assertEquals(createImage(2), reloaded);
+      assertEquals(1, memory.getReloadCount());
+      assertFalse(memory.isSpilled("second"));
+      assertEquals(reloaded, memory.getImage("second"));
+      assertEquals(1, memory.getReloadCount());
+    }
+
+    @Test
+    public void testImageLargerThanBudgetIsKept() throws ImageProcessorException {
+      SpillingImageMemory smallMemory = new SpillingImageMemory(100, SCRATCH_DIRECTORY);
+      smallMemory.addImage("large", createImage(4));
+      assertFalse(smallMemory.isSpilled("large"));
+      smallMemory.addImage("next", createImage(5));
+      assertTrue(smallMemory.isSpilled("large"));
+      assertEquals(createImage(4), smallMemory.getImage("large"));
+      smallMemory.clearMemory();
+    }
+
+    @Test
+    public void testMissAndClear() throws ImageProcessorException, IOException {
+      assertThrows(ImageProcessorException.NotFoundException.class,
+          () -> memory.getImage("missing"));
+      assertEquals(1, memory.getMissCount());
+      for (int i = 0; i < 4; i++) {
+        memory.addImage("image" + i, createImage(i));
+      }
+      assertEquals(2, memory.getSpillCount());
+      memory.clearMemory();
+      assertEquals(0, memory.getResidentBytes());
+      assertThrows(ImageProcessorException.NotFoundException.class,
+          () -> memory.getImage("image0"));
+      try (Stream<Path> files = Files.list(SCRATCH_DIRECTORY)) {
+        assertEquals(0, files.count());
+      }
+    }
+
+    @Test
+    public void testMemoriesSpillToPrivateDirectories()
+            throws ImageProcessorException, IOException {
+      SpillingImageMemory other = new SpillingImageMemory(800, SCRATCH_DIRECTORY);
+      long existing;
+      try (Stream<Path> directories = Files.list(SCRATCH_DIRECTORY)) {
+        existing = directories.count();
+      }
+      for (int i = 0; i < 3; i++) {
+        memory.addImage("image" + i, createImage(i));
+        other.addImage("image" + i, createImage(i + 10));
+      }
+      try (Stream<Path> directories = Files.list(SCRATCH_DIRECTORY)) {
+        assertEquals(existing + 2, directories.count());
+      }
+      assertEquals(createImage(0), memory.getImage("image0"));
+      assertEquals(createImage(10), other.getImage("image0"));
+      other.clearMemory();
+      try (Stream<Path> directories = Files.list(SCRATCH_DIRECTORY)) {
+        assertEquals(existing + 1, directories.count());
+      }
+    }
+
+    @Test
+    public void testReplacingImageUpdatesResidentBytes()
+            throws ImageProcessorException {
+      memory.addImage("image", createImage(1));
+      memory.addImage("image", createImage(2));
+      assertEquals(400, memory.getResidentBytes());
+      assertEquals(createImage(2), memory.getImage("image"));
+      memory.addImage(null, createImage(3));
+      memory.addImage("other", null);
+      assertEquals(400, memory.getResidentBytes());
+    }
+
+    @Test
+    public void testServiceWithSpillingMemory() throws ImageProcessorException {
+      ImageProcessingService service = Factory.createImageProcessor(memory);
+      memory.addImage("base", createImage(7));
+      service.brighten(ImageProcessingRequest.builder()
+              .imageName("base").destinationImageName("bright").factor(10).build());
+      memory.addImage("filler1", createImage(8));
+      memory.addImage("filler2", createImage(9));
+      assertEquals(createImage(7).adjustImageBrightness(10),
+              memory.getImage("bright"));
+    }
+
+    @Test
+    public void testFactoryCreatesHashMapMemoryByDefault() {
+      assertTrue(Factory.createImageMemory() instanceof HashMapMemory);
+    }
+  }
+
+
+  /**
+   * Test class for ConcurrentImageMemory and concurrent use of the service.
+   */
+  public static class ConcurrentImageMemoryTest {
+    private ConcurrentImageMemory sharedMemory;
+    private Image baseImage;
+
+    @Before
+    public void setUp() throws ImageProcessorException {
+      sharedMemory = new ConcurrentImageMemory();
+      int[] pixels = new int[6 * 4];
+      for (int i = 0; i < pixels.length; i++) {
+        pixels[i] = i * 0x0a0b0c;
+      }
+      baseImage = Factory.createImage(6, 4, pixels);
+      sharedMemory.addImage("base", baseImage);
+    }
+
+    @Test
+    public void testSessionsHaveSeparateNamespaces()
+            throws ImageProcessorException {
+      ConcurrentImageMemory first = sharedMemory.openSession();
+      ConcurrentImageMemory second = sharedMemory.openSession();
+      assertTrue(first.isSession());
+      assertFalse(sharedMemory.isSession());
+      Image bright = baseImage.adjustImageBrightness(10);
+      first.addImage("result", bright);
+      assertEquals(bright, first.getImage("result"));
+      assertThrows(ImageProcessorException.NotFoundException.class,
+          () -> second.getImage("result"));
+      assertThrows(ImageProcessorException.NotFoundException.class,
+          () -> sharedMemory.getImage("result"));
+    }
+
+    @Test
+    public void testSessionReadsButDoesNotModifySharedImages()
+            throws ImageProcessorException {
+      ConcurrentImageMemory session = sharedMemory.openSession();
+      assertEquals(baseImage, session.getImage("base"));
+      Image dark = baseImage.adjustImageBrightness(-10);
+      session.addImage("base", dark);
+      assertEquals(dark, session.getImage("base"));
+      assertEquals(baseImage, sharedMemory.getImage("base"));
+      assertEquals(baseImage, sharedMemory.openSession().getImage("base"));
+      session.clearMemory();
+      assertEquals(baseImage, session.getImage("base"));
+      assertEquals(baseImage, session.openSession().getImage("base"));
+    }
+
+    @Test
+    public void testInvalidArgumentsAreIgnored() {
+      sharedMemory.addImage(null, baseImage);
+      sharedMemory.addImage("empty", null);
+      assertThrows(ImageProcessorException.NotFoundException.class,
+          () -> sharedMemory.getImage("empty"));
+      assertThrows(ImageProcessorException.NotFoundException.class,
+          () -> sharedMemory.getImage(null));
+      assertTrue(sharedMemory.isThreadSafe());
+      assertFalse(new HashMapMemory().isThreadSafe());
+    }
+
+    @Test
+    public void testConcurrentSessionsThroughService() throws Exception {
+      int sessions = 8;
+      List<Callable<Image>> tasks = new ArrayList<>();
+      for (int i = 0; i < sessions; i++) {
+        int factor = i * 5;
+        tasks.add(() -> {
+          ImageProcessingService service =
+                  Factory.createImageProcessor(sharedMemory.openSession());
+          for (int step = 0; step < 50; step++) {
+            service.brighten(ImageProcessingRequest.builder().imageName("base")
+                    .destinationImageName("result").factor(factor).build());
+            service.sepiaImage(ImageProcessingRequest.builder().imageName("result")
+                    .destinationImageName("result").build());
+          }
+          return service.getImage("result");
+        });
+      }
+      ExecutorService executor =
+              Executors.newFixedThreadPool(4);
+      try {
+        List<Future<Image>> results = executor.invokeAll(tasks);
+        for (int i = 0; i < sessions; i++) {
+          assertEquals(baseImage.adjustImageBrightness(i * 5).getSepia(),
+                  results.get(i).get());
+        }
+      } finally {
+        executor.shutdown();
+      }
+    }
+
+    @Test
+    public void testServiceIsSafeWithHashMapMemory() throws Exception {
+      ImageMemory<Image> memory = new HashMapMemory();
+      memory.addImage("base", baseImage);
+      ImageProcessingService service = Factory.createImageProcessor(memory);
+      ExecutorService executor =
+              Executors.newFixedThreadPool(4);
+      try {
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+          String name = "image" + i;
+          futures.add(executor.submit(() -> {
+            service.brighten(ImageProcessingRequest.builder().imageName("base")
+                    .destinationImageName(name).factor(1).build());
+            return null;
+          }));
+        }
+        for (Future<?> future : futures) {
+          future.get();
+        }
+      } finally {
+        executor.shutdown();
+      }
+      for (int i = 0; i < 200; i++) {
+        assertEquals(baseImage.adjustImageBrightness(1), service.getImage("image" + i));
+      }
+    }
+  }
+
+  public static class ScriptPlanTest {
+    private static final Path SCRIPT = Paths.get("test_resources/output/plan_script.txt");
+
+    private static ScriptPlan compile(String script, boolean keepImages)
+            throws IOException {
+      return ScriptPlan.compile(new BufferedReader(new StringReader(script)),
+              keepImages);
+    }
+
+    private static void writeScript(String script) throws IOException {
+      Files.createDirectories(SCRIPT.getParent());
+      Files.write(SCRIPT, script.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testUnusedChainIsEliminatedWhenImagesAreDiscarded()
+            throws IOException {
+      String script = "load test_resources/input/random.png a\n"
+              + "blur a b\n"
+              + "sepia b c\n"
+              + "save test_resources/output/plan.png a\n";
+      ScriptPlan plan = compile(script, false);
+      assertEquals(4, plan.getSteps().size());
+      assertFalse(plan.getSteps().get(0).isEliminated());
+      assertTrue(plan.getSteps().get(1).isEliminated());
+      assertTrue(plan.getSteps().get(2).isEliminated());
+      assertFalse(plan.getSteps().get(3).isEliminated());
+      assertEquals(0, compile(script, true).getEliminatedCount());
+    }
+
+    @Test
+    public void testUsedImagesAreNotEliminated() throws IOException {
+      ScriptPlan plan = compile("blur a b\nsepia b c\nsave out.png c\n", false);
+      assertEquals(0, plan.getEliminatedCount());
+    }
+
+    @Test
+    public void testOverwrittenImageIsStillUsed() throws IOException {
+      // The second blur may fail, so the first blur is still needed.
+      ScriptPlan plan = compile("blur a b\nblur x b\nsave out.png b\n", false);
+      assertEquals(0, plan.getEliminatedCount());
+    }
+
+    @Test
+    public void testResetAndQuitHideEarlierImages() throws IOException {
+      assertEquals(1, compile("blur a b\nreset\n", true).getEliminatedCount());
+      assertEquals(1, compile("blur a b\nquit\nsave out.png b\n", true)
+              .getEliminatedCount());
+      // A failing blur would skip the quit on the same line, so the sepia
+      // image may still be saved.
+      ScriptPlan plan = compile("sepia a c\nblur x y quit\nsave out.png c\n",
+              false);
+      assertFalse(plan.getSteps().get(0).isEliminated());
+      assertTrue(plan.getSteps().get(1).isEliminated());
+    }
+
+    @Test
+    public void testRunUsesEveryImage() throws IOException {
+      assertEquals(0, compile("blur a b\nrun other.txt\n", false)
+              .getEliminatedCount());
+    }
+
+    @Test
+    public void testCommandsWhichMayFailAreNotEliminated() throws IOException {
+      assertEquals(0, compile("blur a b split 50\n"
+              + "compress 150 a c\n"
+              + "levels-adjust 10 20 30 a d\n"
+              + "rgb-combine e r g b\n"
+              + "load missing.png f\n", false).getEliminatedCount());
+      assertEquals(2, compile("compress 50 a c\nrgb-split a r g b\n", false)
+              .getEliminatedCount());
+    }
+
+    @Test
+    public void testErrorsAreKeptInOrder() throws IOException {
+      ScriptPlan plan = compile("# comment\n\nfoo load in.png a\n"
+              + "brighten x a b load in.png c\n"
+              + "load\n", true);
+      List<ScriptPlan.Step> steps = plan.getSteps();
+      assertEquals(4, steps.size());
+      assertEquals("Invalid command: foo", steps.get(0).getMessage());
+      assertFalse(steps.get(0).endsLine());
+      assertEquals(3, steps.get(0).getLine());
+      assertEquals(UserCommand.LOAD, steps.get(1).getCommand().getCommand());
+      assertEquals(List.of("a"), steps.get(1).getCommand().getDestinations());
+      assertEquals("Invalid factor provided for brightening the image.",
+              steps.get(2).getMessage());
+      assertTrue(steps.get(2).endsLine());
+      assertEquals("Invalid command parameters.", steps.get(3).getMessage());
+      assertEquals(5, steps.get(3).getLine());
+    }
+
+    @Test
+    public void testParsedCommandKnowsItsImages() throws ImageProcessorException {
+      ScriptCommand combine = CommandParser.parse(UserCommand.RGB_COMBINE,
+              new Scanner("out r g b"));
+      assertEquals(List.of("r", "g", "b"), combine.getSources());
+      assertEquals(List.of("out"), combine.getDestinations());
+      ScriptCommand brighten = CommandParser.parse(UserCommand.BRIGHTEN,
+              new Scanner("10 a b"));
+      assertEquals("Successfully brightened the image at factor:10",
+              brighten.getSuccessMessage());
+      assertTrue(brighten.isPure());
+    }
+
+    @Test
+    public void testUserCommandLookup() {
+      for (UserCommand command : UserCommand.values()) {
+        assertEquals(Optional.of(command),
+                UserCommand.getCommand(command.getCommand()));
+      }
+      assertFalse(UserCommand.getCommand("unknown").isPresent());
+      assertFalse(UserCommand.getCommand(null).isPresent());
+    }
+
+    @Test
+    public void testFileModeSkipsUnusedCommandsWithSameMessages()
+            throws IOException {
+      writeScript("load test_resources/input/random.png a\n"
+              + "sepia a unused\n"
+              + "blur missing other\n"
+              + "save test_resources/output/plan_saved.png a\n");
+      HashMapMemory memory = new HashMapMemory();
+      StringBuilder output = new StringBuilder();
+      ImageProcessorController controller = new CommandLineImageProcessorController(
+              new ConsoleInput(new StringReader(SCRIPT.toString())),
+              new ConsoleOutput(output),
+              Factory.createImageProcessor(memory));
+      assertThrows(ImageProcessingRunTimeException.QuitException.class,
+          controller::processCommands);
+      String messages = output.toString();
+      assertTrue(messages.contains("Successfully converted the image to sepia."));
+      // The missing image is still reported since the blur cannot be skipped.
+      assertTrue(messages.contains("Image with name missing not found in memory"));
+      assertTrue(messages.indexOf("sepia") < messages.indexOf("missing"));
+      assertTrue(messages.contains("Successfully saved the image."));
+      assertThrows(ImageProcessorException.NotFoundException.class,
+          () -> memory.getImage("unused"));
+      assertTrue(new File("test_resources/output/plan_saved.png").exists());
+    }
+
+    @Test
+    public void testRunKeepsEveryImage() throws IOException, ImageProcessorException {
+      writeScript("load test_resources/input/random.png a\nsepia a unused\n");
+      HashMapMemory memory = new HashMapMemory();
+      StringBuilder output = new StringBuilder();
+      ImageProcessorController controller = new InteractiveImageProcessorController(
+              new ConsoleInput(new StringReader("run " + SCRIPT)),
+              new ConsoleOutput(output),
+              Factory.createImageProcessor(memory));
+      controller.processCommands();
+      assertEquals(memory.getImage("a").getSepia(), memory.getImage("unused"));
+      assertTrue(output.toString().contains("Successfully executed the script file."));
+    }
+  }
+
+  public static class ScriptExecutorTest {
+    private static final Path SCRIPT = Paths.get("test_resources/output/parallel_script.txt");
+    private ExecutorService pool;
+
+    @Before
+    public void setUp() {
+      pool = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+      pool.shutdownNow();
+    }
+
+    private static ScriptPlan compile(String script) throws IOException {
+      return ScriptPlan.compile(new BufferedReader(new StringReader(script)), true);
+    }
+
+    private String runScript(String script, Executor executor, ImageMemory<Image> memory)
+            throws IOException {
+      Files.createDirectories(SCRIPT.getParent());
+      Files.write(SCRIPT, script.getBytes(StandardCharsets.UTF_8));
+      StringBuilder output = new StringBuilder();
+      ImageProcessorController controller = new InteractiveImageProcessorController(
+              new ConsoleInput(new StringReader("run " + SCRIPT)),
+              new ConsoleOutput(output),
+              Factory.createImageProcessor(memory),
+              executor);
+      controller.processCommands();
+      return output.toString();
+    }
+
+    @Test
+    public void testParallelExecutionMatchesSequentialExecution()
+            throws IOException, ImageProcessorException {
+      String script = "load test_resources/input/random.png a\n"
+              + "load test_resources/input/random.ppm b\n"
+              + "load test_resources/input/missing.png c\n"
+              + "blur a a-blur\n"
+              + "sepia b b-sepia split 50\n"
+              + "blur c c-blur sepia c c-sepia\n"
+              + "compress 150 a bad horizontal-flip a never\n"
+              + "unknown brighten 10 a-blur a-bright\n"
+              + "rgb-split a-bright r g bl\n"
+              + "rgb-combine combined bl g r\n"
+              + "histogram b-sepia b-histogram\n"
+              + "save test_resources/output/parallel_a.png a-bright\n"
+              + "reset\n"
+              + "load test_resources/input/random.png a\n"
+              + "vertical-flip a a-flip\n";
+      HashMapMemory sequentialMemory = new HashMapMemory();
+      String sequential = runScript(script, ScriptExecutor.SEQUENTIAL, sequentialMemory);
+      HashMapMemory parallelMemory = new HashMapMemory();
+      String parallel = runScript(script, pool, parallelMemory);
+      assertEquals(sequential, parallel);
+      assertTrue(parallel.contains("Image with name c not found in memory"));
+      assertFalse(parallel.contains("Successfully flipped the image horizontally."));
+      assertEquals(sequentialMemory.getImage("a-flip"), parallelMemory.getImage("a-flip"));
+      assertThrows(ImageProcessorException.NotFoundException.class,
+          () -> parallelMemory.getImage("combined"));
+    }
+
+    @Test
+    public void testIndependentCommandsRunConcurrently() throws IOException {
+      ScriptPlan plan = compile("blur a b\nblur c d\n");
+      CountDownLatch bothStarted = new CountDownLatch(2);
+      List<String> messages = new ArrayList<>();
+      new ScriptExecutor(pool).execute(plan, command -> {
+        bothStarted.countDown();
+        try {
+          if (!bothStarted.await(10, TimeUnit.SECONDS)) {
+            return new ExecutionStatus(false, "not concurrent");
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return new ExecutionStatus(true, command.getRequest().getImageName());
+      }, (message, type) -> messages.add(message));
+      assertEquals(List.of("a", "c"), messages);
+    }
+
+    @Test
+    public void testDependentCommandsRunInOrder() throws IOException {
+      ScriptPlan plan = compile("load x.png a\nblur a b\nsave x.png b\n"
+              + "load x.png c\nsepia c a\n");
+      List<String> executed = Collections.synchronizedList(new ArrayList<>());
+      new ScriptExecutor(pool).execute(plan, command -> {
+        executed.add(command.getCommand().getCommand());
+        return new ExecutionStatus(true, "");
+      }, (message, type) -> { });
+      assertEquals(List.of("load", "blur", "save", "load", "sepia"), executed);
+    }
+
+    @Test
+    public void testFailureSkipsRestOfLine() throws IOException {
+      ScriptPlan plan = compile("blur a b sepia b c\nsepia d e\n");
+      List<String> messages = Collections.synchronizedList(new ArrayList<>());
+      new ScriptExecutor(pool).execute(plan, command -> {
+        if (command.getSources().contains("a")) {
+          throw new ImageProcessorException("missing a");
+        }
+        return new ExecutionStatus(true, command.getSuccessMessage());
+      }, (message, type) -> messages.add(message));
+      assertEquals(List.of("missing a", "Successfully converted the image to sepia."),
+              messages);
+    }
+
+    @Test
+    public void testRuntimeErrorStopsScriptAfterEarlierMessages() throws IOException {
+      ScriptPlan plan = compile("blur a b\nsepia b c\nbrighten 10 c d\n");
+      List<String> messages = new ArrayList<>();
+      ImageProcessingRunTimeException exception = assertThrows(
+          ImageProcessingRunTimeException.class,
+          () -> new ScriptExecutor(ScriptExecutor.SEQUENTIAL).execute(plan, command -> {
+            if (command.getCommand() == UserCommand.SEPIA) {
+              throw new ImageProcessingRunTimeException("broken");
+            }
+            return new ExecutionStatus(true, command.getSuccessMessage());
+          }, (message, type) -> messages.add(message)));
+      assertEquals("broken", exception.getMessage());
+      assertEquals(List.of("Successfully blurred the image."), messages);
+    }
+
+    @Test
+    public void testScriptExecutorFromProperty() {
+      try {
+        assertEquals(ScriptExecutor.SEQUENTIAL, Factory.createScriptExecutor());
+        System.setProperty(Factory.SCRIPT_THREADS_PROPERTY, "1");
+        assertEquals(ScriptExecutor.SEQUENTIAL, Factory.createScriptExecutor());
+        System.setProperty(Factory.SCRIPT_THREADS_PROPERTY, "3");
+        Executor executor = Factory.createScriptExecutor();
+        assertTrue(executor instanceof ExecutorService);
+        ((ExecutorService) executor).shutdownNow();
+        System.setProperty(Factory.SCRIPT_THREADS_PROPERTY, "many");
+        assertThrows(ImageProcessingRunTimeException.class,
+            Factory::createScriptExecutor);
+      } finally {
+        System.clearProperty(Factory.SCRIPT_THREADS_PROPERTY);
+      }
+    }
+  }
+
+  public static class BatchModeTest {
+    private static final Path INPUT = Paths.get("test_resources/output/batch_in");
+    private static final Path OUTPUT = Paths.get("test_resources/output/batch_out");
+    private static final Path TEMPLATE = Paths.get("test_resources/output/batch_template.txt");
+
+    @Before
+    public void setUp() throws IOException {
+      TestUtils.cleanUp(INPUT.toString());
+      Files.createDirectories(INPUT);
+      Files.createDirectories(OUTPUT);
+      for (String name : new String[]{"first.png", "second.png", "third.ppm"}) {
+        Files.copy(Paths.get("test_resources/input/random." + name.split("\\.")[1]),
+                INPUT.resolve(name), StandardCopyOption.REPLACE_EXISTING);
+      }
+      Files.write(INPUT.resolve("notes.txt"), "not an image".getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String runBatch(String template, String input, int workers,
+                                   Supplier<ImageProcessingService> services)
+            throws IOException {
+      Files.write(TEMPLATE, template.getBytes(StandardCharsets.UTF_8));
+      StringBuilder output = new StringBuilder();
+      ImageProcessorController controller = new BatchImageProcessorController(
+              TEMPLATE, input, workers, services, new ConsoleOutput(output));
+      assertThrows(ImageProcessingRunTimeException.QuitException.class,
+          controller::processCommands);
+      return output.toString();
+    }
+
+    @Test
+    public void testTemplateIsAppliedToEveryImageOfDirectory() throws IOException {
+      ConcurrentImageMemory memory = new ConcurrentImageMemory();
+      String output = runBatch("load ${input} image\n"
+              + "blur image blurred\n"
+              + "sepia image unused\n"
+              + "save test_resources/output/batch_out/${name}-blur.${extension} blurred\n",
+              INPUT.toString(), 2, () -> Factory.createImageProcessor(memory.openSession()));
+      assertTrue(output.contains("OK " + INPUT.resolve("first.png")));
+      assertTrue(output.contains("OK " + INPUT.resolve("second.png")));
+      assertTrue(output.contains("OK " + INPUT.resolve("third.ppm")));
+      assertFalse(output.contains("notes.txt"));
+      assertTrue(output.contains("Processed 3 images, 0 failed"));
+      assertTrue(Files.exists(OUTPUT.resolve("first-blur.png")));
+      assertTrue(Files.exists(OUTPUT.resolve("third-blur.ppm")));
+    }
+
+    @Test
+    public void testGlobSelectsMatchingImages() throws IOException {
+      String output = runBatch("load ${input} image\n", INPUT + "/*.png", 1,
+          () -> Factory.createImageProcessor(new HashMapMemory()));
+      assertTrue(output.contains("Processed 2 images, 0 failed"));
+      assertFalse(output.contains("third.ppm"));
+    }
+
+    @Test
+    public void testFailuresAreReportedPerImage() throws IOException {
+      String output = runBatch("load ${input} image\nblur missing blurred\n",
+              INPUT.toString(), 3, () -> Factory.createImageProcessor(new HashMapMemory()));
+      assertTrue(output.contains("FAILED " + INPUT.resolve("first.png")));
+      assertTrue(output.contains("Image with name missing not found in memory"));
+      assertTrue(output.contains("Processed 3 images, 3 failed"));
+    }
+
+    @Test
+    public void testAtMostOneImagePerWorkerIsInMemory() throws IOException {
+      AtomicInteger active = new AtomicInteger();
+      AtomicInteger maximum = new AtomicInteger();
+      String output = runBatch("load ${input} image\nsharpen image sharpened\n"
+              + "save test_resources/output/batch_out/${name}-sharp.png sharpened\n",
+              INPUT.toString(), 2, () -> {
+                maximum.accumulateAndGet(active.incrementAndGet(), Math::max);
+                return Factory.createImageProcessor(new HashMapMemory() {
+                  @Override
+                  public void clearMemory() {
+                    super.clearMemory();
+                    active.decrementAndGet();
+                  }
+                });
+              });
+      assertTrue(output.contains("Processed 3 images, 0 failed"));
+      assertTrue(maximum.get() <= 2);
+      assertEquals(0, active.get());
+    }
+
+    @Test
+    public void testMissingInputIsReported() throws IOException {
+      String output = runBatch("load ${input} image\n", "test_resources/missing", 1,
+          () -> Factory.createImageProcessor(new HashMapMemory()));
+      assertTrue(output.contains("Input test_resources/missing not found"));
+      assertTrue(output.contains("Processed 0 images, 0 failed"));
+    }
+
+    @Test
+    public void testBatchArgumentParser() {
+      ArgumentParser parser = Factory.getArgumentParser(
+              new String[]{"-batch", TEMPLATE.toString(), INPUT.toString(), "2"});
+      assertTrue(parser instanceof BatchArgumentParser);
+      assertTrue(parser.createController(new String[]{"-batch", TEMPLATE.toString(),
+          INPUT.toString(), "2"}) instanceof BatchImageProcessorController);
+      assertThrows(ImageProcessingRunTimeException.class,
+          () -> parser.createController(new String[]{"-batch", TEMPLATE.toString()}));
+      assertThrows(ImageProcessingRunTimeException.class,
+          () -> parser.createController(new String[]{"-batch", TEMPLATE.toString(),
+              INPUT.toString(), "none"}));
+    }
+  }
+
+  /**
+   * Test class for ColorHistogram.
+   */
+  public static class ColorHistogramTest {
+    private ForkJoinPool forkJoinPool;
+    private Image image;
+
+    @Before
+    public void setUp() throws ImageProcessorException {
+      forkJoinPool = new ForkJoinPool(4);
+      image = TestUtils.randomImage(41, 19, 7);
+    }
+
+    @After
+    public void tearDown() {
+      ParallelUtils.setPool(ForkJoinPool.commonPool());
+      ParallelUtils.setSequentialThreshold(
+              ParallelUtils.DEFAULT_SEQUENTIAL_THRESHOLD);
+      forkJoinPool.shutdown();
+    }
+
+    @Test
+    public void testFrequenciesMatchPerChannelCount() {
+      ColorHistogram histogram = ColorHistogram.of(image);
+      assertArrayEquals(ExtractUtility.calculateColorFrequencies(image,
+              Pixel::getRed), histogram.getRedFrequencies());
+      assertArrayEquals(ExtractUtility.calculateColorFrequencies(image,
+              Pixel::getGreen), histogram.getGreenFrequencies());
+      assertArrayEquals(ExtractUtility.calculateColorFrequencies(image,
+              Pixel::getBlue), histogram.getBlueFrequencies());
+    }
+
+    @Test
+    public void testPackedAndRenderedImagesGiveSameHistogram()
+            throws ImageProcessorException {
+      assertEquals(image.colorHistogram(),
+              PackedImage.fromImage(image).colorHistogram());
+    }
+
+    @Test
+    public void testParallelHistogramIsIdenticalToSequential()
+            throws ImageProcessorException {
+      ColorHistogram sequential = image.colorHistogram();
+      ParallelUtils.setPool(forkJoinPool);
+      ParallelUtils.setSequentialThreshold(1);
+      assertEquals(sequential, image.colorHistogram());
+      assertEquals(sequential, PackedImage.fromImage(image).colorHistogram());
+    }
+
+    @Test
+    public void testMaxFrequency() throws ImageProcessorException {
+      Image twoPixels = new RenderedImage(new Pixel[][]{
+          {new RGB(10, 20, 30), new RGB(10, 40, 30)}
+      });
+      ColorHistogram histogram = twoPixels.colorHistogram();
+      assertEquals(2, histogram.getMaxFrequency());
+      assertEquals(1, histogram.getGreenFrequencies()[40]);
+    }
+
+    @Test
+    public void testFrequenciesAreCopies() {
+      ColorHistogram histogram = image.colorHistogram();
+      histogram.getRedFrequencies()[0] = -1;
+      assertEquals(ColorHistogram.of(image), histogram);
+    }
+
+    @Test
+    public void testHistogramImageUsesSharedFrequencies()
+            throws ImageProcessorException {
+      assertEquals(ExtractUtility.createHistogram(image),
+              ExtractUtility.createHistogram(image.colorHistogram()));
+    }
+  }
 }